@@ -0,0 +1,196 @@
+package com.creditx.posting.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Adaptive limit on the CMS calls in flight, in the manner of TCP congestion control. Each call
+ * that completes within {@code latency-tolerance} times the baseline latency, while the limit is
+ * at least half used, raises the limit by {@code 1 / limit}, so at most one per round of calls. A
+ * call whose response times out or is answered 429 or 503 cuts the limit by {@code backoff-ratio},
+ * once per round: calls started before the last cut do not cut it again. Slower calls hold the
+ * limit. The baseline is the lowest latency seen, taken afresh every {@code baseline-window} calls
+ * so that it follows CMS when it gets slower for good.
+ *
+ * <p>Calls beyond the limit wait for a slot, which holds back the consumer thread making them,
+ * and fail with a {@link CmsLimitExceededException} after {@code max-queue-wait} ms. Calls that
+ * fail without a response for any other reason do not change the limit: a connect timeout, a wait
+ * for a pooled connection or a rejection by the circuit breaker or bulkhead says nothing about
+ * whether CMS is shedding load. Exports the limit as {@code cms.client.limit}, the calls in flight
+ * as {@code cms.client.inflight}, the time spent waiting for a slot as
+ * {@code cms.client.queue.wait} and the calls given up on as {@code cms.client.limit.exceeded}.
+ *
+ * <p>Only the blocking CMS client is limited. Waiting for a slot would block an event loop thread,
+ * so the reactive consumer mode bounds its calls in flight with its fixed concurrency under the
+ * bulkhead instead; see {@code ReactiveCmsCommitClient}.
+ */
+public class CmsAdaptiveLimiter implements ClientHttpRequestInterceptor {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final double latencyTolerance;
+  private final int baselineWindow;
+  private final long maxQueueWaitNanos;
+  private final Timer queueWait;
+  private final Counter exceeded;
+  private volatile double limit;
+  private volatile int inFlight;
+  private long baselineNanos = Long.MAX_VALUE;
+  private long windowMinNanos = Long.MAX_VALUE;
+  private int windowCalls;
+  private long lastCutNanos = System.nanoTime();
+
+  public CmsAdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+      double latencyTolerance, int baselineWindow, long maxQueueWaitMillis,
+      MeterRegistry meterRegistry) {
+    if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit
+        || initialLimit > maxLimit) {
+      throw new IllegalArgumentException(
+          "CMS limiter limits must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("CMS limiter backoff-ratio must be between 0 and 1");
+    }
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTolerance = latencyTolerance;
+    this.baselineWindow = baselineWindow;
+    this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+    Gauge.builder("cms.client.limit", this, CmsAdaptiveLimiter::limit)
+        .description("Current adaptive limit on CMS calls in flight")
+        .register(meterRegistry);
+    Gauge.builder("cms.client.inflight", this, CmsAdaptiveLimiter::inFlight)
+        .description("CMS calls in flight")
+        .register(meterRegistry);
+    this.queueWait = Timer.builder("cms.client.queue.wait")
+        .description("Time CMS calls waited for a slot under the adaptive limit")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.exceeded = Counter.builder("cms.client.limit.exceeded")
+        .description("CMS calls not sent because no slot freed up in time")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+      ClientHttpRequestExecution execution) throws IOException {
+    long start = acquire();
+    boolean dropped = false;
+    boolean sampled = true;
+    try {
+      ClientHttpResponse response = execution.execute(request, body);
+      int status = response.getStatusCode().value();
+      dropped = status == HttpStatus.TOO_MANY_REQUESTS.value()
+          || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+      return response;
+    } catch (SocketTimeoutException e) {
+      // a connect timeout means CMS is unreachable, not that it is slow to answer
+      dropped = !(e instanceof ConnectTimeoutException);
+      sampled = dropped;
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      sampled = false;
+      throw e;
+    } finally {
+      release(start, System.nanoTime() - start, dropped, sampled);
+    }
+  }
+
+  public int limit() {
+    return (int) limit;
+  }
+
+  public int inFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Waits for a slot under the limit and takes it.
+   *
+   * @return when the slot was taken, in {@link System#nanoTime()} terms
+   */
+  long acquire() throws InterruptedIOException {
+    long queued = System.nanoTime();
+    lock.lock();
+    try {
+      long remaining = maxQueueWaitNanos;
+      while (inFlight >= (int) limit) {
+        if (remaining <= 0) {
+          exceeded.increment();
+          throw new CmsLimitExceededException((int) limit,
+              TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos));
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      inFlight++;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for a CMS call slot");
+    } finally {
+      lock.unlock();
+      queueWait.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Gives back the slot of a call that started at {@code start} and adjusts the limit by its
+   * outcome.
+   *
+   * @param latencyNanos how long the call took
+   * @param dropped      whether CMS shed the call: a response timeout, 429 or 503
+   * @param sampled      whether the outcome says anything about CMS load
+   */
+  void release(long start, long latencyNanos, boolean dropped, boolean sampled) {
+    lock.lock();
+    try {
+      if (sampled) {
+        adjust(start, latencyNanos, dropped);
+      }
+      inFlight--;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void adjust(long start, long latencyNanos, boolean dropped) {
+    if (dropped) {
+      if (start - lastCutNanos > 0) {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastCutNanos = System.nanoTime();
+      }
+      return;
+    }
+    baselineNanos = Math.min(baselineNanos, latencyNanos);
+    windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+    if (++windowCalls >= baselineWindow) {
+      baselineNanos = windowMinNanos;
+      windowMinNanos = Long.MAX_VALUE;
+      windowCalls = 0;
+    }
+    // grow only while the limit is in use, or an idle client would raise it without bound
+    if (latencyNanos <= baselineNanos * latencyTolerance && inFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.creditx.posting.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pauses the transaction.authorized binding while the CMS circuit is open, so consumers stop
+ * polling records that could only be rejected, and resumes it once the circuit turns half-open
+ * and lets probe calls through. Records that were rejected before the pause are redelivered from
+ * their offsets after the resume.
+ */
+@Component
+@Slf4j
+public class CmsCircuitBindingPauser {
+
+  private final BindingsLifecycleController bindingsLifecycleController;
+
+  public CmsCircuitBindingPauser(CircuitBreaker cmsCircuitBreaker,
+      BindingsLifecycleController bindingsLifecycleController) {
+    this.bindingsLifecycleController = bindingsLifecycleController;
+    cmsCircuitBreaker.getEventPublisher().onStateTransition(this::onStateTransition);
+  }
+
+  void onStateTransition(CircuitBreakerOnStateTransitionEvent event) {
+    State state = event.getStateTransition().getToState();
+    if (isOpen(state)) {
+      log.warn("CMS circuit is {}, pausing binding {}", state,
+          KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+      bindingsLifecycleController.pause(KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+    } else if (isOpen(event.getStateTransition().getFromState())) {
+      log.info("CMS circuit is {}, resuming binding {}", state,
+          KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+      bindingsLifecycleController.resume(KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+    }
+  }
+
+  private static boolean isOpen(State state) {
+    return state == State.OPEN || state == State.FORCED_OPEN;
+  }
+}
@@ -0,0 +1,12 @@
+package com.creditx.posting.config;
+
+/**
+ * Thrown when a CMS call waited longer than the adaptive limiter allows for a free slot and was
+ * not sent.
+ */
+public class CmsLimitExceededException extends RuntimeException {
+
+  public CmsLimitExceededException(int limit, long maxQueueWaitMillis) {
+    super("No CMS call slot free within " + maxQueueWaitMillis + " ms at a limit of " + limit);
+  }
+}
@@ -0,0 +1,64 @@
+package com.creditx.posting.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.regex.Pattern;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Times each CMS call as {@code cms.client.requests}, tagged with the endpoint, the method and the
+ * outcome. The endpoint is the request path with numeric segments replaced by {@code {id}}, so
+ * one commit endpoint is one series whatever the transaction. Calls that get no response are
+ * tagged TIMEOUT, CONNECT_ERROR or IO_ERROR instead of a status outcome.
+ */
+public class CmsRequestMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+  private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+  private final MeterRegistry meterRegistry;
+
+  public CmsRequestMetricsInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+      ClientHttpRequestExecution execution) throws IOException {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = Outcome.UNKNOWN.name();
+    try {
+      ClientHttpResponse response = execution.execute(request, body);
+      outcome = Outcome.forStatus(response.getStatusCode().value()).name();
+      return response;
+    } catch (InterruptedIOException e) {
+      outcome = "TIMEOUT";
+      throw e;
+    } catch (ConnectException e) {
+      outcome = "CONNECT_ERROR";
+      throw e;
+    } catch (IOException e) {
+      outcome = "IO_ERROR";
+      throw e;
+    } finally {
+      sample.stop(Timer.builder("cms.client.requests")
+          .description("Calls to the credit main service by endpoint and outcome")
+          .tag("endpoint", endpoint(request))
+          .tag("method", request.getMethod().name())
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+  }
+
+  static String endpoint(HttpRequest request) {
+    String path = request.getURI().getRawPath();
+    return path == null || path.isEmpty() ? "/" : ID_SEGMENT.matcher(path).replaceAll("/{id}");
+  }
+}
@@ -0,0 +1,119 @@
+package com.creditx.posting.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+@Configuration
+@Slf4j
+public class CmsResilienceConfig {
+
+  static final String CMS = "cms";
+
+  /**
+   * Circuit breaker over the last {@code sliding-window-size} CMS calls. It opens when at least
+   * {@code failure-rate-threshold} percent of them failed, or {@code slow-call-rate-threshold}
+   * percent took longer than {@code slow-call-duration} ms, and rejects calls while open. After
+   * {@code wait-duration} ms it turns half-open by itself and lets {@code half-open-calls} probe
+   * calls through, which close it again or reopen it.
+   */
+  @Bean
+  public CircuitBreaker cmsCircuitBreaker(
+      @Value("${app.creditmain.circuit-breaker.failure-rate-threshold:50}") float failureRate,
+      @Value("${app.creditmain.circuit-breaker.slow-call-duration:2000}") long slowCallMillis,
+      @Value("${app.creditmain.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRate,
+      @Value("${app.creditmain.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+      @Value("${app.creditmain.circuit-breaker.minimum-calls:20}") int minimumCalls,
+      @Value("${app.creditmain.circuit-breaker.wait-duration:10000}") long waitMillis,
+      @Value("${app.creditmain.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+      MeterRegistry meterRegistry) {
+    CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+        .slidingWindowType(SlidingWindowType.COUNT_BASED)
+        .slidingWindowSize(slidingWindowSize)
+        .minimumNumberOfCalls(minimumCalls)
+        .failureRateThreshold(failureRate)
+        .slowCallDurationThreshold(Duration.ofMillis(slowCallMillis))
+        .slowCallRateThreshold(slowCallRate)
+        .waitDurationInOpenState(Duration.ofMillis(waitMillis))
+        .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+        .automaticTransitionFromOpenToHalfOpenEnabled(true)
+        // the reactive client fails on every error status; a 4xx or 501 still means CMS is up
+        .recordException(e -> !(e instanceof WebClientResponseException response)
+            || CmsResilienceInterceptor.isCmsFailure(response.getStatusCode()))
+        .build());
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    CircuitBreaker circuitBreaker = registry.circuitBreaker(CMS);
+    circuitBreaker.getEventPublisher().onStateTransition(event ->
+        log.warn("CMS circuit breaker {}", event.getStateTransition()));
+    return circuitBreaker;
+  }
+
+  /**
+   * Caps the CMS calls in flight at {@code max-concurrent-calls}. A call beyond it waits up to
+   * {@code max-wait} ms for a slot and is rejected after that.
+   */
+  @Bean
+  public Bulkhead cmsBulkhead(
+      @Value("${app.creditmain.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+      @Value("${app.creditmain.bulkhead.max-wait:0}") long maxWaitMillis,
+      MeterRegistry meterRegistry) {
+    BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+        .maxConcurrentCalls(maxConcurrentCalls)
+        .maxWaitDuration(Duration.ofMillis(maxWaitMillis))
+        .build());
+    TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+    return registry.bulkhead(CMS);
+  }
+
+  @Bean
+  public CmsAdaptiveLimiter cmsAdaptiveLimiter(
+      @Value("${app.creditmain.limiter.initial-limit:10}") int initialLimit,
+      @Value("${app.creditmain.limiter.min-limit:1}") int minLimit,
+      @Value("${app.creditmain.limiter.max-limit:50}") int maxLimit,
+      @Value("${app.creditmain.limiter.backoff-ratio:0.5}") double backoffRatio,
+      @Value("${app.creditmain.limiter.latency-tolerance:2.0}") double latencyTolerance,
+      @Value("${app.creditmain.limiter.baseline-window:1000}") int baselineWindow,
+      @Value("${app.creditmain.limiter.max-queue-wait:5000}") long maxQueueWaitMillis,
+      MeterRegistry meterRegistry) {
+    return new CmsAdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+        latencyTolerance, baselineWindow, maxQueueWaitMillis, meterRegistry);
+  }
+
+  /**
+   * Puts the {@link CmsAdaptiveLimiter}, when enabled, and then the
+   * {@link CmsResilienceInterceptor} in front of the other interceptors of the CMS
+   * {@code RestTemplate}. Time spent waiting for a slot under the limit is not counted against
+   * the circuit breaker, and rejected calls are not timed as CMS requests.
+   */
+  @Bean
+  public RestTemplateCustomizer cmsResilienceCustomizer(CmsAdaptiveLimiter cmsAdaptiveLimiter,
+      CircuitBreaker cmsCircuitBreaker, Bulkhead cmsBulkhead,
+      @Value("${app.creditmain.limiter.enabled:true}") boolean limiterEnabled) {
+    return restTemplate -> {
+      List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
+      if (limiterEnabled) {
+        interceptors.add(cmsAdaptiveLimiter);
+      }
+      interceptors.add(new CmsResilienceInterceptor(cmsCircuitBreaker, cmsBulkhead));
+      interceptors.addAll(restTemplate.getInterceptors());
+      restTemplate.setInterceptors(interceptors);
+    };
+  }
+}
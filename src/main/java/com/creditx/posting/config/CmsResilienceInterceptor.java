@@ -0,0 +1,80 @@
+package com.creditx.posting.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.io.IOException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpServerErrorException;
+
+/**
+ * Guards each CMS call with the bulkhead and the circuit breaker. A call beyond the bulkhead's
+ * concurrency limit, or made while the circuit is open, fails at once with a
+ * {@link BulkheadFullException} or {@link CallNotPermittedException} instead of waiting on CMS.
+ * Calls that get no response or a 5xx other than 501 count as circuit breaker failures; any other
+ * response, a 4xx included, means CMS is up and counts as a success. Slow calls are counted by
+ * their duration either way.
+ */
+public class CmsResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+
+  public CmsResilienceInterceptor(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+    this.circuitBreaker = circuitBreaker;
+    this.bulkhead = bulkhead;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+      ClientHttpRequestExecution execution) throws IOException {
+    bulkhead.acquirePermission();
+    try {
+      circuitBreaker.acquirePermission();
+      long start = circuitBreaker.getCurrentTimestamp();
+      try {
+        ClientHttpResponse response = execution.execute(request, body);
+        HttpStatusCode status = response.getStatusCode();
+        long duration = circuitBreaker.getCurrentTimestamp() - start;
+        if (isCmsFailure(status)) {
+          circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(),
+              new HttpServerErrorException(status));
+        } else {
+          circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+        }
+        return response;
+      } catch (IOException | RuntimeException e) {
+        circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+            circuitBreaker.getTimestampUnit(), e);
+        throw e;
+      }
+    } finally {
+      bulkhead.onComplete();
+    }
+  }
+
+  /** Whether a response with {@code status} means CMS is failing rather than refusing a call. */
+  static boolean isCmsFailure(HttpStatusCode status) {
+    return status.is5xxServerError() && status.value() != HttpStatus.NOT_IMPLEMENTED.value();
+  }
+
+  /**
+   * Whether {@code e} or one of its causes is a call the circuit breaker, the bulkhead or the
+   * {@link CmsAdaptiveLimiter} refused, meaning CMS was not called at all.
+   */
+  public static boolean isRejected(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof CallNotPermittedException || cause instanceof BulkheadFullException
+          || cause instanceof CmsLimitExceededException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,15 +1,74 @@
 package com.creditx.posting.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class HttpClientConfig {
 
+  /**
+   * Pool of keep-alive connections to the credit main service. Every timeout is bounded, so a
+   * hung CMS socket fails the call instead of blocking the consumer thread, and connections idle
+   * for longer than the keep-alive are closed by a background evictor before CMS drops them.
+   */
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager cmsConnectionManager(
+      @Value("${app.creditmain.http.max-connections:200}") int maxConnections,
+      @Value("${app.creditmain.http.max-connections-per-route:50}") int maxConnectionsPerRoute,
+      @Value("${app.creditmain.http.connect-timeout:1000}") long connectTimeout,
+      @Value("${app.creditmain.http.read-timeout:5000}") long readTimeout,
+      MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                .build())
+            .build();
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "cms")
+        .bindTo(meterRegistry);
+    return connectionManager;
+  }
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient cmsHttpClient(PoolingHttpClientConnectionManager cmsConnectionManager,
+      @Value("${app.creditmain.http.response-timeout:5000}") long responseTimeout,
+      @Value("${app.creditmain.http.pool-acquire-timeout:1000}") long poolAcquireTimeout,
+      @Value("${app.creditmain.http.keep-alive:30000}") long keepAlive) {
+    return HttpClients.custom()
+        .setConnectionManager(cmsConnectionManager)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeout))
+            // used when CMS does not announce its own Keep-Alive timeout
+            .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive))
+            .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive))
+        .build();
+  }
+
   @Bean
-  public RestTemplate restTemplate(RestTemplateBuilder builder) {
-    return builder.build();
+  public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient cmsHttpClient,
+      MeterRegistry meterRegistry) {
+    return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(cmsHttpClient))
+        .additionalInterceptors(new CmsRequestMetricsInterceptor(meterRegistry))
+        .build();
   }
 }
@@ -0,0 +1,106 @@
+package com.creditx.posting.config;
+
+import com.creditx.posting.messaging.EventTypeFilter;
+import com.creditx.posting.messaging.EventTypeRecordFilter;
+import java.util.function.BiFunction;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.stream.binder.ExtendedConsumerProperties;
+import org.springframework.cloud.stream.binder.kafka.ListenerContainerWithDlqAndRetryCustomizer;
+import org.springframework.cloud.stream.binder.kafka.properties.KafkaConsumerProperties;
+import org.springframework.cloud.stream.config.ConsumerEndpointCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.kafka.inbound.KafkaMessageDrivenChannelAdapter;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+  static final String TRANSACTION_AUTHORIZED_BINDING = "transactionAuthorized-in-0";
+
+  /**
+   * Installs the {@link EventTypeRecordFilter} on the inbound adapter of the transaction.authorized
+   * binding. Discarded records are acknowledged, so in manual ack mode the container commits past
+   * them as well.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "app.consumer.event-type-filter.enabled", havingValue = "true",
+      matchIfMissing = true)
+  public ConsumerEndpointCustomizer<KafkaMessageDrivenChannelAdapter<?, ?>>
+      eventTypeFilterCustomizer(EventTypeFilter eventTypeFilter,
+      @Value("${spring.cloud.stream.bindings.transactionAuthorized-in-0.destination:transactions}")
+      String transactionsDestination) {
+    return (adapter, destination, group) -> {
+      if (!transactionsDestination.equals(destination)) {
+        return;
+      }
+      adapter.setRecordFilterStrategy(new EventTypeRecordFilter<>(eventTypeFilter));
+      adapter.setAckDiscarded(true);
+    };
+  }
+
+  /**
+   * Moves the retries of the transaction.authorized binding from the binder's in-memory retry into
+   * the container's error handler, with the same back-off, so a record whose CMS call the circuit
+   * breaker, bulkhead or adaptive limiter rejected can be held back instead of being skipped once
+   * the attempts run out: it is sought back and retried every
+   * {@code cms-unavailable-retry-interval} ms until CMS takes calls again. A record retried this
+   * way is redelivered from Kafka, which also lets the binding pause while the circuit is open.
+   *
+   * <p>In reactive mode the records are handed to the reactive function, which retries them itself
+   * and acknowledges each once it is done, so the container commits offsets by those
+   * acknowledgments, in offset order, and retries only a failed hand-over, for as long as it
+   * takes.
+   */
+  @Bean
+  public ListenerContainerWithDlqAndRetryCustomizer cmsUnavailableRetryCustomizer(
+      @Value("${spring.cloud.stream.bindings.transactionAuthorized-in-0.destination:transactions}")
+      String transactionsDestination,
+      @Value("${app.consumer.cms-unavailable-retry-interval:1000}") long retryInterval,
+      @Value("${app.consumer.reactive-mode:false}") boolean reactiveMode) {
+    return new ListenerContainerWithDlqAndRetryCustomizer() {
+
+      @Override
+      public boolean retryAndDlqInBinding(String destination, String group) {
+        return !transactionsDestination.equals(destination);
+      }
+
+      @Override
+      public void configure(AbstractMessageListenerContainer<?, ?> container, String destination,
+          String group, BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> dlqResolver,
+          BackOff backOff, ExtendedConsumerProperties<KafkaConsumerProperties> properties) {
+        if (!transactionsDestination.equals(destination)) {
+          return;
+        }
+        if (reactiveMode && !properties.isBatchMode()) {
+          container.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+          container.getContainerProperties().setAsyncAcks(true);
+          container.setCommonErrorHandler(new DefaultErrorHandler(
+              new FixedBackOff(retryInterval, FixedBackOff.UNLIMITED_ATTEMPTS)));
+          return;
+        }
+        // the binder's back-off in record mode, the container's default in batch mode
+        DefaultErrorHandler errorHandler = properties.isBatchMode() ? new DefaultErrorHandler()
+            : new DefaultErrorHandler(backOff != null ? backOff : new FixedBackOff(0, 0));
+        errorHandler.setBackOffFunction((record, e) -> CmsResilienceInterceptor.isRejected(e)
+            ? new FixedBackOff(retryInterval, FixedBackOff.UNLIMITED_ATTEMPTS) : null);
+        container.setCommonErrorHandler(errorHandler);
+      }
+
+      @Override
+      public void configure(AbstractMessageListenerContainer<?, ?> container, String destination,
+          String group, BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> dlqResolver,
+          BackOff backOff) {
+        configure(container, destination, group, dlqResolver, backOff,
+            new ExtendedConsumerProperties<>(new KafkaConsumerProperties()));
+      }
+    };
+  }
+}
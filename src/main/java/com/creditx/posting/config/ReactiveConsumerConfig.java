@@ -0,0 +1,91 @@
+package com.creditx.posting.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Beans of the reactive consumer mode: the scheduler the blocking database steps run on and a
+ * non-blocking client for CMS.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.consumer.reactive-mode", havingValue = "true")
+public class ReactiveConsumerConfig {
+
+  /**
+   * Runs the claim and completion of events, which hold a pooled JDBC connection, on at most
+   * {@code db-threads} threads. Size it to the connection pool; up to {@code db-queue-size}
+   * steps wait for a thread.
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler postingDbScheduler(
+      @Value("${app.consumer.reactive.db-threads:10}") int dbThreads,
+      @Value("${app.consumer.reactive.db-queue-size:10000}") int dbQueueSize) {
+    return Schedulers.newBoundedElastic(dbThreads, dbQueueSize, "posting-db");
+  }
+
+  /**
+   * Non-blocking pool of keep-alive connections to the credit main service, with the limits and
+   * timeouts of the blocking pool. Responses are read by {@code io-threads} I/O threads however
+   * many calls are in flight.
+   */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpAsyncClient cmsAsyncHttpClient(
+      @Value("${app.creditmain.http.max-connections:200}") int maxConnections,
+      @Value("${app.creditmain.http.max-connections-per-route:50}") int maxConnectionsPerRoute,
+      @Value("${app.creditmain.http.connect-timeout:1000}") long connectTimeout,
+      @Value("${app.creditmain.http.read-timeout:5000}") long readTimeout,
+      @Value("${app.creditmain.http.response-timeout:5000}") long responseTimeout,
+      @Value("${app.creditmain.http.pool-acquire-timeout:1000}") long poolAcquireTimeout,
+      @Value("${app.creditmain.http.keep-alive:30000}") long keepAlive,
+      @Value("${app.creditmain.http.io-threads:2}") int ioThreads,
+      MeterRegistry meterRegistry) {
+    PoolingAsyncClientConnectionManager connectionManager =
+        PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                .build())
+            .build();
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "cms-async")
+        .bindTo(meterRegistry);
+    return HttpAsyncClients.custom()
+        .setConnectionManager(connectionManager)
+        .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).build())
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeout))
+            .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive))
+            .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive))
+        .build();
+  }
+
+  @Bean
+  public WebClient cmsWebClient(WebClient.Builder builder,
+      CloseableHttpAsyncClient cmsAsyncHttpClient,
+      @Value("${app.creditmain.url:http://localhost:8080}") String creditMainServiceUrl) {
+    return builder.baseUrl(creditMainServiceUrl)
+        .clientConnector(new HttpComponentsClientHttpConnector(cmsAsyncHttpClient))
+        .build();
+  }
+}
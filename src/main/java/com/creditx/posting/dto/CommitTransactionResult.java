@@ -0,0 +1,20 @@
+package com.creditx.posting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk commit request, as returned by the credit main service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommitTransactionResult {
+
+  private Long transactionId;
+  private boolean committed;
+  private String error;
+}
@@ -0,0 +1,9 @@
+package com.creditx.posting.dto;
+
+/**
+ * Application event published when an outbox row is written. Listeners bound to the commit phase
+ * only see it once the row is visible to the publisher.
+ */
+public record OutboxEventSavedEvent(Long eventId, Long aggregateId) {
+
+}
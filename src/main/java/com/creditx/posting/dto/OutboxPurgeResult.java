@@ -0,0 +1,14 @@
+package com.creditx.posting.dto;
+
+/**
+ * Summary of one outbox retention run.
+ *
+ * @param droppedPartitions   interval partitions dropped
+ * @param truncatedPartitions range partitions truncated
+ * @param deletedRows         rows removed by chunked deletes
+ * @param archivedRows        rows written to archive files
+ */
+public record OutboxPurgeResult(int droppedPartitions, int truncatedPartitions, long deletedRows,
+                                long archivedRows) {
+
+}
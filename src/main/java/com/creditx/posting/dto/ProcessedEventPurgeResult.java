@@ -0,0 +1,11 @@
+package com.creditx.posting.dto;
+
+/**
+ * Summary of one processed-event retention run.
+ *
+ * @param droppedPartitions   interval partitions dropped
+ * @param truncatedPartitions range partitions truncated
+ */
+public record ProcessedEventPurgeResult(int droppedPartitions, int truncatedPartitions) {
+
+}
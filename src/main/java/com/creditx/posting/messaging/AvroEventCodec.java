@@ -0,0 +1,65 @@
+package com.creditx.posting.messaging;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import com.fasterxml.jackson.dataformat.avro.schema.AvroSchemaGenerator;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Avro binary encoding with the schema generated from the event class. The schema is not sent
+ * with the record, so field names and JSON punctuation are dropped and numbers are written as
+ * varints. Reader and writer must therefore agree on the schema: a change to the shape of an
+ * event class needs a new version in {@link #CONTENT_TYPE}. Instants travel as epoch
+ * milliseconds.
+ */
+@Component
+public class AvroEventCodec implements EventCodec {
+
+  public static final String CONTENT_TYPE = "application/vnd.creditx.v1+avro";
+
+  private final AvroMapper mapper = AvroMapper.builder().addModule(new AvroJavaTimeModule())
+      .build();
+  private final Map<Class<?>, Binding> bindings = new ConcurrentHashMap<>();
+
+  @Override
+  public String contentType() {
+    return CONTENT_TYPE;
+  }
+
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    return binding(event.getClass()).writer().writeValueAsBytes(event);
+  }
+
+  @Override
+  public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+    return binding(type).reader().readValue(payload);
+  }
+
+  private Binding binding(Class<?> type) {
+    return bindings.computeIfAbsent(type, t -> {
+      AvroSchema schema = schema(t);
+      return new Binding(mapper.readerFor(t).with(schema), mapper.writerFor(t).with(schema));
+    });
+  }
+
+  private AvroSchema schema(Class<?> type) {
+    AvroSchemaGenerator generator = new AvroSchemaGenerator().enableLogicalTypes();
+    try {
+      mapper.acceptJsonFormatVisitor(type, generator);
+    } catch (JsonMappingException e) {
+      throw new IllegalArgumentException("No Avro schema for " + type.getName(), e);
+    }
+    return generator.getGeneratedSchema();
+  }
+
+  private record Binding(ObjectReader reader, ObjectWriter writer) {
+  }
+}
@@ -0,0 +1,19 @@
+package com.creditx.posting.messaging;
+
+import java.io.IOException;
+
+/**
+ * Wire format of event payloads. The codec of a record is selected by its {@code contentType}
+ * header through {@link EventCodecs}.
+ */
+public interface EventCodec {
+
+  /**
+   * The content type this codec writes and reads, as {@code type/subtype} without parameters.
+   */
+  String contentType();
+
+  byte[] encode(Object event) throws IOException;
+
+  <T> T decode(byte[] payload, Class<T> type) throws IOException;
+}
@@ -0,0 +1,80 @@
+package com.creditx.posting.messaging;
+
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.dto.TransactionFailedEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * The {@link EventCodec}s by content type. Records without a content type are JSON, so a producer
+ * switches to another codec only once its consumers can read it, and consumers keep reading
+ * JSON from producers that have not.
+ */
+@Component
+public class EventCodecs {
+
+  // outbox event types whose stored JSON can be re-encoded, by the class of their payload
+  private static final Map<String, Class<?>> PAYLOAD_TYPES = Map.of(
+      EventTypes.TRANSACTION_AUTHORIZED, TransactionAuthorizedEvent.class,
+      EventTypes.TRANSACTION_FAILED, TransactionFailedEvent.class);
+
+  private final Map<String, EventCodec> codecs;
+  private final EventCodec json;
+
+  public EventCodecs(List<EventCodec> codecs) {
+    this.codecs = codecs.stream()
+        .collect(Collectors.toUnmodifiableMap(EventCodec::contentType, Function.identity()));
+    this.json = forContentType(MimeTypeUtils.APPLICATION_JSON_VALUE);
+  }
+
+  /**
+   * The codec for a {@code contentType} header value, which may be a String or a
+   * {@link MimeType}; parameters such as the charset are ignored.
+   *
+   * @throws IllegalArgumentException if no codec handles the content type
+   */
+  public EventCodec forContentType(Object contentType) {
+    if (contentType == null) {
+      return json;
+    }
+    MimeType mimeType = contentType instanceof MimeType type ? type
+        : MimeTypeUtils.parseMimeType(contentType.toString());
+    EventCodec codec = codecs.get(mimeType.getType() + "/" + mimeType.getSubtype());
+    if (codec == null) {
+      throw new IllegalArgumentException("No event codec for content type " + contentType);
+    }
+    return codec;
+  }
+
+  public <T> T decode(byte[] payload, Object contentType, Class<T> type) throws IOException {
+    return forContentType(contentType).decode(payload, type);
+  }
+
+  /**
+   * Wire form of a stored outbox payload. Outbox rows hold JSON, which goes out as stored; for
+   * another content type the payload is read into the class of its event type and re-encoded.
+   * Event types without a payload class stay JSON.
+   */
+  public EncodedPayload encodeOutboxPayload(String eventType, String payload, String contentType)
+      throws IOException {
+    EventCodec codec = forContentType(contentType);
+    byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    Class<?> payloadType = PAYLOAD_TYPES.get(eventType);
+    if (codec == json || payloadType == null) {
+      return new EncodedPayload(json.contentType(), bytes);
+    }
+    return new EncodedPayload(codec.contentType(),
+        codec.encode(json.decode(bytes, payloadType)));
+  }
+
+  public record EncodedPayload(String contentType, byte[] value) {
+  }
+}
@@ -0,0 +1,103 @@
+package com.creditx.posting.messaging;
+
+import com.creditx.posting.constants.EventTypes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides from the raw {@code eventType} header alone whether an inbound record is one this
+ * service consumes, so that the other event types sharing the topic are dropped before their
+ * payload is converted or decoded. Drops are counted per event type instead of logged.
+ */
+@Component
+public class EventTypeFilter {
+
+  static final String NO_TYPE = "none";
+  static final String OTHER_TYPE = "other";
+
+  // the types seen on the topic get their own tag; anything else is counted as other
+  private static final List<String> KNOWN_TYPES = List.of(EventTypes.HOLD_CREATED,
+      EventTypes.HOLD_EXPIRED, EventTypes.HOLD_VOIDED, EventTypes.TRANSACTION_AUTHORIZED,
+      EventTypes.TRANSACTION_POSTED, EventTypes.TRANSACTION_FAILED,
+      EventTypes.TRANSACTION_INITIATED);
+
+  private final byte[] accepted = bytes(EventTypes.TRANSACTION_AUTHORIZED);
+  private final byte[][] knownTypes = KNOWN_TYPES.stream().map(EventTypeFilter::bytes)
+      .toArray(byte[][]::new);
+  private final Counter[] knownTypeDrops;
+  private final Counter otherTypeDrops;
+  private final Counter noTypeDrops;
+  private final Map<String, Counter> dropsByType = new HashMap<>();
+
+  public EventTypeFilter(MeterRegistry meterRegistry) {
+    knownTypeDrops = KNOWN_TYPES.stream().map(type -> dropCounter(meterRegistry, type))
+        .toArray(Counter[]::new);
+    otherTypeDrops = dropCounter(meterRegistry, OTHER_TYPE);
+    noTypeDrops = dropCounter(meterRegistry, NO_TYPE);
+    for (int i = 0; i < KNOWN_TYPES.size(); i++) {
+      dropsByType.put(KNOWN_TYPES.get(i), knownTypeDrops[i]);
+    }
+  }
+
+  /**
+   * Whether the record with this raw header value is consumed; counts it as dropped if not. The
+   * value is compared as bytes, also when a header mapper wrote it JSON-quoted, so accepting or
+   * dropping a record allocates nothing.
+   *
+   * @param eventType the {@code eventType} header value, or null when the record has none
+   */
+  public boolean accept(byte[] eventType) {
+    if (eventType == null) {
+      noTypeDrops.increment();
+      return false;
+    }
+    int from = 0;
+    int to = eventType.length;
+    if (to >= 2 && eventType[0] == '"' && eventType[to - 1] == '"') {
+      from++;
+      to--;
+    }
+    if (Arrays.equals(eventType, from, to, accepted, 0, accepted.length)) {
+      return true;
+    }
+    for (int i = 0; i < knownTypes.length; i++) {
+      if (Arrays.equals(eventType, from, to, knownTypes[i], 0, knownTypes[i].length)) {
+        knownTypeDrops[i].increment();
+        return false;
+      }
+    }
+    otherTypeDrops.increment();
+    return false;
+  }
+
+  /**
+   * Counts a record that reached the listener with an event type it does not consume, for
+   * bindings the header filter is not installed on.
+   *
+   * @param eventType the {@code eventType} header, or null when the record has none
+   */
+  public void recordDropped(Object eventType) {
+    if (eventType == null) {
+      noTypeDrops.increment();
+    } else {
+      dropsByType.getOrDefault(eventType.toString(), otherTypeDrops).increment();
+    }
+  }
+
+  private static Counter dropCounter(MeterRegistry meterRegistry, String eventType) {
+    return Counter.builder("consumer.records.dropped")
+        .description("Inbound records dropped by event type without being decoded")
+        .tag("eventType", eventType)
+        .register(meterRegistry);
+  }
+
+  private static byte[] bytes(String eventType) {
+    return eventType.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,33 @@
+package com.creditx.posting.messaging;
+
+import com.creditx.posting.constants.EventTypes;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+
+/**
+ * Discards records of event types the binding does not consume, on the consumer thread and before
+ * the binder maps headers or converts payloads. Installed on the binding's inbound adapter with
+ * discarded records acknowledged, so the container still sees them and commits past them also
+ * when a partition receives nothing but other event types.
+ */
+public class EventTypeRecordFilter<K, V> implements RecordFilterStrategy<K, V> {
+
+  private final EventTypeFilter filter;
+
+  public EventTypeRecordFilter(EventTypeFilter filter) {
+    this.filter = filter;
+  }
+
+  @Override
+  public boolean filter(ConsumerRecord<K, V> record) {
+    Header eventType = record.headers().lastHeader(EventTypes.EVENT_TYPE_HEADER);
+    return !filter.accept(eventType == null ? null : eventType.value());
+  }
+
+  /** A batch left empty is acknowledged instead of being handed to the listener. */
+  @Override
+  public boolean ignoreEmptyBatch() {
+    return true;
+  }
+}
@@ -0,0 +1,54 @@
+package com.creditx.posting.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * JSON, the format every producer and consumer of these topics understands. Payloads are read
+ * straight from their bytes with an {@link ObjectReader} built once per type from the application
+ * {@link ObjectMapper}, so no String copy is made and the deserializer lookup is not repeated per
+ * record.
+ */
+@Component
+@Slf4j
+public class JsonEventCodec implements EventCodec {
+
+  private final ObjectMapper mapper;
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  public JsonEventCodec(ObjectMapper objectMapper,
+      @Value("${app.consumer.blackbird-enabled:false}") boolean blackbirdEnabled) {
+    if (blackbirdEnabled) {
+      // on a copy, so the shared mapper keeps reflection-based access
+      this.mapper = objectMapper.copy().registerModule(new BlackbirdModule());
+      log.info("Coding JSON events with Blackbird generated accessors");
+    } else {
+      this.mapper = objectMapper;
+    }
+  }
+
+  @Override
+  public String contentType() {
+    return MimeTypeUtils.APPLICATION_JSON_VALUE;
+  }
+
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    return writers.computeIfAbsent(event.getClass(), mapper::writerFor).writeValueAsBytes(event);
+  }
+
+  @Override
+  public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+    return readers.computeIfAbsent(type, mapper::readerFor).readValue(payload);
+  }
+}
@@ -0,0 +1,16 @@
+package com.creditx.posting.messaging;
+
+/**
+ * How the outbox scheduler hands events to Kafka.
+ */
+public enum OutboxPublishMode {
+  /**
+   * One {@code StreamBridge.send} per event through the outbox binding.
+   */
+  SYNC,
+  /**
+   * Pipelined sends through the producer; the batch outcome is taken from broker
+   * acknowledgements.
+   */
+  ASYNC
+}
@@ -1,11 +1,18 @@
 package com.creditx.posting.messaging;
 
+import com.creditx.posting.messaging.EventCodecs.EncodedPayload;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,32 +21,96 @@ import org.springframework.stereotype.Service;
 public class OutboxStreamPublisher {
 
   private final StreamBridge streamBridge;
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final EventCodecs eventCodecs;
 
   @Value("${app.outbox.binding}")
   private String bindingName;
 
+  @Value("${app.outbox.topic:${app.outbox.binding}}")
+  private String topic;
+
+  /**
+   * Content type the outbox payloads are published in. Stays JSON until every consumer of the
+   * topic can read the configured codec.
+   */
+  @Value("${app.outbox.content-type:application/json}")
+  private String contentType = "application/json";
+
   public void publish(String key, String payload, String eventType) {
-    // Validate inputs
-    if (key == null || payload == null || payload.trim().isEmpty()) {
-      log.debug("Skipping publish - invalid key or payload. Key: {}, Payload: {}", key, payload);
-      return;
-    }
-    if (eventType == null || eventType.trim().isEmpty()) {
-      log.debug("Skipping publish - invalid eventType: {}", eventType);
+    if (!isPublishable(key, payload, eventType)) {
       return;
     }
 
     log.debug("Publishing message to binding '{}' with key: {}", bindingName, key);
 
-    Message<String> message = MessageBuilder.withPayload(payload).setHeader("key", key)
-        .setHeader("eventType", eventType).build();
+    EncodedPayload encoded = encode(key, payload, eventType);
+    Message<byte[]> message = MessageBuilder.withPayload(encoded.value()).setHeader("key", key)
+        .setHeader("eventType", eventType)
+        .setHeader(MessageHeaders.CONTENT_TYPE, encoded.contentType()).build();
 
     try {
-      streamBridge.send(bindingName, message);
+      if (!streamBridge.send(bindingName, message)) {
+        throw new IllegalStateException(
+            "Binding '" + bindingName + "' rejected message with key " + key);
+      }
       log.debug("Successfully published message with key: {}", key);
     } catch (Exception e) {
       log.error("Failed to publish message with key {}: {}", key, e.getMessage(), e);
       throw e;
     }
   }
+
+  /**
+   * Hands the message to the Kafka producer without waiting for the broker. The producer batches
+   * and compresses in-flight records; the returned future completes once the broker has
+   * acknowledged the record (or the send failed).
+   *
+   * @return future of the broker acknowledgement, already completed for skipped messages
+   */
+  public CompletableFuture<SendResult<String, byte[]>> publishAsync(String key, String payload,
+      String eventType) {
+    if (!isPublishable(key, payload, eventType)) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    log.debug("Sending message to topic '{}' with key: {}", topic, key);
+
+    EncodedPayload encoded = encode(key, payload, eventType);
+    Message<byte[]> message = MessageBuilder.withPayload(encoded.value())
+        .setHeader(KafkaHeaders.TOPIC, topic).setHeader(KafkaHeaders.KEY, key)
+        .setHeader("key", key).setHeader("eventType", eventType)
+        .setHeader(MessageHeaders.CONTENT_TYPE, encoded.contentType()).build();
+
+    return kafkaTemplate.send(message).whenComplete((result, e) -> {
+      if (e != null) {
+        log.error("Failed to publish message with key {}: {}", key, e.getMessage(), e);
+      } else if (log.isDebugEnabled()) {
+        log.debug("Broker acknowledged message with key {} at offset {}", key,
+            result.getRecordMetadata().offset());
+      }
+    });
+  }
+
+  private EncodedPayload encode(String key, String payload, String eventType) {
+    try {
+      return eventCodecs.encodeOutboxPayload(eventType, payload, contentType);
+    } catch (IOException e) {
+      log.error("Failed to encode message with key {} as {}: {}", key, contentType,
+          e.getMessage(), e);
+      throw new IllegalStateException("Failed to encode message with key " + key, e);
+    }
+  }
+
+  private boolean isPublishable(String key, String payload, String eventType) {
+    if (key == null || payload == null || payload.trim().isEmpty()) {
+      log.debug("Skipping publish - invalid key or payload. Key: {}, Payload: {}", key, payload);
+      return false;
+    }
+    if (eventType == null || eventType.trim().isEmpty()) {
+      log.debug("Skipping publish - invalid eventType: {}", eventType);
+      return false;
+    }
+    return true;
+  }
 }
@@ -0,0 +1,148 @@
+package com.creditx.posting.messaging;
+
+import com.creditx.posting.config.CmsResilienceInterceptor;
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.impl.ReactiveTransactionEventProcessor;
+import com.creditx.posting.util.EventValidationUtils;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Reactive variant of {@link TransactionEventListener#transactionAuthorized()}, bound under the
+ * same name when {@code app.consumer.reactive-mode} is on and batch mode is off. Records are
+ * spread over {@code concurrency} lanes by their Kafka key and processed in order within a lane,
+ * so events with the same key stay in order while up to {@code concurrency} of them are in
+ * flight at once, with no thread held while they wait on CMS.
+ *
+ * <p>Each record is acknowledged only once it has been settled, skipped or given up on, and the
+ * container commits offsets only up to the first record still in flight. A failing record is
+ * retried like the blocking binding would: up to {@code max-attempts} times with its back-off, or
+ * every {@code cms-unavailable-retry-interval} ms for as long as CMS calls are being rejected.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.consumer.reactive-mode", havingValue = "true")
+@ConditionalOnProperty(name = "app.consumer.batch-mode", havingValue = "false",
+    matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveTransactionEventListener {
+
+  private final ReactiveTransactionEventProcessor reactiveTransactionEventProcessor;
+  private final EventCodecs eventCodecs;
+  private final EventTypeFilter eventTypeFilter;
+
+  @Value("${app.consumer.reactive.concurrency:50}")
+  private int concurrency = 50;
+
+  @Value("${app.creditmain.bulkhead.max-concurrent-calls:50}")
+  private int bulkheadMaxConcurrentCalls = 50;
+
+  @Value("${app.consumer.cms-unavailable-retry-interval:1000}")
+  private long cmsUnavailableRetryInterval = 1000;
+
+  @Value("${spring.cloud.stream.bindings.transactionAuthorized-in-0.consumer.max-attempts:3}")
+  private int maxAttempts = 3;
+
+  @Value("${spring.cloud.stream.bindings.transactionAuthorized-in-0.consumer"
+      + ".back-off-initial-interval:1000}")
+  private long backOffInitialInterval = 1000;
+
+  @Value("${spring.cloud.stream.bindings.transactionAuthorized-in-0.consumer"
+      + ".back-off-max-interval:10000}")
+  private long backOffMaxInterval = 10000;
+
+  /**
+   * Every lane can have a CMS call in flight, and a call the bulkhead rejects is retried until it
+   * gets through, so more lanes than bulkhead slots would keep the excess lanes retrying.
+   */
+  @PostConstruct
+  void checkConcurrency() {
+    if (concurrency > bulkheadMaxConcurrentCalls) {
+      throw new IllegalArgumentException("app.consumer.reactive.concurrency must not exceed "
+          + "app.creditmain.bulkhead.max-concurrent-calls");
+    }
+  }
+
+  @Bean("transactionAuthorized")
+  public Function<Flux<Message<byte[]>>, Mono<Void>> transactionAuthorizedReactive() {
+    return messages -> messages
+        .groupBy(this::lane)
+        .flatMap(lane -> lane.concatMap(this::process), concurrency)
+        .then();
+  }
+
+  private int lane(Message<byte[]> message) {
+    Object key = message.getHeaders().get(KafkaHeaders.RECEIVED_KEY);
+    int hash = key instanceof byte[] bytes ? Arrays.hashCode(bytes)
+        : key != null ? key.hashCode() : Arrays.hashCode(message.getPayload());
+    return Math.floorMod(hash, concurrency);
+  }
+
+  private Mono<Void> process(Message<byte[]> message) {
+    byte[] payload = message.getPayload();
+    Acknowledgment acknowledgment = message.getHeaders()
+        .get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+    return Mono.defer(() -> handle(message))
+        .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, Duration.ofMillis(cmsUnavailableRetryInterval))
+            .filter(CmsResilienceInterceptor::isRejected))
+        .retryWhen(Retry.backoff(Math.max(0, maxAttempts - 1),
+                Duration.ofMillis(backOffInitialInterval))
+            .maxBackoff(Duration.ofMillis(backOffMaxInterval))
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+        .onErrorResume(e -> {
+          log.error("Failed to process transaction.authorized event: {}",
+              TransactionEventListener.text(payload), e);
+          return Mono.empty();
+        })
+        .then(Mono.fromRunnable(() -> {
+          if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+          }
+        }));
+  }
+
+  private Mono<Void> handle(Message<byte[]> message) {
+    byte[] payload = message.getPayload();
+
+    // Other event types are normally dropped by the header filter before they get here
+    if (!EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_AUTHORIZED)) {
+      eventTypeFilter.recordDropped(message.getHeaders().get(EventTypes.EVENT_TYPE_HEADER));
+      return Mono.empty();
+    }
+
+    TransactionAuthorizedEvent event;
+    try {
+      event = eventCodecs.decode(payload, message.getHeaders().get(MessageHeaders.CONTENT_TYPE),
+          TransactionAuthorizedEvent.class);
+    } catch (Exception e) {
+      return Mono.error(e);
+    }
+    log.info("Received transaction.authorized event for transaction: {}",
+        event.getTransactionId());
+    if (Objects.isNull(event.getHoldId())) {
+      log.warn("Skipping transaction.authorized event without holdId for transaction: {} - "
+          + "payload: {}", event.getTransactionId(), TransactionEventListener.text(payload));
+      return Mono.empty();
+    }
+    return reactiveTransactionEventProcessor.process(event, payload,
+        TransactionEventListener.publishedAt(
+            message.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP)));
+  }
+}
@@ -1,17 +1,28 @@
 package com.creditx.posting.messaging;
 
+import com.creditx.posting.config.CmsResilienceInterceptor;
 import com.creditx.posting.constants.EventTypes;
 import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.BatchRecordFailedException;
 import com.creditx.posting.service.TransactionEventService;
 import com.creditx.posting.tracing.TransactionSpanTagger;
 import com.creditx.posting.util.EventValidationUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
 
 @Configuration
 @RequiredArgsConstructor
@@ -20,41 +31,139 @@ public class TransactionEventListener {
 
   private final TransactionEventService transactionEventService;
   private final TransactionSpanTagger transactionSpanTagger;
-  private final ObjectMapper objectMapper;
+  private final EventCodecs eventCodecs;
+  private final EventTypeFilter eventTypeFilter;
 
+  /**
+   * Binds the raw record value. It is decoded by the codec of its {@code contentType} header,
+   * JSON when absent, and the payload hash is taken over the bytes as received rather than over a
+   * re-serialization of the event. Replaced by {@link ReactiveTransactionEventListener} when
+   * {@code app.consumer.reactive-mode} is on.
+   */
   @Bean
-  public Consumer<Message<String>> transactionAuthorized() {
+  @ConditionalOnProperty(name = "app.consumer.batch-mode", havingValue = "false",
+      matchIfMissing = true)
+  @ConditionalOnProperty(name = "app.consumer.reactive-mode", havingValue = "false",
+      matchIfMissing = true)
+  public Consumer<Message<byte[]>> transactionAuthorized() {
     return message -> {
-      String payload = message.getPayload();
+      byte[] payload = message.getPayload();
 
-      // Validate event type before processing
+      // Other event types are normally dropped by the header filter before they get here
       if (!EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_AUTHORIZED)) {
-        log.warn("Skipping message with invalid event type. Expected: {}, Headers: {}, Payload: {}",
-            EventTypes.TRANSACTION_AUTHORIZED, message.getHeaders(), payload);
+        eventTypeFilter.recordDropped(message.getHeaders().get(EventTypes.EVENT_TYPE_HEADER));
         return;
       }
 
       try {
-        log.info("Received transaction.authorized event: {}", payload);
-        TransactionAuthorizedEvent event = objectMapper.readValue(payload,
+        TransactionAuthorizedEvent event = eventCodecs.decode(payload,
+            message.getHeaders().get(MessageHeaders.CONTENT_TYPE),
             TransactionAuthorizedEvent.class);
+        log.info("Received transaction.authorized event for transaction: {}",
+            event.getTransactionId());
         transactionSpanTagger.tagTransactionId(event.getTransactionId());
 
         // Validate that the event has a holdId - skip events without holdId
         if (event.getHoldId() == null) {
           log.warn(
               "Skipping transaction.authorized event without holdId for transaction: {} - payload: {}",
-              event.getTransactionId(), payload);
+              event.getTransactionId(), text(payload));
           return;
         }
 
-        transactionEventService.processTransactionAuthorized(event);
+        transactionEventService.processTransactionAuthorized(event, payload,
+            publishedAt(message.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP)));
         log.info("Successfully processed transaction.authorized for transaction: {}",
             event.getTransactionId());
       } catch (Exception e) {
-        log.error("Failed to process transaction.authorized event: {}", payload, e);
+        // a rejected CMS call was logged by the service and is redelivered once CMS takes calls
+        if (!CmsResilienceInterceptor.isRejected(e)) {
+          log.error("Failed to process transaction.authorized event: {}", text(payload), e);
+        }
         throw new RuntimeException("Failed to process transaction.authorized event", e);
       }
     };
   }
+
+  /**
+   * Batch variant of {@link #transactionAuthorized()}, bound under the same name when
+   * {@code app.consumer.batch-mode} is on. The binder delivers a poll as one message whose
+   * payload is the list of records and whose per-record headers are in
+   * {@link KafkaHeaders#BATCH_CONVERTED_HEADERS}. A failing record is reported by its position
+   * so that only it and the records after it are redelivered.
+   */
+  @Bean("transactionAuthorized")
+  @ConditionalOnProperty(name = "app.consumer.batch-mode", havingValue = "true")
+  public Consumer<Message<List<byte[]>>> transactionAuthorizedBatch() {
+    return batch -> {
+      List<byte[]> payloads = batch.getPayload();
+      List<Map<String, Object>> recordHeaders = recordHeaders(batch);
+      Object timestamps = batch.getHeaders().get(KafkaHeaders.RECEIVED_TIMESTAMP);
+      List<TransactionAuthorizedEvent> events = new ArrayList<>(payloads.size());
+      List<byte[]> eventPayloads = new ArrayList<>(payloads.size());
+      List<Instant> eventTimes = new ArrayList<>(payloads.size());
+      List<Integer> positions = new ArrayList<>(payloads.size());
+      BatchListenerFailedException decodeFailure = null;
+
+      for (int i = 0; i < payloads.size(); i++) {
+        byte[] payload = payloads.get(i);
+        Message<byte[]> message = MessageBuilder.withPayload(payload)
+            .copyHeaders(recordHeaders != null ? recordHeaders.get(i) : batch.getHeaders())
+            .build();
+        if (!EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_AUTHORIZED)) {
+          eventTypeFilter.recordDropped(message.getHeaders().get(EventTypes.EVENT_TYPE_HEADER));
+          continue;
+        }
+        TransactionAuthorizedEvent event;
+        try {
+          event = eventCodecs.decode(payload, message.getHeaders().get(MessageHeaders.CONTENT_TYPE),
+              TransactionAuthorizedEvent.class);
+        } catch (Exception e) {
+          log.error("Failed to decode transaction.authorized event: {}", text(payload), e);
+          // process the records before this one, then fail from here
+          decodeFailure = new BatchListenerFailedException(
+              "Failed to decode transaction.authorized event", e, i);
+          break;
+        }
+        if (event.getHoldId() == null) {
+          log.warn("Skipping transaction.authorized event without holdId for transaction: {} - "
+              + "payload: {}", event.getTransactionId(), text(payload));
+          continue;
+        }
+        events.add(event);
+        eventPayloads.add(payload);
+        eventTimes.add(timestamps instanceof List<?> list ? publishedAt(list.get(i)) : null);
+        positions.add(i);
+      }
+
+      try {
+        transactionEventService.processTransactionAuthorizedBatch(events, eventPayloads,
+            eventTimes);
+      } catch (BatchRecordFailedException e) {
+        throw new BatchListenerFailedException("Failed to process transaction.authorized event",
+            e.getCause(), positions.get(e.getIndex()));
+      }
+      if (decodeFailure != null) {
+        throw decodeFailure;
+      }
+      log.info("Processed batch of {} transaction.authorized records", payloads.size());
+    };
+  }
+
+  static Instant publishedAt(Object timestamp) {
+    // the Kafka record timestamp; absent when the binding is not backed by Kafka
+    return timestamp instanceof Long millis ? Instant.ofEpochMilli(millis) : null;
+  }
+
+  static String text(byte[] payload) {
+    // only for log lines of records that are skipped or fail
+    return new String(payload, StandardCharsets.UTF_8);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> recordHeaders(Message<List<byte[]>> batch) {
+    // absent when the binding is not backed by Kafka, e.g. the test binder
+    return (List<Map<String, Object>>) batch.getHeaders()
+        .get(KafkaHeaders.BATCH_CONVERTED_HEADERS);
+  }
 }
@@ -26,7 +26,7 @@ public class OutboxEvent {
 
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq_gen")
-  @SequenceGenerator(name = "outbox_seq_gen", sequenceName = "CPS_OUTBOX_SEQ", allocationSize = 1)
+  @SequenceGenerator(name = "outbox_seq_gen", sequenceName = "CPS_OUTBOX_SEQ", allocationSize = 50)
   @Column(name = "EVENT_ID")
   private Long eventId;
 
@@ -49,4 +49,17 @@ public class OutboxEvent {
 
   @Column(name = "PUBLISHED_AT")
   private Instant publishedAt;
+
+  @Column(name = "LEASE_OWNER", length = 100)
+  private String leaseOwner;
+
+  @Column(name = "LEASE_UNTIL")
+  private Instant leaseUntil;
+
+  @Builder.Default
+  @Column(name = "ATTEMPT_COUNT", nullable = false)
+  private Integer attemptCount = 0;
+
+  @Column(name = "NEXT_ATTEMPT_AT")
+  private Instant nextAttemptAt;
 }
@@ -1,5 +1,5 @@
 package com.creditx.posting.model;
 
 public enum OutboxEventStatus {
-  PENDING, PUBLISHED, FAILED
+  PENDING, PUBLISHED, FAILED, DEAD
 }
@@ -10,6 +10,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * A processed event by its string keys. The JPA mapping covers the legacy EVENT_ID and
+ * PAYLOAD_HASH columns; rows in the compact key layout leave them NULL and are mapped to these
+ * fields by {@code ProcessedEventKeyRepository}.
+ */
 @Entity
 @Table(name = "CPS_PROCESSED_EVENTS")
 @Data
@@ -18,6 +23,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ProcessedEvent {
 
+  /** Claimed by a consumer whose CMS call has not completed yet. */
+  public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+  public static final String STATUS_SUCCESS = "SUCCESS";
+  public static final String STATUS_FAILED = "FAILED";
+
   @Id
   @Column(name = "EVENT_ID", length = 100)
   private String eventId;
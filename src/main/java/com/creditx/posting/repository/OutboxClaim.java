@@ -0,0 +1,12 @@
+package com.creditx.posting.repository;
+
+import java.util.List;
+
+/**
+ * @param eventIds   ids of the claimed events
+ * @param candidates rows the claim query selected, including those then held back behind an
+ *                   earlier event of their aggregate; reaches the limit whenever the backlog does
+ */
+public record OutboxClaim(List<Long> eventIds, int candidates) {
+
+}
@@ -0,0 +1,41 @@
+package com.creditx.posting.repository;
+
+import com.creditx.posting.model.OutboxEvent;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Lease-based claiming of outbox rows so that several service instances can drain
+ * CPS_OUTBOX_EVENTS concurrently without publishing the same event twice.
+ */
+public interface OutboxEventClaimRepository {
+
+  /**
+   * Claims up to {@code limit} unleased (or lease-expired) PENDING events for {@code owner}. Rows
+   * locked by a concurrent claim are skipped rather than waited for. An event is not claimed while
+   * an earlier event of its aggregate is still PENDING or FAILED and not claimed along with it, so
+   * events of one aggregate are never published out of order across batches or nodes. Must run
+   * inside a transaction; the lease is visible to other nodes once it commits. {@code limit} must
+   * not exceed Oracle's IN list limit of 1000.
+   *
+   * @return ids of the claimed events, oldest first, and the number of candidates selected
+   */
+  OutboxClaim claimPendingEvents(String owner, int limit, Duration leaseDuration);
+
+  /**
+   * Claims up to {@code limit} unleased FAILED events whose next attempt is due, picking the most
+   * overdue when more are due. Same locking, ordering and transaction rules as
+   * {@link #claimPendingEvents}.
+   *
+   * @return ids of the claimed events, most overdue first, and the number of candidates selected
+   */
+  OutboxClaim claimDueRetries(String owner, int limit, Duration leaseDuration);
+
+  /**
+   * Writes status, attempt count and next attempt time of failed events in one JDBC batch and
+   * drops their lease. Rows no longer leased to {@code owner} are left alone.
+   *
+   * @return number of rows updated
+   */
+  int recordFailures(List<OutboxEvent> events, String owner);
+}
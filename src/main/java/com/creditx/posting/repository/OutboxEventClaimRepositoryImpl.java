@@ -0,0 +1,123 @@
+package com.creditx.posting.repository;
+
+import com.creditx.posting.model.OutboxEvent;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@RequiredArgsConstructor
+public class OutboxEventClaimRepositoryImpl implements OutboxEventClaimRepository {
+
+  // FETCH FIRST cannot be combined with FOR UPDATE in Oracle, so the row limit is applied as the
+  // statement's max rows. SKIP LOCKED only locks rows as they are fetched. An event is held back
+  // while an earlier event of its aggregate is backing off or leased; earlier PENDING events sort
+  // first and are claimed with it.
+  private static final String CLAIM_CANDIDATES_SQL = """
+      SELECT e.EVENT_ID FROM CPS_OUTBOX_EVENTS e
+      WHERE e.STATUS = 'PENDING' AND (e.LEASE_UNTIL IS NULL OR e.LEASE_UNTIL < SYSTIMESTAMP)
+        AND NOT EXISTS (
+          SELECT 1 FROM CPS_OUTBOX_EVENTS p
+          WHERE p.AGGREGATE_ID = e.AGGREGATE_ID AND p.STATUS IN ('PENDING', 'FAILED')
+            AND (p.CREATED_AT < e.CREATED_AT
+              OR p.CREATED_AT = e.CREATED_AT AND p.EVENT_ID < e.EVENT_ID)
+            AND (p.STATUS = 'FAILED' OR p.LEASE_UNTIL >= SYSTIMESTAMP))
+      ORDER BY e.CREATED_AT, e.EVENT_ID
+      FOR UPDATE SKIP LOCKED""";
+
+  // a due retry goes once no earlier event of its aggregate is fresh, leased or not yet due
+  private static final String CLAIM_RETRY_CANDIDATES_SQL = """
+      SELECT e.EVENT_ID FROM CPS_OUTBOX_EVENTS e
+      WHERE e.STATUS = 'FAILED' AND e.NEXT_ATTEMPT_AT <= SYSTIMESTAMP
+        AND (e.LEASE_UNTIL IS NULL OR e.LEASE_UNTIL < SYSTIMESTAMP)
+        AND NOT EXISTS (
+          SELECT 1 FROM CPS_OUTBOX_EVENTS p
+          WHERE p.AGGREGATE_ID = e.AGGREGATE_ID AND p.STATUS IN ('PENDING', 'FAILED')
+            AND (p.CREATED_AT < e.CREATED_AT
+              OR p.CREATED_AT = e.CREATED_AT AND p.EVENT_ID < e.EVENT_ID)
+            AND (p.STATUS = 'PENDING' OR p.NEXT_ATTEMPT_AT > SYSTIMESTAMP
+              OR p.LEASE_UNTIL >= SYSTIMESTAMP))
+      ORDER BY e.NEXT_ATTEMPT_AT, e.EVENT_ID
+      FOR UPDATE SKIP LOCKED""";
+
+  // Candidates with an earlier unpublished event of their aggregate that is not among them, e.g.
+  // one skipped because a concurrent claim holds its lock or one cut off by the row limit
+  private static final String HELD_BACK_SQL = """
+      SELECT e.EVENT_ID FROM CPS_OUTBOX_EVENTS e
+      WHERE e.EVENT_ID IN (:eventIds)
+        AND EXISTS (
+          SELECT 1 FROM CPS_OUTBOX_EVENTS p
+          WHERE p.AGGREGATE_ID = e.AGGREGATE_ID AND p.STATUS IN ('PENDING', 'FAILED')
+            AND (p.CREATED_AT < e.CREATED_AT
+              OR p.CREATED_AT = e.CREATED_AT AND p.EVENT_ID < e.EVENT_ID)
+            AND p.EVENT_ID NOT IN (:eventIds))""";
+
+  private static final String TAKE_LEASE_SQL = """
+      UPDATE CPS_OUTBOX_EVENTS
+      SET LEASE_OWNER = :owner, LEASE_UNTIL = SYSTIMESTAMP + NUMTODSINTERVAL(:seconds, 'SECOND')
+      WHERE EVENT_ID IN (:eventIds)""";
+
+  private static final String RECORD_FAILURE_SQL = """
+      UPDATE CPS_OUTBOX_EVENTS
+      SET STATUS = ?, ATTEMPT_COUNT = ?, NEXT_ATTEMPT_AT = ?, LEASE_OWNER = NULL, LEASE_UNTIL = NULL
+      WHERE EVENT_ID = ? AND LEASE_OWNER = ?""";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public OutboxClaim claimPendingEvents(String owner, int limit, Duration leaseDuration) {
+    return claim(CLAIM_CANDIDATES_SQL, owner, limit, leaseDuration);
+  }
+
+  @Override
+  public OutboxClaim claimDueRetries(String owner, int limit, Duration leaseDuration) {
+    return claim(CLAIM_RETRY_CANDIDATES_SQL, owner, limit, leaseDuration);
+  }
+
+  @Override
+  public int recordFailures(List<OutboxEvent> events, String owner) {
+    int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(RECORD_FAILURE_SQL, events,
+        events.size(), (statement, event) -> {
+          statement.setString(1, event.getStatus().name());
+          statement.setInt(2, event.getAttemptCount());
+          statement.setTimestamp(3, event.getNextAttemptAt() == null
+              ? null : Timestamp.from(event.getNextAttemptAt()));
+          statement.setLong(4, event.getEventId());
+          statement.setString(5, owner);
+        });
+    int updated = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        // Oracle reports SUCCESS_NO_INFO for batched statements
+        updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+      }
+    }
+    return updated;
+  }
+
+  private OutboxClaim claim(String candidatesSql, String owner, int limit,
+      Duration leaseDuration) {
+    List<Long> candidates = jdbcTemplate.getJdbcTemplate().query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(candidatesSql);
+      statement.setMaxRows(limit);
+      statement.setFetchSize(limit);
+      return statement;
+    }, (rs, rowNum) -> rs.getLong(1));
+
+    List<Long> eventIds = new ArrayList<>(candidates);
+    if (!eventIds.isEmpty()) {
+      eventIds.removeAll(jdbcTemplate.queryForList(HELD_BACK_SQL, Map.of("eventIds", candidates),
+          Long.class));
+    }
+    if (!eventIds.isEmpty()) {
+      jdbcTemplate.update(TAKE_LEASE_SQL, Map.of("owner", owner, "seconds",
+          leaseDuration.toMillis() / 1000.0, "eventIds", eventIds));
+    }
+    return new OutboxClaim(eventIds, candidates.size());
+  }
+}
@@ -2,16 +2,65 @@ package com.creditx.posting.repository;
 
 import com.creditx.posting.model.OutboxEvent;
 import com.creditx.posting.model.OutboxEventStatus;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>,
+    OutboxEventClaimRepository {
 
   List<OutboxEvent> findByStatusOrderByCreatedAtAsc(OutboxEventStatus status);
 
-  @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status ORDER BY e.createdAt ASC")
-  List<OutboxEvent> findPendingEvents(OutboxEventStatus status);
+  /**
+   * First page of events in the given status, oldest first. Served by
+   * IDX_CPS_OUTBOX_STATUS_CREATED so the row limit is applied as a stop key on the index range
+   * scan instead of after reading the table.
+   */
+  @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status "
+      + "ORDER BY e.createdAt ASC, e.eventId ASC")
+  List<OutboxEvent> findPendingEvents(OutboxEventStatus status, Pageable pageable);
+
+  /**
+   * Next page of events in the given status strictly after the (createdAt, eventId) keyset of the
+   * last row of the previous page.
+   */
+  @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status "
+      + "AND (e.createdAt > :createdAt OR (e.createdAt = :createdAt AND e.eventId > :eventId)) "
+      + "ORDER BY e.createdAt ASC, e.eventId ASC")
+  List<OutboxEvent> findPendingEventsAfter(OutboxEventStatus status, Instant createdAt,
+      Long eventId, Pageable pageable);
+
+  List<OutboxEvent> findByEventIdInOrderByCreatedAtAscEventIdAsc(Collection<Long> eventIds);
+
+  /**
+   * Set-based transition touching only STATUS and PUBLISHED_AT, so the PAYLOAD CLOB is neither
+   * read nor rewritten. Only rows still leased to {@code owner} are updated, so an instance whose
+   * lease ran out cannot overwrite the state of a row another instance has claimed since.
+   */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.status = :status, e.publishedAt = :publishedAt, "
+      + "e.leaseOwner = NULL, e.leaseUntil = NULL "
+      + "WHERE e.eventId IN :eventIds AND e.leaseOwner = :owner")
+  int updateStatusAndPublishedAt(Collection<Long> eventIds, OutboxEventStatus status,
+      Instant publishedAt, String owner);
+
+  /**
+   * Drops the lease {@code owner} holds on events still in one of {@code statuses} so any instance
+   * can claim them again without waiting for the lease to expire.
+   */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.leaseOwner = NULL, e.leaseUntil = NULL "
+      + "WHERE e.eventId IN :eventIds AND e.status IN :statuses AND e.leaseOwner = :owner")
+  int clearLease(Collection<Long> eventIds, Collection<OutboxEventStatus> statuses,
+      String owner);
+
+  @Query("SELECT new com.creditx.posting.repository.RetryQueueStats(COUNT(e), "
+      + "MIN(e.nextAttemptAt)) FROM OutboxEvent e WHERE e.status = :status")
+  RetryQueueStats findRetryQueueStats(OutboxEventStatus status);
 }
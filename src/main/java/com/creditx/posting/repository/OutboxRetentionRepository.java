@@ -0,0 +1,103 @@
+package com.creditx.posting.repository;
+
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.model.OutboxEventStatus;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Row-level access to expired outbox history for the retention job.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRetentionRepository {
+
+  public static final String TABLE = "CPS_OUTBOX_EVENTS";
+
+  private static final String COLUMNS =
+      "EVENT_ID, EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS, CREATED_AT, PUBLISHED_AT";
+  private static final int FETCH_SIZE = 500;
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  /**
+   * Counts events of a partition that may still be published. DEAD events are not counted: they
+   * have been given up on and expire with their partition like published ones.
+   */
+  public long countAwaitingPublish(String partition) {
+    Long count = jdbcTemplate.getJdbcTemplate().queryForObject(
+        "SELECT COUNT(*) FROM " + PartitionMaintenanceRepository.partitionOf(TABLE, partition)
+            + " WHERE STATUS IN ('PENDING', 'FAILED')", Long.class);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Streams all rows of a partition to {@code sink} without materializing them.
+   *
+   * @return number of rows streamed
+   */
+  public long streamPartition(String partition, Consumer<OutboxEvent> sink) {
+    String sql = "SELECT " + COLUMNS + " FROM "
+        + PartitionMaintenanceRepository.partitionOf(TABLE, partition);
+    long[] rows = {0};
+    jdbcTemplate.getJdbcTemplate().query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(FETCH_SIZE);
+      return statement;
+    }, rs -> {
+      sink.accept(mapRow(rs));
+      rows[0]++;
+    });
+    return rows[0];
+  }
+
+  /**
+   * Ids of up to {@code limit} published events created before {@code cutoff}, oldest first.
+   */
+  public List<Long> findPublishedIdsBefore(Instant cutoff, int limit) {
+    return jdbcTemplate.queryForList("""
+            SELECT EVENT_ID FROM CPS_OUTBOX_EVENTS
+            WHERE STATUS = 'PUBLISHED' AND CREATED_AT < :cutoff
+            ORDER BY CREATED_AT, EVENT_ID FETCH FIRST :limit ROWS ONLY""",
+        Map.of("cutoff", Timestamp.from(cutoff), "limit", limit), Long.class);
+  }
+
+  public void streamByIds(Collection<Long> eventIds, Consumer<OutboxEvent> sink) {
+    jdbcTemplate.query("SELECT " + COLUMNS + " FROM CPS_OUTBOX_EVENTS "
+            + "WHERE EVENT_ID IN (:eventIds) ORDER BY EVENT_ID", Map.of("eventIds", eventIds),
+        (ResultSet rs) -> sink.accept(mapRow(rs)));
+  }
+
+  /**
+   * Deletes the given events if they are still published.
+   */
+  public int deletePublished(Collection<Long> eventIds) {
+    return jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS "
+        + "WHERE EVENT_ID IN (:eventIds) AND STATUS = 'PUBLISHED'", Map.of("eventIds", eventIds));
+  }
+
+  private static OutboxEvent mapRow(ResultSet rs) throws SQLException {
+    long aggregateId = rs.getLong("AGGREGATE_ID");
+    boolean noAggregate = rs.wasNull();
+    Timestamp publishedAt = rs.getTimestamp("PUBLISHED_AT");
+    return OutboxEvent.builder()
+        .eventId(rs.getLong("EVENT_ID"))
+        .eventType(rs.getString("EVENT_TYPE"))
+        .aggregateId(noAggregate ? null : aggregateId)
+        .payload(rs.getString("PAYLOAD"))
+        .status(OutboxEventStatus.valueOf(rs.getString("STATUS")))
+        .createdAt(rs.getTimestamp("CREATED_AT").toInstant())
+        .publishedAt(publishedAt == null ? null : publishedAt.toInstant())
+        .build();
+  }
+}
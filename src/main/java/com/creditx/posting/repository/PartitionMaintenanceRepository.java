@@ -0,0 +1,74 @@
+package com.creditx.posting.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Partition housekeeping for tables range partitioned by a DATE key. Table and partition names
+ * cannot be bound in DDL, so they are checked against the Oracle identifier syntax before being
+ * inlined.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceRepository {
+
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Z][A-Z0-9_$#]{0,127}");
+  private static final Pattern HIGH_VALUE_DATE = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Lists the partitions of a table in partition order. HIGH_VALUE is a LONG holding the bound as
+   * a TO_DATE expression; partitions whose bound is MAXVALUE are skipped.
+   */
+  public List<TablePartition> findPartitions(String table) {
+    return jdbcTemplate.query("""
+            SELECT PARTITION_NAME, HIGH_VALUE, INTERVAL FROM USER_TAB_PARTITIONS
+            WHERE TABLE_NAME = ? ORDER BY PARTITION_POSITION""",
+        (rs, rowNum) -> {
+          String name = rs.getString(1);
+          Matcher highValue = HIGH_VALUE_DATE.matcher(rs.getString(2));
+          boolean interval = "YES".equals(rs.getString(3));
+          return highValue.find()
+              ? new TablePartition(name, LocalDate.parse(highValue.group(1)), interval) : null;
+        }, identifier(table)).stream().filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * Drops an interval partition. Global indexes are kept usable; Oracle defers the cleanup of
+   * their orphaned entries.
+   */
+  public void dropPartition(String table, String partition) {
+    log.info("Dropping partition {} of {}", partition, table);
+    jdbcTemplate.execute("ALTER TABLE " + identifier(table) + " DROP PARTITION "
+        + identifier(partition) + " UPDATE INDEXES");
+  }
+
+  public void truncatePartition(String table, String partition) {
+    log.info("Truncating partition {} of {}", partition, table);
+    jdbcTemplate.execute("ALTER TABLE " + identifier(table) + " TRUNCATE PARTITION "
+        + identifier(partition) + " DROP STORAGE UPDATE INDEXES");
+  }
+
+  /**
+   * Returns {@code TABLE PARTITION (NAME)} for use in a FROM clause.
+   */
+  public static String partitionOf(String table, String partition) {
+    return identifier(table) + " PARTITION (" + identifier(partition) + ")";
+  }
+
+  private static String identifier(String name) {
+    if (name == null || !IDENTIFIER.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid table or partition name: " + name);
+    }
+    return name;
+  }
+}
@@ -0,0 +1,97 @@
+package com.creditx.posting.repository;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compact form of a processed event id {@code <eventType>-<transactionId>-<holdId>}, stored as an
+ * event type code and two NUMBER columns instead of a VARCHAR2.
+ *
+ * @param eventType     code of the event type
+ * @param transactionId the transaction ID
+ * @param holdId        the hold ID
+ */
+public record ProcessedEventKey(int eventType, long transactionId, long holdId) {
+
+  // codes are persisted as the position in this list plus one: append, never reorder
+  private static final List<String> EVENT_TYPES = List.of("transaction.authorized");
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  /**
+   * Parses an event id built by {@code EventIdGenerator}. Ids of other shapes, such as the
+   * UUID-suffixed ids of rows written before the compact layout, have no compact form.
+   *
+   * @param eventId the event id
+   * @return the compact key, or empty if the event id has none
+   */
+  public static Optional<ProcessedEventKey> parse(String eventId) {
+    int holdSeparator = eventId.lastIndexOf('-');
+    int transactionSeparator = eventId.lastIndexOf('-', holdSeparator - 1);
+    if (transactionSeparator <= 0) {
+      return Optional.empty();
+    }
+    int eventType = EVENT_TYPES.indexOf(eventId.substring(0, transactionSeparator)) + 1;
+    if (eventType == 0) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new ProcessedEventKey(eventType,
+          Long.parseLong(eventId, transactionSeparator + 1, holdSeparator, 10),
+          Long.parseLong(eventId, holdSeparator + 1, eventId.length(), 10)));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Like {@link #parse(String)}, for event ids about to be written.
+   *
+   * @throws IllegalArgumentException if the event id has no compact form
+   */
+  public static ProcessedEventKey of(String eventId) {
+    return parse(eventId).orElseThrow(() -> new IllegalArgumentException(
+        "Event id " + eventId + " has no compact form"));
+  }
+
+  /**
+   * Raw bytes of a hex payload hash: 32 for SHA-256, 16 for Murmur3.
+   *
+   * @param payloadHash the payload hash as hex
+   * @return the digest, or null if the hash is not 16 or 32 bytes of hex
+   */
+  public static byte[] digest(String payloadHash) {
+    if (payloadHash.length() != 32 && payloadHash.length() != 64) {
+      return null;
+    }
+    try {
+      return HEX.parseHex(payloadHash);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Like {@link #digest(String)}, for payload hashes about to be written.
+   *
+   * @throws IllegalArgumentException if the hash has no compact form
+   */
+  public static byte[] requireDigest(String payloadHash) {
+    byte[] digest = digest(payloadHash);
+    if (digest == null) {
+      throw new IllegalArgumentException("Payload hash " + payloadHash + " has no compact form");
+    }
+    return digest;
+  }
+
+  /** Hex payload hash of a stored digest, as produced by the payload hash algorithms. */
+  public static String payloadHash(byte[] digest) {
+    return HEX.formatHex(digest);
+  }
+
+  /** The event id this key was parsed from. */
+  public String eventId() {
+    return EVENT_TYPES.get(eventType - 1) + '-' + transactionId + '-' + holdId;
+  }
+}
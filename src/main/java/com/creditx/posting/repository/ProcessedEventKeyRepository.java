@@ -0,0 +1,95 @@
+package com.creditx.posting.repository;
+
+import com.creditx.posting.model.ProcessedEvent;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Access to CPS_PROCESSED_EVENTS by its compact keys, see {@link ProcessedEventKey}. Callers keep
+ * working with the string event id and hex payload hash; they are encoded on the way in and
+ * decoded on the way out. Writes always use the compact columns. Key scans also return legacy
+ * rows, so the dedup cache warms from both layouts.
+ */
+public interface ProcessedEventKeyRepository {
+
+  /**
+   * Records all {@code events} as one JDBC batch. An event whose key already has a row, or failing
+   * that whose payload hash has one, updates that row unless it is already SUCCESS, so neither
+   * unique index fails the batch when another delivery claimed or failed the event meanwhile.
+   *
+   * @return number of rows inserted or updated
+   * @throws IllegalArgumentException if an event id or payload hash has no compact form
+   */
+  int insertAll(List<ProcessedEvent> events);
+
+  /**
+   * Claims the event in one statement. The row holding its event key decides, even if an earlier
+   * delivery carried different bytes; without one, a row holding its payload hash under another key
+   * does. An event never seen gets an IN_PROGRESS row; a FAILED row, or an IN_PROGRESS row whose
+   * claim is older than {@code staleSeconds} because its consumer died, is taken over and re-keyed
+   * to {@code eventId} and {@code payloadHash}. Two deliveries inserting the same event at once are
+   * told apart by the unique indexes: the loser fails with a unique constraint violation, as does
+   * a retry whose new payload hash another event's row already holds. Runs in a transaction of its
+   * own, suspending any caller's, so that violation cannot poison it and the claim is visible to
+   * other consumers as soon as this returns.
+   *
+   * @return 1 if the event was claimed, 0 if it is settled or claimed by a live consumer
+   * @throws IllegalArgumentException if the event id or payload hash has no compact form
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  int claim(String eventId, String payloadHash, long staleSeconds);
+
+  /**
+   * Runs {@link #claim} for all {@code events} as one JDBC batch in a transaction of its own. If a
+   * concurrent delivery inserted one of the events first, the unique constraint violation rolls
+   * back the whole batch and no event is claimed.
+   *
+   * @return per event, in order, 1 if it was claimed and 0 if it is settled or claimed by a live
+   *     consumer
+   * @throws IllegalArgumentException if an event id or payload hash has no compact form
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  int[] claimAll(List<ProcessedEvent> events, long staleSeconds);
+
+  /**
+   * Records the outcome of a claimed event. PROCESSED_AT becomes the completion time.
+   *
+   * @return number of rows updated
+   */
+  int updateStatus(String eventId, String status);
+
+  /**
+   * Records the status of each claimed event in one JDBC batch. PROCESSED_AT becomes the
+   * completion time.
+   */
+  void updateStatuses(List<ProcessedEvent> events);
+
+  boolean existsByEventKey(String eventId);
+
+  boolean existsByPayloadDigest(String payloadHash);
+
+  /**
+   * Compact rows matching any of the event ids or payload hashes. Both collections must stay
+   * within Oracle's 1000 element IN-list limit. Keys without a compact form match nothing.
+   */
+  List<ProcessedEvent> findByEventKeysOrPayloadDigests(Collection<String> eventIds,
+      Collection<String> payloadHashes);
+
+  /**
+   * Streams the keys (event id, payload hash, status) of the {@code limit} most recently
+   * processed rows, newest first.
+   *
+   * @return number of rows streamed
+   */
+  int streamRecent(int limit, Consumer<ProcessedEvent> sink);
+
+  /**
+   * Streams the keys of rows processed at or after {@code since}.
+   *
+   * @return number of rows streamed
+   */
+  int streamSince(Instant since, Consumer<ProcessedEvent> sink);
+}
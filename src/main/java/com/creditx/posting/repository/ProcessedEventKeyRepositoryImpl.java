@@ -0,0 +1,250 @@
+package com.creditx.posting.repository;
+
+import com.creditx.posting.model.ProcessedEvent;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@RequiredArgsConstructor
+public class ProcessedEventKeyRepositoryImpl implements ProcessedEventKeyRepository {
+
+  // The row a delivery settles: the one holding its event key, which is authoritative, else one
+  // holding its payload digest. Matching by ROWID keeps both key columns updatable.
+  private static final String TARGET_ROW = """
+      (SELECT MIN(t.ROWID) KEEP (DENSE_RANK FIRST ORDER BY CASE
+                WHEN t.TRANSACTION_ID = s.TRANSACTION_ID AND t.HOLD_ID = s.HOLD_ID
+                     AND t.EVENT_TYPE = s.EVENT_TYPE THEN 0 ELSE 1 END)
+       FROM CPS_PROCESSED_EVENTS t
+       WHERE (t.TRANSACTION_ID = s.TRANSACTION_ID AND t.HOLD_ID = s.HOLD_ID
+              AND t.EVENT_TYPE = s.EVENT_TYPE)
+          OR t.PAYLOAD_DIGEST = s.PAYLOAD_DIGEST) AS TARGET_ROW""";
+
+  private static final String UPSERT_SQL = """
+      MERGE INTO CPS_PROCESSED_EVENTS p
+      USING (SELECT s.*, %s
+             FROM (SELECT ? AS EVENT_TYPE, ? AS TRANSACTION_ID, ? AS HOLD_ID,
+                          ? AS PAYLOAD_DIGEST, ? AS STATUS FROM DUAL) s) e
+      ON (p.ROWID = e.TARGET_ROW)
+      WHEN MATCHED THEN UPDATE SET p.STATUS = e.STATUS, p.PROCESSED_AT = SYSTIMESTAMP
+        WHERE p.STATUS <> 'SUCCESS'
+      WHEN NOT MATCHED THEN INSERT (EVENT_TYPE, TRANSACTION_ID, HOLD_ID, PAYLOAD_DIGEST, STATUS)
+        VALUES (e.EVENT_TYPE, e.TRANSACTION_ID, e.HOLD_ID, e.PAYLOAD_DIGEST, e.STATUS)"""
+      .formatted(TARGET_ROW);
+
+  private static final String CLAIM_SQL = """
+      MERGE INTO CPS_PROCESSED_EVENTS p
+      USING (SELECT s.*, %s
+             FROM (SELECT ? AS EVENT_TYPE, ? AS TRANSACTION_ID, ? AS HOLD_ID,
+                          ? AS PAYLOAD_DIGEST FROM DUAL) s) c
+      ON (p.ROWID = c.TARGET_ROW)
+      WHEN MATCHED THEN UPDATE
+        SET p.EVENT_TYPE = c.EVENT_TYPE, p.TRANSACTION_ID = c.TRANSACTION_ID,
+            p.HOLD_ID = c.HOLD_ID, p.PAYLOAD_DIGEST = c.PAYLOAD_DIGEST,
+            p.STATUS = 'IN_PROGRESS', p.PROCESSED_AT = SYSTIMESTAMP
+        WHERE p.STATUS = 'FAILED' OR (p.STATUS = 'IN_PROGRESS'
+              AND p.PROCESSED_AT < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND'))
+      WHEN NOT MATCHED THEN INSERT (EVENT_TYPE, TRANSACTION_ID, HOLD_ID, PAYLOAD_DIGEST, STATUS)
+        VALUES (c.EVENT_TYPE, c.TRANSACTION_ID, c.HOLD_ID, c.PAYLOAD_DIGEST, 'IN_PROGRESS')"""
+      .formatted(TARGET_ROW);
+
+  private static final String UPDATE_STATUS_SQL = """
+      UPDATE CPS_PROCESSED_EVENTS SET STATUS = ?, PROCESSED_AT = SYSTIMESTAMP
+      WHERE TRANSACTION_ID = ? AND HOLD_ID = ? AND EVENT_TYPE = ?""";
+
+  private static final String COLUMNS = "EVENT_ID, PAYLOAD_HASH, EVENT_TYPE, TRANSACTION_ID, "
+      + "HOLD_ID, PAYLOAD_DIGEST, STATUS, PROCESSED_AT";
+
+  // Both scans go through the partition key so Oracle reads the newest daily partitions only:
+  // PROCESSED_DAY sorts like PROCESSED_AT and leads the local index that serves both orders
+  private static final String RECENT_KEYS_SQL = "SELECT " + COLUMNS
+      + " FROM CPS_PROCESSED_EVENTS ORDER BY PROCESSED_DAY DESC, PROCESSED_AT DESC"
+      + " FETCH FIRST ? ROWS ONLY";
+
+  // the bound on PROCESSED_DAY is the UTC day of the bound on PROCESSED_AT, so it only prunes
+  private static final String KEYS_SINCE_SQL = "SELECT " + COLUMNS
+      + " FROM CPS_PROCESSED_EVENTS WHERE PROCESSED_DAY >= CAST(? AS DATE) AND PROCESSED_AT >= ?";
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Override
+  public int insertAll(List<ProcessedEvent> events) {
+    if (events.isEmpty()) {
+      return 0;
+    }
+    int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_SQL, events,
+        events.size(), (statement, event) -> {
+          bindKey(statement, ProcessedEventKey.of(event.getEventId()), event.getPayloadHash());
+          statement.setString(5, event.getStatus());
+        });
+    int inserted = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        // Oracle reports SUCCESS_NO_INFO for batched statements
+        inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+      }
+    }
+    return inserted;
+  }
+
+  @Override
+  public int claim(String eventId, String payloadHash, long staleSeconds) {
+    ProcessedEventKey key = ProcessedEventKey.of(eventId);
+    return jdbcTemplate.getJdbcTemplate().update(CLAIM_SQL, statement -> {
+      bindKey(statement, key, payloadHash);
+      statement.setLong(5, staleSeconds);
+    });
+  }
+
+  @Override
+  public int[] claimAll(List<ProcessedEvent> events, long staleSeconds) {
+    if (events.isEmpty()) {
+      return new int[0];
+    }
+    int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(CLAIM_SQL, events,
+        events.size(), (statement, event) -> {
+          bindKey(statement, ProcessedEventKey.of(event.getEventId()), event.getPayloadHash());
+          statement.setLong(5, staleSeconds);
+        });
+    // one batch; ojdbc reports the row count of every MERGE in it
+    return counts[0];
+  }
+
+  @Override
+  public int updateStatus(String eventId, String status) {
+    ProcessedEventKey key = ProcessedEventKey.of(eventId);
+    return jdbcTemplate.getJdbcTemplate().update(UPDATE_STATUS_SQL, status,
+        key.transactionId(), key.holdId(), key.eventType());
+  }
+
+  @Override
+  public void updateStatuses(List<ProcessedEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_STATUS_SQL, events, events.size(),
+        (statement, event) -> {
+          ProcessedEventKey key = ProcessedEventKey.of(event.getEventId());
+          statement.setString(1, event.getStatus());
+          statement.setLong(2, key.transactionId());
+          statement.setLong(3, key.holdId());
+          statement.setInt(4, key.eventType());
+        });
+  }
+
+  @Override
+  public boolean existsByEventKey(String eventId) {
+    return ProcessedEventKey.parse(eventId)
+        .map(key -> count("TRANSACTION_ID = ? AND HOLD_ID = ? AND EVENT_TYPE = ?",
+            key.transactionId(), key.holdId(), key.eventType()) > 0)
+        .orElse(false);
+  }
+
+  @Override
+  public boolean existsByPayloadDigest(String payloadHash) {
+    byte[] digest = ProcessedEventKey.digest(payloadHash);
+    return digest != null && count("PAYLOAD_DIGEST = ?", digest) > 0;
+  }
+
+  @Override
+  public List<ProcessedEvent> findByEventKeysOrPayloadDigests(Collection<String> eventIds,
+      Collection<String> payloadHashes) {
+    List<Object[]> keys = eventIds.stream().map(ProcessedEventKey::parse)
+        .flatMap(Optional::stream)
+        .map(key -> new Object[]{key.transactionId(), key.holdId(), key.eventType()})
+        .toList();
+    List<byte[]> digests = payloadHashes.stream().map(ProcessedEventKey::digest)
+        .filter(Objects::nonNull).toList();
+    List<String> predicates = new ArrayList<>(2);
+    if (!keys.isEmpty()) {
+      predicates.add("(TRANSACTION_ID, HOLD_ID, EVENT_TYPE) IN (:keys)");
+    }
+    if (!digests.isEmpty()) {
+      predicates.add("PAYLOAD_DIGEST IN (:digests)");
+    }
+    if (predicates.isEmpty()) {
+      return List.of();
+    }
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM CPS_PROCESSED_EVENTS WHERE "
+            + String.join(" OR ", predicates),
+        new MapSqlParameterSource().addValue("keys", keys).addValue("digests", digests),
+        (rs, rowNum) -> mapRow(rs));
+  }
+
+  @Override
+  public int streamRecent(int limit, Consumer<ProcessedEvent> sink) {
+    return stream(RECENT_KEYS_SQL, sink, limit);
+  }
+
+  @Override
+  public int streamSince(Instant since, Consumer<ProcessedEvent> sink) {
+    return stream(KEYS_SINCE_SQL, sink,
+        LocalDateTime.ofInstant(since, ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS),
+        Timestamp.from(since));
+  }
+
+  private int stream(String sql, Consumer<ProcessedEvent> sink, Object... parameters) {
+    int[] streamed = {0};
+    jdbcTemplate.getJdbcTemplate().query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(FETCH_SIZE);
+      for (int i = 0; i < parameters.length; i++) {
+        statement.setObject(i + 1, parameters[i]);
+      }
+      return statement;
+    }, (ResultSet rs) -> {
+      sink.accept(mapRow(rs));
+      streamed[0]++;
+    });
+    return streamed[0];
+  }
+
+  private int count(String predicate, Object... parameters) {
+    Integer count = jdbcTemplate.getJdbcTemplate().queryForObject(
+        "SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS WHERE " + predicate + " AND ROWNUM = 1",
+        Integer.class, parameters);
+    return count == null ? 0 : count;
+  }
+
+  private static void bindKey(PreparedStatement statement, ProcessedEventKey key,
+      String payloadHash) throws SQLException {
+    statement.setInt(1, key.eventType());
+    statement.setLong(2, key.transactionId());
+    statement.setLong(3, key.holdId());
+    statement.setBytes(4, ProcessedEventKey.requireDigest(payloadHash));
+  }
+
+  /** Maps a row of either layout to its string keys. */
+  private static ProcessedEvent mapRow(ResultSet rs) throws SQLException {
+    String eventId = rs.getString("EVENT_ID");
+    if (eventId == null) {
+      eventId = new ProcessedEventKey(rs.getInt("EVENT_TYPE"), rs.getLong("TRANSACTION_ID"),
+          rs.getLong("HOLD_ID")).eventId();
+    }
+    String payloadHash = rs.getString("PAYLOAD_HASH");
+    byte[] digest = rs.getBytes("PAYLOAD_DIGEST");
+    if (payloadHash == null && digest != null) {
+      payloadHash = ProcessedEventKey.payloadHash(digest);
+    }
+    Timestamp processedAt = rs.getTimestamp("PROCESSED_AT");
+    return ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash)
+        .status(rs.getString("STATUS"))
+        .processedAt(processedAt == null ? null : processedAt.toInstant()).build();
+  }
+}
@@ -1,13 +1,49 @@
 package com.creditx.posting.repository;
 
 import com.creditx.posting.model.ProcessedEvent;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+/**
+ * CPS_PROCESSED_EVENTS. The derived queries here read legacy rows by their hex PAYLOAD_HASH; their
+ * string EVENT_ID ends in a random suffix no redelivery reproduces, so it is never looked up. Rows
+ * written since the compact layout are read and written through
+ * {@link ProcessedEventKeyRepository}.
+ */
 @Repository
-public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
-
-  boolean existsByEventId(String eventId);
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String>,
+    ProcessedEventKeyRepository {
 
   boolean existsByPayloadHash(String payloadHash);
+
+  /**
+   * Legacy rows matching any of the payload hashes. At most 1000 hashes per call, Oracle's IN-list
+   * limit.
+   */
+  List<ProcessedEvent> findByPayloadHashIn(Collection<String> payloadHashes);
+
+  /**
+   * Counts legacy rows that keep a claim from taking over the payload: SUCCESS rows and
+   * IN_PROGRESS rows claimed less than {@code staleSeconds} ago.
+   */
+  @Query(value = """
+      SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS
+      WHERE PAYLOAD_HASH = :payloadHash AND (STATUS = 'SUCCESS' OR (STATUS = 'IN_PROGRESS'
+            AND PROCESSED_AT >= SYSTIMESTAMP - NUMTODSINTERVAL(:staleSeconds, 'SECOND')))""",
+      nativeQuery = true)
+  long countLegacyClaimBlockers(String payloadHash, long staleSeconds);
+
+  /**
+   * Payload hashes among {@code payloadHashes} held by legacy claim blockers, see
+   * {@link #countLegacyClaimBlockers}. At most 1000 hashes per call.
+   */
+  @Query(value = """
+      SELECT PAYLOAD_HASH FROM CPS_PROCESSED_EVENTS
+      WHERE PAYLOAD_HASH IN (:payloadHashes) AND (STATUS = 'SUCCESS' OR (STATUS = 'IN_PROGRESS'
+            AND PROCESSED_AT >= SYSTIMESTAMP - NUMTODSINTERVAL(:staleSeconds, 'SECOND')))""",
+      nativeQuery = true)
+  List<String> findLegacyClaimBlockers(Collection<String> payloadHashes, long staleSeconds);
 }
@@ -0,0 +1,11 @@
+package com.creditx.posting.repository;
+
+import java.time.Instant;
+
+/**
+ * @param depth               number of FAILED events waiting for a retry
+ * @param earliestNextAttempt earliest scheduled retry, or {@code null} when the queue is empty
+ */
+public record RetryQueueStats(long depth, Instant earliestNextAttempt) {
+
+}
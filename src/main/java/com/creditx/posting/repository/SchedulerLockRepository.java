@@ -0,0 +1,56 @@
+package com.creditx.posting.repository;
+
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Lease rows in CPS_SCHEDULER_LOCKS, one per job, seeded by the migration that introduces the
+ * job's lock. Taking a lock is a single conditional update, so of two nodes racing for the same
+ * row Oracle lets exactly one of them through.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SchedulerLockRepository {
+
+  private static final String LOCK_SQL = """
+      UPDATE CPS_SCHEDULER_LOCKS
+      SET LOCKED_BY = ?, LOCKED_UNTIL = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+      WHERE LOCK_NAME = ? AND (LOCKED_UNTIL IS NULL OR LOCKED_UNTIL < SYSTIMESTAMP)""";
+
+  private static final String UNLOCK_SQL = """
+      UPDATE CPS_SCHEDULER_LOCKS SET LOCKED_BY = NULL, LOCKED_UNTIL = NULL
+      WHERE LOCK_NAME = ? AND LOCKED_BY = ?""";
+
+  private static final String LOCKED_SQL = """
+      SELECT COUNT(*) FROM CPS_SCHEDULER_LOCKS
+      WHERE LOCK_NAME = ? AND LOCKED_UNTIL >= SYSTIMESTAMP""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Takes the lock for {@code leaseDuration} unless another node holds it and its lease has not
+   * expired. Must run outside a transaction so the lock is visible to other nodes at once.
+   *
+   * @return whether the lock was taken
+   */
+  public boolean tryLock(String name, String owner, Duration leaseDuration) {
+    return jdbcTemplate.update(LOCK_SQL, owner, leaseDuration.toMillis() / 1000.0, name) == 1;
+  }
+
+  /**
+   * Releases the lock if {@code owner} still holds it.
+   *
+   * @return false if the lease expired and another node has taken the lock since
+   */
+  public boolean unlock(String name, String owner) {
+    return jdbcTemplate.update(UNLOCK_SQL, name, owner) == 1;
+  }
+
+  /** Whether any node holds the lock with a lease that has not expired. */
+  public boolean isLocked(String name) {
+    Integer locked = jdbcTemplate.queryForObject(LOCKED_SQL, Integer.class, name);
+    return locked != null && locked > 0;
+  }
+}
@@ -0,0 +1,15 @@
+package com.creditx.posting.repository;
+
+import java.time.LocalDate;
+
+/**
+ * One range partition of a table partitioned by a DATE key.
+ *
+ * @param name      partition name
+ * @param highValue exclusive upper bound of the partition key
+ * @param interval  whether Oracle created the partition from the interval clause; only those can
+ *                  be dropped, the partitions of the range section can only be truncated
+ */
+public record TablePartition(String name, LocalDate highValue, boolean interval) {
+
+}
@@ -0,0 +1,116 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.service.impl.OutboxEventServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how many outbox events to claim next and how long to wait before doing so. Full
+ * batches are followed immediately by the next one; empty batches double the idle interval up to
+ * {@code app.outbox.max-idle-interval}. The batch size grows while full batches finish well within
+ * {@code app.outbox.target-batch-latency} and shrinks when a batch exceeds it.
+ */
+@Component
+public class AdaptiveOutboxPollingPolicy {
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long baseInterval;
+  private final long maxIdleInterval;
+  private final long targetBatchLatency;
+
+  private volatile int batchSize;
+  private volatile long interval;
+
+  public AdaptiveOutboxPollingPolicy(@Value("${app.outbox.batch-size}") int batchSize,
+      @Value("${app.outbox.min-batch-size:10}") int minBatchSize,
+      @Value("${app.outbox.max-batch-size:1000}") int maxBatchSize,
+      @Value("${app.outbox.publish-interval}") long baseInterval,
+      @Value("${app.outbox.max-idle-interval:5000}") long maxIdleInterval,
+      @Value("${app.outbox.target-batch-latency:500}") long targetBatchLatency,
+      MeterRegistry meterRegistry) {
+    if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+      throw new IllegalArgumentException(
+          "app.outbox.min-batch-size must be at least 1 and not above app.outbox.max-batch-size");
+    }
+    if (maxBatchSize > OutboxEventServiceImpl.MAX_IN_LIST_SIZE) {
+      // the claim binds the whole batch into one IN list
+      throw new IllegalArgumentException("app.outbox.max-batch-size must not exceed "
+          + OutboxEventServiceImpl.MAX_IN_LIST_SIZE);
+    }
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.baseInterval = baseInterval;
+    this.maxIdleInterval = Math.max(baseInterval, maxIdleInterval);
+    this.targetBatchLatency = targetBatchLatency;
+    this.batchSize = clamp(batchSize);
+    this.interval = baseInterval;
+
+    Gauge.builder("outbox.publisher.interval", this, AdaptiveOutboxPollingPolicy::currentInterval)
+        .description("Current delay before the next outbox batch")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    Gauge.builder("outbox.publisher.batch.size", this, AdaptiveOutboxPollingPolicy::batchSize)
+        .description("Current number of outbox events claimed per batch")
+        .register(meterRegistry);
+  }
+
+  public int batchSize() {
+    return batchSize;
+  }
+
+  public long currentInterval() {
+    return interval;
+  }
+
+  /**
+   * Feeds back the result of one batch.
+   *
+   * @param requested     number of events asked for
+   * @param claimed       number of claim candidates, including events held back behind an
+   *                      earlier one of their aggregate, or 0 when nothing was claimed
+   * @param elapsedMillis time spent claiming, publishing and recording the batch
+   * @return delay in ms before the next batch
+   */
+  public long onBatchCompleted(int requested, int claimed, long elapsedMillis) {
+    if (claimed > 0) {
+      adjustBatchSize(claimed >= requested, elapsedMillis);
+    }
+    if (claimed >= requested && claimed > 0) {
+      interval = 0;
+    } else if (claimed > 0) {
+      interval = baseInterval;
+    } else {
+      backOff();
+    }
+    return interval;
+  }
+
+  /**
+   * Backs off after a batch that failed before producing an outcome.
+   *
+   * @return delay in ms before the next batch
+   */
+  public long onBatchFailed() {
+    backOff();
+    return interval;
+  }
+
+  private void adjustBatchSize(boolean full, long elapsedMillis) {
+    if (elapsedMillis > targetBatchLatency) {
+      batchSize = clamp(batchSize / 2);
+    } else if (full && elapsedMillis <= targetBatchLatency / 2) {
+      batchSize = clamp(batchSize * 2);
+    }
+  }
+
+  private void backOff() {
+    interval = Math.min(maxIdleInterval, Math.max(baseInterval, interval * 2));
+  }
+
+  private int clamp(int size) {
+    return Math.max(minBatchSize, Math.min(maxBatchSize, size));
+  }
+}
@@ -0,0 +1,163 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.model.OutboxEvent;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes a batch of outbox events on a fixed set of worker lanes. Events are sharded onto
+ * lanes by aggregate id; within an aggregate each event is only sent after the previous one was
+ * acknowledged, so per-aggregate order is preserved while different aggregates proceed in
+ * parallel. A failure blocks the remaining events of its own aggregate only. Once a batch times
+ * out its chains start no further sends. A send already under way may still be acknowledged after
+ * its event was reported pending; that event stays PENDING and is sent again by the next claim, so
+ * publishing is at-least-once and consumers deduplicate by event key.
+ */
+@Component
+@Slf4j
+public class KeyOrderedOutboxDispatcher {
+
+  private enum Outcome {
+    PUBLISHED, FAILED, BLOCKED
+  }
+
+  private final ExecutorService[] lanes;
+
+  public KeyOrderedOutboxDispatcher(@Value("${app.outbox.publisher-threads:1}") int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("app.outbox.publisher-threads must be at least 1");
+    }
+    this.lanes = new ExecutorService[threads];
+    for (int i = 0; i < threads; i++) {
+      String name = "outbox-lane-" + i;
+      lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Sends the events and waits up to {@code timeoutMillis} for all outcomes. Events without an
+   * outcome by then are reported pending; those not yet started are not sent afterwards. Keep the
+   * timeout below the claim lease so they cannot be claimed elsewhere while still being sent here.
+   *
+   * @param events        events in fetch order
+   * @param sender        sends one event and returns a future completing on acknowledgement
+   * @param timeoutMillis max time to wait for the whole batch
+   */
+  public OutboxDispatchResult dispatch(List<OutboxEvent> events,
+      Function<OutboxEvent, CompletableFuture<?>> sender, long timeoutMillis) {
+    Map<Long, Outcome> outcomes = new ConcurrentHashMap<>();
+    AtomicBoolean expired = new AtomicBoolean();
+    Map<Long, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+    for (OutboxEvent event : events) {
+      byAggregate.computeIfAbsent(event.getAggregateId(), k -> new ArrayList<>()).add(event);
+    }
+
+    List<CompletableFuture<Boolean>> chains = new ArrayList<>(byAggregate.size());
+    byAggregate.forEach((aggregateId, aggregateEvents) -> chains.add(
+        dispatchAggregate(aggregateEvents, laneFor(aggregateId), sender, outcomes, expired)));
+
+    try {
+      CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new))
+          .get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // Failures are recorded per event in the chains
+    } catch (TimeoutException e) {
+      expired.set(true);
+      log.warn("Timed out after {} ms waiting for outbox batch outcomes", timeoutMillis);
+    } catch (InterruptedException e) {
+      expired.set(true);
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted while waiting for outbox batch outcomes");
+    }
+
+    List<Long> published = new ArrayList<>();
+    List<Long> failed = new ArrayList<>();
+    List<Long> blocked = new ArrayList<>();
+    List<Long> pending = new ArrayList<>();
+    for (OutboxEvent event : events) {
+      Outcome outcome = outcomes.get(event.getEventId());
+      if (outcome == null) {
+        pending.add(event.getEventId());
+      } else {
+        switch (outcome) {
+          case PUBLISHED -> published.add(event.getEventId());
+          case FAILED -> failed.add(event.getEventId());
+          case BLOCKED -> blocked.add(event.getEventId());
+        }
+      }
+    }
+    return new OutboxDispatchResult(published, failed, blocked, pending);
+  }
+
+  private CompletableFuture<Boolean> dispatchAggregate(List<OutboxEvent> aggregateEvents,
+      ExecutorService lane, Function<OutboxEvent, CompletableFuture<?>> sender,
+      Map<Long, Outcome> outcomes, AtomicBoolean expired) {
+    CompletableFuture<Boolean> chain = CompletableFuture.completedFuture(Boolean.TRUE);
+    for (OutboxEvent event : aggregateEvents) {
+      chain = chain.thenComposeAsync(previousPublished -> {
+        if (expired.get()) {
+          // reported pending; it keeps its lease and is sent by the claim after it expires
+          return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        if (!previousPublished) {
+          outcomes.put(event.getEventId(), Outcome.BLOCKED);
+          return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        return send(sender, event).handle((ack, e) -> {
+          if (e != null) {
+            log.error("Failed to publish event {}: {}", event.getEventId(), e.getMessage(), e);
+            outcomes.put(event.getEventId(), Outcome.FAILED);
+            return Boolean.FALSE;
+          }
+          outcomes.put(event.getEventId(), Outcome.PUBLISHED);
+          return Boolean.TRUE;
+        });
+      }, lane);
+    }
+    return chain;
+  }
+
+  private static CompletableFuture<?> send(Function<OutboxEvent, CompletableFuture<?>> sender,
+      OutboxEvent event) {
+    try {
+      return sender.apply(event);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private ExecutorService laneFor(Long aggregateId) {
+    int hash = aggregateId == null ? 0 : Long.hashCode(aggregateId);
+    return lanes[Math.floorMod(hash, lanes.length)];
+  }
+
+  int laneCount() {
+    return lanes.length;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (ExecutorService lane : lanes) {
+      lane.shutdown();
+    }
+  }
+}
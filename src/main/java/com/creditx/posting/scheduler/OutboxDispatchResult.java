@@ -0,0 +1,16 @@
+package com.creditx.posting.scheduler;
+
+import java.util.List;
+
+/**
+ * Outcome of dispatching one batch of outbox events, in the order the events were fetched.
+ *
+ * @param publishedIds events acknowledged as published
+ * @param failedIds    events whose publish attempt failed
+ * @param blockedIds   events not attempted because an earlier event of the same aggregate failed
+ * @param pendingIds   events without an outcome when the batch timed out
+ */
+public record OutboxDispatchResult(List<Long> publishedIds, List<Long> failedIds,
+                                   List<Long> blockedIds, List<Long> pendingIds) {
+
+}
@@ -1,13 +1,20 @@
 package com.creditx.posting.scheduler;
 
+import com.creditx.posting.messaging.OutboxPublishMode;
 import com.creditx.posting.messaging.OutboxStreamPublisher;
 import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.service.ClaimedOutboxEvents;
 import com.creditx.posting.service.OutboxEventService;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,39 +24,92 @@ public class OutboxEventPublishingScheduler {
 
   private final OutboxEventService outboxEventService;
   private final OutboxStreamPublisher outboxStreamPublisher;
+  private final KeyOrderedOutboxDispatcher dispatcher;
 
-  @Value("${app.outbox.batch-size}")
-  private int batchSize;
+  @Value("${app.outbox.publish-mode:sync}")
+  private OutboxPublishMode publishMode = OutboxPublishMode.SYNC;
 
-  @Scheduled(fixedDelayString = "${app.outbox.publish-interval}")
-  public void publishPendingEvents() {
+  @Value("${app.outbox.ack-timeout:20000}")
+  private long ackTimeout = 20000;
+
+  @Value("${app.outbox.lease-duration:30000}")
+  private long leaseDuration = 30000;
+
+  @Value("${app.outbox.retry.batch-share:0.2}")
+  private double retryBatchShare = 0.2;
+
+  /**
+   * A batch still being sent when its lease runs out could be claimed and sent by another
+   * instance as well, so the wait for its outcomes has to end before the lease does.
+   */
+  @PostConstruct
+  void checkAckTimeout() {
+    if (ackTimeout >= leaseDuration) {
+      throw new IllegalArgumentException(
+          "app.outbox.ack-timeout must be shorter than app.outbox.lease-duration");
+    }
+  }
+
+  /**
+   * Claims, publishes and records the outcome of one batch. Due retries take at most
+   * {@code app.outbox.retry.batch-share} of the batch and go first; fresh PENDING events fill the
+   * rest, so a backlog of failures cannot starve new traffic.
+   *
+   * <p>Events held back behind an earlier event of their aggregate still count towards the
+   * result, so a full backlog is reported as a full batch even when some of it is held back.
+   *
+   * @param limit maximum number of events to claim
+   * @return number of candidates the claims selected, or 0 when none could be claimed
+   */
+  public int publishPendingEvents(int limit) {
     log.debug("Starting outbox event publishing cycle");
-    List<OutboxEvent> events = outboxEventService.fetchPendingEvents(batchSize);
+    int retryLimit = (int) Math.floor(limit * retryBatchShare);
+    ClaimedOutboxEvents retries = retryLimit > 0
+        ? outboxEventService.claimDueRetries(retryLimit) : ClaimedOutboxEvents.none();
+    ClaimedOutboxEvents pending = outboxEventService.claimPendingEvents(
+        limit - retries.events().size());
+    List<OutboxEvent> events = new ArrayList<>(retries.events());
+    events.addAll(pending.events());
 
     if (events.isEmpty()) {
       log.debug("No pending outbox events to publish");
-      return;
+      return 0;
     }
 
-    log.info("Publishing {} pending outbox events", events.size());
-    int successCount = 0;
-    int failureCount = 0;
-
-    for (OutboxEvent event : events) {
-      try {
-        log.debug("Publishing event {} of type {}", event.getEventId(), event.getEventType());
-        outboxStreamPublisher.publish(event.getAggregateId().toString(), event.getPayload(),
-            event.getEventType());
-        outboxEventService.markAsPublished(event);
-        successCount++;
-        log.debug("Successfully published event {}", event.getEventId());
-      } catch (Exception e) {
-        log.error("Failed to publish event {}: {}", event.getEventId(), e.getMessage(), e);
-        outboxEventService.markAsFailed(event);
-        failureCount++;
-      }
-    }
+    log.info("Publishing {} outbox events ({} retries)", events.size(), retries.events().size());
+    OutboxDispatchResult result = dispatcher.dispatch(events, sender(), ackTimeout);
+    // Pending events keep their lease rather than being released, so no other claim sends them
+    // while a send started before the timeout may still land. One acknowledged after the timeout
+    // still stays PENDING and is sent again once the lease expires: publishing is at-least-once.
+    result.pendingIds().forEach(
+        eventId -> log.warn("Event {} not acknowledged yet, leaving it pending", eventId));
 
-    log.info("Outbox publishing completed: {} successful, {} failed", successCount, failureCount);
+    // Commit the whole batch outcome at once instead of one transaction per event
+    Map<Long, OutboxEvent> eventsById = new HashMap<>();
+    events.forEach(event -> eventsById.put(event.getEventId(), event));
+    List<OutboxEvent> failedEvents = result.failedIds().stream().map(eventsById::get).toList();
+    outboxEventService.recordPublishOutcome(result.publishedIds(), failedEvents,
+        result.blockedIds());
+    log.info("Outbox publishing completed: {} successful, {} failed, {} blocked",
+        result.publishedIds().size(), result.failedIds().size(), result.blockedIds().size());
+    return retries.candidates() + pending.candidates();
+  }
+
+  /**
+   * In sync mode the lane thread waits for the binder to accept each message; in async mode it
+   * hands the message to the producer and the next event of the same aggregate is sent once the
+   * broker acknowledged it.
+   */
+  private Function<OutboxEvent, CompletableFuture<?>> sender() {
+    if (publishMode == OutboxPublishMode.ASYNC) {
+      return event -> outboxStreamPublisher.publishAsync(event.getAggregateId().toString(),
+          event.getPayload(), event.getEventType());
+    }
+    return event -> {
+      log.debug("Publishing event {} of type {}", event.getEventId(), event.getEventType());
+      outboxStreamPublisher.publish(event.getAggregateId().toString(), event.getPayload(),
+          event.getEventType());
+      return CompletableFuture.completedFuture(null);
+    };
   }
 }
@@ -0,0 +1,125 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.dto.OutboxEventSavedEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drives outbox publishing on a dedicated thread, asking {@link AdaptiveOutboxPollingPolicy} for
+ * the batch size and the delay between batches. Outbox rows committed by this instance wake the
+ * loop up right away; polling remains as the safety net for rows written by other instances and
+ * for wake-ups lost in a crash.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxPublishingLoop implements SmartLifecycle {
+
+  private final OutboxEventPublishingScheduler outboxEventPublishingScheduler;
+  private final AdaptiveOutboxPollingPolicy pollingPolicy;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition wakeUpCondition = lock.newCondition();
+  private boolean wakeUpRequested;
+
+  @Value("${app.outbox.publisher-enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${app.outbox.shutdown-timeout:10000}")
+  private long shutdownTimeout = 10000;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  @Override
+  public void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this::drain, "outbox-publisher");
+    thread.start();
+    log.info("Outbox publishing loop started");
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    wakeUp();
+    if (thread != null) {
+      try {
+        thread.join(shutdownTimeout);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      thread = null;
+    }
+    log.info("Outbox publishing loop stopped");
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onOutboxEventSaved(OutboxEventSavedEvent event) {
+    log.debug("Outbox event {} committed, waking up publisher", event.eventId());
+    wakeUp();
+  }
+
+  /**
+   * Starts the next batch without waiting for the current delay to elapse. Wake-ups arriving
+   * while a batch is running are coalesced into one immediate follow-up batch.
+   */
+  public void wakeUp() {
+    lock.lock();
+    try {
+      wakeUpRequested = true;
+      wakeUpCondition.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void drain() {
+    while (running) {
+      long delay;
+      int requested = pollingPolicy.batchSize();
+      long started = System.nanoTime();
+      try {
+        int claimed = outboxEventPublishingScheduler.publishPendingEvents(requested);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        delay = pollingPolicy.onBatchCompleted(requested, claimed, elapsed);
+      } catch (Exception e) {
+        log.error("Outbox publishing cycle failed: {}", e.getMessage(), e);
+        delay = pollingPolicy.onBatchFailed();
+      }
+      await(delay);
+    }
+  }
+
+  private void await(long delayMillis) {
+    lock.lock();
+    try {
+      long remaining = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+      while (running && !wakeUpRequested && remaining > 0) {
+        remaining = wakeUpCondition.awaitNanos(remaining);
+      }
+      wakeUpRequested = false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.service.OutboxRetentionService;
+import com.creditx.posting.service.SchedulerLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRetentionScheduler {
+
+  private final OutboxRetentionService outboxRetentionService;
+  private final SchedulerLockService schedulerLockService;
+
+  @Value("${app.outbox.retention.enabled:true}")
+  private boolean enabled = true;
+
+  @Scheduled(cron = "${app.outbox.retention.cron:0 30 2 * * *}", zone = "UTC")
+  public void purgeExpiredEvents() {
+    if (!enabled) {
+      log.debug("Outbox retention disabled");
+      return;
+    }
+    try {
+      // every instance schedules the job; the lock lets one of them run it
+      schedulerLockService.runExclusively(SchedulerLockService.OUTBOX_RETENTION,
+          outboxRetentionService::purgeExpiredEvents);
+    } catch (Exception e) {
+      log.error("Outbox retention run failed: {}", e.getMessage(), e);
+    }
+  }
+}
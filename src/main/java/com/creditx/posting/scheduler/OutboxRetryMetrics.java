@@ -0,0 +1,51 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.repository.RetryQueueStats;
+import com.creditx.posting.service.OutboxEventService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retry queue gauges. The values are refreshed on a schedule rather than queried on every scrape.
+ * The age is how long the most overdue retry has been due, so a retry lane that keeps up stays
+ * near zero.
+ */
+@Component
+@Slf4j
+public class OutboxRetryMetrics {
+
+  private final OutboxEventService outboxEventService;
+  private final AtomicLong depth = new AtomicLong();
+  private final AtomicLong ageMillis = new AtomicLong();
+
+  public OutboxRetryMetrics(OutboxEventService outboxEventService, MeterRegistry meterRegistry) {
+    this.outboxEventService = outboxEventService;
+    Gauge.builder("outbox.retry.queue.depth", depth, AtomicLong::get)
+        .description("Outbox events waiting for a publish retry")
+        .register(meterRegistry);
+    TimeGauge.builder("outbox.retry.queue.age", ageMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+        .description("Time the most overdue outbox retry has been due")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.retry.metrics-interval:15000}")
+  public void refresh() {
+    try {
+      RetryQueueStats stats = outboxEventService.getRetryQueueStats();
+      depth.set(stats.depth());
+      Instant earliest = stats.earliestNextAttempt();
+      ageMillis.set(earliest == null
+          ? 0 : Math.max(0, Duration.between(earliest, Instant.now()).toMillis()));
+    } catch (Exception e) {
+      log.warn("Failed to refresh outbox retry metrics: {}", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.creditx.posting.scheduler;
+
+import com.creditx.posting.service.ProcessedEventRetentionService;
+import com.creditx.posting.service.SchedulerLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventRetentionScheduler {
+
+  private final ProcessedEventRetentionService processedEventRetentionService;
+  private final SchedulerLockService schedulerLockService;
+
+  @Value("${app.dedup.retention.enabled:true}")
+  private boolean enabled = true;
+
+  @Scheduled(cron = "${app.dedup.retention.cron:0 45 2 * * *}", zone = "UTC")
+  public void purgeExpiredEvents() {
+    if (!enabled) {
+      log.debug("Processed-event retention disabled");
+      return;
+    }
+    try {
+      schedulerLockService.runExclusively(SchedulerLockService.DEDUP_RETENTION,
+          processedEventRetentionService::purgeExpiredEvents);
+    } catch (Exception e) {
+      log.error("Processed-event retention run failed: {}", e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.creditx.posting.service;
+
+import lombok.Getter;
+
+/**
+ * Raised by batch processing when one record fails. Every record before {@link #getIndex()} has
+ * been fully processed, so a caller can commit up to that position and redeliver from it.
+ */
+@Getter
+public class BatchRecordFailedException extends RuntimeException {
+
+  private final int index;
+
+  public BatchRecordFailedException(int index, Throwable cause) {
+    super("Failed to process record " + index + " of the batch", cause);
+    this.index = index;
+  }
+}
@@ -0,0 +1,16 @@
+package com.creditx.posting.service;
+
+import com.creditx.posting.model.OutboxEvent;
+import java.util.List;
+
+/**
+ * @param events     the claimed events
+ * @param candidates events the claim selected before dropping those held back behind an earlier
+ *                   event of their aggregate, so a full backlog shows as a full batch
+ */
+public record ClaimedOutboxEvents(List<OutboxEvent> events, int candidates) {
+
+  public static ClaimedOutboxEvents none() {
+    return new ClaimedOutboxEvents(List.of(), 0);
+  }
+}
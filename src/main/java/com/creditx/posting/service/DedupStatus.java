@@ -0,0 +1,19 @@
+package com.creditx.posting.service;
+
+/**
+ * What the processed-event store can say about an event.
+ */
+public enum DedupStatus {
+
+  /** A processed-event row exists for the event id or payload hash; its claim decides. */
+  SEEN,
+
+  /** No row exists and the event is inside the dedup window, so it has not been processed. */
+  UNSEEN,
+
+  /**
+   * No row exists but the event is older than the dedup window, so any row it had may have been
+   * purged. Whether it was processed cannot be told.
+   */
+  UNKNOWN
+}
@@ -0,0 +1,21 @@
+package com.creditx.posting.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import lombok.Getter;
+
+/**
+ * Raised instead of processing an event older than the dedup window that has no processed-event
+ * row, since it may have been processed before its row was purged.
+ */
+@Getter
+public class DedupWindowExceededException extends RuntimeException {
+
+  private final Instant eventTime;
+
+  public DedupWindowExceededException(String eventId, Instant eventTime, Duration dedupWindow) {
+    super("Event " + eventId + " from " + eventTime + " is older than the dedup window of "
+        + dedupWindow + " and its processing status is unknown");
+    this.eventTime = eventTime;
+  }
+}
@@ -1,15 +1,97 @@
 package com.creditx.posting.service;
 
+import com.creditx.posting.dto.OutboxEventDTO;
 import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.repository.RetryQueueStats;
+import java.util.Collection;
 import java.util.List;
 
 public interface OutboxEventService {
 
   OutboxEvent saveEvent(String eventType, Long aggregateId, String payload);
 
+  /**
+   * Saves several pending events in one transaction. Ids come from the pooled sequence allocation
+   * and the inserts are sent as JDBC batches, so the cost per event is a fraction of
+   * {@link #saveEvent(String, Long, String)}.
+   *
+   * @param events type, aggregate id and payload of each event; other fields are ignored
+   * @return the saved events, in the order given
+   */
+  List<OutboxEvent> saveEvents(List<OutboxEventDTO> events);
+
   List<OutboxEvent> fetchPendingEvents(int limit);
 
+  /**
+   * Keyset continuation of {@link #fetchPendingEvents(int)}: returns up to {@code limit} pending
+   * events ordered after {@code lastEvent} by (createdAt, eventId).
+   */
+  List<OutboxEvent> fetchPendingEventsAfter(OutboxEvent lastEvent, int limit);
+
+  /**
+   * Claims up to {@code limit} pending events for this instance under a time-bound lease, so that
+   * concurrent instances drain disjoint sets of rows. Events whose lease expires without an
+   * outcome become claimable again by any instance.
+   *
+   * @param limit maximum number of events to claim
+   * @return the claimed events, oldest first, and how many candidates the claim selected
+   */
+  ClaimedOutboxEvents claimPendingEvents(int limit);
+
+  /**
+   * Claims up to {@code limit} FAILED events whose next attempt is due, under the same lease as
+   * {@link #claimPendingEvents(int)}. When more are due than fit, the most overdue are claimed.
+   *
+   * @param limit maximum number of events to claim
+   * @return the claimed events, oldest first like pending events so events of one aggregate keep
+   *     their order, and how many candidates the claim selected
+   */
+  ClaimedOutboxEvents claimDueRetries(int limit);
+
   void markAsPublished(OutboxEvent event);
 
   void markAsFailed(OutboxEvent event);
-}
\ No newline at end of file
+
+  /**
+   * Marks all given events as published with a single shared timestamp. Events whose lease this
+   * instance no longer holds are left as they are.
+   *
+   * @param eventIds ids of the events acknowledged by the broker
+   * @return number of rows updated
+   */
+  int markAllAsPublished(Collection<Long> eventIds);
+
+  /**
+   * Records a failed attempt for each event: it is scheduled for a retry with backoff, or moved
+   * to DEAD once its attempt budget is used up. Events whose lease this instance no longer holds
+   * are left as they are.
+   *
+   * @param events the events that could not be published, as claimed
+   * @return number of rows updated
+   */
+  int markAllAsFailed(Collection<OutboxEvent> events);
+
+  /**
+   * Releases the lease this instance holds on claimed events that were not attempted, leaving
+   * their status as is.
+   *
+   * @param eventIds ids of the events to hand back
+   * @return number of rows updated
+   */
+  int releaseClaims(Collection<Long> eventIds);
+
+  /**
+   * Size of the retry queue (FAILED events) and the earliest scheduled next attempt in it.
+   */
+  RetryQueueStats getRetryQueueStats();
+
+  /**
+   * Applies the outcome of one publishing cycle in a single transaction.
+   *
+   * @param publishedIds ids of the events that were published
+   * @param failedEvents events that failed to publish
+   * @param releasedIds  ids of the claimed events that were not attempted
+   */
+  void recordPublishOutcome(Collection<Long> publishedIds, Collection<OutboxEvent> failedEvents,
+      Collection<Long> releasedIds);
+}
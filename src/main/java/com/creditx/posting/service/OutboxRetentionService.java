@@ -0,0 +1,15 @@
+package com.creditx.posting.service;
+
+import com.creditx.posting.dto.OutboxPurgeResult;
+
+public interface OutboxRetentionService {
+
+  /**
+   * Removes published outbox events older than the retention period. Partitions holding only
+   * published rows are dropped (or truncated) as a whole; published rows in partitions that still
+   * hold unpublished events are deleted in bounded chunks.
+   *
+   * @return what was removed and archived
+   */
+  OutboxPurgeResult purgeExpiredEvents();
+}
@@ -0,0 +1,14 @@
+package com.creditx.posting.service;
+
+import com.creditx.posting.dto.ProcessedEventPurgeResult;
+
+public interface ProcessedEventRetentionService {
+
+  /**
+   * Removes processed-event rows older than the dedup window by dropping (or truncating) their
+   * daily partitions one at a time, pausing between them.
+   *
+   * @return what was removed
+   */
+  ProcessedEventPurgeResult purgeExpiredEvents();
+}
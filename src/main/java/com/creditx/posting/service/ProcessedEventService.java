@@ -1,7 +1,35 @@
 package com.creditx.posting.service;
 
+import com.creditx.posting.model.ProcessedEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 public interface ProcessedEventService {
 
+  /**
+   * How long processed events are remembered. Rows older than this are purged by day, so an event
+   * published longer ago than the window may have lost its row.
+   *
+   * @return the dedup window
+   */
+  Duration dedupWindow();
+
+  /**
+   * Tell whether the store knows an event. An event inside the dedup window without a row has not
+   * been processed, as its row would have been written after the event was published; an older
+   * one without a row is reported as {@link DedupStatus#UNKNOWN} rather than as unseen.
+   *
+   * @param eventId     unique identifier for the event
+   * @param payloadHash hash of the event payload
+   * @param eventTime   when the event was published
+   * @return what the store knows about the event
+   */
+  DedupStatus checkEvent(String eventId, String payloadHash, Instant eventTime);
+
   /**
    * Check if an event has already been processed
    *
@@ -26,4 +54,69 @@ public interface ProcessedEventService {
    * @return true if payload was already processed, false otherwise
    */
   boolean isPayloadProcessed(String payloadHash);
+
+  /**
+   * Find already processed events matching any of the given event IDs or payload hashes, using
+   * IN-list queries rather than one lookup per event
+   *
+   * @param eventIds      unique identifiers of the events
+   * @param payloadHashes hashes of the event payloads, including the legacy payload hashes of
+   *                      {@link #claimEvent(String, String, String)} while those are read
+   * @return processed events matching by event ID or payload hash
+   */
+  List<ProcessedEvent> findProcessedEvents(Collection<String> eventIds,
+      Collection<String> payloadHashes);
+
+  /**
+   * Mark several events as processed in one transaction and one JDBC batch
+   *
+   * @param processedEvents events to record
+   */
+  void markEventsAsProcessed(List<ProcessedEvent> processedEvents);
+
+  /**
+   * Claim an event for processing with a single statement, so that no connection is held while
+   * the event is being handled. The event id decides, whatever bytes earlier deliveries carried;
+   * the payload hash catches the same payload under another event id. A new event gets an
+   * IN_PROGRESS row; a FAILED event, or one whose IN_PROGRESS claim went stale because its
+   * consumer died, is taken over. Of several deliveries racing on the same event exactly one gets
+   * the claim. A row written before the compact key layout blocks the claim through its payload
+   * hash, which was computed over the re-serialized event and so differs from {@code payloadHash}.
+   *
+   * @param eventId           unique identifier for the event
+   * @param payloadHash       hash of the event payload
+   * @param legacyPayloadHash hash the payload was stored under before the compact key layout, or
+   *                          null when rows of that layout are no longer read
+   * @return {@code eventId}, now the event id of the claimed row, or empty if the event was
+   *     already processed successfully or is claimed by another live consumer
+   */
+  Optional<String> claimEvent(String eventId, String payloadHash, String legacyPayloadHash);
+
+  /**
+   * Record the outcome of an event claimed with {@link #claimEvent(String, String, String)}
+   *
+   * @param claimedEventId event id returned by the claim
+   * @param status         SUCCESS or FAILED
+   */
+  void completeEvent(String claimedEventId, String status);
+
+  /**
+   * Claim several events at once under the rules of {@link #claimEvent(String, String, String)},
+   * with one JDBC batch for all of them
+   *
+   * @param events              events to claim, each with its event id and payload hash
+   * @param legacyPayloadHashes legacy payload hash of each event, in the order of {@code events},
+   *                            with null entries when rows of that layout are no longer read
+   * @return event ids of the claimed events; the others were already processed successfully or
+   *     are claimed by another live consumer
+   */
+  Set<String> claimEvents(List<ProcessedEvent> events, List<String> legacyPayloadHashes);
+
+  /**
+   * Record the outcomes of events claimed with {@link #claimEvents(List, List)} in one JDBC
+   * batch
+   *
+   * @param outcomes claimed events, each with its event id and SUCCESS or FAILED status
+   */
+  void completeEvents(List<ProcessedEvent> outcomes);
 }
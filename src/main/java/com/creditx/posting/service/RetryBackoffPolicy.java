@@ -0,0 +1,67 @@
+package com.creditx.posting.service;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exponential backoff with jitter for failed outbox publishes. Attempt {@code n} waits
+ * {@code initialBackoff * multiplier^(n-1)}, capped at {@code maxBackoff}, then spread by up to
+ * {@code jitter} in either direction so events failing together do not retry in lockstep.
+ */
+@Component
+public class RetryBackoffPolicy {
+
+  private final long initialBackoff;
+  private final double multiplier;
+  private final long maxBackoff;
+  private final double jitter;
+  private final int maxAttempts;
+  private final RandomGenerator random;
+
+  @Autowired
+  public RetryBackoffPolicy(@Value("${app.outbox.retry.initial-backoff:1000}") long initialBackoff,
+      @Value("${app.outbox.retry.multiplier:2.0}") double multiplier,
+      @Value("${app.outbox.retry.max-backoff:300000}") long maxBackoff,
+      @Value("${app.outbox.retry.jitter:0.2}") double jitter,
+      @Value("${app.outbox.retry.max-attempts:10}") int maxAttempts) {
+    this(initialBackoff, multiplier, maxBackoff, jitter, maxAttempts, RandomGenerator.getDefault());
+  }
+
+  RetryBackoffPolicy(long initialBackoff, double multiplier, long maxBackoff, double jitter,
+      int maxAttempts, RandomGenerator random) {
+    if (initialBackoff < 0 || multiplier < 1 || maxBackoff < initialBackoff) {
+      throw new IllegalArgumentException("Invalid outbox retry backoff settings");
+    }
+    if (jitter < 0 || jitter >= 1) {
+      throw new IllegalArgumentException("app.outbox.retry.jitter must be in [0, 1)");
+    }
+    this.initialBackoff = initialBackoff;
+    this.multiplier = multiplier;
+    this.maxBackoff = maxBackoff;
+    this.jitter = jitter;
+    this.maxAttempts = maxAttempts;
+    this.random = random;
+  }
+
+  /**
+   * Delay before the next attempt after {@code attempts} failed attempts.
+   *
+   * @param attempts number of failed attempts so far, at least 1
+   */
+  public Duration backoff(int attempts) {
+    double exponential = initialBackoff * Math.pow(multiplier, Math.max(0, attempts - 1));
+    double capped = Math.min(exponential, maxBackoff);
+    double spread = capped * jitter * (2 * random.nextDouble() - 1);
+    return Duration.ofMillis(Math.round(Math.min(maxBackoff, Math.max(0, capped + spread))));
+  }
+
+  /**
+   * Whether an event with {@code attempts} failed attempts has used up its budget.
+   */
+  public boolean isExhausted(int attempts) {
+    return attempts >= maxAttempts;
+  }
+}
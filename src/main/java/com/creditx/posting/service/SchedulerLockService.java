@@ -0,0 +1,24 @@
+package com.creditx.posting.service;
+
+/**
+ * Keeps scheduled jobs that every instance schedules from running on more than one of them at a
+ * time.
+ */
+public interface SchedulerLockService {
+
+  String OUTBOX_RETENTION = "outbox-retention";
+
+  String DEDUP_RETENTION = "dedup-retention";
+
+  /**
+   * Runs {@code job} if no other instance holds the named lock, and releases the lock when the
+   * job returns. A lock is held for at most {@code app.scheduler.lock-duration}, so a node that
+   * dies mid-run cannot block the job for longer than that.
+   *
+   * @return whether the job ran
+   */
+  boolean runExclusively(String lockName, Runnable job);
+
+  /** Whether some instance is running the job guarded by the named lock. */
+  boolean isLocked(String lockName);
+}
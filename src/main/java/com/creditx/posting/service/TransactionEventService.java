@@ -1,8 +1,95 @@
 package com.creditx.posting.service;
 
 import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 public interface TransactionEventService {
 
   void processTransactionAuthorized(TransactionAuthorizedEvent event);
+
+  /**
+   * Processes an event published at {@code eventTime}. An event older than the dedup window that
+   * has no processed-event row is not processed, since its row may have been purged.
+   *
+   * @param event     event to process
+   * @param eventTime when the event was published, or null if unknown
+   * @throws DedupWindowExceededException if the event is older than the dedup window and unknown
+   */
+  void processTransactionAuthorized(TransactionAuthorizedEvent event, Instant eventTime);
+
+  /**
+   * Processes an event decoded from {@code payload}. The payload hash is taken over those bytes
+   * as received instead of over a re-serialization of the event.
+   *
+   * @param event     event to process
+   * @param payload   the record value the event was decoded from, or null to hash the event
+   *                  re-serialized
+   * @param eventTime when the event was published, or null if unknown
+   * @throws DedupWindowExceededException if the event is older than the dedup window and unknown
+   */
+  void processTransactionAuthorized(TransactionAuthorizedEvent event, byte[] payload,
+      Instant eventTime);
+
+  /**
+   * First step of {@link #processTransactionAuthorized(TransactionAuthorizedEvent, byte[],
+   * Instant)}, for callers that commit with CMS themselves: checks the dedup window and claims the
+   * event.
+   *
+   * @return the claim to complete once CMS has answered, or empty if the event has already been
+   *         processed or is being processed
+   * @throws DedupWindowExceededException if the event is older than the dedup window and unknown
+   */
+  Optional<String> claimTransactionAuthorized(TransactionAuthorizedEvent event, byte[] payload,
+      Instant eventTime);
+
+  /**
+   * Last step of {@link #processTransactionAuthorized(TransactionAuthorizedEvent, byte[],
+   * Instant)}: records the claimed event as processed, or releases the claim as failed so that a
+   * redelivery can take it over.
+   *
+   * @param claim     claim returned by {@link #claimTransactionAuthorized}
+   * @param committed whether CMS committed the transaction
+   */
+  void completeTransactionAuthorized(String claim, boolean committed);
+
+  /**
+   * Processes a poll's worth of events in order. Events already processed are skipped with
+   * IN-list lookups up front; the rest are claimed in one JDBC batch before their CMS commits go
+   * out, and their claims completed in another. With bulk commit enabled the CMS commits go out in
+   * bulk requests, and events after a failed one that CMS committed anyway are recorded as well.
+   *
+   * @param events events to process, in delivery order
+   * @throws BatchRecordFailedException identifying the first event that could not be processed;
+   *                                    all events before it have been settled and recorded
+   */
+  void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events);
+
+  /**
+   * Batch variant of {@link #processTransactionAuthorized(TransactionAuthorizedEvent, Instant)}.
+   * An event older than the dedup window without a processed-event row fails the batch at its
+   * position with a {@link DedupWindowExceededException} as cause.
+   *
+   * @param events     events to process, in delivery order
+   * @param eventTimes when each event was published, null entries if unknown
+   * @throws BatchRecordFailedException identifying the first event that could not be processed;
+   *                                    all events before it have been settled and recorded
+   */
+  void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events,
+      List<Instant> eventTimes);
+
+  /**
+   * Batch variant of
+   * {@link #processTransactionAuthorized(TransactionAuthorizedEvent, byte[], Instant)}.
+   *
+   * @param events     events to process, in delivery order
+   * @param payloads   the record values the events were decoded from, null entries to hash the
+   *                   event re-serialized
+   * @param eventTimes when each event was published, null entries if unknown
+   * @throws BatchRecordFailedException identifying the first event that could not be processed;
+   *                                    all events before it have been settled and recorded
+   */
+  void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events,
+      List<byte[]> payloads, List<Instant> eventTimes);
 }
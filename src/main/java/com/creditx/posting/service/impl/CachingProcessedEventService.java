@@ -0,0 +1,451 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.repository.ProcessedEventRepository;
+import com.creditx.posting.service.DedupStatus;
+import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.SchedulerLockService;
+import com.creditx.posting.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory dedup cache in front of {@link ProcessedEventServiceImpl}.
+ *
+ * <p>A Bloom filter over every known event id and payload hash answers "never seen" without a
+ * database round trip, and an LRU map of recently confirmed keys with their status answers
+ * redeliveries of recently processed events. Negatives are only trusted once the filter has been
+ * warmed with the whole table; if the memory budget cannot hold it, every miss goes to Oracle.
+ * Rows written by other instances are folded in by a periodic scan, so their keys can be missed
+ * for up to one refresh interval. That is why a negative is only trusted by
+ * {@link #findProcessedEvents}, whose callers claim every event before acting on it: claims always
+ * go to the database, so the cache can only skip them for events already known to have succeeded.
+ * The single-key lookups answer callers that do not claim afterwards and read Oracle on every miss.
+ *
+ * <p>A Bloom filter cannot forget keys, so those of purged rows would pile up and raise its false
+ * positive rate. The filter is therefore rebuilt from the table on a schedule that should follow
+ * the retention job. Every instance rebuilds its own filter, but not while the retention job holds
+ * its cluster-wide lock: the rebuild then waits for the purge to finish.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.dedup.cache.enabled", havingValue = "true",
+    matchIfMissing = true)
+@Slf4j
+public class CachingProcessedEventService implements ProcessedEventService {
+
+  // rough heap cost of one LRU entry: two short strings, the map node and its links
+  static final int LRU_ENTRY_BYTES = 256;
+
+  private static final String EVENT_ID_KEY = "e:";
+  private static final String PAYLOAD_HASH_KEY = "h:";
+
+  private final ProcessedEventService delegate;
+  private final ProcessedEventRepository repository;
+  private final SchedulerLockService schedulerLockService;
+  private final long bloomMemoryBytes;
+  private final double falsePositiveRate;
+  private final Map<String, String> confirmed;
+  private final Map<String, String> claimedPayloadHashes = new ConcurrentHashMap<>();
+  private final int lruCapacity;
+  private final long refreshInterval;
+  private final Counter lruHits;
+  private final Counter bloomNegatives;
+  private final Counter databaseLookups;
+  private final Counter falsePositives;
+
+  private volatile BloomFilter bloomFilter;
+  private volatile boolean complete;
+  private volatile Instant refreshedUpTo;
+  private volatile boolean rebuildPending;
+
+  @Autowired
+  public CachingProcessedEventService(ProcessedEventServiceImpl delegate,
+      ProcessedEventRepository repository, SchedulerLockService schedulerLockService,
+      MeterRegistry meterRegistry,
+      @Value("${app.dedup.cache.memory-budget-mb:16}") long memoryBudgetMb,
+      @Value("${app.dedup.cache.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${app.dedup.cache.refresh-interval:5000}") long refreshInterval) {
+    this((ProcessedEventService) delegate, repository, schedulerLockService, meterRegistry,
+        memoryBudgetMb << 20, falsePositiveRate, refreshInterval);
+  }
+
+  CachingProcessedEventService(ProcessedEventService delegate,
+      ProcessedEventRepository repository, SchedulerLockService schedulerLockService,
+      MeterRegistry meterRegistry, long memoryBudgetBytes, double falsePositiveRate,
+      long refreshInterval) {
+    this.delegate = delegate;
+    this.repository = repository;
+    this.schedulerLockService = schedulerLockService;
+    this.refreshInterval = refreshInterval;
+    // three quarters of the budget for the filter, the rest for the LRU
+    this.bloomMemoryBytes = memoryBudgetBytes / 4 * 3;
+    this.falsePositiveRate = falsePositiveRate;
+    this.bloomFilter = BloomFilter.withMemory(bloomMemoryBytes, falsePositiveRate);
+    this.lruCapacity = (int) Math.max(1, memoryBudgetBytes / 4 / LRU_ENTRY_BYTES);
+    this.confirmed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > lruCapacity;
+      }
+    });
+
+    lruHits = lookupCounter(meterRegistry, "lru_hit");
+    bloomNegatives = lookupCounter(meterRegistry, "bloom_negative");
+    databaseLookups = lookupCounter(meterRegistry, "database");
+    falsePositives = Counter.builder("dedup.cache.bloom.false.positives")
+        .description("Dedup keys the Bloom filter let through that Oracle did not have")
+        .register(meterRegistry);
+    Gauge.builder("dedup.cache.lru.size", confirmed, Map::size)
+        .description("Recently confirmed dedup keys held in memory")
+        .register(meterRegistry);
+    Gauge.builder("dedup.cache.bloom.saturation", this, cache -> cache.bloomFilter.saturation())
+        .description("Share of Bloom filter bits set")
+        .register(meterRegistry);
+    Gauge.builder("dedup.cache.memory", this,
+            cache -> cache.bloomFilter.memoryBytes() + (long) cache.lruCapacity * LRU_ENTRY_BYTES)
+        .description("Memory budgeted for the dedup cache")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Loads the keys of the most recent rows, as many as the filter holds at its target false
+   * positive rate. Negatives are trusted only if that covered the whole table.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Boolean loadedWholeTable = load(bloomFilter, true);
+    if (loadedWholeTable != null) {
+      complete = loadedWholeTable;
+    }
+  }
+
+  /**
+   * Replaces the filter with one loaded from the rows still in the table, dropping the keys of
+   * purged rows. Keys added while it loads are folded in again by the next refresh. While a purge
+   * is still running the rebuild is postponed to the first refresh after it has finished, as the
+   * partitions it has yet to drop would otherwise stay in the filter until the next day.
+   */
+  @Scheduled(cron = "${app.dedup.cache.rebuild-cron:0 15 3 * * *}", zone = "UTC")
+  public void rebuild() {
+    if (refreshedUpTo == null) {
+      return;
+    }
+    if (purgeRunning()) {
+      if (!rebuildPending) {
+        log.info("Processed-event purge still running, rebuilding the dedup cache after it");
+      }
+      rebuildPending = true;
+      return;
+    }
+    rebuildPending = false;
+    BloomFilter rebuilt = BloomFilter.withMemory(bloomMemoryBytes, falsePositiveRate);
+    Boolean loadedWholeTable = load(rebuilt, false);
+    if (loadedWholeTable == null) {
+      return;
+    }
+    // never trust negatives of a filter that does not hold the whole table, not even briefly
+    if (!loadedWholeTable) {
+      complete = false;
+    }
+    bloomFilter = rebuilt;
+    complete = loadedWholeTable;
+  }
+
+  /**
+   * Loads the keys of the most recent rows into {@code filter}.
+   *
+   * @return whether that covered the whole table, or null if loading failed
+   */
+  private Boolean load(BloomFilter filter, boolean warmLru) {
+    Instant startedAt = Instant.now();
+    // every row contributes two keys
+    int limit = (int) Math.min(Integer.MAX_VALUE - 1, filter.expectedInsertions() / 2);
+    int lruWarmRows = warmLru ? lruCapacity / 2 : 0;
+    try {
+      int[] streamed = {0};
+      int loaded = repository.streamRecent(limit + 1, row -> {
+        boolean confirm = streamed[0]++ < lruWarmRows;
+        remember(filter, row, confirm);
+      });
+      refreshedUpTo = startedAt.minusMillis(refreshInterval);
+      if (loaded <= limit) {
+        log.info("Dedup cache loaded with {} processed events", loaded);
+        return true;
+      }
+      log.warn("Dedup cache holds only the {} most recent processed events; raise "
+          + "app.dedup.cache.memory-budget-mb to answer misses from memory", limit);
+      return false;
+    } catch (Exception e) {
+      log.warn("Failed to load dedup cache, misses go to the database: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Folds in rows written since the last scan, including those of other instances. Scans overlap
+   * by one interval so rows committed late are not missed.
+   */
+  @Scheduled(fixedDelayString = "${app.dedup.cache.refresh-interval:5000}")
+  public void refresh() {
+    Instant since = refreshedUpTo;
+    if (since == null) {
+      return;
+    }
+    Instant startedAt = Instant.now();
+    try {
+      repository.streamSince(since, row -> remember(row, false));
+      refreshedUpTo = startedAt.minusMillis(refreshInterval);
+    } catch (Exception e) {
+      log.warn("Failed to refresh dedup cache: {}", e.getMessage());
+    }
+    if (rebuildPending) {
+      rebuild();
+    }
+  }
+
+  private boolean purgeRunning() {
+    try {
+      return schedulerLockService.isLocked(SchedulerLockService.DEDUP_RETENTION);
+    } catch (Exception e) {
+      log.warn("Failed to check the processed-event retention lock, rebuilding anyway: {}",
+          e.getMessage());
+      return false;
+    }
+  }
+
+  @Override
+  public Duration dedupWindow() {
+    return delegate.dedupWindow();
+  }
+
+  @Override
+  public DedupStatus checkEvent(String eventId, String payloadHash, Instant eventTime) {
+    // only asked for events older than the window, which are rare and rarely cached
+    return delegate.checkEvent(eventId, payloadHash, eventTime);
+  }
+
+  @Override
+  public boolean isEventProcessed(String eventId) {
+    return lookup(EVENT_ID_KEY + eventId, () -> delegate.isEventProcessed(eventId));
+  }
+
+  @Override
+  public boolean isPayloadProcessed(String payloadHash) {
+    return lookup(PAYLOAD_HASH_KEY + payloadHash,
+        () -> delegate.isPayloadProcessed(payloadHash));
+  }
+
+  @Override
+  public List<ProcessedEvent> findProcessedEvents(Collection<String> eventIds,
+      Collection<String> payloadHashes) {
+    List<ProcessedEvent> found = new ArrayList<>();
+    List<String> uncertainIds = new ArrayList<>();
+    List<String> uncertainHashes = new ArrayList<>();
+    for (String eventId : eventIds) {
+      String status = classify(EVENT_ID_KEY + eventId, uncertainIds, eventId);
+      if (status != null) {
+        found.add(ProcessedEvent.builder().eventId(eventId).status(status).build());
+      }
+    }
+    for (String payloadHash : payloadHashes) {
+      String status = classify(PAYLOAD_HASH_KEY + payloadHash, uncertainHashes, payloadHash);
+      if (status != null) {
+        found.add(ProcessedEvent.builder().payloadHash(payloadHash).status(status).build());
+      }
+    }
+    if (uncertainIds.isEmpty() && uncertainHashes.isEmpty()) {
+      return found;
+    }
+
+    List<ProcessedEvent> stored = delegate.findProcessedEvents(uncertainIds, uncertainHashes);
+    Set<String> storedKeys = new HashSet<>();
+    for (ProcessedEvent row : stored) {
+      remember(row, true);
+      storedKeys.add(EVENT_ID_KEY + row.getEventId());
+      storedKeys.add(PAYLOAD_HASH_KEY + row.getPayloadHash());
+    }
+    if (complete) {
+      falsePositives.increment(uncertainIds.stream()
+          .filter(id -> !storedKeys.contains(EVENT_ID_KEY + id)).count()
+          + uncertainHashes.stream()
+          .filter(hash -> !storedKeys.contains(PAYLOAD_HASH_KEY + hash)).count());
+    }
+    found.addAll(stored);
+    return found;
+  }
+
+  @Override
+  public Optional<String> claimEvent(String eventId, String payloadHash,
+      String legacyPayloadHash) {
+    if (isConfirmedSuccess(eventId, payloadHash, legacyPayloadHash)) {
+      lruHits.increment();
+      return Optional.empty();
+    }
+    databaseLookups.increment();
+    Optional<String> claim = delegate.claimEvent(eventId, payloadHash, legacyPayloadHash);
+    bloomFilter.put(EVENT_ID_KEY + eventId);
+    bloomFilter.put(PAYLOAD_HASH_KEY + payloadHash);
+    claim.ifPresent(claimedEventId -> {
+      bloomFilter.put(EVENT_ID_KEY + claimedEventId);
+      claimedPayloadHashes.put(claimedEventId, payloadHash);
+    });
+    return claim;
+  }
+
+  @Override
+  public void completeEvent(String claimedEventId, String status) {
+    delegate.completeEvent(claimedEventId, status);
+    String payloadHash = claimedPayloadHashes.remove(claimedEventId);
+    remember(ProcessedEvent.builder().eventId(claimedEventId).payloadHash(payloadHash)
+        .status(status).build(), true);
+  }
+
+  @Override
+  public Set<String> claimEvents(List<ProcessedEvent> events, List<String> legacyPayloadHashes) {
+    List<ProcessedEvent> candidates = new ArrayList<>(events.size());
+    List<String> candidateLegacyHashes = new ArrayList<>(events.size());
+    for (int i = 0; i < events.size(); i++) {
+      ProcessedEvent event = events.get(i);
+      if (isConfirmedSuccess(event.getEventId(), event.getPayloadHash(),
+          legacyPayloadHashes.get(i))) {
+        lruHits.increment();
+      } else {
+        candidates.add(event);
+        candidateLegacyHashes.add(legacyPayloadHashes.get(i));
+      }
+    }
+    if (candidates.isEmpty()) {
+      return Set.of();
+    }
+    databaseLookups.increment(candidates.size());
+    Set<String> claimed = delegate.claimEvents(candidates, candidateLegacyHashes);
+    for (ProcessedEvent event : candidates) {
+      bloomFilter.put(EVENT_ID_KEY + event.getEventId());
+      bloomFilter.put(PAYLOAD_HASH_KEY + event.getPayloadHash());
+      if (claimed.contains(event.getEventId())) {
+        claimedPayloadHashes.put(event.getEventId(), event.getPayloadHash());
+      }
+    }
+    return claimed;
+  }
+
+  @Override
+  public void completeEvents(List<ProcessedEvent> outcomes) {
+    delegate.completeEvents(outcomes);
+    for (ProcessedEvent outcome : outcomes) {
+      String payloadHash = claimedPayloadHashes.remove(outcome.getEventId());
+      remember(ProcessedEvent.builder().eventId(outcome.getEventId()).payloadHash(payloadHash)
+          .status(outcome.getStatus()).build(), true);
+    }
+  }
+
+  @Override
+  public void markEventAsProcessed(String eventId, String payloadHash, String status) {
+    delegate.markEventAsProcessed(eventId, payloadHash, status);
+    remember(ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash).status(status)
+        .build(), true);
+  }
+
+  @Override
+  public void markEventsAsProcessed(List<ProcessedEvent> processedEvents) {
+    delegate.markEventsAsProcessed(processedEvents);
+    processedEvents.forEach(processedEvent -> remember(processedEvent, true));
+  }
+
+  private boolean isConfirmedSuccess(String eventId, String payloadHash,
+      String legacyPayloadHash) {
+    // a legacy row is remembered under its payload hash, the only one of its keys still matched
+    return ProcessedEvent.STATUS_SUCCESS.equals(confirmed.get(EVENT_ID_KEY + eventId))
+        || ProcessedEvent.STATUS_SUCCESS.equals(confirmed.get(PAYLOAD_HASH_KEY + payloadHash))
+        || legacyPayloadHash != null && ProcessedEvent.STATUS_SUCCESS.equals(
+        confirmed.get(PAYLOAD_HASH_KEY + legacyPayloadHash));
+  }
+
+  private boolean lookup(String key, BooleanSupplier database) {
+    if (confirmed.containsKey(key)) {
+      lruHits.increment();
+      return true;
+    }
+    // no claim follows these answers, so a negative from the filter is not enough
+    databaseLookups.increment();
+    boolean processed = database.getAsBoolean();
+    if (processed) {
+      bloomFilter.put(key);
+      confirmed.putIfAbsent(key, "");
+    } else if (complete && bloomFilter.mightContain(key)) {
+      falsePositives.increment();
+    }
+    return processed;
+  }
+
+  /**
+   * Status of a key known from the LRU, or null. Keys that may have been seen are added to
+   * {@code uncertain} for a database lookup; definite negatives are dropped.
+   */
+  private String classify(String key, List<String> uncertain, String value) {
+    String status = confirmed.get(key);
+    if (status != null && !status.isEmpty()) {
+      lruHits.increment();
+      return status;
+    }
+    if (complete && !bloomFilter.mightContain(key)) {
+      bloomNegatives.increment();
+      return null;
+    }
+    databaseLookups.increment();
+    uncertain.add(value);
+    return null;
+  }
+
+  private void remember(ProcessedEvent row, boolean confirm) {
+    remember(bloomFilter, row, confirm);
+  }
+
+  private void remember(BloomFilter filter, ProcessedEvent row, boolean confirm) {
+    remember(filter, EVENT_ID_KEY, row.getEventId(), row.getStatus(), confirm);
+    remember(filter, PAYLOAD_HASH_KEY, row.getPayloadHash(), row.getStatus(), confirm);
+  }
+
+  private void remember(BloomFilter filter, String prefix, String value, String status,
+      boolean confirm) {
+    if (value == null || value.isEmpty()) {
+      return;
+    }
+    filter.put(prefix + value);
+    if (confirm && status != null) {
+      confirmed.put(prefix + value, status);
+    }
+  }
+
+  private static Counter lookupCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("dedup.cache.lookups")
+        .description("Dedup key lookups by where they were answered")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,340 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.config.CmsResilienceInterceptor;
+import com.creditx.posting.dto.CommitTransactionRequest;
+import com.creditx.posting.dto.CommitTransactionResult;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Sends commit requests to the credit main service. With bulk commit enabled, the requests of all
+ * consumer threads are queued and sent to the bulk commit endpoint in groups of up to
+ * {@code max-size}; a group closes when it is full or {@code window} ms after its first request,
+ * and each caller gets back the result CMS returned for its own transaction. While every sender
+ * is busy the queue keeps filling, so groups grow with load. When CMS answers the bulk endpoint
+ * with 404, 405 or 501 the dispatcher commits one transaction per call instead and tries the bulk
+ * endpoint again after {@code recheck-interval} ms. Calls the circuit breaker or bulkhead of the
+ * CMS client rejects fail at once, and are logged without a stack trace. Senders waiting for a
+ * slot under the client's adaptive limit hold back the collector, so groups also grow while CMS
+ * is the bottleneck.
+ */
+@Component
+@Slf4j
+public class CmsCommitDispatcher {
+
+  static final String FAILURE_MESSAGE = "Failed to send commit transaction request to CMS";
+
+  /**
+   * Result of one commit request.
+   *
+   * @param request the request
+   * @param failure why CMS did not commit it, or null if it did
+   */
+  public record CommitResult(CommitTransactionRequest request, RuntimeException failure) {
+
+    public boolean succeeded() {
+      return failure == null;
+    }
+  }
+
+  private record PendingCommit(CommitTransactionRequest request,
+                               CompletableFuture<CommitResult> result) {
+  }
+
+  private final RestTemplate restTemplate;
+  private final String creditMainServiceUrl;
+  private final boolean bulkEnabled;
+  private final int maxSize;
+  private final long windowNanos;
+  private final long timeoutMillis;
+  private final long recheckIntervalMillis;
+  private final BlockingQueue<PendingCommit> queue = new LinkedBlockingQueue<>();
+  private final Semaphore idleSenders;
+  private final ExecutorService senders;
+  private final Thread collector;
+  private volatile long bulkUnavailableUntil;
+
+  public CmsCommitDispatcher(RestTemplate restTemplate,
+      @Value("${app.creditmain.url:http://localhost:8080}") String creditMainServiceUrl,
+      @Value("${app.creditmain.bulk-commit.enabled:false}") boolean bulkEnabled,
+      @Value("${app.creditmain.bulk-commit.max-size:100}") int maxSize,
+      @Value("${app.creditmain.bulk-commit.window:5}") long windowMillis,
+      @Value("${app.creditmain.bulk-commit.senders:4}") int senders,
+      @Value("${app.creditmain.bulk-commit.timeout:30000}") long timeoutMillis,
+      @Value("${app.creditmain.bulk-commit.recheck-interval:300000}") long recheckIntervalMillis) {
+    if (maxSize < 1 || senders < 1) {
+      throw new IllegalArgumentException(
+          "app.creditmain.bulk-commit.max-size and senders must be at least 1");
+    }
+    this.restTemplate = restTemplate;
+    this.creditMainServiceUrl = creditMainServiceUrl;
+    this.bulkEnabled = bulkEnabled;
+    this.maxSize = maxSize;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.timeoutMillis = timeoutMillis;
+    this.recheckIntervalMillis = recheckIntervalMillis;
+    this.idleSenders = new Semaphore(senders);
+    if (bulkEnabled) {
+      AtomicInteger senderIds = new AtomicInteger();
+      this.senders = Executors.newFixedThreadPool(senders, runnable -> {
+        Thread thread = new Thread(runnable, "cms-commit-sender-" + senderIds.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.collector = new Thread(this::collect, "cms-commit-collector");
+      collector.setDaemon(true);
+      collector.start();
+    } else {
+      this.senders = null;
+      this.collector = null;
+    }
+  }
+
+  /**
+   * Commits one transaction and waits for the result.
+   *
+   * @throws RuntimeException if CMS did not commit it
+   */
+  public void commit(CommitTransactionRequest request) {
+    CommitResult result = commitAll(List.of(request)).get(0);
+    if (!result.succeeded()) {
+      throw result.failure();
+    }
+  }
+
+  /**
+   * Commits the transactions and waits for their results. With bulk commit off or unavailable
+   * they are sent one call at a time, stopping at the first failure, so the returned list ends at
+   * the failed request. Otherwise they go out in bulk requests, possibly together with those of
+   * other callers, and the list holds a result for every request.
+   *
+   * @param requests requests in the order of their events
+   * @return results in the same order
+   */
+  public List<CommitResult> commitAll(List<CommitTransactionRequest> requests) {
+    List<CommitResult> results = new ArrayList<>(requests.size());
+    if (!bulkAvailable()) {
+      for (CommitTransactionRequest request : requests) {
+        CommitResult result = sendSingle(request);
+        results.add(result);
+        if (!result.succeeded()) {
+          break;
+        }
+      }
+      return results;
+    }
+
+    List<PendingCommit> pending = new ArrayList<>(requests.size());
+    for (CommitTransactionRequest request : requests) {
+      PendingCommit commit = new PendingCommit(request, new CompletableFuture<>());
+      queue.add(commit);
+      pending.add(commit);
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    for (PendingCommit commit : pending) {
+      results.add(await(commit, deadline));
+    }
+    return results;
+  }
+
+  private CommitResult await(PendingCommit commit, long deadline) {
+    try {
+      return commit.result().get(Math.max(0, deadline - System.nanoTime()),
+          TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      log.error("No commit result for transaction {} within {} ms",
+          commit.request().getTransactionId(), timeoutMillis, e);
+      return abandon(commit, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return abandon(commit, e);
+    }
+  }
+
+  /**
+   * Fails a commit its caller stopped waiting for, unless a sender completed it first, and takes
+   * it off the queue so it is not sent after the caller reported it failed. A commit already on
+   * its way to CMS may still be committed there; CMS commits are idempotent per transaction.
+   */
+  private CommitResult abandon(PendingCommit commit, Throwable cause) {
+    commit.result().complete(failed(commit.request(), cause));
+    queue.remove(commit);
+    return commit.result().join();
+  }
+
+  private boolean bulkAvailable() {
+    return bulkEnabled && System.currentTimeMillis() >= bulkUnavailableUntil;
+  }
+
+  private void collect() {
+    List<PendingCommit> group = new ArrayList<>(maxSize);
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        idleSenders.acquire();
+        group.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        while (group.size() < maxSize) {
+          queue.drainTo(group, maxSize - group.size());
+          long remaining = deadline - System.nanoTime();
+          if (group.size() >= maxSize || remaining <= 0) {
+            break;
+          }
+          PendingCommit next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          group.add(next);
+        }
+        List<PendingCommit> closed = List.copyOf(group);
+        group.clear();
+        senders.execute(() -> {
+          try {
+            send(closed);
+          } finally {
+            idleSenders.release();
+          }
+        });
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      fail(group, new IllegalStateException("CMS commit dispatcher is shut down"));
+    }
+  }
+
+  private void send(List<PendingCommit> collected) {
+    // commits whose callers gave up while they were being collected are not sent
+    List<PendingCommit> group = collected.stream().filter(commit -> !commit.result().isDone())
+        .toList();
+    if (group.isEmpty()) {
+      return;
+    }
+    if (bulkAvailable()) {
+      try {
+        complete(group, postBulk(group));
+        return;
+      } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed
+          | HttpServerErrorException.NotImplemented e) {
+        bulkUnavailableUntil = System.currentTimeMillis() + recheckIntervalMillis;
+        log.warn("CMS bulk commit endpoint answered {}, committing one transaction per call for "
+            + "the next {} ms", e.getStatusCode(), recheckIntervalMillis);
+      } catch (RuntimeException e) {
+        if (CmsResilienceInterceptor.isRejected(e)) {
+          log.warn("Bulk commit request for {} transactions not sent: {}", group.size(),
+              e.getMessage());
+        } else {
+          log.error("Failed to send bulk commit request for {} transactions", group.size(), e);
+        }
+        fail(group, e);
+        return;
+      }
+    }
+    for (PendingCommit commit : group) {
+      if (!commit.result().isDone()) {
+        commit.result().complete(sendSingle(commit.request()));
+      }
+    }
+  }
+
+  private CommitTransactionResult[] postBulk(List<PendingCommit> group) {
+    List<CommitTransactionRequest> requests = group.stream().map(PendingCommit::request)
+        .toList();
+    log.debug("Sending bulk commit request to CMS for {} transactions", requests.size());
+    return restTemplate.postForObject(creditMainServiceUrl + "/api/transactions/commit",
+        jsonEntity(requests), CommitTransactionResult[].class);
+  }
+
+  private void complete(List<PendingCommit> group, CommitTransactionResult[] results) {
+    Map<Long, CommitTransactionResult> byTransactionId = new HashMap<>();
+    if (results != null) {
+      for (CommitTransactionResult result : results) {
+        byTransactionId.put(result.getTransactionId(), result);
+      }
+    }
+    for (PendingCommit commit : group) {
+      Long transactionId = commit.request().getTransactionId();
+      CommitTransactionResult result = byTransactionId.get(transactionId);
+      if (result != null && result.isCommitted()) {
+        commit.result().complete(new CommitResult(commit.request(), null));
+        continue;
+      }
+      IllegalStateException cause = new IllegalStateException(result == null
+          ? "CMS returned no bulk commit result for transaction " + transactionId
+          : "CMS did not commit transaction " + transactionId + ": " + result.getError());
+      log.error("Failed to commit transaction {} in bulk: {}", transactionId, cause.getMessage());
+      commit.result().complete(failed(commit.request(), cause));
+    }
+  }
+
+  private CommitResult sendSingle(CommitTransactionRequest request) {
+    try {
+      log.info("Sending commit transaction request to CMS for transaction: {}",
+          request.getTransactionId());
+      String url =
+          creditMainServiceUrl + "/api/transactions/" + request.getTransactionId() + "/commit";
+      restTemplate.postForEntity(url, jsonEntity(request), String.class);
+      log.info("Successfully sent commit transaction request for transaction: {}",
+          request.getTransactionId());
+      return new CommitResult(request, null);
+    } catch (Exception e) {
+      if (CmsResilienceInterceptor.isRejected(e)) {
+        log.warn("Commit transaction request for transaction {} not sent: {}",
+            request.getTransactionId(), e.getMessage());
+      } else {
+        log.error("Failed to send commit transaction request for transaction: {}",
+            request.getTransactionId(), e);
+      }
+      return failed(request, e);
+    }
+  }
+
+  private static <T> HttpEntity<T> jsonEntity(T body) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    return new HttpEntity<>(body, headers);
+  }
+
+  private static CommitResult failed(CommitTransactionRequest request, Throwable cause) {
+    return new CommitResult(request, new RuntimeException(FAILURE_MESSAGE, cause));
+  }
+
+  private static void fail(List<PendingCommit> group, Throwable cause) {
+    for (PendingCommit commit : group) {
+      commit.result().complete(failed(commit.request(), cause));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (collector == null) {
+      return;
+    }
+    collector.interrupt();
+    senders.shutdown();
+    List<PendingCommit> queued = new ArrayList<>();
+    queue.drainTo(queued);
+    fail(queued, new IllegalStateException("CMS commit dispatcher is shut down"));
+  }
+}
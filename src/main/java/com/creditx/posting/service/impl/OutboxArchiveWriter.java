@@ -0,0 +1,105 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.model.OutboxEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes outbox rows as gzip compressed newline-delimited JSON. Rows go to a temporary file that
+ * is synced and moved into place on {@link #close()}, so a complete archive file exists before the
+ * rows it holds are removed.
+ */
+class OutboxArchiveWriter implements Closeable {
+
+  private final Path target;
+  private final Path temporary;
+  private final FileChannel channel;
+  private final GZIPOutputStream out;
+  private final JsonGenerator generator;
+  private long rows;
+
+  OutboxArchiveWriter(ObjectMapper objectMapper, Path directory, String name) {
+    this.target = directory.resolve(name + ".ndjson.gz");
+    this.temporary = directory.resolve(name + ".ndjson.gz.tmp");
+    try {
+      Files.createDirectories(directory);
+      this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      this.out = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+      this.generator = objectMapper.getFactory().createGenerator((OutputStream) out)
+          .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      // One object per line: suppress the default space between root values
+      generator.setRootValueSeparator(null);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create outbox archive " + temporary, e);
+    }
+  }
+
+  void write(OutboxEvent event) {
+    try {
+      generator.writeStartObject();
+      generator.writeNumberField("eventId", event.getEventId());
+      generator.writeStringField("eventType", event.getEventType());
+      if (event.getAggregateId() != null) {
+        generator.writeNumberField("aggregateId", event.getAggregateId());
+      }
+      generator.writeStringField("status", event.getStatus().name());
+      generator.writeStringField("createdAt", String.valueOf(event.getCreatedAt()));
+      if (event.getPublishedAt() != null) {
+        generator.writeStringField("publishedAt", event.getPublishedAt().toString());
+      }
+      generator.writeStringField("payload", event.getPayload());
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+      rows++;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write outbox archive " + temporary, e);
+    }
+  }
+
+  long rows() {
+    return rows;
+  }
+
+  Path target() {
+    return target;
+  }
+
+  @Override
+  public void close() {
+    try {
+      generator.close();
+      out.finish();
+      out.flush();
+      channel.force(true);
+      channel.close();
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot complete outbox archive " + target, e);
+    }
+  }
+
+  /**
+   * Discards a partially written archive.
+   */
+  void abort() {
+    try {
+      channel.close();
+      Files.deleteIfExists(temporary);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot discard outbox archive " + temporary, e);
+    }
+  }
+}
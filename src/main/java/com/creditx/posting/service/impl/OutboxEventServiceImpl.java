@@ -1,14 +1,29 @@
 package com.creditx.posting.service.impl;
 
+import com.creditx.posting.dto.OutboxEventDTO;
+import com.creditx.posting.dto.OutboxEventSavedEvent;
 import com.creditx.posting.model.OutboxEvent;
 import com.creditx.posting.model.OutboxEventStatus;
+import com.creditx.posting.repository.OutboxClaim;
 import com.creditx.posting.repository.OutboxEventRepository;
+import com.creditx.posting.repository.RetryQueueStats;
+import com.creditx.posting.service.ClaimedOutboxEvents;
 import com.creditx.posting.service.OutboxEventService;
+import com.creditx.posting.service.RetryBackoffPolicy;
 import jakarta.transaction.Transactional;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,7 +31,21 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class OutboxEventServiceImpl implements OutboxEventService {
 
+  // Oracle rejects IN lists longer than 1000 expressions (ORA-01795)
+  public static final int MAX_IN_LIST_SIZE = 1000;
+
+  static final List<OutboxEventStatus> CLAIMABLE_STATUSES =
+      List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED);
+
   private final OutboxEventRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RetryBackoffPolicy retryBackoffPolicy;
+
+  @Value("${app.outbox.instance-id:}")
+  private String instanceId;
+
+  @Value("${app.outbox.lease-duration:30000}")
+  private long leaseDuration = 30000;
 
   @Override
   @Transactional
@@ -26,18 +55,69 @@ public class OutboxEventServiceImpl implements OutboxEventService {
         .payload(payload).status(OutboxEventStatus.PENDING).build();
     OutboxEvent savedEvent = repository.save(event);
     log.info("Outbox event saved with ID: {}", savedEvent.getEventId());
+    eventPublisher.publishEvent(
+        new OutboxEventSavedEvent(savedEvent.getEventId(), savedEvent.getAggregateId()));
     return savedEvent;
   }
 
+  @Override
+  @Transactional
+  public List<OutboxEvent> saveEvents(List<OutboxEventDTO> events) {
+    if (events.isEmpty()) {
+      return List.of();
+    }
+    log.debug("Saving {} outbox events", events.size());
+    List<OutboxEvent> savedEvents = repository.saveAll(events.stream()
+        .map(dto -> OutboxEvent.builder().eventType(dto.getEventType())
+            .aggregateId(dto.getAggregateId()).payload(dto.getPayload())
+            .status(OutboxEventStatus.PENDING).build())
+        .toList());
+    log.info("Saved {} outbox events", savedEvents.size());
+    savedEvents.forEach(savedEvent -> eventPublisher.publishEvent(
+        new OutboxEventSavedEvent(savedEvent.getEventId(), savedEvent.getAggregateId())));
+    return savedEvents;
+  }
+
   @Override
   public List<OutboxEvent> fetchPendingEvents(int limit) {
     log.debug("Fetching pending outbox events with limit: {}", limit);
-    List<OutboxEvent> pendingEvents = repository.findAll().stream()
-        .filter(e -> OutboxEventStatus.PENDING.equals(e.getStatus())).limit(limit).toList();
+    List<OutboxEvent> pendingEvents = repository.findPendingEvents(OutboxEventStatus.PENDING,
+        PageRequest.of(0, limit));
+    log.debug("Found {} pending outbox events", pendingEvents.size());
+    return pendingEvents;
+  }
+
+  @Override
+  public List<OutboxEvent> fetchPendingEventsAfter(OutboxEvent lastEvent, int limit) {
+    if (lastEvent == null) {
+      return fetchPendingEvents(limit);
+    }
+    log.debug("Fetching pending outbox events after {} with limit: {}", lastEvent.getEventId(),
+        limit);
+    List<OutboxEvent> pendingEvents = repository.findPendingEventsAfter(OutboxEventStatus.PENDING,
+        lastEvent.getCreatedAt(), lastEvent.getEventId(), PageRequest.of(0, limit));
     log.debug("Found {} pending outbox events", pendingEvents.size());
     return pendingEvents;
   }
 
+  @Override
+  @Transactional
+  public ClaimedOutboxEvents claimPendingEvents(int limit) {
+    ClaimedOutboxEvents claimed = loadClaimed(repository.claimPendingEvents(leaseOwner(), limit,
+        Duration.ofMillis(leaseDuration)));
+    log.debug("Claimed {} pending outbox events as {}", claimed.events().size(), leaseOwner());
+    return claimed;
+  }
+
+  @Override
+  @Transactional
+  public ClaimedOutboxEvents claimDueRetries(int limit) {
+    ClaimedOutboxEvents claimed = loadClaimed(repository.claimDueRetries(leaseOwner(), limit,
+        Duration.ofMillis(leaseDuration)));
+    log.debug("Claimed {} due outbox retries as {}", claimed.events().size(), leaseOwner());
+    return claimed;
+  }
+
   @Override
   @Transactional
   public void markAsPublished(OutboxEvent event) {
@@ -52,8 +132,140 @@ public class OutboxEventServiceImpl implements OutboxEventService {
   @Transactional
   public void markAsFailed(OutboxEvent event) {
     log.warn("Marking outbox event {} as failed", event.getEventId());
-    event.setStatus(OutboxEventStatus.FAILED);
+    recordAttempt(event, Instant.now());
     repository.save(event);
-    log.debug("Outbox event {} marked as failed", event.getEventId());
+    log.debug("Outbox event {} marked as {}", event.getEventId(), event.getStatus());
+  }
+
+  @Override
+  @Transactional
+  public int markAllAsPublished(Collection<Long> eventIds) {
+    if (eventIds == null || eventIds.isEmpty()) {
+      return 0;
+    }
+    Instant publishedAt = Instant.now();
+    int updated = 0;
+    for (List<Long> chunk : chunk(eventIds)) {
+      updated += repository.updateStatusAndPublishedAt(chunk, OutboxEventStatus.PUBLISHED,
+          publishedAt, leaseOwner());
+    }
+    logLostLeases(eventIds.size(), updated);
+    log.info("Marked {} outbox events as published", updated);
+    return updated;
+  }
+
+  @Override
+  @Transactional
+  public int markAllAsFailed(Collection<OutboxEvent> events) {
+    if (events == null || events.isEmpty()) {
+      return 0;
+    }
+    Instant now = Instant.now();
+    List<OutboxEvent> failures = new ArrayList<>(events);
+    failures.forEach(event -> recordAttempt(event, now));
+    int updated = repository.recordFailures(failures, leaseOwner());
+    logLostLeases(failures.size(), updated);
+    long dead = failures.stream().filter(e -> e.getStatus() == OutboxEventStatus.DEAD).count();
+    log.warn("Marked {} outbox events as failed, {} of them exhausted their retries", updated,
+        dead);
+    return updated;
+  }
+
+  @Override
+  @Transactional
+  public int releaseClaims(Collection<Long> eventIds) {
+    if (eventIds == null || eventIds.isEmpty()) {
+      return 0;
+    }
+    int updated = 0;
+    for (List<Long> chunk : chunk(eventIds)) {
+      updated += repository.clearLease(chunk, CLAIMABLE_STATUSES, leaseOwner());
+    }
+    log.debug("Released claims on {} outbox events", updated);
+    return updated;
+  }
+
+  @Override
+  public RetryQueueStats getRetryQueueStats() {
+    return repository.findRetryQueueStats(OutboxEventStatus.FAILED);
+  }
+
+  @Override
+  @Transactional
+  public void recordPublishOutcome(Collection<Long> publishedIds,
+      Collection<OutboxEvent> failedEvents, Collection<Long> releasedIds) {
+    markAllAsPublished(publishedIds);
+    markAllAsFailed(failedEvents);
+    releaseClaims(releasedIds);
+  }
+
+  /**
+   * Counts a failed attempt and either schedules the next one or, once the attempt budget is
+   * used up, moves the event to DEAD.
+   */
+  private void recordAttempt(OutboxEvent event, Instant now) {
+    int attempts = (event.getAttemptCount() == null ? 0 : event.getAttemptCount()) + 1;
+    event.setAttemptCount(attempts);
+    if (retryBackoffPolicy.isExhausted(attempts)) {
+      log.error("Outbox event {} failed {} times, moving it to DEAD", event.getEventId(),
+          attempts);
+      event.setStatus(OutboxEventStatus.DEAD);
+      event.setNextAttemptAt(null);
+    } else {
+      event.setStatus(OutboxEventStatus.FAILED);
+      event.setNextAttemptAt(now.plus(retryBackoffPolicy.backoff(attempts)));
+    }
+    event.setLeaseOwner(null);
+    event.setLeaseUntil(null);
+  }
+
+  /**
+   * Outcomes are only written to rows this instance still holds the lease on; the rest expired
+   * and may have been claimed and sent again by another instance.
+   */
+  private void logLostLeases(int outcomes, int updated) {
+    if (updated < outcomes) {
+      log.warn("{} of {} outbox events are no longer leased to {}, their outcome was not recorded",
+          outcomes - updated, outcomes, leaseOwner());
+    }
+  }
+
+  private ClaimedOutboxEvents loadClaimed(OutboxClaim claim) {
+    if (claim.eventIds().isEmpty()) {
+      return new ClaimedOutboxEvents(List.of(), claim.candidates());
+    }
+    // Retries are claimed most overdue first but published oldest first: two due retries of one
+    // aggregate must go out in the order they were created
+    List<OutboxEvent> claimed = new ArrayList<>(claim.eventIds().size());
+    for (List<Long> chunk : chunk(claim.eventIds())) {
+      claimed.addAll(repository.findByEventIdInOrderByCreatedAtAscEventIdAsc(chunk));
+    }
+    return new ClaimedOutboxEvents(claimed, claim.candidates());
+  }
+
+  String leaseOwner() {
+    if (instanceId == null || instanceId.isBlank()) {
+      instanceId = defaultInstanceId();
+    }
+    return instanceId;
+  }
+
+  private static String defaultInstanceId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "unknown-host";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  private static List<List<Long>> chunk(Collection<Long> eventIds) {
+    List<Long> ids = new ArrayList<>(eventIds);
+    List<List<Long>> chunks = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+      chunks.add(ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size())));
+    }
+    return chunks;
   }
-}
\ No newline at end of file
+}
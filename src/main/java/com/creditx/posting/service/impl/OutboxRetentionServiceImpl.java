@@ -0,0 +1,171 @@
+package com.creditx.posting.service.impl;
+
+import static com.creditx.posting.repository.OutboxRetentionRepository.TABLE;
+
+import com.creditx.posting.dto.OutboxPurgeResult;
+import com.creditx.posting.repository.OutboxRetentionRepository;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.creditx.posting.service.OutboxRetentionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Not transactional on purpose: partition DDL commits implicitly and every chunk delete commits on
+ * its own, so no purge step holds locks or undo for longer than one chunk.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRetentionServiceImpl implements OutboxRetentionService {
+
+  private final PartitionMaintenanceRepository partitionRepository;
+  private final OutboxRetentionRepository retentionRepository;
+  private final ObjectMapper objectMapper;
+
+  @Value("${app.outbox.retention.days:7}")
+  private int retentionDays = 7;
+
+  @Value("${app.outbox.retention.chunk-size:500}")
+  private int chunkSize = 500;
+
+  @Value("${app.outbox.retention.chunk-pause:100}")
+  private long chunkPause = 100;
+
+  @Value("${app.outbox.retention.archive-enabled:false}")
+  private boolean archiveEnabled;
+
+  @Value("${app.outbox.retention.archive-dir:outbox-archive}")
+  private String archiveDir = "outbox-archive";
+
+  @Override
+  public OutboxPurgeResult purgeExpiredEvents() {
+    LocalDate cutoffDay = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+    log.info("Purging published outbox events created before {}", cutoffDay);
+
+    int dropped = 0;
+    int truncated = 0;
+    long archived = 0;
+    for (TablePartition partition : partitionRepository.findPartitions(TABLE)) {
+      // High values are exclusive: a partition ending after the cutoff day still holds live rows
+      if (partition.highValue().isAfter(cutoffDay)) {
+        continue;
+      }
+      try {
+        // DEAD events go with the partition (archived first when archiving is on)
+        long awaiting = retentionRepository.countAwaitingPublish(partition.name());
+        if (awaiting > 0) {
+          log.info("Keeping partition {}: {} events not published yet", partition.name(),
+              awaiting);
+          continue;
+        }
+        if (archiveEnabled) {
+          archived += archivePartition(partition);
+        }
+        if (partition.interval()) {
+          partitionRepository.dropPartition(TABLE, partition.name());
+          dropped++;
+        } else {
+          partitionRepository.truncatePartition(TABLE, partition.name());
+          truncated++;
+        }
+      } catch (DataAccessException | UncheckedIOException e) {
+        log.error("Failed to purge outbox partition {}: {}", partition.name(), e.getMessage(), e);
+      }
+    }
+
+    Instant cutoff = cutoffDay.atStartOfDay(ZoneOffset.UTC).toInstant();
+    long[] chunkOutcome = deleteInChunks(cutoff);
+    OutboxPurgeResult result = new OutboxPurgeResult(dropped, truncated, chunkOutcome[0],
+        archived + chunkOutcome[1]);
+    log.info("Outbox purge completed: {}", result);
+    return result;
+  }
+
+  private long archivePartition(TablePartition partition) {
+    String name = TABLE + "-" + (partition.interval()
+        ? partition.highValue().minusDays(1).toString()
+        : "before-" + partition.highValue());
+    OutboxArchiveWriter writer = new OutboxArchiveWriter(objectMapper, Path.of(archiveDir), name);
+    try {
+      retentionRepository.streamPartition(partition.name(), writer::write);
+    } catch (RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    if (writer.rows() == 0) {
+      writer.abort();
+      return 0;
+    }
+    writer.close();
+    log.info("Archived {} outbox events of partition {} to {}", writer.rows(), partition.name(),
+        writer.target());
+    return writer.rows();
+  }
+
+  /**
+   * Deletes published rows left in partitions that could not be dropped, one bounded chunk per
+   * statement with a pause in between. With archiving enabled every chunk is archived to its own
+   * file before it is deleted.
+   *
+   * @return deleted and archived row counts
+   */
+  private long[] deleteInChunks(Instant cutoff) {
+    int limit = Math.min(chunkSize, OutboxEventServiceImpl.MAX_IN_LIST_SIZE);
+    long deleted = 0;
+    long archived = 0;
+    try {
+      while (true) {
+        List<Long> eventIds = retentionRepository.findPublishedIdsBefore(cutoff, limit);
+        if (eventIds.isEmpty()) {
+          break;
+        }
+        if (archiveEnabled) {
+          archived += archiveChunk(eventIds);
+        }
+        deleted += retentionRepository.deletePublished(eventIds);
+        if (eventIds.size() < limit || !pause()) {
+          break;
+        }
+      }
+    } catch (DataAccessException | UncheckedIOException e) {
+      log.error("Chunked outbox purge stopped after {} rows: {}", deleted, e.getMessage(), e);
+    }
+    return new long[]{deleted, archived};
+  }
+
+  private long archiveChunk(List<Long> eventIds) {
+    String name = TABLE + "-rows-" + eventIds.get(0) + "-"
+        + eventIds.get(eventIds.size() - 1);
+    OutboxArchiveWriter writer = new OutboxArchiveWriter(objectMapper, Path.of(archiveDir), name);
+    try {
+      retentionRepository.streamByIds(eventIds, writer::write);
+    } catch (RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    writer.close();
+    return writer.rows();
+  }
+
+  private boolean pause() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(chunkPause);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
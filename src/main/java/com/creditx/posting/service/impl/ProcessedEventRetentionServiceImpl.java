@@ -0,0 +1,78 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.dto.ProcessedEventPurgeResult;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.creditx.posting.service.ProcessedEventRetentionService;
+import com.creditx.posting.service.ProcessedEventService;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Not transactional on purpose: every partition drop is DDL that commits on its own and holds its
+ * table lock only for the dictionary change, so consumers are never blocked for a whole run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventRetentionServiceImpl implements ProcessedEventRetentionService {
+
+  static final String TABLE = "CPS_PROCESSED_EVENTS";
+
+  private final PartitionMaintenanceRepository partitionRepository;
+  private final ProcessedEventService processedEventService;
+
+  @Value("${app.dedup.retention.partition-pause:1000}")
+  private long partitionPause = 1000;
+
+  @Override
+  public ProcessedEventPurgeResult purgeExpiredEvents() {
+    LocalDate cutoffDay = LocalDate.now(ZoneOffset.UTC)
+        .minusDays(processedEventService.dedupWindow().toDays());
+    log.info("Purging processed events before {}", cutoffDay);
+
+    int dropped = 0;
+    int truncated = 0;
+    for (TablePartition partition : partitionRepository.findPartitions(TABLE)) {
+      // High values are exclusive: a partition ending after the cutoff day is inside the window
+      if (partition.highValue().isAfter(cutoffDay)) {
+        continue;
+      }
+      if (dropped + truncated > 0 && !pause()) {
+        break;
+      }
+      try {
+        if (partition.interval()) {
+          partitionRepository.dropPartition(TABLE, partition.name());
+          dropped++;
+        } else {
+          partitionRepository.truncatePartition(TABLE, partition.name());
+          truncated++;
+        }
+      } catch (DataAccessException e) {
+        log.error("Failed to purge processed-event partition {}: {}", partition.name(),
+            e.getMessage(), e);
+      }
+    }
+
+    ProcessedEventPurgeResult result = new ProcessedEventPurgeResult(dropped, truncated);
+    log.info("Processed-event purge completed: {}", result);
+    return result;
+  }
+
+  private boolean pause() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(partitionPause);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -2,10 +2,22 @@ package com.creditx.posting.service.impl;
 
 import com.creditx.posting.model.ProcessedEvent;
 import com.creditx.posting.repository.ProcessedEventRepository;
+import com.creditx.posting.service.DedupStatus;
 import com.creditx.posting.service.ProcessedEventService;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,11 +25,43 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class ProcessedEventServiceImpl implements ProcessedEventService {
 
+  // Oracle rejects IN lists longer than 1000 expressions (ORA-01795)
+  static final int MAX_IN_LIST_SIZE = 1000;
+
   private final ProcessedEventRepository processedEventRepository;
 
+  @Value("${app.consumer.claim-timeout:60000}")
+  private long claimTimeout = 60000;
+
+  @Value("${app.dedup.window-days:30}")
+  private int windowDays = 30;
+
+  // rows written before the compact key layout are found by their legacy payload hash until
+  // they age out, so this can be turned off once one dedup window has passed since the upgrade
+  @Value("${app.dedup.legacy-keys-read:true}")
+  private boolean legacyKeysRead = true;
+
+  @Override
+  public Duration dedupWindow() {
+    return Duration.ofDays(windowDays);
+  }
+
+  @Override
+  public DedupStatus checkEvent(String eventId, String payloadHash, Instant eventTime) {
+    if (!findProcessedEvents(List.of(eventId), List.of(payloadHash)).isEmpty()) {
+      return DedupStatus.SEEN;
+    }
+    if (eventTime.isBefore(Instant.now().minus(dedupWindow()))) {
+      log.warn("Event {} from {} is older than the {} day dedup window and has no row", eventId,
+          eventTime, windowDays);
+      return DedupStatus.UNKNOWN;
+    }
+    return DedupStatus.UNSEEN;
+  }
+
   @Override
   public boolean isEventProcessed(String eventId) {
-    boolean exists = processedEventRepository.existsByEventId(eventId);
+    boolean exists = processedEventRepository.existsByEventKey(eventId);
     if (exists) {
       log.debug("Event {} has already been processed", eventId);
     }
@@ -30,16 +74,146 @@ public class ProcessedEventServiceImpl implements ProcessedEventService {
     ProcessedEvent processedEvent = ProcessedEvent.builder().eventId(eventId)
         .payloadHash(payloadHash).status(status).build();
 
-    processedEventRepository.save(processedEvent);
+    // save() would select the assigned id before inserting
+    processedEventRepository.insertAll(List.of(processedEvent));
     log.debug("Marked event {} as processed with status {}", eventId, status);
   }
 
   @Override
   public boolean isPayloadProcessed(String payloadHash) {
-    boolean exists = processedEventRepository.existsByPayloadHash(payloadHash);
+    boolean exists = processedEventRepository.existsByPayloadDigest(payloadHash)
+        || legacyKeysRead && processedEventRepository.existsByPayloadHash(payloadHash);
     if (exists) {
       log.debug("Payload with hash {} has already been processed", payloadHash);
     }
     return exists;
   }
+
+  @Override
+  public List<ProcessedEvent> findProcessedEvents(Collection<String> eventIds,
+      Collection<String> payloadHashes) {
+    List<String> ids = List.copyOf(eventIds);
+    List<String> hashes = List.copyOf(payloadHashes);
+    List<ProcessedEvent> processed = new ArrayList<>();
+    for (int from = 0; from < Math.max(ids.size(), hashes.size()); from += MAX_IN_LIST_SIZE) {
+      List<String> idChunk = chunk(ids, from);
+      List<String> hashChunk = chunk(hashes, from);
+      processed.addAll(processedEventRepository.findByEventKeysOrPayloadDigests(idChunk,
+          hashChunk));
+      if (legacyKeysRead && !hashChunk.isEmpty()) {
+        processed.addAll(processedEventRepository.findByPayloadHashIn(hashChunk));
+      }
+    }
+    log.debug("Found {} processed events for {} event ids", processed.size(), ids.size());
+    return processed;
+  }
+
+  @Override
+  @Transactional
+  public void markEventsAsProcessed(List<ProcessedEvent> processedEvents) {
+    if (processedEvents.isEmpty()) {
+      return;
+    }
+    int inserted = processedEventRepository.insertAll(processedEvents);
+    log.debug("Marked {} events as processed", inserted);
+  }
+
+  @Override
+  public Optional<String> claimEvent(String eventId, String payloadHash,
+      String legacyPayloadHash) {
+    long staleSeconds = Math.max(1, claimTimeout / 1000);
+    if (legacyKeysRead && legacyPayloadHash != null
+        && processedEventRepository.countLegacyClaimBlockers(legacyPayloadHash, staleSeconds) > 0) {
+      log.debug("Event {} is already processed or claimed under legacy payload hash {}", eventId,
+          legacyPayloadHash);
+      return Optional.empty();
+    }
+    int claimed;
+    try {
+      claimed = processedEventRepository.claim(eventId, payloadHash, staleSeconds);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent delivery inserted the same event first, or another event holds the payload
+      log.debug("Lost claim on event {} with payload hash {} to another delivery", eventId,
+          payloadHash);
+      return Optional.empty();
+    }
+    if (claimed == 0) {
+      log.debug("Event {} is already processed or claimed by a live consumer", eventId);
+      return Optional.empty();
+    }
+    log.debug("Claimed event {}", eventId);
+    return Optional.of(eventId);
+  }
+
+  @Override
+  @Transactional
+  public void completeEvent(String claimedEventId, String status) {
+    processedEventRepository.updateStatus(claimedEventId, status);
+    log.debug("Completed event {} with status {}", claimedEventId, status);
+  }
+
+  @Override
+  public Set<String> claimEvents(List<ProcessedEvent> events, List<String> legacyPayloadHashes) {
+    long staleSeconds = Math.max(1, claimTimeout / 1000);
+    Set<String> blocked = new HashSet<>();
+    if (legacyKeysRead) {
+      List<String> hashes = legacyPayloadHashes.stream().filter(Objects::nonNull).toList();
+      for (int from = 0; from < hashes.size(); from += MAX_IN_LIST_SIZE) {
+        blocked.addAll(processedEventRepository.findLegacyClaimBlockers(chunk(hashes, from),
+            staleSeconds));
+      }
+    }
+    List<ProcessedEvent> candidates = new ArrayList<>(events.size());
+    List<String> candidateLegacyHashes = new ArrayList<>(events.size());
+    for (int i = 0; i < events.size(); i++) {
+      String legacyPayloadHash = legacyPayloadHashes.get(i);
+      if (legacyPayloadHash == null || !blocked.contains(legacyPayloadHash)) {
+        candidates.add(events.get(i));
+        candidateLegacyHashes.add(legacyPayloadHash);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return Set.of();
+    }
+    int[] counts;
+    try {
+      counts = processedEventRepository.claimAll(candidates, staleSeconds);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent delivery inserted one of the events first and the batch rolled back
+      log.debug("Lost a claim in a batch of {} events, claiming them one at a time",
+          candidates.size());
+      Set<String> claimed = new HashSet<>();
+      for (int i = 0; i < candidates.size(); i++) {
+        ProcessedEvent event = candidates.get(i);
+        claimEvent(event.getEventId(), event.getPayloadHash(), candidateLegacyHashes.get(i))
+            .ifPresent(claimed::add);
+      }
+      return claimed;
+    }
+    Set<String> claimed = new HashSet<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        claimed.add(candidates.get(i).getEventId());
+      }
+    }
+    log.debug("Claimed {} of {} events", claimed.size(), events.size());
+    return claimed;
+  }
+
+  @Override
+  @Transactional
+  public void completeEvents(List<ProcessedEvent> outcomes) {
+    if (outcomes.isEmpty()) {
+      return;
+    }
+    processedEventRepository.updateStatuses(outcomes);
+    log.debug("Completed {} claimed events", outcomes.size());
+  }
+
+  private static List<String> chunk(List<String> values, int from) {
+    if (from >= values.size()) {
+      return List.of();
+    }
+    return values.subList(from, Math.min(from + MAX_IN_LIST_SIZE, values.size()));
+  }
 }
@@ -0,0 +1,67 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.config.CmsResilienceInterceptor;
+import com.creditx.posting.dto.CommitTransactionRequest;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link CmsCommitDispatcher} for the reactive consumer mode. Commits
+ * one transaction per call through the CMS {@link WebClient}, guarded by the same circuit breaker
+ * and bulkhead as the blocking client, and holds no thread while CMS answers. The adaptive limit
+ * of {@link com.creditx.posting.config.CmsAdaptiveLimiter} does not apply here, as waiting for one
+ * of its slots would block an event loop thread; calls in flight are bounded by
+ * {@code app.consumer.reactive.concurrency}, which may not exceed the bulkhead.
+ */
+@Component
+@ConditionalOnProperty(name = "app.consumer.reactive-mode", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCmsCommitClient {
+
+  private final WebClient cmsWebClient;
+  private final CircuitBreaker cmsCircuitBreaker;
+  private final Bulkhead cmsBulkhead;
+
+  /**
+   * Commits one transaction.
+   *
+   * @return completes once CMS committed it, or fails if it did not
+   */
+  public Mono<Void> commit(CommitTransactionRequest request) {
+    return cmsWebClient.post()
+        .uri("/api/transactions/{transactionId}/commit", request.getTransactionId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(request)
+        .retrieve()
+        .toBodilessEntity()
+        .transformDeferred(CircuitBreakerOperator.of(cmsCircuitBreaker))
+        .transformDeferred(BulkheadOperator.of(cmsBulkhead))
+        .doOnSubscribe(subscription -> log.info(
+            "Sending commit transaction request to CMS for transaction: {}",
+            request.getTransactionId()))
+        .doOnSuccess(response -> log.info(
+            "Successfully sent commit transaction request for transaction: {}",
+            request.getTransactionId()))
+        .onErrorMap(e -> {
+          if (CmsResilienceInterceptor.isRejected(e)) {
+            log.warn("Commit transaction request for transaction {} not sent: {}",
+                request.getTransactionId(), e.getMessage());
+          } else {
+            log.error("Failed to send commit transaction request for transaction: {}",
+                request.getTransactionId(), e);
+          }
+          return new RuntimeException(CmsCommitDispatcher.FAILURE_MESSAGE, e);
+        })
+        .then();
+  }
+}
@@ -0,0 +1,65 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.dto.CommitTransactionRequest;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.TransactionEventService;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Reactive variant of
+ * {@link TransactionEventService#processTransactionAuthorized(TransactionAuthorizedEvent, byte[],
+ * Instant)}, in the same three steps. The claim and the completion hold a JDBC connection and run
+ * on the bounded database scheduler; the CMS commit in between is non-blocking, so events waiting
+ * on CMS hold no thread at all.
+ */
+@Service
+@ConditionalOnProperty(name = "app.consumer.reactive-mode", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveTransactionEventProcessor {
+
+  private final TransactionEventService transactionEventService;
+  private final ReactiveCmsCommitClient reactiveCmsCommitClient;
+  private final Scheduler postingDbScheduler;
+
+  /**
+   * Processes an event decoded from {@code payload}.
+   *
+   * @param event     event to process
+   * @param payload   the record value the event was decoded from, or null to hash the event
+   *                  re-serialized
+   * @param eventTime when the event was published, or null if unknown
+   * @return completes once the event is settled or skipped as a duplicate, or fails with the
+   *         reason it could not be processed
+   */
+  public Mono<Void> process(TransactionAuthorizedEvent event, byte[] payload,
+      Instant eventTime) {
+    return Mono.fromCallable(() -> transactionEventService.claimTransactionAuthorized(event,
+            payload, eventTime))
+        .subscribeOn(postingDbScheduler)
+        .flatMap(claim -> claim.isEmpty() ? Mono.<Void>empty() : commit(event, claim.get()));
+  }
+
+  private Mono<Void> commit(TransactionAuthorizedEvent event, String claim) {
+    CommitTransactionRequest commitRequest = CommitTransactionRequest.builder()
+        .transactionId(event.getTransactionId()).holdId(event.getHoldId()).build();
+    return reactiveCmsCommitClient.commit(commitRequest)
+        .onErrorResume(e -> complete(claim, false).then(Mono.error(e)))
+        .then(complete(claim, true))
+        .doOnSuccess(done -> log.info(
+            "Successfully processed transaction.authorized for transaction: {}",
+            event.getTransactionId()));
+  }
+
+  private Mono<Void> complete(String claim, boolean committed) {
+    return Mono.<Void>fromRunnable(() -> transactionEventService.completeTransactionAuthorized(
+            claim, committed))
+        .subscribeOn(postingDbScheduler);
+  }
+}
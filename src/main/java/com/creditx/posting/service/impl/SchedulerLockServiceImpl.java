@@ -0,0 +1,66 @@
+package com.creditx.posting.service.impl;
+
+import com.creditx.posting.repository.SchedulerLockRepository;
+import com.creditx.posting.service.SchedulerLockService;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+
+  private final SchedulerLockRepository lockRepository;
+
+  @Value("${app.outbox.instance-id:}")
+  private String instanceId;
+
+  @Value("${app.scheduler.lock-duration:3600000}")
+  private long lockDuration = 3600000;
+
+  @Override
+  public boolean runExclusively(String lockName, Runnable job) {
+    String owner = lockOwner();
+    if (!lockRepository.tryLock(lockName, owner, Duration.ofMillis(lockDuration))) {
+      log.info("Skipping {}: another instance holds its lock", lockName);
+      return false;
+    }
+    try {
+      job.run();
+    } finally {
+      if (!lockRepository.unlock(lockName, owner)) {
+        log.warn("Lock {} expired while {} still held it and was taken over; raise "
+            + "app.scheduler.lock-duration above the job's run time", lockName, owner);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isLocked(String lockName) {
+    return lockRepository.isLocked(lockName);
+  }
+
+  String lockOwner() {
+    if (instanceId == null || instanceId.isBlank()) {
+      instanceId = defaultInstanceId();
+    }
+    return instanceId;
+  }
+
+  private static String defaultInstanceId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "unknown-host";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+}
@@ -1,108 +1,341 @@
 package com.creditx.posting.service.impl;
 
+import com.creditx.posting.config.CmsResilienceInterceptor;
 import com.creditx.posting.dto.CommitTransactionRequest;
 import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.service.BatchRecordFailedException;
+import com.creditx.posting.service.DedupStatus;
+import com.creditx.posting.service.DedupWindowExceededException;
 import com.creditx.posting.service.ProcessedEventService;
 import com.creditx.posting.service.TransactionEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher.CommitResult;
 import com.creditx.posting.tracing.TransactionSpanTagger;
 import com.creditx.posting.util.EventIdGenerator;
+import com.creditx.posting.util.PayloadHashAlgorithm;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionEventServiceImpl implements TransactionEventService {
 
-  private final RestTemplate restTemplate;
+  private final CmsCommitDispatcher cmsCommitDispatcher;
   private final ProcessedEventService processedEventService;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ObjectMapper objectMapper;
   private final TransactionSpanTagger transactionSpanTagger;
 
-  @Value("${app.creditmain.url:http://localhost:8080}")
-  private String creditMainServiceUrl;
+  @Value("${app.dedup.payload-hash-algorithm:SHA_256}")
+  private PayloadHashAlgorithm payloadHashAlgorithm = PayloadHashAlgorithm.SHA_256;
 
+  // rows written before the compact key layout hold the hash of the re-serialized event
+  @Value("${app.dedup.legacy-keys-read:true}")
+  private boolean legacyKeysRead = true;
+
+  /**
+   * Runs as three short steps instead of one transaction around the CMS call, so a slow CMS
+   * response no longer pins a pooled connection: claim the event (IN_PROGRESS) and commit, call
+   * CMS holding no database resources, then record SUCCESS or FAILED. A consumer that dies
+   * between the steps leaves an IN_PROGRESS claim that a redelivery takes over once it is stale.
+   */
   @Override
-  @Transactional
   public void processTransactionAuthorized(TransactionAuthorizedEvent event) {
-    // Tag current span early for trace correlation
-    transactionSpanTagger.tagTransactionId(event.getTransactionId());
+    processTransactionAuthorized(event, null);
+  }
 
-    // Generate unique event ID for deduplication
-    String eventId = EventIdGenerator.generateEventId("transaction.authorized",
-        event.getTransactionId());
+  @Override
+  public void processTransactionAuthorized(TransactionAuthorizedEvent event, Instant eventTime) {
+    processTransactionAuthorized(event, null, eventTime);
+  }
 
-    // Check if event has already been processed
-    if (processedEventService.isEventProcessed(eventId)) {
-      log.info("Event {} has already been processed, skipping", eventId);
+  @Override
+  public void processTransactionAuthorized(TransactionAuthorizedEvent event, byte[] payload,
+      Instant eventTime) {
+    Optional<String> claim = claimTransactionAuthorized(event, payload, eventTime);
+    if (claim.isEmpty()) {
       return;
     }
 
     try {
-      // Generate payload hash for additional deduplication
-      String payload = objectMapper.writeValueAsString(event);
-      String payloadHash = EventIdGenerator.generatePayloadHash(payload);
-
-      // Check if payload has already been processed
-      if (processedEventService.isPayloadProcessed(payloadHash)) {
-        log.info("Payload with hash {} has already been processed, skipping", payloadHash);
-        return;
-      }
-
-      log.info("Processing transaction.authorized event for transaction: {}",
-          event.getTransactionId());
-
       // Prepare to settle by calling CMS /commitTransaction
       CommitTransactionRequest commitRequest = CommitTransactionRequest.builder()
           .transactionId(event.getTransactionId()).holdId(event.getHoldId()).build();
 
-      sendCommitTransactionRequest(commitRequest);
+      cmsCommitDispatcher.commit(commitRequest);
+    } catch (Exception e) {
+      if (CmsResilienceInterceptor.isRejected(e)) {
+        log.warn("CMS is not taking calls, transaction.authorized event for transaction {} is "
+            + "left for redelivery", event.getTransactionId());
+      } else {
+        log.error("Failed to process transaction.authorized event for transaction: {}",
+            event.getTransactionId(), e);
+      }
+      completeTransactionAuthorized(claim.get(), false);
+      throw e;
+    }
+
+    completeTransactionAuthorized(claim.get(), true);
+    log.info("Successfully processed transaction.authorized for transaction: {}",
+        event.getTransactionId());
+  }
+
+  @Override
+  public Optional<String> claimTransactionAuthorized(TransactionAuthorizedEvent event,
+      byte[] payload, Instant eventTime) {
+    // Tag current span early for trace correlation
+    transactionSpanTagger.tagTransactionId(event.getTransactionId());
 
-      // Mark event as processed
-      processedEventService.markEventAsProcessed(eventId, payloadHash, "SUCCESS");
-      log.info("Successfully processed transaction.authorized for transaction: {}",
-          event.getTransactionId());
+    // Generate the event ID for deduplication, the same for every redelivery
+    String eventId = EventIdGenerator.generateEventId("transaction.authorized",
+        event.getTransactionId(), event.getHoldId());
 
+    // Generate payload hash for additional deduplication
+    String payloadHash;
+    String legacyPayloadHash;
+    try {
+      payloadHash = EventIdGenerator.generatePayloadHash(
+          payload != null ? payload : objectMapper.writeValueAsBytes(event), payloadHashAlgorithm);
+      legacyPayloadHash = legacyPayloadHash(event);
     } catch (JsonProcessingException e) {
       log.error("Failed to serialize event payload for transaction: {}", event.getTransactionId(),
           e);
-      processedEventService.markEventAsProcessed(eventId, "", "FAILED");
       throw new RuntimeException("Failed to serialize event payload", e);
-    } catch (Exception e) {
-      log.error("Failed to process transaction.authorized event for transaction: {}",
-          event.getTransactionId(), e);
-      // Mark event as processed with failed status
-      processedEventService.markEventAsProcessed(eventId, "", "FAILED");
-      throw e;
     }
+
+    // Refuse events whose dedup row may already have been purged
+    if (isOutsideDedupWindow(eventTime) && processedEventService.checkEvent(eventId, payloadHash,
+        eventTime) == DedupStatus.UNKNOWN) {
+      throw new DedupWindowExceededException(eventId, eventTime,
+          processedEventService.dedupWindow());
+    }
+
+    // Claim the event, skipping it if it has already been processed or is being processed
+    Optional<String> claim = processedEventService.claimEvent(eventId, payloadHash,
+        legacyPayloadHash);
+    if (claim.isEmpty()) {
+      log.info("Event {} with payload hash {} is already processed or claimed, skipping",
+          eventId, payloadHash);
+      return claim;
+    }
+
+    log.info("Processing transaction.authorized event for transaction: {}",
+        event.getTransactionId());
+    return claim;
   }
 
-  private void sendCommitTransactionRequest(CommitTransactionRequest request) {
-    HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(MediaType.APPLICATION_JSON);
-    HttpEntity<CommitTransactionRequest> entity = new HttpEntity<>(request, headers);
+  @Override
+  public void completeTransactionAuthorized(String claim, boolean committed) {
+    // A failed claim is released so a redelivery can take it over
+    processedEventService.completeEvent(claim,
+        committed ? ProcessedEvent.STATUS_SUCCESS : ProcessedEvent.STATUS_FAILED);
+  }
+
+  @Override
+  public void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events) {
+    processTransactionAuthorizedBatch(events, Collections.nCopies(events.size(), null));
+  }
 
+  @Override
+  public void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events,
+      List<Instant> eventTimes) {
+    processTransactionAuthorizedBatch(events, Collections.nCopies(events.size(), null),
+        eventTimes);
+  }
+
+  @Override
+  public void processTransactionAuthorizedBatch(List<TransactionAuthorizedEvent> events,
+      List<byte[]> payloads, List<Instant> eventTimes) {
+    List<String> eventIds = new ArrayList<>(events.size());
+    List<String> payloadHashes = new ArrayList<>(events.size());
+    List<String> legacyPayloadHashes = new ArrayList<>(events.size());
+    BatchRecordFailedException hashFailure = null;
+    for (int i = 0; i < events.size(); i++) {
+      TransactionAuthorizedEvent event = events.get(i);
+      byte[] payload = payloads.get(i);
+      try {
+        eventIds.add(EventIdGenerator.generateEventId("transaction.authorized",
+            event.getTransactionId(), event.getHoldId()));
+        String payloadHash = EventIdGenerator.generatePayloadHash(
+            payload != null ? payload : objectMapper.writeValueAsBytes(event),
+            payloadHashAlgorithm);
+        String legacyPayloadHash = legacyPayloadHash(event);
+        payloadHashes.add(payloadHash);
+        legacyPayloadHashes.add(legacyPayloadHash);
+      } catch (JsonProcessingException e) {
+        log.error("Failed to serialize event payload for transaction: {}",
+            event.getTransactionId(), e);
+        // settle the events before this one, then report it as the failed record
+        hashFailure = new BatchRecordFailedException(payloadHashes.size(),
+            new RuntimeException("Failed to serialize event payload", e));
+        eventIds.subList(payloadHashes.size(), eventIds.size()).clear();
+        break;
+      }
+    }
+
+    Set<String> processedIds = new HashSet<>();
+    Set<String> processedHashes = new HashSet<>();
+    Set<String> knownIds = new HashSet<>();
+    Set<String> knownHashes = new HashSet<>();
+    List<String> lookupHashes = new ArrayList<>(payloadHashes);
+    legacyPayloadHashes.stream().filter(Objects::nonNull).forEach(lookupHashes::add);
+    for (ProcessedEvent processed : processedEventService.findProcessedEvents(eventIds,
+        lookupHashes)) {
+      boolean success = ProcessedEvent.STATUS_SUCCESS.equals(processed.getStatus());
+      (success ? processedIds : knownIds).add(processed.getEventId());
+      (success ? processedHashes : knownHashes).add(processed.getPayloadHash());
+    }
+
+    List<ProcessedEvent> settled = new ArrayList<>();
+    List<PendingCommit> pending = new ArrayList<>();
     try {
-      log.info("Sending commit transaction request to CMS for transaction: {}",
-          request.getTransactionId());
-      String url =
-          creditMainServiceUrl + "/api/transactions/" + request.getTransactionId() + "/commit";
-      restTemplate.postForEntity(url, entity, String.class);
-      log.info("Successfully sent commit transaction request for transaction: {}",
-          request.getTransactionId());
-    } catch (Exception e) {
-      log.error("Failed to send commit transaction request for transaction: {}",
-          request.getTransactionId(), e);
-      throw new RuntimeException("Failed to send commit transaction request to CMS", e);
+      for (int i = 0; i < payloadHashes.size(); i++) {
+        TransactionAuthorizedEvent event = events.get(i);
+        String eventId = eventIds.get(i);
+        String payloadHash = payloadHashes.get(i);
+        String legacyPayloadHash = legacyPayloadHashes.get(i);
+        if (!processedIds.add(eventId)) {
+          log.info("Event {} has already been processed, skipping", eventId);
+          continue;
+        }
+        if (legacyPayloadHash != null && processedHashes.contains(legacyPayloadHash)) {
+          log.info("Event {} has already been processed under legacy payload hash {}, skipping",
+              eventId, legacyPayloadHash);
+          continue;
+        }
+        if (!processedHashes.add(payloadHash)) {
+          log.info("Payload with hash {} has already been processed, skipping", payloadHash);
+          continue;
+        }
+        // an event with an unfinished row is claimed along with the others; its row is known
+        boolean known = knownIds.contains(eventId) || knownHashes.contains(payloadHash)
+            || legacyPayloadHash != null && knownHashes.contains(legacyPayloadHash);
+        // the lookup may answer unseen from the dedup cache, so ask the store before refusing
+        if (!known && isOutsideDedupWindow(eventTimes.get(i)) && processedEventService.checkEvent(
+            eventId, payloadHash, eventTimes.get(i)) == DedupStatus.UNKNOWN) {
+          // settle the events before this one first
+          commitPending(pending, settled);
+          log.error("Failed to process transaction.authorized event for transaction: {}",
+              event.getTransactionId());
+          throw new BatchRecordFailedException(i, new DedupWindowExceededException(eventId,
+              eventTimes.get(i), processedEventService.dedupWindow()));
+        }
+        pending.add(new PendingCommit(i,
+            CommitTransactionRequest.builder().transactionId(event.getTransactionId())
+                .holdId(event.getHoldId()).build(),
+            ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash).build(),
+            legacyPayloadHash));
+      }
+      commitPending(pending, settled);
+    } finally {
+      log.info("Settled {} of {} transaction.authorized events in batch", settled.size(),
+          events.size());
+    }
+    if (hashFailure != null) {
+      throw hashFailure;
     }
   }
+
+  private String legacyPayloadHash(TransactionAuthorizedEvent event)
+      throws JsonProcessingException {
+    return legacyKeysRead ? EventIdGenerator.generateLegacyPayloadHash(event) : null;
+  }
+
+  private boolean isOutsideDedupWindow(Instant eventTime) {
+    return eventTime != null
+        && eventTime.isBefore(Instant.now().minus(processedEventService.dedupWindow()));
+  }
+
+  /**
+   * Claims the pending events of a batch in bulk, commits the claimed ones and completes their
+   * claims: SUCCESS for the ones CMS committed, which are added to {@code settled}, FAILED for the
+   * others so a redelivery can take them over. Committed events include those after a failed one
+   * that CMS committed in the same bulk request, so a redelivery from the failed event skips them.
+   * Events another delivery has settled or holds a live claim on are skipped.
+   *
+   * @throws BatchRecordFailedException for the first pending event CMS did not commit
+   */
+  private void commitPending(List<PendingCommit> pending, List<ProcessedEvent> settled) {
+    if (pending.isEmpty()) {
+      return;
+    }
+    Set<String> claimedIds = processedEventService.claimEvents(
+        pending.stream().map(PendingCommit::row).toList(),
+        pending.stream().map(PendingCommit::legacyPayloadHash).toList());
+    List<PendingCommit> claimed = new ArrayList<>(claimedIds.size());
+    for (PendingCommit commit : pending) {
+      if (claimedIds.contains(commit.row().getEventId())) {
+        claimed.add(commit);
+      } else {
+        log.info("Event {} is already processed or claimed, skipping",
+            commit.row().getEventId());
+      }
+    }
+    pending.clear();
+    if (claimed.isEmpty()) {
+      return;
+    }
+
+    List<CommitResult> results;
+    try {
+      results = cmsCommitDispatcher.commitAll(
+          claimed.stream().map(PendingCommit::request).toList());
+    } catch (RuntimeException e) {
+      processedEventService.completeEvents(claimed.stream()
+          .map(commit -> outcome(commit, ProcessedEvent.STATUS_FAILED)).toList());
+      throw e;
+    }
+    List<ProcessedEvent> outcomes = new ArrayList<>(results.size());
+    BatchRecordFailedException failure = null;
+    for (int i = 0; i < results.size(); i++) {
+      CommitResult result = results.get(i);
+      if (result.succeeded()) {
+        ProcessedEvent row = outcome(claimed.get(i), ProcessedEvent.STATUS_SUCCESS);
+        outcomes.add(row);
+        settled.add(row);
+        continue;
+      }
+      outcomes.add(outcome(claimed.get(i), ProcessedEvent.STATUS_FAILED));
+      if (failure == null) {
+        if (CmsResilienceInterceptor.isRejected(result.failure())) {
+          log.warn("CMS is not taking calls, transaction.authorized event for transaction {} is "
+              + "left for redelivery", result.request().getTransactionId());
+        } else {
+          log.error("Failed to process transaction.authorized event for transaction: {}",
+              result.request().getTransactionId(), result.failure());
+        }
+        failure = new BatchRecordFailedException(claimed.get(i).index(), result.failure());
+      }
+    }
+    // sent one call at a time, the results stop at the first failure; release the unsent rest
+    for (int i = results.size(); i < claimed.size(); i++) {
+      outcomes.add(outcome(claimed.get(i), ProcessedEvent.STATUS_FAILED));
+    }
+    processedEventService.completeEvents(outcomes);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static ProcessedEvent outcome(PendingCommit commit, String status) {
+    return ProcessedEvent.builder().eventId(commit.row().getEventId())
+        .payloadHash(commit.row().getPayloadHash()).status(status).build();
+  }
+
+  /** An event of a batch waiting for its CMS commit, with its position and dedup keys. */
+  private record PendingCommit(int index, CommitTransactionRequest request, ProcessedEvent row,
+      String legacyPayloadHash) {
+  }
 }
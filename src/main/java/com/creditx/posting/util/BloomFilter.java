@@ -0,0 +1,99 @@
+package com.creditx.posting.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings, sized from a memory budget and a target false positive
+ * rate. {@link #mightContain(String)} returning false means the key was definitely never added.
+ */
+public final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+  private final long expectedInsertions;
+
+  private BloomFilter(long bitCount, int hashCount, long expectedInsertions) {
+    this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    this.bitCount = (long) words.length() << 6;
+    this.hashCount = hashCount;
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /**
+   * Creates a filter using {@code memoryBytes} of bits. The number of keys it holds at
+   * {@code falsePositiveRate} follows from the budget.
+   */
+  public static BloomFilter withMemory(long memoryBytes, double falsePositiveRate) {
+    if (memoryBytes < 8 || memoryBytes > Integer.MAX_VALUE * 8L) {
+      throw new IllegalArgumentException("Bloom filter memory must be between 8 bytes and 16 GiB");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be in (0, 1)");
+    }
+    long bits = memoryBytes * 8;
+    int hashes = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / LN2));
+    long insertions = (long) (bits * LN2 * LN2 / -Math.log(falsePositiveRate));
+    return new BloomFilter(bits, hashes, insertions);
+  }
+
+  public void put(String key) {
+    long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long word = words.get(index);
+      while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+        word = words.get(index);
+      }
+    }
+  }
+
+  public boolean mightContain(String key) {
+    long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Number of keys the filter holds at its target false positive rate. */
+  public long expectedInsertions() {
+    return expectedInsertions;
+  }
+
+  public long memoryBytes() {
+    return bitCount >>> 3;
+  }
+
+  /** Share of bits set; the false positive rate is roughly this to the power of the hash count. */
+  public double saturation() {
+    long set = 0;
+    for (int i = 0; i < words.length(); i++) {
+      set += Long.bitCount(words.get(i));
+    }
+    return (double) set / bitCount;
+  }
+
+  private static long hash(String key, long seed) {
+    long h = seed ^ key.length();
+    for (int i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x100000001B3L;
+    }
+    // murmur3 finalizer spreads the FNV state over all 64 bits
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
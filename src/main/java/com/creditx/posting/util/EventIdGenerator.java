@@ -1,49 +1,61 @@
 package com.creditx.posting.util;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.UUID;
-import lombok.extern.slf4j.Slf4j;
 
-@Slf4j
+/**
+ * Idempotency keys for consumed events. Both keys are deterministic, so every redelivery of an
+ * event maps to the processed-event row of its first delivery.
+ */
 public class EventIdGenerator {
 
+  // serializes events the way payload hashes were computed before the compact key layout
+  private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
   /**
-   * Generate a unique event ID based on event type and transaction ID
+   * Generate the event ID identifying a business event across redeliveries
    *
    * @param eventType     the type of event
    * @param transactionId the transaction ID
-   * @return unique event ID
+   * @param holdId        the hold ID
+   * @return event ID of the form {@code eventType-transactionId-holdId}
    */
-  public static String generateEventId(String eventType, Long transactionId) {
-    return String.format("%s-%d-%s", eventType, transactionId,
-        UUID.randomUUID().toString().substring(0, 8));
+  public static String generateEventId(String eventType, Long transactionId, Long holdId) {
+    return eventType + '-' + transactionId + '-' + holdId;
   }
 
   /**
-   * Generate a hash of the event payload for deduplication
+   * Generate a SHA-256 hash of the event payload for deduplication
    *
    * @param payload the event payload as string
    * @return SHA-256 hash of the payload
    */
   public static String generatePayloadHash(String payload) {
-    try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
-      StringBuilder hexString = new StringBuilder();
-      for (byte b : hash) {
-        String hex = Integer.toHexString(0xff & b);
-        if (hex.length() == 1) {
-          hexString.append('0');
-        }
-        hexString.append(hex);
-      }
-      return hexString.toString();
-    } catch (NoSuchAlgorithmException e) {
-      log.error("SHA-256 algorithm not available", e);
-      // Fallback to simple hash
-      return String.valueOf(payload.hashCode());
-    }
+    return generatePayloadHash(payload.getBytes(StandardCharsets.UTF_8),
+        PayloadHashAlgorithm.SHA_256);
+  }
+
+  /**
+   * Generate a hash of the serialized event payload for deduplication, without decoding it
+   *
+   * @param payload   the event payload as UTF-8 bytes
+   * @param algorithm the hash function to use
+   * @return hash of the payload as lowercase hex
+   */
+  public static String generatePayloadHash(byte[] payload, PayloadHashAlgorithm algorithm) {
+    return algorithm.hash(payload);
+  }
+
+  /**
+   * Generate the payload hash rows written before the compact key layout were stored under: the
+   * SHA-256 of the event as serialized by a default ObjectMapper
+   *
+   * @param event the decoded event
+   * @return SHA-256 hash of the re-serialized event
+   * @throws JsonProcessingException if the event cannot be serialized
+   */
+  public static String generateLegacyPayloadHash(Object event) throws JsonProcessingException {
+    return generatePayloadHash(LEGACY_MAPPER.writeValueAsString(event));
   }
 }
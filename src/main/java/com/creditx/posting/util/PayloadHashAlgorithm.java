@@ -0,0 +1,125 @@
+package com.creditx.posting.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hash functions for payload deduplication, rendered as lowercase hex. Switching the algorithm
+ * changes every hash, so payloads recorded under the previous one are no longer recognized.
+ */
+public enum PayloadHashAlgorithm {
+
+  /** SHA-256, 64 hex digits. Collision resistant even against crafted payloads. */
+  SHA_256 {
+    @Override
+    public String hash(byte[] payload) {
+      // digest() resets the per-thread instance for its next use
+      return HEX.formatHex(SHA_256_DIGEST.get().digest(payload));
+    }
+  },
+
+  /**
+   * MurmurHash3 x64 128-bit, 32 hex digits. Several times faster than SHA-256 and collision free
+   * in practice for honest payloads, but not safe against payloads crafted to collide.
+   */
+  MURMUR3_128 {
+    @Override
+    public String hash(byte[] payload) {
+      long[] hash = murmur3x64x128(payload);
+      return HEX.toHexDigits(hash[0]).concat(HEX.toHexDigits(hash[1]));
+    }
+  };
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  private static final ThreadLocal<MessageDigest> SHA_256_DIGEST = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException("SHA-256 algorithm not available", e);
+    }
+  });
+
+  private static final long C1 = 0x87C37B91114253D5L;
+  private static final long C2 = 0x4CF5AD432745937FL;
+
+  public abstract String hash(byte[] payload);
+
+  private static long[] murmur3x64x128(byte[] data) {
+    long h1 = 0;
+    long h2 = 0;
+    int blocks = data.length >>> 4;
+    for (int i = 0; i < blocks; i++) {
+      long k1 = littleEndianLong(data, i << 4);
+      long k2 = littleEndianLong(data, (i << 4) + 8);
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27) + h2;
+      h1 = h1 * 5 + 0x52DCE729;
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31) + h1;
+      h2 = h2 * 5 + 0x38495AB5;
+    }
+
+    long k1 = 0;
+    long k2 = 0;
+    int tail = blocks << 4;
+    switch (data.length & 15) {
+      case 15: k2 ^= (long) (data[tail + 14] & 0xFF) << 48;
+      case 14: k2 ^= (long) (data[tail + 13] & 0xFF) << 40;
+      case 13: k2 ^= (long) (data[tail + 12] & 0xFF) << 32;
+      case 12: k2 ^= (long) (data[tail + 11] & 0xFF) << 24;
+      case 11: k2 ^= (long) (data[tail + 10] & 0xFF) << 16;
+      case 10: k2 ^= (long) (data[tail + 9] & 0xFF) << 8;
+      case 9: k2 ^= data[tail + 8] & 0xFF;
+        h2 ^= mixK2(k2);
+      case 8: k1 ^= (long) (data[tail + 7] & 0xFF) << 56;
+      case 7: k1 ^= (long) (data[tail + 6] & 0xFF) << 48;
+      case 6: k1 ^= (long) (data[tail + 5] & 0xFF) << 40;
+      case 5: k1 ^= (long) (data[tail + 4] & 0xFF) << 32;
+      case 4: k1 ^= (long) (data[tail + 3] & 0xFF) << 24;
+      case 3: k1 ^= (long) (data[tail + 2] & 0xFF) << 16;
+      case 2: k1 ^= (long) (data[tail + 1] & 0xFF) << 8;
+      case 1: k1 ^= data[tail] & 0xFF;
+        h1 ^= mixK1(k1);
+      default:
+        break;
+    }
+
+    h1 ^= data.length;
+    h2 ^= data.length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+    return new long[]{h1, h2};
+  }
+
+  private static long mixK1(long k1) {
+    return Long.rotateLeft(k1 * C1, 31) * C2;
+  }
+
+  private static long mixK2(long k2) {
+    return Long.rotateLeft(k2 * C2, 33) * C1;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xFF51AFD7ED558CCDL;
+    k ^= k >>> 33;
+    k *= 0xC4CEB9FE1A85EC53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static long littleEndianLong(byte[] data, int offset) {
+    long value = 0;
+    for (int i = 7; i >= 0; i--) {
+      value = (value << 8) | (data[offset + i] & 0xFF);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,30 @@
+-- Compact idempotency keys. The event id (up to 100 characters) becomes an event type code with
+-- the numeric transaction and hold ids, and the 64 hex character payload hash becomes RAW bytes,
+-- which roughly halves both unique indexes. Existing rows are not rewritten: they keep EVENT_ID
+-- and PAYLOAD_HASH and are read alongside the compact rows until the dedup window has purged
+-- them, after which a later migration drops the two columns and their indexes.
+ALTER TABLE CPS_PROCESSED_EVENTS ADD (
+    EVENT_TYPE     NUMBER(3),
+    TRANSACTION_ID NUMBER(19),
+    HOLD_ID        NUMBER(19),
+    PAYLOAD_DIGEST RAW(32)
+);
+
+-- Compact rows have no EVENT_ID. The primary key index is kept as a unique index over the legacy
+-- rows only, since Oracle does not index entries whose key columns are all NULL.
+ALTER TABLE CPS_PROCESSED_EVENTS DROP PRIMARY KEY KEEP INDEX;
+
+ALTER TABLE CPS_PROCESSED_EVENTS MODIFY (EVENT_ID NULL);
+
+-- Every existing row has an EVENT_ID, so there is nothing to validate
+ALTER TABLE CPS_PROCESSED_EVENTS ADD CONSTRAINT CK_CPS_PROC_KEY
+    CHECK (EVENT_ID IS NOT NULL
+           OR (TRANSACTION_ID IS NOT NULL AND HOLD_ID IS NOT NULL AND EVENT_TYPE IS NOT NULL
+               AND PAYLOAD_DIGEST IS NOT NULL))
+    ENABLE NOVALIDATE;
+
+-- Global like the legacy key indexes; they hold no entries for legacy rows
+CREATE UNIQUE INDEX UX_CPS_PROC_PAYLOAD_DIGEST ON CPS_PROCESSED_EVENTS(PAYLOAD_DIGEST) ONLINE;
+
+CREATE UNIQUE INDEX UX_CPS_PROC_EVENT_KEY
+    ON CPS_PROCESSED_EVENTS(TRANSACTION_ID, HOLD_ID, EVENT_TYPE) ONLINE;
@@ -0,0 +1,10 @@
+-- Cluster-wide locks for scheduled jobs that must not run on two instances at once. A node takes
+-- a lock by stamping its owner id and an expiry on the job's row; a lock whose expiry has passed,
+-- e.g. one held by a node that died mid-run, can be taken by any node.
+CREATE TABLE CPS_SCHEDULER_LOCKS (
+    LOCK_NAME    VARCHAR2(64) PRIMARY KEY,
+    LOCKED_BY    VARCHAR2(100),
+    LOCKED_UNTIL TIMESTAMP(6) WITH TIME ZONE
+);
+
+INSERT INTO CPS_SCHEDULER_LOCKS (LOCK_NAME) VALUES ('outbox-retention');
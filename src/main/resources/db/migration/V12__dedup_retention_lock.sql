@@ -0,0 +1,2 @@
+-- The processed-event retention job runs under a cluster-wide lock like the outbox one
+INSERT INTO CPS_SCHEDULER_LOCKS (LOCK_NAME) VALUES ('dedup-retention');
@@ -0,0 +1,5 @@
+-- The dedup cache scans recently processed rows on startup, every few seconds and after the
+-- daily purge. Local and led by the partition key, so those scans read only the newest
+-- partitions and partition drops need no index maintenance.
+CREATE INDEX IDX_CPS_PROC_PROCESSED_AT ON CPS_PROCESSED_EVENTS(PROCESSED_DAY, PROCESSED_AT)
+    LOCAL ONLINE;
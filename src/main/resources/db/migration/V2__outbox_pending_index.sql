@@ -0,0 +1,4 @@
+-- Composite index backing the bounded pending-event fetch. Leading on STATUS keeps the PENDING
+-- range contiguous and ordered by (CREATED_AT, EVENT_ID), so FETCH FIRST n ROWS stops after n
+-- index entries no matter how many PUBLISHED rows the table holds.
+CREATE INDEX IDX_CPS_OUTBOX_STATUS_CREATED ON CPS_OUTBOX_EVENTS(STATUS, CREATED_AT, EVENT_ID);
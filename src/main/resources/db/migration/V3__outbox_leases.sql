@@ -0,0 +1,6 @@
+-- Lease columns for multi-instance draining. A node claims PENDING rows by stamping its owner id
+-- and a lease expiry; rows whose lease has expired can be claimed again by any node.
+ALTER TABLE CPS_OUTBOX_EVENTS ADD (
+    LEASE_OWNER VARCHAR2(100),
+    LEASE_UNTIL TIMESTAMP(6) WITH TIME ZONE
+);
@@ -0,0 +1,19 @@
+-- Daily interval partitioning of the outbox so expired history is removed by dropping whole
+-- partitions instead of deleting rows. TIMESTAMP WITH TIME ZONE cannot be a partitioning key, so
+-- the key is a virtual column holding the UTC day of CREATED_AT.
+ALTER TABLE CPS_OUTBOX_EVENTS ADD (
+    CREATED_DAY DATE GENERATED ALWAYS AS (CAST(SYS_EXTRACT_UTC(CREATED_AT) AS DATE)) VIRTUAL
+);
+
+-- Rows written before the transition point stay in P_OUTBOX_INITIAL, which can only be truncated.
+-- The secondary indexes stay global so the pending fetch and aggregate lookups keep probing a
+-- single index; partition drops maintain them with UPDATE INDEXES.
+ALTER TABLE CPS_OUTBOX_EVENTS MODIFY
+    PARTITION BY RANGE (CREATED_DAY) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+    (PARTITION P_OUTBOX_INITIAL VALUES LESS THAN (DATE '2025-01-01'))
+    ONLINE
+    UPDATE INDEXES (
+        IDX_CPS_OUTBOX_STATUS_CREATED GLOBAL,
+        IDX_CPS_OUTBOX_AGGREGATE_ID GLOBAL,
+        IDX_CPS_OUTBOX_STATUS LOCAL
+    );
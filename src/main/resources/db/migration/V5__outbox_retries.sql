@@ -0,0 +1,22 @@
+-- Retry bookkeeping for failed publishes. FAILED rows are retried once NEXT_ATTEMPT_AT is due;
+-- rows that exhaust the attempt budget move to the terminal DEAD state.
+ALTER TABLE CPS_OUTBOX_EVENTS ADD (
+    ATTEMPT_COUNT   NUMBER(10) DEFAULT 0 NOT NULL,
+    NEXT_ATTEMPT_AT TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- The status check was declared inline in V1 and carries a system generated name
+BEGIN
+    FOR c IN (SELECT CONSTRAINT_NAME FROM USER_CONSTRAINTS
+              WHERE TABLE_NAME = 'CPS_OUTBOX_EVENTS' AND CONSTRAINT_TYPE = 'C'
+                AND SEARCH_CONDITION_VC LIKE '%''PUBLISHED''%') LOOP
+        EXECUTE IMMEDIATE 'ALTER TABLE CPS_OUTBOX_EVENTS DROP CONSTRAINT ' || c.CONSTRAINT_NAME;
+    END LOOP;
+END;
+/
+
+ALTER TABLE CPS_OUTBOX_EVENTS ADD CONSTRAINT CK_CPS_OUTBOX_STATUS
+    CHECK (STATUS IN ('PENDING','PUBLISHED','FAILED','DEAD'));
+
+-- Backs the retry lane: due FAILED rows in NEXT_ATTEMPT_AT order, plus the retry queue metrics
+CREATE INDEX IDX_CPS_OUTBOX_RETRY_DUE ON CPS_OUTBOX_EVENTS(STATUS, NEXT_ATTEMPT_AT, EVENT_ID);
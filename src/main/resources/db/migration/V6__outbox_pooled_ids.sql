@@ -0,0 +1,9 @@
+-- Hibernate allocates outbox ids in blocks of 50 with the pooled optimizer, so the sequence
+-- increment has to match the entity's allocationSize.
+ALTER SEQUENCE CPS_OUTBOX_SEQ INCREMENT BY 50;
+
+-- The row trigger fetched NEXTVAL per insert and defeated JDBC batching. Ids not supplied by the
+-- application (manual inserts, scripts) still come from the sequence through the column default.
+DROP TRIGGER BI_CPS_OUTBOX_EVENTS;
+
+ALTER TABLE CPS_OUTBOX_EVENTS MODIFY EVENT_ID DEFAULT ON NULL CPS_OUTBOX_SEQ.NEXTVAL;
@@ -0,0 +1,2 @@
+-- Payload hash dedup lookups, single and IN-list, were served by a full table scan
+CREATE INDEX IDX_CPS_PROC_PAYLOAD_HASH ON CPS_PROCESSED_EVENTS(PAYLOAD_HASH);
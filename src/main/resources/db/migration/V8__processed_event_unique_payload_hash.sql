@@ -0,0 +1,17 @@
+-- The payload hash becomes the idempotency key: one row per payload, claimed with a single MERGE
+-- that relies on the unique index to detect a concurrent claim. Keep one row per hash from any
+-- duplicates left by the earlier check-then-insert path, preferring a SUCCESS row.
+DELETE FROM CPS_PROCESSED_EVENTS
+WHERE ROWID IN (
+    SELECT RID FROM (
+        SELECT ROWID AS RID,
+               ROW_NUMBER() OVER (PARTITION BY PAYLOAD_HASH
+                                  ORDER BY CASE STATUS WHEN 'SUCCESS' THEN 0 ELSE 1 END,
+                                           PROCESSED_AT DESC) AS RN
+        FROM CPS_PROCESSED_EVENTS
+        WHERE PAYLOAD_HASH IS NOT NULL)
+    WHERE RN > 1);
+
+DROP INDEX IDX_CPS_PROC_PAYLOAD_HASH;
+
+CREATE UNIQUE INDEX UX_CPS_PROC_PAYLOAD_HASH ON CPS_PROCESSED_EVENTS(PAYLOAD_HASH);
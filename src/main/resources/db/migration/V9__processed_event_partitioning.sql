@@ -0,0 +1,20 @@
+-- Daily interval partitioning of the dedup table so rows older than the dedup window are removed
+-- by dropping whole partitions. As for the outbox, the key is a virtual column holding the UTC
+-- day of PROCESSED_AT. Claims and completions move PROCESSED_AT forward, which needs row movement.
+ALTER TABLE CPS_PROCESSED_EVENTS ADD (
+    PROCESSED_DAY DATE GENERATED ALWAYS AS (CAST(SYS_EXTRACT_UTC(PROCESSED_AT) AS DATE)) VIRTUAL
+);
+
+ALTER TABLE CPS_PROCESSED_EVENTS ENABLE ROW MOVEMENT;
+
+-- Rows written before the transition point stay in P_PROCESSED_INITIAL, which can only be
+-- truncated. The primary key and the unique payload hash index do not contain the partition key,
+-- so they stay global; partition drops maintain them with UPDATE INDEXES.
+ALTER TABLE CPS_PROCESSED_EVENTS MODIFY
+    PARTITION BY RANGE (PROCESSED_DAY) INTERVAL (NUMTODSINTERVAL(1, 'DAY'))
+    (PARTITION P_PROCESSED_INITIAL VALUES LESS THAN (DATE '2025-01-01'))
+    ONLINE
+    UPDATE INDEXES (
+        UX_CPS_PROC_PAYLOAD_HASH GLOBAL,
+        IDX_CPS_PROC_STATUS LOCAL
+    );
@@ -0,0 +1,180 @@
+package com.creditx.posting;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the credit main service commit endpoints. Answers every
+ * {@code /api/transactions/} request after a fixed latency, or never when hanging, and counts
+ * requests and the client connections they arrived on. {@code /api/transactions/{id}/commit}
+ * commits one transaction; {@code /api/transactions/commit} takes a JSON array of commit requests
+ * and returns a result per transaction, unless the bulk endpoint is switched off, when it answers
+ * 404. Rejected transactions get 422 from the single endpoint and an uncommitted result from the
+ * bulk one. Faults can be injected while it runs: a fixed error status for every request, a
+ * different latency, or hanging.
+ */
+public class CmsStubServer implements AutoCloseable {
+
+  private static final byte[] OK = "OK".getBytes(StandardCharsets.UTF_8);
+  private static final String BULK_PATH = "/api/transactions/commit";
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Set<Long> committed = ConcurrentHashMap.newKeySet();
+  private final Set<Long> rejected = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger bulkRequests = new AtomicInteger();
+  private volatile long latencyMillis;
+  private volatile boolean hanging;
+  private volatile boolean bulkEndpoint = true;
+  private volatile int failureStatus;
+
+  private CmsStubServer(long latencyMillis) throws IOException {
+    this.latencyMillis = latencyMillis;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+    server.createContext("/api/transactions/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public static CmsStubServer start(long latencyMillis) throws IOException {
+    return new CmsStubServer(latencyMillis);
+  }
+
+  public String url() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  /** Stops answering: requests are read and then left without a response. */
+  public void hang() {
+    hanging = true;
+  }
+
+  /** Answers every request with {@code status} after the latency, committing nothing. */
+  public void failWith(int status) {
+    failureStatus = status;
+  }
+
+  /** Sets the latency of the requests that arrive from now on. */
+  public void latency(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /** Answers normally again after {@link #failWith} or {@link #hang}. */
+  public void recover() {
+    failureStatus = 0;
+    hanging = false;
+  }
+
+  /** Answers the bulk endpoint with 404, as a CMS version without it would. */
+  public void withoutBulkEndpoint() {
+    bulkEndpoint = false;
+  }
+
+  /** Refuses to commit the transaction. */
+  public void reject(long transactionId) {
+    rejected.add(transactionId);
+  }
+
+  public int requests() {
+    return requests.get();
+  }
+
+  /** Number of requests to the bulk endpoint, including those answered 404. */
+  public int bulkRequests() {
+    return bulkRequests.get();
+  }
+
+  /** Ids of the transactions committed through either endpoint. */
+  public Set<Long> committed() {
+    return Set.copyOf(committed);
+  }
+
+  /** Number of distinct client connections requests arrived on. */
+  public int connections() {
+    return clientPorts.size();
+  }
+
+  public void reset() {
+    requests.set(0);
+    bulkRequests.set(0);
+    clientPorts.clear();
+    committed.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    try (exchange) {
+      byte[] request = exchange.getRequestBody().readAllBytes();
+      Thread.sleep(hanging ? Long.MAX_VALUE : latencyMillis);
+      String path = exchange.getRequestURI().getPath();
+      if (failureStatus != 0) {
+        respond(exchange, failureStatus, new byte[0]);
+        return;
+      }
+      if (BULK_PATH.equals(path)) {
+        bulkRequests.incrementAndGet();
+        if (bulkEndpoint) {
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          respond(exchange, 200, commitAll(request));
+        } else {
+          respond(exchange, 404, new byte[0]);
+        }
+        return;
+      }
+      // /api/transactions/{id}/commit
+      String[] segments = path.split("/");
+      respond(exchange, commit(Long.parseLong(segments[segments.length - 2])) ? 200 : 422, OK);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private byte[] commitAll(byte[] request) throws IOException {
+    ArrayNode results = objectMapper.createArrayNode();
+    for (JsonNode item : objectMapper.readTree(request)) {
+      long transactionId = item.get("transactionId").asLong();
+      boolean committed = commit(transactionId);
+      results.addObject().put("transactionId", transactionId).put("committed", committed)
+          .put("error", committed ? null : "Transaction rejected");
+    }
+    return objectMapper.writeValueAsBytes(results);
+  }
+
+  private boolean commit(long transactionId) {
+    if (rejected.contains(transactionId)) {
+      return false;
+    }
+    committed.add(transactionId);
+    return true;
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.model.OutboxEventStatus;
+import com.creditx.posting.repository.OutboxEventRepository;
+import com.creditx.posting.service.RetryBackoffPolicy;
+import com.creditx.posting.service.impl.OutboxEventServiceImpl;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Simulates several service instances draining one outbox table concurrently. Each publisher
+ * thread plays one node with its own lease owner id.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({OutboxEventServiceImpl.class, RetryBackoffPolicy.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxClaimIntegrationTest {
+
+  private static final int EVENT_COUNT = 400;
+  private static final int CLAIM_SIZE = 20;
+  private static final long PUBLISH_LATENCY_MS = 25;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private OutboxEventRepository repository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+    registry.add("spring.datasource.hikari.maximum-pool-size", () -> "10");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+  }
+
+  @Test
+  void concurrentPublishersPublishEachEventExactlyOnce() throws Exception {
+    // given
+    seedPendingEvents(EVENT_COUNT);
+
+    // when
+    Map<Long, AtomicInteger> publishCounts = drain(4);
+
+    // then
+    assertThat(publishCounts).hasSize(EVENT_COUNT);
+    assertThat(publishCounts.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM CPS_OUTBOX_EVENTS WHERE STATUS <> 'PUBLISHED'", Integer.class))
+        .isZero();
+  }
+
+  @Test
+  void throughputScalesWithNumberOfPublishers() throws Exception {
+    // given
+    seedPendingEvents(EVENT_COUNT);
+    long singleStart = System.nanoTime();
+    drain(1);
+    long singleNanos = System.nanoTime() - singleStart;
+
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+    seedPendingEvents(EVENT_COUNT);
+
+    // when
+    long parallelStart = System.nanoTime();
+    drain(4);
+    long parallelNanos = System.nanoTime() - parallelStart;
+
+    // then - four nodes drain disjoint slices, so the same backlog clears well over twice as fast
+    assertThat(parallelNanos).isLessThan(singleNanos / 2);
+  }
+
+  @Test
+  void expiredLeaseIsClaimedByAnotherNode() throws Exception {
+    // given
+    seedPendingEvents(5);
+    List<Long> crashedNodeClaim = claim("node-crashed", Duration.ofMillis(200));
+    assertThat(claim("node-live", Duration.ofSeconds(30))).isEmpty();
+
+    // when
+    TimeUnit.MILLISECONDS.sleep(500);
+    List<Long> takenOver = claim("node-live", Duration.ofSeconds(30));
+
+    // then
+    assertThat(crashedNodeClaim).hasSize(5);
+    assertThat(takenOver).containsExactlyElementsOf(crashedNodeClaim);
+  }
+
+  @Test
+  void outcomeOfExpiredLeaseDoesNotOverwriteNewOwner() throws Exception {
+    // given
+    seedPendingEvents(2);
+    List<Long> crashedNodeClaim = claim("node-crashed", Duration.ofMillis(200));
+    TimeUnit.MILLISECONDS.sleep(500);
+    List<Long> takenOver = claim("node-live", Duration.ofSeconds(30));
+
+    // when - the node that lost its lease reports its outcomes late
+    int published = transactionTemplate.execute(status -> repository.updateStatusAndPublishedAt(
+        List.of(crashedNodeClaim.get(0)), OutboxEventStatus.PUBLISHED, Instant.now(),
+        "node-crashed"));
+    int released = transactionTemplate.execute(status -> repository.clearLease(
+        List.of(crashedNodeClaim.get(1)),
+        List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED), "node-crashed"));
+    OutboxEvent failure = repository.findById(crashedNodeClaim.get(1)).orElseThrow();
+    failure.setStatus(OutboxEventStatus.FAILED);
+    failure.setAttemptCount(1);
+    int failed = transactionTemplate.execute(
+        status -> repository.recordFailures(List.of(failure), "node-crashed"));
+
+    // then
+    assertThat(takenOver).containsExactlyElementsOf(crashedNodeClaim);
+    assertThat(published + released + failed).isZero();
+    assertThat(jdbcTemplate.queryForList(
+        "SELECT LEASE_OWNER FROM CPS_OUTBOX_EVENTS WHERE STATUS = 'PENDING'", String.class))
+        .containsExactly("node-live", "node-live");
+  }
+
+  @Test
+  void onlyRetriesThatAreDueAreClaimed() {
+    // given
+    jdbcTemplate.update("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS,
+                                           ATTEMPT_COUNT, NEXT_ATTEMPT_AT)
+            VALUES ('transaction.posted', 1, '{"transactionId":1}', 'FAILED', 1,
+                    SYSTIMESTAMP - INTERVAL '1' SECOND)
+        """);
+    jdbcTemplate.update("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS,
+                                           ATTEMPT_COUNT, NEXT_ATTEMPT_AT)
+            VALUES ('transaction.posted', 2, '{"transactionId":2}', 'FAILED', 1,
+                    SYSTIMESTAMP + INTERVAL '1' HOUR)
+        """);
+    jdbcTemplate.update("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS,
+                                           ATTEMPT_COUNT)
+            VALUES ('transaction.posted', 3, '{"transactionId":3}', 'DEAD', 10)
+        """);
+
+    // when
+    List<Long> first = transactionTemplate.execute(
+        status -> repository.claimDueRetries("node-a", CLAIM_SIZE, Duration.ofSeconds(30))
+            .eventIds());
+    List<Long> second = transactionTemplate.execute(
+        status -> repository.claimDueRetries("node-b", CLAIM_SIZE, Duration.ofSeconds(30))
+            .eventIds());
+
+    // then - the overdue retry is claimed once, the future and the dead one never
+    assertThat(first).hasSize(1);
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT AGGREGATE_ID FROM CPS_OUTBOX_EVENTS WHERE EVENT_ID = ?", Long.class,
+        first.get(0))).isEqualTo(1L);
+    assertThat(second).isEmpty();
+    assertThat(claim("node-c", Duration.ofSeconds(30))).isEmpty();
+  }
+
+  @Test
+  void laterEventsOfAnAggregateWaitForItsEarlierOnes() {
+    // given - aggregate 1 has a failed event backing off, aggregate 2 a leased one in flight,
+    // aggregate 3 only fresh events
+    jdbcTemplate.update("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS,
+                                           ATTEMPT_COUNT, NEXT_ATTEMPT_AT)
+            VALUES ('transaction.posted', 1, '{"transactionId":1}', 'FAILED', 1,
+                    SYSTIMESTAMP + INTERVAL '1' HOUR)
+        """);
+    seedPendingEventsOf(2L, 1);
+    List<Long> inFlight = claim("node-a", Duration.ofSeconds(30));
+    seedPendingEventsOf(1L, 2);
+    seedPendingEventsOf(2L, 2);
+    seedPendingEventsOf(3L, 3);
+
+    // when
+    List<Long> claimed = claim("node-b", Duration.ofSeconds(30));
+
+    // then - only aggregate 3, in order; the others keep their order behind the earlier events
+    assertThat(inFlight).hasSize(1);
+    assertThat(claimed).containsExactlyElementsOf(jdbcTemplate.queryForList(
+        "SELECT EVENT_ID FROM CPS_OUTBOX_EVENTS WHERE AGGREGATE_ID = 3 ORDER BY EVENT_ID",
+        Long.class));
+  }
+
+  @Test
+  void eventsBehindOneLockedByAConcurrentClaimAreNotClaimed() throws Exception {
+    // given
+    seedPendingEventsOf(1L, 3);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<List<Long>> slowClaim = executor.submit(() -> transactionTemplate.execute(status -> {
+      // a claim of one row that has not committed yet
+      List<Long> ids = repository.claimPendingEvents("node-a", 1, Duration.ofSeconds(30))
+          .eventIds();
+      locked.countDown();
+      awaitQuietly(release);
+      return ids;
+    }));
+    locked.await(30, TimeUnit.SECONDS);
+
+    // when
+    List<Long> claimed = claim("node-b", Duration.ofSeconds(30));
+    release.countDown();
+
+    // then - the first event is locked by node-a, so the two behind it wait for it
+    assertThat(slowClaim.get(30, TimeUnit.SECONDS)).hasSize(1);
+    assertThat(claimed).isEmpty();
+    executor.shutdown();
+  }
+
+  private Map<Long, AtomicInteger> drain(int publishers) throws Exception {
+    Map<Long, AtomicInteger> publishCounts = new ConcurrentHashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool(publishers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> nodes = new ArrayList<>();
+    for (int node = 0; node < publishers; node++) {
+      String owner = "node-" + node;
+      nodes.add(executor.submit(() -> {
+        start.await();
+        List<Long> claimed;
+        while (!(claimed = claim(owner, Duration.ofSeconds(30))).isEmpty()) {
+          // simulated broker round trip for the batch
+          TimeUnit.MILLISECONDS.sleep(PUBLISH_LATENCY_MS);
+          claimed.forEach(id -> publishCounts.computeIfAbsent(id, k -> new AtomicInteger())
+              .incrementAndGet());
+          List<Long> published = claimed;
+          transactionTemplate.executeWithoutResult(status -> repository
+              .updateStatusAndPublishedAt(published, OutboxEventStatus.PUBLISHED, Instant.now(),
+                  owner));
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> node : nodes) {
+      node.get(2, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+    return publishCounts;
+  }
+
+  private List<Long> claim(String owner, Duration lease) {
+    return transactionTemplate.execute(
+        status -> repository.claimPendingEvents(owner, CLAIM_SIZE, lease).eventIds());
+  }
+
+  private void seedPendingEventsOf(long aggregateId, int count) {
+    for (int i = 0; i < count; i++) {
+      jdbcTemplate.update("""
+              INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS)
+              VALUES ('transaction.posted', ?, '{"transactionId":1}', 'PENDING')
+          """, aggregateId);
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void seedPendingEvents(int count) {
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS)
+            VALUES ('transaction.posted', ?, '{"transactionId":1}', 'PENDING')
+        """, IntStream.range(0, count).mapToObj(i -> new Object[]{(long) i}).toList());
+  }
+}
@@ -0,0 +1,133 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.service.OutboxEventService;
+import com.creditx.posting.service.RetryBackoffPolicy;
+import com.creditx.posting.service.impl.OutboxEventServiceImpl;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({OutboxEventServiceImpl.class, RetryBackoffPolicy.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxPendingFetchIntegrationTest {
+
+  private static final int BATCH_SIZE = 5;
+  private static final String PENDING_QUERY = """
+      SELECT EVENT_ID, EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS, CREATED_AT, PUBLISHED_AT
+      FROM CPS_OUTBOX_EVENTS WHERE STATUS = 'PENDING'
+      ORDER BY CREATED_AT, EVENT_ID FETCH FIRST 5 ROWS ONLY""";
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private OutboxEventService outboxEventService;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+  }
+
+  @Test
+  void pendingFetchStaysBoundedAsPublishedHistoryGrows() {
+    // given
+    insertEvents("PENDING", 20);
+
+    // when - published history grows by two orders of magnitude
+    List<String> smallHistoryPlan = explainPendingQuery(1_000);
+    List<OutboxEvent> smallHistoryBatch = outboxEventService.fetchPendingEvents(BATCH_SIZE);
+    List<String> largeHistoryPlan = explainPendingQuery(100_000);
+    List<OutboxEvent> largeHistoryBatch = outboxEventService.fetchPendingEvents(BATCH_SIZE);
+
+    // then - same rows, same stop-keyed index plan, no table scan
+    assertThat(smallHistoryBatch).hasSize(BATCH_SIZE);
+    assertThat(largeHistoryBatch).extracting(OutboxEvent::getEventId)
+        .containsExactlyElementsOf(smallHistoryBatch.stream().map(OutboxEvent::getEventId).toList());
+    assertThat(largeHistoryPlan).isEqualTo(smallHistoryPlan);
+    assertThat(largeHistoryPlan).anyMatch(step -> step.contains("IDX_CPS_OUTBOX_STATUS_CREATED"));
+    assertThat(largeHistoryPlan).noneMatch(step -> step.startsWith("TABLE ACCESS FULL"));
+  }
+
+  @Test
+  void keysetPagingWalksPendingEventsInOrder() {
+    // given
+    insertEvents("PUBLISHED", 50);
+    insertEvents("PENDING", 12);
+
+    // when
+    List<OutboxEvent> page1 = outboxEventService.fetchPendingEvents(BATCH_SIZE);
+    List<OutboxEvent> page2 = outboxEventService.fetchPendingEventsAfter(page1.getLast(),
+        BATCH_SIZE);
+    List<OutboxEvent> page3 = outboxEventService.fetchPendingEventsAfter(page2.getLast(),
+        BATCH_SIZE);
+
+    // then
+    assertThat(page1).hasSize(5);
+    assertThat(page2).hasSize(5);
+    assertThat(page3).hasSize(2);
+    assertThat(page2.getFirst().getEventId()).isGreaterThan(page1.getLast().getEventId());
+    assertThat(page3.getFirst().getEventId()).isGreaterThan(page2.getLast().getEventId());
+  }
+
+  private List<String> explainPendingQuery(int publishedHistory) {
+    Integer current = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM CPS_OUTBOX_EVENTS WHERE STATUS = 'PUBLISHED'", Integer.class);
+    insertEvents("PUBLISHED", publishedHistory - current);
+    jdbcTemplate.execute("BEGIN DBMS_STATS.GATHER_TABLE_STATS(USER, 'CPS_OUTBOX_EVENTS'); END;");
+
+    String statementId = "pending-" + publishedHistory;
+    jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR "
+        + PENDING_QUERY);
+    return jdbcTemplate.queryForList("""
+            SELECT TRIM(OPERATION || ' ' || OPTIONS || ' ' || OBJECT_NAME)
+            FROM PLAN_TABLE WHERE STATEMENT_ID = ? ORDER BY ID
+        """, String.class, statementId);
+  }
+
+  private void insertEvents(String status, int count) {
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS)
+            VALUES ('transaction.posted', ?, '{"transactionId":1}', ?)
+        """, IntStream.range(0, count)
+        .mapToObj(i -> new Object[]{(long) i, status}).toList());
+  }
+}
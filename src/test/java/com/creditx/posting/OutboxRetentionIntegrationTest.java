@@ -0,0 +1,196 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.dto.OutboxPurgeResult;
+import com.creditx.posting.repository.OutboxRetentionRepository;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.SchedulerLockRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.creditx.posting.service.OutboxRetentionService;
+import com.creditx.posting.service.impl.OutboxRetentionServiceImpl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({OutboxRetentionServiceImpl.class, OutboxRetentionRepository.class,
+    PartitionMaintenanceRepository.class, SchedulerLockRepository.class,
+    JacksonAutoConfiguration.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRetentionIntegrationTest {
+
+  private static final String TABLE = "CPS_OUTBOX_EVENTS";
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @TempDir
+  static Path archiveDir;
+
+  @Autowired
+  private OutboxRetentionService outboxRetentionService;
+
+  @Autowired
+  private PartitionMaintenanceRepository partitionRepository;
+
+  @Autowired
+  private SchedulerLockRepository lockRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+    registry.add("app.outbox.retention.days", () -> "7");
+    registry.add("app.outbox.retention.chunk-size", () -> "4");
+    registry.add("app.outbox.retention.chunk-pause", () -> "0");
+    registry.add("app.outbox.retention.archive-enabled", () -> "true");
+    registry.add("app.outbox.retention.archive-dir", () -> archiveDir.toString());
+  }
+
+  @BeforeEach
+  void setup() throws IOException {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+    jdbcTemplate.update("UPDATE CPS_SCHEDULER_LOCKS SET LOCKED_BY = NULL, LOCKED_UNTIL = NULL");
+    try (Stream<Path> files = Files.list(archiveDir)) {
+      for (Path file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Test
+  void shouldPurgeExpiredHistoryAndKeepUnpublishedAndRecentEvents() throws IOException {
+    // given
+    insertEvents("PUBLISHED", 20, 10);
+    insertEvents("DEAD", 1, 10);
+    insertEvents("PUBLISHED", 10, 9);
+    insertEvents("PENDING", 2, 9);
+    insertEvents("PUBLISHED", 5, 2);
+    insertEvents("PENDING", 3, 0);
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    String expiredPartition = partitionHolding(today.minusDays(10));
+    String mixedPartition = partitionHolding(today.minusDays(9));
+
+    // when
+    OutboxPurgeResult result = outboxRetentionService.purgeExpiredEvents();
+
+    // then - the day without pending rows is dropped with its DEAD row, the mixed day keeps only
+    // its pending rows
+    assertThat(result.droppedPartitions()).isEqualTo(1);
+    assertThat(result.deletedRows()).isEqualTo(10);
+    assertThat(result.archivedRows()).isEqualTo(31);
+    assertThat(partitionNames()).doesNotContain(expiredPartition).contains(mixedPartition);
+    assertThat(count("STATUS = 'PUBLISHED' AND CREATED_AT < SYSTIMESTAMP - INTERVAL '7' DAY"))
+        .isZero();
+    assertThat(count("STATUS = 'PENDING'")).isEqualTo(5);
+    assertThat(count("STATUS = 'DEAD'")).isZero();
+    assertThat(count("STATUS = 'PUBLISHED'")).isEqualTo(5);
+
+    try (Stream<Path> files = Files.list(archiveDir)) {
+      assertThat(files.map(path -> path.getFileName().toString()).toList())
+          .contains(TABLE + "-" + today.minusDays(10) + ".ndjson.gz")
+          .noneMatch(name -> name.endsWith(".tmp"));
+    }
+  }
+
+  @Test
+  void retentionLockIsHeldByOneInstanceUntilReleasedOrExpired() {
+    // when
+    boolean first = lockRepository.tryLock("outbox-retention", "node-a", Duration.ofMinutes(5));
+    boolean second = lockRepository.tryLock("outbox-retention", "node-b", Duration.ofMinutes(5));
+
+    // then
+    assertThat(first).isTrue();
+    assertThat(second).isFalse();
+    assertThat(lockRepository.isLocked("outbox-retention")).isTrue();
+    assertThat(lockRepository.isLocked("dedup-retention")).isFalse();
+    assertThat(lockRepository.unlock("outbox-retention", "node-b")).isFalse();
+    assertThat(lockRepository.unlock("outbox-retention", "node-a")).isTrue();
+    assertThat(lockRepository.tryLock("outbox-retention", "node-b", Duration.ZERO)).isTrue();
+    // node-b's lease ended at once, as if it died mid-run
+    assertThat(lockRepository.tryLock("outbox-retention", "node-a", Duration.ofMinutes(5)))
+        .isTrue();
+  }
+
+  @Test
+  void shouldTruncateInitialRangePartition() {
+    // given - rows from before the interval transition point
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS, CREATED_AT)
+            VALUES ('transaction.posted', ?, '{"transactionId":1}', 'PUBLISHED',
+                    TIMESTAMP '2024-06-01 12:00:00 UTC')
+        """, IntStream.range(0, 3).mapToObj(i -> new Object[]{(long) i}).toList());
+
+    // when
+    OutboxPurgeResult result = outboxRetentionService.purgeExpiredEvents();
+
+    // then
+    assertThat(result.truncatedPartitions()).isEqualTo(1);
+    assertThat(partitionNames()).contains("P_OUTBOX_INITIAL");
+    assertThat(count("1 = 1")).isZero();
+  }
+
+  private String partitionHolding(LocalDate day) {
+    return partitionRepository.findPartitions(TABLE).stream()
+        .filter(partition -> partition.highValue().equals(day.plusDays(1)))
+        .map(TablePartition::name).findFirst().orElseThrow();
+  }
+
+  private List<String> partitionNames() {
+    return partitionRepository.findPartitions(TABLE).stream().map(TablePartition::name).toList();
+  }
+
+  private int count(String predicate) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM CPS_OUTBOX_EVENTS WHERE " + predicate, Integer.class);
+  }
+
+  private void insertEvents(String status, int count, int daysAgo) {
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO CPS_OUTBOX_EVENTS (EVENT_TYPE, AGGREGATE_ID, PAYLOAD, STATUS, CREATED_AT)
+            VALUES ('transaction.posted', ?, '{"transactionId":1}', ?,
+                    FROM_TZ(CAST(TRUNC(SYS_EXTRACT_UTC(SYSTIMESTAMP)) - ? + INTERVAL '12' HOUR
+                                 AS TIMESTAMP), 'UTC'))
+        """, IntStream.range(0, count)
+        .mapToObj(i -> new Object[]{(long) i, status, daysAgo}).toList());
+  }
+}
@@ -0,0 +1,329 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.TransactionEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher;
+import com.creditx.posting.service.impl.ProcessedEventServiceImpl;
+import com.creditx.posting.service.impl.TransactionEventServiceImpl;
+import com.creditx.posting.tracing.TransactionSpanTagger;
+import com.creditx.posting.util.EventIdGenerator;
+import com.creditx.posting.util.PayloadHashAlgorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(ProcessedEventServiceImpl.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProcessedEventClaimIntegrationTest {
+
+  private static final int ROUNDS = 25;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private ProcessedEventService processedEventService;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  private final ExecutorService consumers = Executors.newFixedThreadPool(2);
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_PROCESSED_EVENTS");
+  }
+
+  @AfterEach
+  void tearDown() {
+    consumers.shutdownNow();
+  }
+
+  @Test
+  void shouldGrantExactlyOneClaimWhenTwoConsumersRaceOnSamePayload() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      // given
+      String payloadHash = hash("payload-" + round);
+      long transactionId = 2L * round;
+      CyclicBarrier start = new CyclicBarrier(2);
+
+      // when
+      Future<Optional<String>> first = consumers.submit(
+          () -> claimAfter(start, eventId(transactionId), payloadHash));
+      Future<Optional<String>> second = consumers.submit(
+          () -> claimAfter(start, eventId(transactionId + 1), payloadHash));
+      List<Optional<String>> claims = List.of(first.get(30, TimeUnit.SECONDS),
+          second.get(30, TimeUnit.SECONDS));
+
+      // then
+      assertThat(claims).filteredOn(Optional::isPresent).hasSize(1);
+      assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS "
+              + "WHERE PAYLOAD_DIGEST = HEXTORAW(?) AND STATUS = ?",
+          Integer.class, payloadHash, ProcessedEvent.STATUS_IN_PROGRESS)).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldNotClaimPayloadHeldByLiveConsumerOrAlreadySettled() {
+    // given
+    assertThat(processedEventService.claimEvent(eventId(1), hash("1"), null))
+        .contains(eventId(1));
+
+    // when
+    Optional<String> whileInFlight = processedEventService.claimEvent(eventId(2), hash("1"),
+        null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_SUCCESS);
+    Optional<String> afterSuccess = processedEventService.claimEvent(eventId(3), hash("1"),
+        null);
+
+    // then
+    assertThat(whileInFlight).isEmpty();
+    assertThat(afterSuccess).isEmpty();
+    assertThat(statusOf(1)).isEqualTo(ProcessedEvent.STATUS_SUCCESS);
+  }
+
+  @Test
+  void shouldTakeOverFailedPayloadUnderNewEventId() {
+    // given
+    processedEventService.claimEvent(eventId(1), hash("1"), null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_FAILED);
+
+    // when
+    Optional<String> claim = processedEventService.claimEvent(eventId(2), hash("1"), null);
+
+    // then - the row is re-keyed to the delivery now holding the claim
+    assertThat(claim).contains(eventId(2));
+    assertThat(statusOf(2)).isEqualTo(ProcessedEvent.STATUS_IN_PROGRESS);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS",
+        Integer.class)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRetryFailedEventRedeliveredWithDifferentBytes() {
+    // given - the first attempt failed; the redelivery serializes the same event differently
+    processedEventService.claimEvent(eventId(1), hash("1"), null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_FAILED);
+
+    // when
+    Optional<String> claim = processedEventService.claimEvent(eventId(1), hash("1-reencoded"),
+        null);
+
+    // then - the event key decides, and the row now carries the new payload hash
+    assertThat(claim).contains(eventId(1));
+    assertThat(statusOf(1)).isEqualTo(ProcessedEvent.STATUS_IN_PROGRESS);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS "
+            + "WHERE PAYLOAD_DIGEST = HEXTORAW(?)", Integer.class, hash("1-reencoded")))
+        .isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS",
+        Integer.class)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSettleBatchOverFailedRowOfSameEventWithDifferentBytes() {
+    // given
+    processedEventService.claimEvent(eventId(1), hash("1"), null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_FAILED);
+
+    // when
+    processedEventService.markEventsAsProcessed(List.of(
+        ProcessedEvent.builder().eventId(eventId(1)).payloadHash(hash("1-reencoded"))
+            .status(ProcessedEvent.STATUS_SUCCESS).build()));
+
+    // then
+    assertThat(statusOf(1)).isEqualTo(ProcessedEvent.STATUS_SUCCESS);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS",
+        Integer.class)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSettleBatchOverRowClaimedByAnotherDelivery() {
+    // given
+    processedEventService.claimEvent(eventId(1), hash("1"), null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_FAILED);
+
+    // when
+    processedEventService.markEventsAsProcessed(List.of(
+        ProcessedEvent.builder().eventId(eventId(2)).payloadHash(hash("1"))
+            .status(ProcessedEvent.STATUS_SUCCESS).build(),
+        ProcessedEvent.builder().eventId(eventId(3)).payloadHash(hash("3"))
+            .status(ProcessedEvent.STATUS_SUCCESS).build()));
+
+    // then
+    assertThat(statusOf(1)).isEqualTo(ProcessedEvent.STATUS_SUCCESS);
+    assertThat(statusOf(3)).isEqualTo(ProcessedEvent.STATUS_SUCCESS);
+  }
+
+  @Test
+  void shouldClaimBatchTakingOverFailedRowsAndSkippingSettledOnes() {
+    // given
+    processedEventService.claimEvent(eventId(1), hash("1"), null);
+    processedEventService.completeEvent(eventId(1), ProcessedEvent.STATUS_SUCCESS);
+    processedEventService.claimEvent(eventId(2), hash("2"), null);
+    processedEventService.completeEvent(eventId(2), ProcessedEvent.STATUS_FAILED);
+
+    // when
+    Set<String> claimed = processedEventService.claimEvents(List.of(
+        ProcessedEvent.builder().eventId(eventId(1)).payloadHash(hash("1")).build(),
+        ProcessedEvent.builder().eventId(eventId(2)).payloadHash(hash("2")).build(),
+        ProcessedEvent.builder().eventId(eventId(3)).payloadHash(hash("3")).build()),
+        Arrays.asList(null, null, null));
+    processedEventService.completeEvents(List.of(
+        ProcessedEvent.builder().eventId(eventId(2)).status(ProcessedEvent.STATUS_SUCCESS).build(),
+        ProcessedEvent.builder().eventId(eventId(3)).status(ProcessedEvent.STATUS_FAILED).build()));
+
+    // then
+    assertThat(claimed).containsExactlyInAnyOrder(eventId(2), eventId(3));
+    assertThat(statusOf(2)).isEqualTo(ProcessedEvent.STATUS_SUCCESS);
+    assertThat(statusOf(3)).isEqualTo(ProcessedEvent.STATUS_FAILED);
+  }
+
+  @Test
+  void shouldStoreCompactKeysAndReadThemBackAsStrings() {
+    // given
+    String murmur = EventIdGenerator.generatePayloadHash(
+        "payload".getBytes(StandardCharsets.UTF_8), PayloadHashAlgorithm.MURMUR3_128);
+    processedEventService.markEventAsProcessed(eventId(1), hash("1"),
+        ProcessedEvent.STATUS_SUCCESS);
+    processedEventService.markEventAsProcessed(eventId(2), murmur,
+        ProcessedEvent.STATUS_SUCCESS);
+
+    // when
+    List<ProcessedEvent> found = processedEventService.findProcessedEvents(
+        List.of(eventId(1), "transaction.authorized-9-ab12cd34"), List.of(murmur));
+
+    // then
+    assertThat(found).extracting(ProcessedEvent::getEventId, ProcessedEvent::getPayloadHash)
+        .containsExactlyInAnyOrder(tuple(eventId(1), hash("1")), tuple(eventId(2), murmur));
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS "
+            + "WHERE EVENT_ID IS NULL AND PAYLOAD_HASH IS NULL AND EVENT_TYPE = 1",
+        Integer.class)).isEqualTo(2);
+  }
+
+  @Test
+  void shouldHonourLegacyRowsDuringTransition() {
+    // given - rows written before the compact layout, under the hash of the re-serialized event
+    jdbcTemplate.update("""
+        INSERT INTO CPS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS) VALUES
+        ('transaction.authorized-1-ab12cd34', ?, 'SUCCESS')""", hash("legacy-1"));
+    jdbcTemplate.update("""
+        INSERT INTO CPS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS) VALUES
+        ('transaction.authorized-2-cd34ef56', ?, 'FAILED')""", hash("legacy-2"));
+
+    // when
+    Optional<String> settled = processedEventService.claimEvent(eventId(1), hash("1"),
+        hash("legacy-1"));
+    Optional<String> failed = processedEventService.claimEvent(eventId(2), hash("2"),
+        hash("legacy-2"));
+
+    // then - the failed payload is claimed again in the compact layout
+    assertThat(settled).isEmpty();
+    assertThat(failed).contains(eventId(2));
+    assertThat(statusOf(2)).isEqualTo(ProcessedEvent.STATUS_IN_PROGRESS);
+    assertThat(processedEventService.isPayloadProcessed(hash("legacy-1"))).isTrue();
+    assertThat(processedEventService.findProcessedEvents(List.of(eventId(1)),
+        List.of(hash("1"), hash("legacy-1"))))
+        .extracting(ProcessedEvent::getEventId)
+        .containsExactly("transaction.authorized-1-ab12cd34");
+  }
+
+  @Test
+  void shouldSkipRedeliveryOfEventSettledBeforeCompactKeyLayout() throws Exception {
+    // given - a row as the baseline wrote it: a random event id suffix and the hash of the
+    // event re-serialized by a default mapper, not of the record bytes
+    TransactionAuthorizedEvent event = TransactionAuthorizedEvent.builder().transactionId(7L)
+        .holdId(70L).issuerAccountId(1L).merchantAccountId(2L).amount(new BigDecimal("25.00"))
+        .currency("USD").status("AUTHORIZED").build();
+    jdbcTemplate.update("""
+        INSERT INTO CPS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS) VALUES
+        ('transaction.authorized-7-1a2b3c4d', ?, 'SUCCESS')""",
+        EventIdGenerator.generatePayloadHash(new ObjectMapper().writeValueAsString(event)));
+    byte[] record = ("{\"holdId\": 70, \"transactionId\": 7, \"issuerAccountId\": 1, "
+        + "\"merchantAccountId\": 2, \"amount\": 25.00, \"currency\": \"USD\", "
+        + "\"status\": \"AUTHORIZED\"}").getBytes(StandardCharsets.UTF_8);
+    CmsCommitDispatcher cms = mock(CmsCommitDispatcher.class);
+    TransactionEventService transactionEventService = new TransactionEventServiceImpl(cms,
+        processedEventService, new ObjectMapper(), mock(TransactionSpanTagger.class));
+
+    // when - redelivered after the upgrade, on its own and in a batch
+    transactionEventService.processTransactionAuthorized(event, record, Instant.now());
+    transactionEventService.processTransactionAuthorizedBatch(List.of(event), List.of(record),
+        List.of(Instant.now()));
+
+    // then
+    verifyNoInteractions(cms);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS",
+        Integer.class)).isEqualTo(1);
+  }
+
+  private Optional<String> claimAfter(CyclicBarrier start, String eventId, String payloadHash)
+      throws Exception {
+    start.await(10, TimeUnit.SECONDS);
+    return processedEventService.claimEvent(eventId, payloadHash, null);
+  }
+
+  private static String eventId(long transactionId) {
+    return EventIdGenerator.generateEventId("transaction.authorized", transactionId, 1L);
+  }
+
+  private static String hash(String payload) {
+    return EventIdGenerator.generatePayloadHash(payload);
+  }
+
+  private String statusOf(long transactionId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT STATUS FROM CPS_PROCESSED_EVENTS WHERE TRANSACTION_ID = ?", String.class,
+        transactionId);
+  }
+}
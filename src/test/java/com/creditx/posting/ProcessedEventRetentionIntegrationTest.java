@@ -0,0 +1,165 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.dto.ProcessedEventPurgeResult;
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.ProcessedEventRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.creditx.posting.service.DedupStatus;
+import com.creditx.posting.service.ProcessedEventRetentionService;
+import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.impl.ProcessedEventRetentionServiceImpl;
+import com.creditx.posting.service.impl.ProcessedEventServiceImpl;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ProcessedEventRetentionServiceImpl.class, ProcessedEventServiceImpl.class,
+    PartitionMaintenanceRepository.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProcessedEventRetentionIntegrationTest {
+
+  private static final String TABLE = "CPS_PROCESSED_EVENTS";
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private ProcessedEventRetentionService processedEventRetentionService;
+
+  @Autowired
+  private ProcessedEventService processedEventService;
+
+  @Autowired
+  private PartitionMaintenanceRepository partitionRepository;
+
+  @Autowired
+  private ProcessedEventRepository processedEventRepository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+    registry.add("app.dedup.window-days", () -> "30");
+    registry.add("app.dedup.retention.partition-pause", () -> "0");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_PROCESSED_EVENTS");
+  }
+
+  @Test
+  void shouldDropDaysOutsideDedupWindowAndReportTheirEventsAsUnknown() {
+    // given
+    insertEvents("old", 5, 40);
+    insertEvents("recent", 5, 2);
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    assertThat(partitionRepository.findPartitions(TABLE))
+        .anyMatch(partition -> partition.highValue().equals(today.minusDays(39)));
+
+    // when
+    ProcessedEventPurgeResult result = processedEventRetentionService.purgeExpiredEvents();
+
+    // then
+    assertThat(result.droppedPartitions()).isEqualTo(1);
+    assertThat(partitionRepository.findPartitions(TABLE)).extracting(TablePartition::highValue)
+        .doesNotContain(today.minusDays(39));
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS",
+        Integer.class)).isEqualTo(5);
+    assertThat(processedEventService.checkEvent("old-0", "old-hash-0",
+        Instant.now().minus(Duration.ofDays(40)))).isEqualTo(DedupStatus.UNKNOWN);
+    assertThat(processedEventService.checkEvent("recent-0", "recent-hash-0",
+        Instant.now().minus(Duration.ofDays(2)))).isEqualTo(DedupStatus.SEEN);
+  }
+
+  @Test
+  void shouldMoveCompletedRowIntoTodaysPartition() {
+    // given - a claim from an old delivery is completed today
+    jdbcTemplate.update("""
+            INSERT INTO CPS_PROCESSED_EVENTS
+                (EVENT_TYPE, TRANSACTION_ID, HOLD_ID, PAYLOAD_DIGEST, STATUS, PROCESSED_AT)
+            VALUES (1, 7, 1, STANDARD_HASH('late', 'SHA256'), 'IN_PROGRESS',
+                    FROM_TZ(CAST(TRUNC(SYS_EXTRACT_UTC(SYSTIMESTAMP)) - 40 + INTERVAL '12' HOUR
+                                 AS TIMESTAMP), 'UTC'))
+        """);
+
+    // when
+    processedEventService.completeEvent("transaction.authorized-7-1", "SUCCESS");
+    processedEventRetentionService.purgeExpiredEvents();
+
+    // then - the row moved with its PROCESSED_AT and survives the purge
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT STATUS FROM CPS_PROCESSED_EVENTS WHERE TRANSACTION_ID = 7", String.class))
+        .isEqualTo("SUCCESS");
+  }
+
+  @Test
+  void shouldStreamOnlyKeysOfRecentDays() {
+    // given
+    insertEvents("old", 3, 3);
+    insertEvents("recent", 2, 0);
+    List<ProcessedEvent> since = new ArrayList<>();
+    List<ProcessedEvent> newest = new ArrayList<>();
+
+    // when
+    int sinceCount = processedEventRepository.streamSince(
+        Instant.now().minus(Duration.ofDays(1)), since::add);
+    int newestCount = processedEventRepository.streamRecent(2, newest::add);
+
+    // then
+    assertThat(sinceCount).isEqualTo(2);
+    assertThat(since).extracting(ProcessedEvent::getEventId)
+        .containsExactlyInAnyOrder("recent-0", "recent-1");
+    assertThat(newestCount).isEqualTo(2);
+    assertThat(newest).extracting(ProcessedEvent::getEventId)
+        .containsExactlyInAnyOrder("recent-0", "recent-1");
+  }
+
+  private void insertEvents(String prefix, int count, int daysAgo) {
+    jdbcTemplate.batchUpdate("""
+            INSERT INTO CPS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS, PROCESSED_AT)
+            VALUES (?, ?, 'SUCCESS',
+                    FROM_TZ(CAST(TRUNC(SYS_EXTRACT_UTC(SYSTIMESTAMP)) - ? + INTERVAL '12' HOUR
+                                 AS TIMESTAMP), 'UTC'))
+        """, IntStream.range(0, count)
+        .mapToObj(i -> new Object[]{prefix + "-" + i, prefix + "-hash-" + i, daysAgo}).toList());
+  }
+}
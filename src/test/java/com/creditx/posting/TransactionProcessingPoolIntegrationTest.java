@@ -0,0 +1,153 @@
+package com.creditx.posting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.TransactionEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher;
+import com.creditx.posting.service.impl.ProcessedEventServiceImpl;
+import com.creditx.posting.service.impl.TransactionEventServiceImpl;
+import com.creditx.posting.tracing.TransactionSpanTagger;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.tracing.Tracer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Runs more concurrent transaction.authorized events than there are pooled connections against a
+ * CMS stub that sleeps. Every event has to be inside the CMS call at the same time for the stub
+ * to proceed, which is only possible when none of them holds a connection during the call.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({TransactionEventServiceImpl.class, CmsCommitDispatcher.class,
+    ProcessedEventServiceImpl.class, TransactionSpanTagger.class,
+    TransactionProcessingPoolIntegrationTest.SlowCms.class, JacksonAutoConfiguration.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionProcessingPoolIntegrationTest {
+
+  private static final int POOL_SIZE = 4;
+  private static final int CONSUMERS = POOL_SIZE * 2;
+  private static final long CMS_LATENCY_MS = 500;
+
+  private static final CyclicBarrier allInsideCms = new CyclicBarrier(CONSUMERS);
+  private static final Queue<Integer> activeConnectionsDuringCms = new ConcurrentLinkedQueue<>();
+  private static HikariDataSource pool;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private TransactionEventService transactionEventService;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+    registry.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(POOL_SIZE));
+    registry.add("spring.datasource.hikari.connection-timeout", () -> "5000");
+  }
+
+  @BeforeEach
+  void setup() throws Exception {
+    pool = dataSource.unwrap(HikariDataSource.class);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_PROCESSED_EVENTS");
+    activeConnectionsDuringCms.clear();
+    allInsideCms.reset();
+  }
+
+  @Test
+  void poolUsageStaysFlatWhileCmsIsSlow() throws Exception {
+    // given
+    ExecutorService consumers = Executors.newFixedThreadPool(CONSUMERS);
+    List<Future<?>> results = new ArrayList<>();
+
+    // when
+    for (long transactionId = 1; transactionId <= CONSUMERS; transactionId++) {
+      TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+      event.setTransactionId(transactionId);
+      event.setHoldId(transactionId + 100);
+      results.add(consumers.submit(() -> transactionEventService.processTransactionAuthorized(
+          event)));
+    }
+    for (Future<?> result : results) {
+      result.get(1, TimeUnit.MINUTES);
+    }
+    consumers.shutdown();
+
+    // then - all consumers were in CMS at once with no connection checked out
+    assertThat(activeConnectionsDuringCms).hasSize(CONSUMERS).containsOnly(0);
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS WHERE STATUS = 'SUCCESS'", Integer.class))
+        .isEqualTo(CONSUMERS);
+  }
+
+  @TestConfiguration
+  static class SlowCms {
+
+    @Bean
+    RestTemplate restTemplate() {
+      RestTemplate restTemplate = mock(RestTemplate.class);
+      when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
+          .thenAnswer(invocation -> {
+            allInsideCms.await(30, TimeUnit.SECONDS);
+            activeConnectionsDuringCms.add(pool.getHikariPoolMXBean().getActiveConnections());
+            TimeUnit.MILLISECONDS.sleep(CMS_LATENCY_MS);
+            return ResponseEntity.ok("Success");
+          });
+      return restTemplate;
+    }
+
+    @Bean
+    Tracer tracer() {
+      return Tracer.NOOP;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.CmsStubServer;
+import com.creditx.posting.config.HttpClientConfig;
+import com.creditx.posting.dto.CommitTransactionRequest;
+import com.creditx.posting.service.impl.CmsCommitDispatcher;
+import com.creditx.posting.service.impl.CmsCommitDispatcher.CommitResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Commits per second of batch-mode consumers settling whole polls against a local CMS stub with a
+ * fixed latency per request, with one commit call per transaction and with bulk commit. Reports
+ * throughput, the time to commit a poll and the requests CMS served. Not picked up by the default
+ * surefire includes; run with {@code mvn test -Dtest=BulkCommitBenchmark}.
+ */
+class BulkCommitBenchmark {
+
+  private static final int CONSUMERS = 4;
+  private static final int POLL_SIZE = 500;
+  private static final int POLLS_PER_CONSUMER = 5;
+  private static final long CMS_LATENCY_MS = 2;
+
+  @Test
+  void commitsPerSecond() throws Exception {
+    HttpClientConfig config = new HttpClientConfig();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    try (CmsStubServer cms = CmsStubServer.start(CMS_LATENCY_MS);
+        CloseableHttpClient httpClient = config.cmsHttpClient(
+            config.cmsConnectionManager(200, 50, 1000, 5000, meterRegistry), 5000, 1000,
+            30000)) {
+      RestTemplate restTemplate = config.restTemplate(new RestTemplateBuilder(), httpClient,
+          meterRegistry);
+      LoadReport single = run(cms, new CmsCommitDispatcher(restTemplate, cms.url(), false, 100,
+          5, 4, 30000, 300000));
+      LoadReport bulk = run(cms, new CmsCommitDispatcher(restTemplate, cms.url(), true, 100, 5,
+          4, 30000, 300000));
+
+      System.out.printf("CMS commits, %d consumers x %d polls of %d, %d ms stub latency%n",
+          CONSUMERS, POLLS_PER_CONSUMER, POLL_SIZE, CMS_LATENCY_MS);
+      System.out.printf("  %-8s %10s %12s %12s %13s %7s%n", "mode", "commits/s",
+          "p50 poll ms", "max poll ms", "CMS requests", "errors");
+      print("single", single);
+      print("bulk", bulk);
+
+      assertThat(bulk.errors()).isZero();
+      assertThat(bulk.requests()).isLessThan(single.requests() / 10);
+      assertThat(bulk.commitsPerSecond()).isGreaterThan(single.commitsPerSecond() * 5);
+    }
+  }
+
+  private static LoadReport run(CmsStubServer cms, CmsCommitDispatcher dispatcher)
+      throws Exception {
+    AtomicInteger errors = new AtomicInteger();
+    double[] pollMillis = new double[CONSUMERS * POLLS_PER_CONSUMER];
+    ExecutorService consumers = Executors.newFixedThreadPool(CONSUMERS);
+    try {
+      // warm up with one poll per consumer, then count only the measured polls
+      consume(consumers, dispatcher, 0, 1, null, errors);
+      cms.reset();
+      errors.set(0);
+      long start = System.nanoTime();
+      consume(consumers, dispatcher, 1_000_000, POLLS_PER_CONSUMER, pollMillis, errors);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      Arrays.sort(pollMillis);
+      return new LoadReport(CONSUMERS * POLLS_PER_CONSUMER * POLL_SIZE / seconds,
+          pollMillis[pollMillis.length / 2], pollMillis[pollMillis.length - 1], cms.requests(),
+          errors.get());
+    } finally {
+      consumers.shutdownNow();
+      dispatcher.shutdown();
+    }
+  }
+
+  private static void consume(ExecutorService consumers, CmsCommitDispatcher dispatcher,
+      long firstTransactionId, int polls, double[] pollMillis, AtomicInteger errors)
+      throws Exception {
+    Future<?>[] threads = new Future<?>[CONSUMERS];
+    for (int c = 0; c < CONSUMERS; c++) {
+      int consumer = c;
+      threads[c] = consumers.submit(() -> {
+        for (int poll = 0; poll < polls; poll++) {
+          long first = firstTransactionId + ((long) consumer * polls + poll) * POLL_SIZE;
+          List<CommitTransactionRequest> requests = LongStream.range(first, first + POLL_SIZE)
+              .mapToObj(id -> CommitTransactionRequest.builder().transactionId(id)
+                  .holdId(id + 1_000_000).build())
+              .toList();
+          long start = System.nanoTime();
+          List<CommitResult> results = dispatcher.commitAll(requests);
+          errors.addAndGet(POLL_SIZE - (int) results.stream().filter(CommitResult::succeeded)
+              .count());
+          if (pollMillis != null) {
+            pollMillis[consumer * polls + poll] = (System.nanoTime() - start) / 1e6;
+          }
+        }
+      });
+    }
+    for (Future<?> thread : threads) {
+      thread.get();
+    }
+  }
+
+  private static void print(String mode, LoadReport report) {
+    System.out.printf("  %-8s %10.0f %12.1f %12.1f %13d %7d%n", mode, report.commitsPerSecond(),
+        report.p50(), report.max(), report.requests(), report.errors());
+  }
+
+  private record LoadReport(double commitsPerSecond, double p50, double max, int requests,
+      int errors) {
+  }
+}
@@ -0,0 +1,119 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.CmsStubServer;
+import com.creditx.posting.config.HttpClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Commit calls against a local CMS stub from as many threads as there are consumer threads in a
+ * busy deployment, through the previous default RestTemplate (JDK HttpURLConnection, which keeps
+ * at most five idle connections per host) and through the pooled client. Reports throughput,
+ * latency percentiles and the connections the stub saw. Not picked up by the default surefire
+ * includes; run with {@code mvn test -Dtest=CmsClientLoadBenchmark}.
+ */
+class CmsClientLoadBenchmark {
+
+  private static final int THREADS = 32;
+  private static final int CALLS_PER_THREAD = 500;
+  private static final int WARM_UP_CALLS_PER_THREAD = 50;
+  private static final long CMS_LATENCY_MS = 2;
+
+  @Test
+  void commitCallsUnderLoad() throws Exception {
+    try (CmsStubServer cms = CmsStubServer.start(CMS_LATENCY_MS)) {
+      LoadReport legacy = run(cms, new RestTemplateBuilder().build());
+
+      HttpClientConfig config = new HttpClientConfig();
+      SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+      try (CloseableHttpClient httpClient = config.cmsHttpClient(
+          config.cmsConnectionManager(200, 50, 1000, 5000, meterRegistry), 5000, 1000, 30000)) {
+        LoadReport pooled = run(cms,
+            config.restTemplate(new RestTemplateBuilder(), httpClient, meterRegistry));
+
+        System.out.printf("CMS commit calls, %d threads x %d calls, %d ms stub latency%n",
+            THREADS, CALLS_PER_THREAD, CMS_LATENCY_MS);
+        System.out.printf("  %-16s %10s %9s %9s %12s %7s%n", "client", "calls/s", "p50 ms",
+            "p99 ms", "connections", "errors");
+        print("HttpURLConnection", legacy);
+        print("pooled", pooled);
+
+        assertThat(pooled.errors()).isZero();
+        assertThat(pooled.connections()).isLessThanOrEqualTo(THREADS);
+      }
+    }
+  }
+
+  private static LoadReport run(CmsStubServer cms, RestTemplate restTemplate) throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    HttpEntity<String> entity = new HttpEntity<>("{\"transactionId\":1,\"holdId\":11}", headers);
+    AtomicInteger errors = new AtomicInteger();
+    double[] millis = new double[THREADS * CALLS_PER_THREAD];
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      // warm up, then count only the measured calls
+      call(pool, cms, restTemplate, entity, WARM_UP_CALLS_PER_THREAD, null, errors);
+      cms.reset();
+      errors.set(0);
+      long start = System.nanoTime();
+      call(pool, cms, restTemplate, entity, CALLS_PER_THREAD, millis, errors);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      Arrays.sort(millis);
+      return new LoadReport(millis.length / seconds, millis[millis.length / 2],
+          millis[(int) (millis.length * 0.99)], cms.connections(), errors.get());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static void call(ExecutorService pool, CmsStubServer cms, RestTemplate restTemplate,
+      HttpEntity<String> entity, int calls, double[] millis, AtomicInteger errors)
+      throws Exception {
+    Future<?>[] threads = new Future<?>[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      threads[t] = pool.submit(() -> {
+        for (int i = 0; i < calls; i++) {
+          long transactionId = (long) thread * calls + i;
+          long start = System.nanoTime();
+          try {
+            restTemplate.postForEntity(
+                cms.url() + "/api/transactions/" + transactionId + "/commit", entity,
+                String.class);
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+          if (millis != null) {
+            millis[thread * calls + i] = (System.nanoTime() - start) / 1e6;
+          }
+        }
+      });
+    }
+    for (Future<?> thread : threads) {
+      thread.get();
+    }
+  }
+
+  private static void print(String client, LoadReport report) {
+    System.out.printf("  %-16s %10.0f %9.2f %9.2f %12d %7d%n", client, report.callsPerSecond(),
+        report.p50(), report.p99(), report.connections(), report.errors());
+  }
+
+  private record LoadReport(double callsPerSecond, double p50, double p99, int connections,
+      int errors) {
+  }
+}
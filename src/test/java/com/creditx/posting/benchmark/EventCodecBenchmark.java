@@ -0,0 +1,122 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.dto.TransactionFailedEvent;
+import com.creditx.posting.messaging.AvroEventCodec;
+import com.creditx.posting.messaging.EventCodec;
+import com.creditx.posting.messaging.JsonEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the event codecs: encode and decode time of the inbound
+ * transaction.authorized and outbound transaction.failed payloads, and their encoded size. Not
+ * picked up by the default surefire includes; run with {@code mvn test -Dtest=EventCodecBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+  private static final TransactionAuthorizedEvent AUTHORIZED = TransactionAuthorizedEvent.builder()
+      .transactionId(123456789L).holdId(987654321L).issuerAccountId(1001L)
+      .merchantAccountId(2002L).amount(new BigDecimal("125.50")).currency("USD")
+      .status("AUTHORIZED").build();
+
+  private static final TransactionFailedEvent FAILED = TransactionFailedEvent.builder()
+      .transactionId(123456789L).holdId(987654321L).accountId(1001L)
+      .amount(new BigDecimal("125.50")).currency("USD").status("FAILED")
+      .reason("Credit main service rejected the commit")
+      .failedAt(Instant.parse("2025-01-01T10:15:30.123Z")).build();
+
+  @Param({"json", "avro"})
+  private String codecName;
+
+  private EventCodec codec;
+  private byte[] authorizedPayload;
+  private byte[] failedPayload;
+
+  @Setup
+  public void setup() throws IOException {
+    codec = codec(codecName);
+    authorizedPayload = codec.encode(AUTHORIZED);
+    failedPayload = codec.encode(FAILED);
+  }
+
+  @Benchmark
+  public byte[] encodeAuthorized() throws IOException {
+    return codec.encode(AUTHORIZED);
+  }
+
+  @Benchmark
+  public TransactionAuthorizedEvent decodeAuthorized() throws IOException {
+    return codec.decode(authorizedPayload, TransactionAuthorizedEvent.class);
+  }
+
+  @Benchmark
+  public byte[] encodeFailed() throws IOException {
+    return codec.encode(FAILED);
+  }
+
+  @Benchmark
+  public TransactionFailedEvent decodeFailed() throws IOException {
+    return codec.decode(failedPayload, TransactionFailedEvent.class);
+  }
+
+  @Test
+  void codecs() throws RunnerException, IOException {
+    Collection<RunResult> results = new Runner(new OptionsBuilder()
+        .include(EventCodecBenchmark.class.getName())
+        .addProfiler("gc")
+        .build()).run();
+
+    for (RunResult result : results) {
+      System.out.printf("  %-5s %-17s %9.1f ns/op  %7.1f B/op%n",
+          result.getParams().getParam("codecName"),
+          result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+          result.getPrimaryResult().getScore(),
+          result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+    }
+    EventCodec json = codec("json");
+    EventCodec avro = codec("avro");
+    int[] jsonSizes = {json.encode(AUTHORIZED).length, json.encode(FAILED).length};
+    int[] avroSizes = {avro.encode(AUTHORIZED).length, avro.encode(FAILED).length};
+    System.out.printf("  %-17s %6s %6s%n", "encoded bytes", "json", "avro");
+    System.out.printf("  %-17s %6d %6d%n", "authorized", jsonSizes[0], avroSizes[0]);
+    System.out.printf("  %-17s %6d %6d%n", "failed", jsonSizes[1], avroSizes[1]);
+
+    assertThat(avroSizes[0]).isLessThan(jsonSizes[0]);
+    assertThat(avroSizes[1]).isLessThan(jsonSizes[1]);
+  }
+
+  private static EventCodec codec(String name) {
+    return "avro".equals(name) ? new AvroEventCodec()
+        : new JsonEventCodec(new ObjectMapper().registerModule(new JavaTimeModule()), false);
+  }
+}
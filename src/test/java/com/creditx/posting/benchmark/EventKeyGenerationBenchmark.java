@@ -0,0 +1,108 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.util.EventIdGenerator;
+import com.creditx.posting.util.PayloadHashAlgorithm;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of idempotency key generation before and after the move to deterministic keys,
+ * a per-thread digest and allocation-free hex. Not picked up by the default surefire includes; run
+ * with {@code mvn test -Dtest=EventKeyGenerationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventKeyGenerationBenchmark {
+
+  private static final String PAYLOAD = "{\"transactionId\":123456789,\"holdId\":987654321,"
+      + "\"issuerAccountId\":1001,\"merchantAccountId\":2002,\"amount\":125.50,"
+      + "\"currency\":\"USD\",\"status\":\"AUTHORIZED\"}";
+
+  private final String payload = PAYLOAD;
+  private final byte[] payloadBytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+  private final Long transactionId = 123456789L;
+  private final Long holdId = 987654321L;
+
+  @Benchmark
+  public String legacyEventId() {
+    return String.format("%s-%d-%s", "transaction.authorized", transactionId,
+        UUID.randomUUID().toString().substring(0, 8));
+  }
+
+  @Benchmark
+  public String eventId() {
+    return EventIdGenerator.generateEventId("transaction.authorized", transactionId, holdId);
+  }
+
+  @Benchmark
+  public String legacySha256() throws NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
+    StringBuilder hexString = new StringBuilder();
+    for (byte b : hash) {
+      String hex = Integer.toHexString(0xff & b);
+      if (hex.length() == 1) {
+        hexString.append('0');
+      }
+      hexString.append(hex);
+    }
+    return hexString.toString();
+  }
+
+  @Benchmark
+  public String sha256() {
+    return EventIdGenerator.generatePayloadHash(payloadBytes, PayloadHashAlgorithm.SHA_256);
+  }
+
+  @Benchmark
+  public String murmur3() {
+    return EventIdGenerator.generatePayloadHash(payloadBytes, PayloadHashAlgorithm.MURMUR3_128);
+  }
+
+  @Test
+  void keyGeneration() throws RunnerException {
+    Collection<RunResult> results = new Runner(new OptionsBuilder()
+        .include(EventKeyGenerationBenchmark.class.getName())
+        .addProfiler("gc")
+        .build()).run();
+
+    for (RunResult result : results) {
+      System.out.printf("  %-16s %9.1f ns/op  %7.1f B/op%n",
+          result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+          result.getPrimaryResult().getScore(),
+          result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+    }
+    assertThat(score(results, "sha256")).isLessThan(score(results, "legacySha256"));
+    assertThat(score(results, "eventId")).isLessThan(score(results, "legacyEventId"));
+  }
+
+  private static double score(Collection<RunResult> results, String benchmark) {
+    return results.stream()
+        .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+        .findFirst().orElseThrow().getPrimaryResult().getScore();
+  }
+}
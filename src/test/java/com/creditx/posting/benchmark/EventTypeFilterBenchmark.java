@@ -0,0 +1,155 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.messaging.EventTypeFilter;
+import com.creditx.posting.messaging.EventTypeRecordFilter;
+import com.creditx.posting.messaging.JsonEventCodec;
+import com.creditx.posting.util.EventValidationUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.DefaultKafkaHeaderMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * JMH comparison of the consumer-side CPU per polled record with and without the event type
+ * header filter, for a share of records of other event types. Without the filter every record has
+ * its headers mapped and is turned into a message before the listener rejects it; with it only
+ * transaction.authorized records get that far. Not picked up by the default surefire includes;
+ * run with {@code mvn test -Dtest=EventTypeFilterBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventTypeFilterBenchmark {
+
+  private static final int POLL_SIZE = 500;
+  private static final TopicPartition PARTITION = new TopicPartition("transactions", 0);
+  private static final List<String> OTHER_TYPES = List.of(EventTypes.HOLD_CREATED,
+      EventTypes.HOLD_EXPIRED, EventTypes.HOLD_VOIDED, EventTypes.TRANSACTION_POSTED);
+  private static final byte[] PAYLOAD = ("{\"transactionId\":123456789,\"holdId\":987654321,"
+      + "\"issuerAccountId\":1001,\"merchantAccountId\":2002,\"amount\":125.50,"
+      + "\"currency\":\"USD\",\"status\":\"AUTHORIZED\"}").getBytes(StandardCharsets.UTF_8);
+
+  @Param({"0", "50", "80"})
+  private int otherTypesPercent;
+
+  private final DefaultKafkaHeaderMapper headerMapper = new DefaultKafkaHeaderMapper();
+  private final JsonEventCodec codec = new JsonEventCodec(new ObjectMapper(), false);
+  private EventTypeRecordFilter<Object, Object> recordFilter;
+  private List<ConsumerRecord<Object, Object>> poll;
+
+  @Setup
+  public void setup() {
+    recordFilter = new EventTypeRecordFilter<>(new EventTypeFilter(new SimpleMeterRegistry()));
+    List<ConsumerRecord<Object, Object>> records = new ArrayList<>(POLL_SIZE);
+    for (int i = 0; i < POLL_SIZE; i++) {
+      String eventType = i % 100 < otherTypesPercent
+          ? OTHER_TYPES.get(i % OTHER_TYPES.size()) : EventTypes.TRANSACTION_AUTHORIZED;
+      ConsumerRecord<Object, Object> record = new ConsumerRecord<>(PARTITION.topic(),
+          PARTITION.partition(), i, "key-" + i, PAYLOAD);
+      // headers as a Spring producer writes them
+      headerMapper.fromHeaders(new MessageHeaders(
+          Map.of(EventTypes.EVENT_TYPE_HEADER, eventType, "key", "key-" + i)), record.headers());
+      records.add(record);
+    }
+    poll = records;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POLL_SIZE)
+  public void unfiltered(Blackhole blackhole) throws IOException {
+    for (ConsumerRecord<Object, Object> record : poll) {
+      listen(record, blackhole);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(POLL_SIZE)
+  public void filtered(Blackhole blackhole) throws IOException {
+    for (ConsumerRecord<Object, Object> record : poll) {
+      if (!recordFilter.filter(record)) {
+        listen(record, blackhole);
+      }
+    }
+  }
+
+  /** What the binder and the listener do with a record that reaches them. */
+  private void listen(ConsumerRecord<Object, Object> record, Blackhole blackhole)
+      throws IOException {
+    Map<String, Object> headers = new HashMap<>();
+    headerMapper.toHeaders(record.headers(), headers);
+    Message<byte[]> message = MessageBuilder.withPayload((byte[]) record.value())
+        .copyHeaders(headers).build();
+    if (EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_AUTHORIZED)) {
+      blackhole.consume(codec.decode(message.getPayload(), TransactionAuthorizedEvent.class));
+    }
+  }
+
+  @Test
+  void eventTypeFilter() throws RunnerException {
+    Collection<RunResult> results = new Runner(new OptionsBuilder()
+        .include(EventTypeFilterBenchmark.class.getName())
+        .addProfiler("gc")
+        .build()).run();
+
+    System.out.printf("  %-12s %12s %14s %8s%n", "benchmark", "other types", "ns/record",
+        "B/record");
+    for (RunResult result : results) {
+      System.out.printf("  %-12s %11s%% %14.1f %8.1f%n",
+          result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+          result.getParams().getParam("otherTypesPercent"),
+          result.getPrimaryResult().getScore(),
+          result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+    }
+    assertThat(score(results, "filtered", "80")).isLessThan(score(results, "unfiltered", "80"));
+    // with 20% of the records relevant, the filtered cost should be well under half of it
+    // when all of them are
+    assertThat(score(results, "filtered", "80"))
+        .isLessThan(score(results, "filtered", "0") * 0.5);
+  }
+
+  private static double score(Collection<RunResult> results, String benchmark,
+      String otherTypesPercent) {
+    return results.stream()
+        .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+        .filter(result -> otherTypesPercent.equals(
+            result.getParams().getParam("otherTypesPercent")))
+        .findFirst().orElseThrow().getPrimaryResult().getScore();
+  }
+}
@@ -0,0 +1,111 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.messaging.JsonEventCodec;
+import com.creditx.posting.util.EventIdGenerator;
+import com.creditx.posting.util.PayloadHashAlgorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the per-record inbound work, decoding a transaction.authorized value and
+ * hashing it for dedup, before and after decoding from the record bytes with a cached reader. The
+ * legacy path received the value as a String, decoded it through the mapper and re-serialized the
+ * event with a fresh mapper to hash it. B/op is the allocation per record. Not picked up by the
+ * default surefire includes; run with {@code mvn test -Dtest=InboundDecodingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InboundDecodingBenchmark {
+
+  private static final String PAYLOAD = "{\"transactionId\":123456789,\"holdId\":987654321,"
+      + "\"issuerAccountId\":1001,\"merchantAccountId\":2002,\"amount\":125.50,"
+      + "\"currency\":\"USD\",\"status\":\"AUTHORIZED\"}";
+
+  private final byte[] payload = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final JsonEventCodec codec = new JsonEventCodec(objectMapper, false);
+  private final JsonEventCodec blackbirdCodec = new JsonEventCodec(objectMapper, true);
+
+  @Benchmark
+  public void legacy(Blackhole blackhole) throws IOException {
+    // the binder converted the value to a String before the listener saw it
+    String value = new String(payload, StandardCharsets.UTF_8);
+    TransactionAuthorizedEvent event = objectMapper.readValue(value,
+        TransactionAuthorizedEvent.class);
+    blackhole.consume(event);
+    blackhole.consume(EventIdGenerator.generatePayloadHash(
+        new ObjectMapper().writeValueAsBytes(event), PayloadHashAlgorithm.SHA_256));
+  }
+
+  @Benchmark
+  public void cachedReader(Blackhole blackhole) throws IOException {
+    blackhole.consume(codec.decode(payload, TransactionAuthorizedEvent.class));
+    blackhole.consume(EventIdGenerator.generatePayloadHash(payload, PayloadHashAlgorithm.SHA_256));
+  }
+
+  @Benchmark
+  public void blackbird(Blackhole blackhole) throws IOException {
+    blackhole.consume(blackbirdCodec.decode(payload, TransactionAuthorizedEvent.class));
+    blackhole.consume(EventIdGenerator.generatePayloadHash(payload, PayloadHashAlgorithm.SHA_256));
+  }
+
+  @Test
+  void inboundDecoding() throws RunnerException {
+    Collection<RunResult> results = new Runner(new OptionsBuilder()
+        .include(InboundDecodingBenchmark.class.getName())
+        .addProfiler("gc")
+        .build()).run();
+
+    for (RunResult result : results) {
+      System.out.printf("  %-16s %9.1f ns/op  %7.1f B/op%n",
+          result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+          result.getPrimaryResult().getScore(),
+          allocated(result));
+    }
+    assertThat(allocated(results, "cachedReader")).isLessThan(allocated(results, "legacy"));
+    assertThat(score(results, "cachedReader")).isLessThan(score(results, "legacy"));
+  }
+
+  private static double allocated(RunResult result) {
+    return result.getSecondaryResults().get("gc.alloc.rate.norm").getScore();
+  }
+
+  private static double allocated(Collection<RunResult> results, String benchmark) {
+    return allocated(find(results, benchmark));
+  }
+
+  private static double score(Collection<RunResult> results, String benchmark) {
+    return find(results, benchmark).getPrimaryResult().getScore();
+  }
+
+  private static RunResult find(Collection<RunResult> results, String benchmark) {
+    return results.stream()
+        .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+        .findFirst().orElseThrow();
+  }
+}
@@ -0,0 +1,125 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.dto.OutboxEventDTO;
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.service.OutboxEventService;
+import com.creditx.posting.service.RetryBackoffPolicy;
+import com.creditx.posting.service.impl.OutboxEventServiceImpl;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Outbox inserts per second through {@code saveEvent} one at a time versus {@code saveEvents} with
+ * pooled id allocation and JDBC batching. Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=OutboxInsertThroughputBenchmark}.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({OutboxEventServiceImpl.class, RetryBackoffPolicy.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxInsertThroughputBenchmark {
+
+  private static final int EVENTS = 5000;
+  private static final int WARM_UP_EVENTS = 500;
+  private static final int BATCH = 500;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private OutboxEventService outboxEventService;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+  }
+
+  @Test
+  void insertsPerSecond() {
+    insertOneByOne(WARM_UP_EVENTS);
+    insertBatched(WARM_UP_EVENTS);
+    jdbcTemplate.update("DELETE FROM CPS_OUTBOX_EVENTS");
+
+    long singleStart = System.nanoTime();
+    Set<Long> singleIds = insertOneByOne(EVENTS);
+    double single = EVENTS / ((System.nanoTime() - singleStart) / 1e9);
+
+    long batchedStart = System.nanoTime();
+    Set<Long> batchedIds = insertBatched(EVENTS);
+    double batched = EVENTS / ((System.nanoTime() - batchedStart) / 1e9);
+
+    System.out.printf("outbox inserts over %d events%n", EVENTS);
+    System.out.printf("  saveEvent           %9.0f inserts/s%n", single);
+    System.out.printf("  saveEvents (%4d)    %9.0f inserts/s%n", BATCH, batched);
+
+    assertThat(singleIds).hasSize(EVENTS).doesNotContainAnyElementsOf(batchedIds);
+    assertThat(batchedIds).hasSize(EVENTS);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CPS_OUTBOX_EVENTS",
+        Integer.class)).isEqualTo(2 * EVENTS);
+    assertThat(batched).isGreaterThan(single * 2);
+  }
+
+  private Set<Long> insertOneByOne(int count) {
+    Set<Long> ids = new HashSet<>();
+    for (long i = 0; i < count; i++) {
+      ids.add(outboxEventService.saveEvent("transaction.posted", i % 64,
+          "{\"transactionId\":" + i + "}").getEventId());
+    }
+    return ids;
+  }
+
+  private Set<Long> insertBatched(int count) {
+    Set<Long> ids = new HashSet<>();
+    List<OutboxEventDTO> batch = new ArrayList<>(BATCH);
+    LongStream.range(0, count).forEach(i -> {
+      batch.add(OutboxEventDTO.builder().eventType("transaction.posted").aggregateId(i % 64)
+          .payload("{\"transactionId\":" + i + "}").build());
+      if (batch.size() == BATCH || i == count - 1) {
+        outboxEventService.saveEvents(batch).stream().map(OutboxEvent::getEventId)
+            .forEach(ids::add);
+        batch.clear();
+      }
+    });
+    return ids;
+  }
+}
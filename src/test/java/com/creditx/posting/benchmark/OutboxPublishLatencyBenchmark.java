@@ -0,0 +1,122 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.OutboxEventSavedEvent;
+import com.creditx.posting.messaging.OutboxStreamPublisher;
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.scheduler.AdaptiveOutboxPollingPolicy;
+import com.creditx.posting.scheduler.KeyOrderedOutboxDispatcher;
+import com.creditx.posting.scheduler.OutboxEventPublishingScheduler;
+import com.creditx.posting.scheduler.OutboxPublishingLoop;
+import com.creditx.posting.service.ClaimedOutboxEvents;
+import com.creditx.posting.service.OutboxEventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Commit-to-publish latency of outbox events with polling only versus wake-up on commit. Not
+ * picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=OutboxPublishLatencyBenchmark}.
+ */
+class OutboxPublishLatencyBenchmark {
+
+  private static final int EVENTS = 300;
+  private static final long PUBLISH_INTERVAL = 1000;
+  private static final long MEAN_COMMIT_GAP_MILLIS = 10;
+
+  @Test
+  void commitToPublishLatency() throws InterruptedException {
+    LatencyReport polling = run(false);
+    LatencyReport wakeUp = run(true);
+
+    System.out.printf("outbox commit-to-publish latency over %d events%n", EVENTS);
+    System.out.printf("  polling only     p50=%7.2f ms  p99=%7.2f ms%n", polling.p50(),
+        polling.p99());
+    System.out.printf("  wake-up on commit p50=%7.2f ms  p99=%7.2f ms%n", wakeUp.p50(),
+        wakeUp.p99());
+
+    assertThat(wakeUp.p99()).isLessThan(polling.p50());
+  }
+
+  private LatencyReport run(boolean wakeUpOnCommit) throws InterruptedException {
+    Queue<OutboxEvent> committed = new ConcurrentLinkedQueue<>();
+    Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    OutboxEventService outboxEventService = mock(OutboxEventService.class);
+    when(outboxEventService.claimPendingEvents(anyInt())).thenAnswer(invocation -> {
+      int limit = invocation.getArgument(0);
+      List<OutboxEvent> claimed = new ArrayList<>();
+      OutboxEvent event;
+      while (claimed.size() < limit && (event = committed.poll()) != null) {
+        claimed.add(event);
+      }
+      return new ClaimedOutboxEvents(claimed, claimed.size());
+    });
+    when(outboxEventService.claimDueRetries(anyInt())).thenReturn(ClaimedOutboxEvents.none());
+    OutboxStreamPublisher publisher = mock(OutboxStreamPublisher.class);
+    doAnswer(invocation -> {
+      long committedAt = Long.parseLong(invocation.getArgument(1));
+      latencies.add(System.nanoTime() - committedAt);
+      return null;
+    }).when(publisher).publish(any(), any(), any());
+
+    KeyOrderedOutboxDispatcher dispatcher = new KeyOrderedOutboxDispatcher(4);
+    AdaptiveOutboxPollingPolicy policy = new AdaptiveOutboxPollingPolicy(50, 10, 1000,
+        PUBLISH_INTERVAL, PUBLISH_INTERVAL * 5, 500, new SimpleMeterRegistry());
+    OutboxPublishingLoop loop = new OutboxPublishingLoop(
+        new OutboxEventPublishingScheduler(outboxEventService, publisher, dispatcher), policy);
+    loop.start();
+    try {
+      for (long id = 1; id <= EVENTS; id++) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(id);
+        event.setAggregateId(id % 16);
+        event.setEventType("transaction.posted");
+        event.setPayload(Long.toString(System.nanoTime()));
+        committed.add(event);
+        if (wakeUpOnCommit) {
+          loop.onOutboxEventSaved(new OutboxEventSavedEvent(id, event.getAggregateId()));
+        }
+        TimeUnit.MILLISECONDS.sleep(
+            ThreadLocalRandom.current().nextLong(MEAN_COMMIT_GAP_MILLIS * 2 + 1));
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (latencies.size() < EVENTS && System.nanoTime() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+    } finally {
+      loop.stop();
+      dispatcher.shutdown();
+    }
+    assertThat(latencies).hasSize(EVENTS);
+    return new LatencyReport(latencies.stream().mapToLong(Long::longValue).sorted().toArray());
+  }
+
+  private record LatencyReport(long[] sortedNanos) {
+
+    double p50() {
+      return percentile(0.50);
+    }
+
+    double p99() {
+      return percentile(0.99);
+    }
+
+    private double percentile(double quantile) {
+      int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+      return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.util.EventIdGenerator;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * Index size and point lookup latency of the legacy string keys (VARCHAR2 event id, hex payload
+ * hash) against the compact keys (event type code with numeric ids, RAW digest), each loaded into
+ * a scratch table with the indexes CPS_PROCESSED_EVENTS has for that layout. Index sizes grow
+ * linearly with the row count, so they are also projected to 50M rows; Oracle Free caps user data
+ * at 12 GB, which does not hold the legacy layout at that size. Not picked up by the default
+ * surefire includes; run with {@code mvn test -Dtest=ProcessedEventKeyLayoutBenchmark}, adding
+ * {@code -Dbenchmark.rows=50000000} against a database that can hold it.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProcessedEventKeyLayoutBenchmark {
+
+  private static final long ROWS = Long.getLong("benchmark.rows", 5_000_000L);
+  private static final long PROJECTED_ROWS = 50_000_000L;
+  private static final int LOOKUPS = 20_000;
+  private static final int WARM_UP_LOOKUPS = 2_000;
+  // ids above this offset are never loaded, so half the lookups miss as for new events
+  private static final long HOLD_ID_OFFSET = 1_000_000_000L;
+
+  // n = 1..ROWS from a cross join, so no single CONNECT BY has to hold every row
+  private static final String ROW_SOURCE = """
+      FROM (SELECT (a.n - 1) * 10000 + b.n AS n
+            FROM (SELECT LEVEL AS n FROM DUAL CONNECT BY LEVEL <= ?) a
+            CROSS JOIN (SELECT LEVEL AS n FROM DUAL CONNECT BY LEVEL <= 10000) b)
+      WHERE n <= ?""";
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("DROP TABLE BENCH_KEYS_LEGACY PURGE");
+    jdbcTemplate.execute("DROP TABLE BENCH_KEYS_COMPACT PURGE");
+  }
+
+  @Test
+  void indexSizeAndLookupLatency() {
+    loadLegacy();
+    loadCompact();
+    Map<String, Long> indexBytes = indexBytes();
+
+    double[] legacyByEventId = lookups(
+        "SELECT COUNT(*) FROM BENCH_KEYS_LEGACY WHERE EVENT_ID = ? AND ROWNUM = 1",
+        n -> new Object[]{legacyEventId(n)});
+    double[] legacyByHash = lookups(
+        "SELECT COUNT(*) FROM BENCH_KEYS_LEGACY WHERE PAYLOAD_HASH = ? AND ROWNUM = 1",
+        n -> new Object[]{payloadHash(n)});
+    double[] compactByKey = lookups("SELECT COUNT(*) FROM BENCH_KEYS_COMPACT "
+            + "WHERE TRANSACTION_ID = ? AND HOLD_ID = ? AND EVENT_TYPE = 1 AND ROWNUM = 1",
+        n -> new Object[]{n, HOLD_ID_OFFSET + n});
+    double[] compactByDigest = lookups("SELECT COUNT(*) FROM BENCH_KEYS_COMPACT "
+            + "WHERE PAYLOAD_DIGEST = HEXTORAW(?) AND ROWNUM = 1",
+        n -> new Object[]{payloadHash(n)});
+
+    System.out.printf("processed event keys over %d rows, %d lookups each%n", ROWS, LOOKUPS);
+    System.out.printf("  %-30s %10s %14s%n", "index", "MB", "MB at 50M rows");
+    indexBytes.forEach((index, bytes) -> System.out.printf("  %-30s %10.1f %14.1f%n", index,
+        bytes / 1048576.0, bytes / 1048576.0 * PROJECTED_ROWS / ROWS));
+    System.out.printf("  %-30s %10s %10s%n", "lookup", "p50 us", "p99 us");
+    printLatency("legacy by event id", legacyByEventId);
+    printLatency("legacy by payload hash", legacyByHash);
+    printLatency("compact by event key", compactByKey);
+    printLatency("compact by payload digest", compactByDigest);
+
+    assertThat(indexBytes.get("UX_BENCH_COMPACT_EVENT_KEY"))
+        .isLessThan(indexBytes.get("PK_BENCH_LEGACY_EVENT_ID"));
+    assertThat(indexBytes.get("UX_BENCH_COMPACT_DIGEST"))
+        .isLessThan(indexBytes.get("UX_BENCH_LEGACY_HASH"));
+  }
+
+  private void loadLegacy() {
+    jdbcTemplate.execute("""
+        CREATE TABLE BENCH_KEYS_LEGACY (
+            EVENT_ID     VARCHAR2(100) NOT NULL,
+            PAYLOAD_HASH VARCHAR2(128),
+            STATUS       VARCHAR2(20),
+            PROCESSED_AT TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL)""");
+    // the suffix stands in for the 8 hex characters of a random UUID
+    jdbcTemplate.update("""
+        INSERT /*+ APPEND */ INTO BENCH_KEYS_LEGACY (EVENT_ID, PAYLOAD_HASH, STATUS)
+        SELECT 'transaction.authorized-' || n || '-'
+                   || LPAD(LOWER(TO_CHAR(MOD(n * 2654435761, 4294967296), 'FMXXXXXXXX')), 8, '0'),
+               LOWER(RAWTOHEX(STANDARD_HASH(TO_CHAR(n), 'SHA256'))), 'SUCCESS'
+        """ + ROW_SOURCE, outerLevels(), ROWS);
+    jdbcTemplate.execute("ALTER TABLE BENCH_KEYS_LEGACY ADD CONSTRAINT PK_BENCH_LEGACY_EVENT_ID "
+        + "PRIMARY KEY (EVENT_ID)");
+    jdbcTemplate.execute(
+        "CREATE UNIQUE INDEX UX_BENCH_LEGACY_HASH ON BENCH_KEYS_LEGACY(PAYLOAD_HASH)");
+    gatherStats("BENCH_KEYS_LEGACY");
+  }
+
+  private void loadCompact() {
+    jdbcTemplate.execute("""
+        CREATE TABLE BENCH_KEYS_COMPACT (
+            EVENT_TYPE     NUMBER(3) NOT NULL,
+            TRANSACTION_ID NUMBER(19) NOT NULL,
+            HOLD_ID        NUMBER(19) NOT NULL,
+            PAYLOAD_DIGEST RAW(32) NOT NULL,
+            STATUS         VARCHAR2(20),
+            PROCESSED_AT   TIMESTAMP(6) WITH TIME ZONE DEFAULT SYSTIMESTAMP NOT NULL)""");
+    jdbcTemplate.update("""
+        INSERT /*+ APPEND */ INTO BENCH_KEYS_COMPACT
+            (EVENT_TYPE, TRANSACTION_ID, HOLD_ID, PAYLOAD_DIGEST, STATUS)
+        SELECT 1, n, ? + n, STANDARD_HASH(TO_CHAR(n), 'SHA256'), 'SUCCESS'
+        """ + ROW_SOURCE, HOLD_ID_OFFSET, outerLevels(), ROWS);
+    jdbcTemplate.execute("CREATE UNIQUE INDEX UX_BENCH_COMPACT_EVENT_KEY "
+        + "ON BENCH_KEYS_COMPACT(TRANSACTION_ID, HOLD_ID, EVENT_TYPE)");
+    jdbcTemplate.execute(
+        "CREATE UNIQUE INDEX UX_BENCH_COMPACT_DIGEST ON BENCH_KEYS_COMPACT(PAYLOAD_DIGEST)");
+    gatherStats("BENCH_KEYS_COMPACT");
+  }
+
+  private void gatherStats(String table) {
+    jdbcTemplate.update("BEGIN DBMS_STATS.GATHER_TABLE_STATS(USER, ?, CASCADE => TRUE); END;",
+        table);
+  }
+
+  private Map<String, Long> indexBytes() {
+    Map<String, Long> bytes = new LinkedHashMap<>();
+    jdbcTemplate.query("""
+        SELECT SEGMENT_NAME, BYTES FROM USER_SEGMENTS
+        WHERE SEGMENT_NAME IN ('PK_BENCH_LEGACY_EVENT_ID', 'UX_BENCH_LEGACY_HASH',
+                               'UX_BENCH_COMPACT_EVENT_KEY', 'UX_BENCH_COMPACT_DIGEST')
+        ORDER BY SEGMENT_NAME DESC""", rs -> {
+      bytes.put(rs.getString(1), rs.getLong(2));
+    });
+    return bytes;
+  }
+
+  /** Latency in microseconds of lookups for random keys, half of them loaded. */
+  private double[] lookups(String sql, LongFunction<Object[]> parameters) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    double[] micros = new double[LOOKUPS];
+    for (int i = -WARM_UP_LOOKUPS; i < LOOKUPS; i++) {
+      long n = random.nextLong(1, 2 * ROWS + 1);
+      long start = System.nanoTime();
+      jdbcTemplate.queryForObject(sql, Integer.class, parameters.apply(n));
+      if (i >= 0) {
+        micros[i] = (System.nanoTime() - start) / 1e3;
+      }
+    }
+    Arrays.sort(micros);
+    return micros;
+  }
+
+  private static void printLatency(String lookup, double[] micros) {
+    System.out.printf("  %-30s %10.0f %10.0f%n", lookup, micros[micros.length / 2],
+        micros[(int) (micros.length * 0.99)]);
+  }
+
+  private static long outerLevels() {
+    return (ROWS + 9999) / 10000;
+  }
+
+  private static String legacyEventId(long n) {
+    return "transaction.authorized-" + n + '-'
+        + String.format("%08x", (n * 2654435761L) % 4294967296L);
+  }
+
+  private static String payloadHash(long n) {
+    return EventIdGenerator.generatePayloadHash(Long.toString(n));
+  }
+}
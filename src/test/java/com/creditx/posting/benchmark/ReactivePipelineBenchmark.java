@@ -0,0 +1,210 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.creditx.posting.CmsStubServer;
+import com.creditx.posting.config.CmsResilienceConfig;
+import com.creditx.posting.config.HttpClientConfig;
+import com.creditx.posting.config.ReactiveConsumerConfig;
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.messaging.EventCodecs;
+import com.creditx.posting.messaging.EventTypeFilter;
+import com.creditx.posting.messaging.JsonEventCodec;
+import com.creditx.posting.messaging.ReactiveTransactionEventListener;
+import com.creditx.posting.messaging.TransactionEventListener;
+import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher;
+import com.creditx.posting.service.impl.ReactiveCmsCommitClient;
+import com.creditx.posting.service.impl.ReactiveTransactionEventProcessor;
+import com.creditx.posting.service.impl.TransactionEventServiceImpl;
+import com.creditx.posting.tracing.TransactionSpanTagger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Records per second of the transaction.authorized pipeline against a local CMS stub with a fixed
+ * latency per request and a claim store that takes a fixed time per step: in blocking mode, one
+ * consumer thread per partition processing its records one at a time, and in reactive mode, many
+ * records in flight on a handful of threads. Reports throughput and the threads each mode used.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=ReactivePipelineBenchmark}.
+ */
+class ReactivePipelineBenchmark {
+
+  private static final int PARTITIONS = 4;
+  private static final int RECORDS = 1000;
+  private static final int WARM_UP_RECORDS = 200;
+  private static final int KEYS = 500;
+  private static final long CMS_LATENCY_MS = 50;
+  private static final long DB_LATENCY_MS = 1;
+  private static final int REACTIVE_CONCURRENCY = 64;
+  private static final int DB_THREADS = 4;
+  private static final int IO_THREADS = 2;
+
+  @Test
+  void recordsPerSecond() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    EventCodecs eventCodecs = new EventCodecs(List.of(new JsonEventCodec(objectMapper, false)));
+    EventTypeFilter eventTypeFilter = mock(EventTypeFilter.class);
+    TransactionSpanTagger spanTagger = mock(TransactionSpanTagger.class,
+        withSettings().stubOnly());
+    HttpClientConfig httpConfig = new HttpClientConfig();
+    ReactiveConsumerConfig reactiveConfig = new ReactiveConsumerConfig();
+    CmsResilienceConfig resilienceConfig = new CmsResilienceConfig();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    try (CmsStubServer cms = CmsStubServer.start(CMS_LATENCY_MS);
+        CloseableHttpClient httpClient = httpConfig.cmsHttpClient(
+            httpConfig.cmsConnectionManager(200, 100, 1000, 5000, meterRegistry), 5000, 1000,
+            30000);
+        CloseableHttpAsyncClient asyncClient = reactiveConfig.cmsAsyncHttpClient(200, 100, 1000,
+            5000, 5000, 1000, 30000, IO_THREADS, meterRegistry)) {
+      RestTemplate restTemplate = httpConfig.restTemplate(new RestTemplateBuilder(), httpClient,
+          meterRegistry);
+      CmsCommitDispatcher dispatcher = new CmsCommitDispatcher(restTemplate, cms.url(), false,
+          100, 5, 4, 30000, 300000);
+      TransactionEventServiceImpl service = new TransactionEventServiceImpl(dispatcher,
+          processedEventService(), objectMapper, spanTagger);
+      Scheduler dbScheduler = reactiveConfig.postingDbScheduler(DB_THREADS, 10000);
+      try {
+        Consumer<Message<byte[]>> blockingListener = new TransactionEventListener(service,
+            spanTagger, eventCodecs, eventTypeFilter).transactionAuthorized();
+        LoadReport blocking = run(cms, records -> consumeBlocking(blockingListener, records),
+            PARTITIONS);
+
+        ReactiveTransactionEventListener reactiveListener = new ReactiveTransactionEventListener(
+            new ReactiveTransactionEventProcessor(service, new ReactiveCmsCommitClient(
+                reactiveConfig.cmsWebClient(WebClient.builder(), asyncClient, cms.url()),
+                resilienceConfig.cmsCircuitBreaker(50, 2000, 80, 50, 20, 10000, 5, meterRegistry),
+                resilienceConfig.cmsBulkhead(200, 0, meterRegistry)), dbScheduler),
+            eventCodecs, eventTypeFilter);
+        ReflectionTestUtils.setField(reactiveListener, "concurrency", REACTIVE_CONCURRENCY);
+        LoadReport reactive = run(cms, records -> reactiveListener.transactionAuthorizedReactive()
+            .apply(Flux.fromIterable(records)).block(Duration.ofMinutes(5)),
+            1 + DB_THREADS + IO_THREADS);
+
+        System.out.printf("transaction.authorized pipeline, %d records on %d partitions, %d ms "
+            + "CMS latency, %d ms per claim step%n", RECORDS, PARTITIONS, CMS_LATENCY_MS,
+            DB_LATENCY_MS);
+        System.out.printf("  %-9s %10s %8s %10s %7s%n", "mode", "records/s", "threads",
+            "committed", "acked");
+        print("blocking", blocking);
+        print("reactive", reactive);
+
+        assertThat(reactive.committed()).isEqualTo(RECORDS);
+        assertThat(reactive.acknowledged()).isEqualTo(RECORDS);
+        assertThat(reactive.recordsPerSecond()).isGreaterThan(blocking.recordsPerSecond() * 5);
+      } finally {
+        dbScheduler.dispose();
+        dispatcher.shutdown();
+      }
+    }
+  }
+
+  private static ProcessedEventService processedEventService() {
+    ProcessedEventService processedEventService = mock(ProcessedEventService.class,
+        withSettings().stubOnly());
+    when(processedEventService.claimEvent(anyString(), anyString(), any()))
+        .thenAnswer(invocation -> {
+          Thread.sleep(DB_LATENCY_MS);
+          return Optional.of(invocation.getArgument(0));
+        });
+    doAnswer(invocation -> {
+      Thread.sleep(DB_LATENCY_MS);
+      return null;
+    }).when(processedEventService).completeEvent(anyString(), any());
+    return processedEventService;
+  }
+
+  private static LoadReport run(CmsStubServer cms, Consumer<List<Message<byte[]>>> pipeline,
+      int threads) {
+    AtomicInteger acknowledged = new AtomicInteger();
+    // warm up, then count only the measured records
+    pipeline.accept(records(0, WARM_UP_RECORDS, acknowledged));
+    cms.reset();
+    acknowledged.set(0);
+    List<Message<byte[]>> records = records(1_000_000, RECORDS, acknowledged);
+    long start = System.nanoTime();
+    pipeline.accept(records);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    return new LoadReport(RECORDS / seconds, threads, cms.committed().size(),
+        acknowledged.get());
+  }
+
+  private static void consumeBlocking(Consumer<Message<byte[]>> listener,
+      List<Message<byte[]>> records) {
+    ExecutorService consumers = Executors.newFixedThreadPool(PARTITIONS);
+    try {
+      List<Future<?>> threads = new ArrayList<>();
+      for (int p = 0; p < PARTITIONS; p++) {
+        int partition = p;
+        threads.add(consumers.submit(() -> {
+          for (int i = partition; i < records.size(); i += PARTITIONS) {
+            listener.accept(records.get(i));
+          }
+        }));
+      }
+      for (Future<?> thread : threads) {
+        thread.get();
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    } finally {
+      consumers.shutdownNow();
+    }
+  }
+
+  private static List<Message<byte[]>> records(long firstTransactionId, int count,
+      AtomicInteger acknowledged) {
+    Acknowledgment acknowledgment = acknowledged::incrementAndGet;
+    List<Message<byte[]>> records = new ArrayList<>(count);
+    for (long id = firstTransactionId; id < firstTransactionId + count; id++) {
+      records.add(MessageBuilder
+          .withPayload(("{\"transactionId\":" + id + ",\"holdId\":" + (id + 1_000_000) + "}")
+              .getBytes(StandardCharsets.UTF_8))
+          .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_AUTHORIZED)
+          .setHeader(KafkaHeaders.RECEIVED_KEY,
+              ("account-" + id % KEYS).getBytes(StandardCharsets.UTF_8))
+          .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+          .build());
+    }
+    return records;
+  }
+
+  private static void print(String mode, LoadReport report) {
+    System.out.printf("  %-9s %10.0f %8d %10d %7d%n", mode, report.recordsPerSecond(),
+        report.threads(), report.committed(), report.acknowledged());
+  }
+
+  private record LoadReport(double recordsPerSecond, int threads, int committed,
+      int acknowledged) {
+  }
+}
@@ -0,0 +1,156 @@
+package com.creditx.posting.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.TransactionEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher;
+import com.creditx.posting.service.impl.ProcessedEventServiceImpl;
+import com.creditx.posting.service.impl.TransactionEventServiceImpl;
+import com.creditx.posting.tracing.TransactionSpanTagger;
+import io.micrometer.tracing.Tracer;
+import java.util.List;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.oracle.OracleContainer;
+
+/**
+ * transaction.authorized records per second through the single-record path versus the batch path
+ * with IN-list dedup and one JDBC batch of processed-event rows. The CMS call is stubbed out so
+ * the numbers reflect the database work per record. Not picked up by the default surefire
+ * includes; run with {@code mvn test -Dtest=TransactionBatchConsumerBenchmark}.
+ */
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({TransactionEventServiceImpl.class, CmsCommitDispatcher.class,
+    ProcessedEventServiceImpl.class, TransactionSpanTagger.class,
+    TransactionBatchConsumerBenchmark.StubbedCms.class, JacksonAutoConfiguration.class})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionBatchConsumerBenchmark {
+
+  private static final int RECORDS = 5000;
+  private static final int POLL_SIZE = 500;
+  private static final int HISTORY = 100_000;
+
+  @SuppressWarnings("resource")
+  @Container
+  static final OracleContainer oracle = new OracleContainer(
+      "gvenzl/oracle-free:latest-faststart").withUsername("testuser").withPassword("testpassword");
+
+  @Autowired
+  private TransactionEventService transactionEventService;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", oracle::getJdbcUrl);
+    registry.add("spring.datasource.username", oracle::getUsername);
+    registry.add("spring.datasource.password", oracle::getPassword);
+    registry.add("spring.datasource.driver-class-name", () -> "oracle.jdbc.OracleDriver");
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.update("DELETE FROM CPS_PROCESSED_EVENTS");
+    jdbcTemplate.update("""
+        INSERT INTO CPS_PROCESSED_EVENTS (EVENT_ID, PAYLOAD_HASH, STATUS)
+        SELECT 'history-' || LEVEL, STANDARD_HASH('history-' || LEVEL, 'SHA256'), 'SUCCESS'
+        FROM DUAL CONNECT BY LEVEL <= ?""", HISTORY);
+  }
+
+  @Test
+  void recordsPerSecond() {
+    singleRecord(0, POLL_SIZE);
+    batched(POLL_SIZE, POLL_SIZE);
+
+    long singleStart = System.nanoTime();
+    singleRecord(10_000, RECORDS);
+    double single = RECORDS / ((System.nanoTime() - singleStart) / 1e9);
+
+    long batchedStart = System.nanoTime();
+    batched(20_000, RECORDS);
+    double batched = RECORDS / ((System.nanoTime() - batchedStart) / 1e9);
+
+    System.out.printf("transaction.authorized over %d records, %d rows of history%n", RECORDS,
+        HISTORY);
+    System.out.printf("  single record      %9.0f records/s%n", single);
+    System.out.printf("  batch of %4d      %9.0f records/s%n", POLL_SIZE, batched);
+
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM CPS_PROCESSED_EVENTS WHERE TRANSACTION_ID IS NOT NULL",
+        Integer.class)).isEqualTo(2 * RECORDS + 2 * POLL_SIZE);
+    assertThat(batched).isGreaterThan(single * 2);
+  }
+
+  private void singleRecord(long firstTransactionId, int count) {
+    events(firstTransactionId, count)
+        .forEach(transactionEventService::processTransactionAuthorized);
+  }
+
+  private void batched(long firstTransactionId, int count) {
+    List<TransactionAuthorizedEvent> events = events(firstTransactionId, count);
+    for (int from = 0; from < events.size(); from += POLL_SIZE) {
+      transactionEventService.processTransactionAuthorizedBatch(
+          events.subList(from, Math.min(from + POLL_SIZE, events.size())));
+    }
+  }
+
+  private static List<TransactionAuthorizedEvent> events(long firstTransactionId, int count) {
+    return LongStream.range(firstTransactionId, firstTransactionId + count).mapToObj(id -> {
+      TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+      event.setTransactionId(id);
+      event.setHoldId(id + 1_000_000);
+      return event;
+    }).toList();
+  }
+
+  @TestConfiguration
+  static class StubbedCms {
+
+    @Bean
+    RestTemplate restTemplate() {
+      RestTemplate restTemplate = mock(RestTemplate.class);
+      when(restTemplate.postForEntity(anyString(), any(HttpEntity.class), eq(String.class)))
+          .thenReturn(ResponseEntity.ok("Success"));
+      return restTemplate;
+    }
+
+    @Bean
+    Tracer tracer() {
+      return Tracer.NOOP;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.creditx.posting.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.creditx.posting.CmsStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+class CmsAdaptiveLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void shouldGrowAdditivelyWhileLatencyStaysNearBaseline() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(4, 10, 1000);
+
+    // when - one round of calls at the full limit
+    round(limiter, FAST);
+
+    // then - grown by a fraction of a slot per round, not doubled
+    assertThat(limiter.limit()).isEqualTo(4);
+    round(limiter, FAST);
+    round(limiter, FAST);
+    assertThat(limiter.limit()).isEqualTo(5);
+
+    // when
+    for (int i = 0; i < 20; i++) {
+      round(limiter, FAST);
+    }
+
+    // then - capped at the max limit
+    assertThat(limiter.limit()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldHoldLimitWhenLatencyRisesAboveBaseline() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(4, 10, 1000);
+    round(limiter, FAST);
+    double before = meterRegistry.get("cms.client.limit").gauge().value();
+
+    // when - four times the baseline, over the tolerance of two
+    for (int i = 0; i < 5; i++) {
+      round(limiter, FAST * 4);
+    }
+
+    // then
+    assertThat(meterRegistry.get("cms.client.limit").gauge().value()).isEqualTo(before);
+  }
+
+  @Test
+  void shouldCutMultiplicativelyOncePerRoundOfDroppedCalls() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(8, 10, 1000);
+    long[] starts = new long[8];
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = limiter.acquire();
+    }
+
+    // when - every call of the round is shed
+    for (long start : starts) {
+      limiter.release(start, FAST, true, true);
+    }
+
+    // then - halved once, since all of them started before the cut
+    assertThat(limiter.limit()).isEqualTo(4);
+
+    // when - a call started after the cut is shed as well
+    limiter.release(limiter.acquire(), FAST, true, true);
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldIgnoreCallsThatSayNothingAboutCmsLoad() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(4, 10, 1000);
+
+    // when - e.g. refused connections or calls the circuit breaker rejected
+    limiter.release(limiter.acquire(), FAST, true, false);
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(4);
+    assertThat(limiter.inFlight()).isZero();
+  }
+
+  @Test
+  void shouldGiveUpOnCallsThatFindNoSlotInTime() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(1, 1, 100);
+    limiter.acquire();
+
+    // when / then
+    long start = System.nanoTime();
+    assertThatThrownBy(limiter::acquire).isInstanceOf(CmsLimitExceededException.class)
+        .satisfies(e -> assertThat(CmsResilienceInterceptor.isRejected(e)).isTrue());
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(
+        TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(meterRegistry.get("cms.client.inflight").gauge().value()).isEqualTo(1);
+    assertThat(meterRegistry.get("cms.client.limit.exceeded").counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("cms.client.queue.wait").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCutLimitWhenCmsAnswersServiceUnavailable() throws Exception {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(8, 10, 1000);
+    RestTemplate restTemplate = new RestTemplate();
+    restTemplate.setInterceptors(List.of(limiter));
+    try (CmsStubServer cms = CmsStubServer.start(0)) {
+      cms.failWith(503);
+
+      // when
+      assertThatThrownBy(() -> restTemplate.postForEntity(
+          cms.url() + "/api/transactions/1/commit", "{}", String.class))
+          .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+    }
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(4);
+    assertThat(limiter.inFlight()).isZero();
+  }
+
+  @Test
+  void shouldCutLimitWhenCmsResponseTimesOut() {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(8, 10, 1000);
+
+    // when
+    assertThatThrownBy(() -> limiter.intercept(new MockClientHttpRequest(), new byte[0],
+        (request, body) -> {
+          throw new SocketTimeoutException("Read timed out");
+        })).isInstanceOf(SocketTimeoutException.class);
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldKeepLimitWhenConnectingOrLeasingPooledConnectionTimesOut() {
+    // given
+    CmsAdaptiveLimiter limiter = limiter(8, 10, 1000);
+
+    // when - neither reached CMS
+    assertThatThrownBy(() -> limiter.intercept(new MockClientHttpRequest(), new byte[0],
+        (request, body) -> {
+          throw new ConnectTimeoutException("Connect timed out");
+        })).isInstanceOf(ConnectTimeoutException.class);
+    assertThatThrownBy(() -> limiter.intercept(new MockClientHttpRequest(), new byte[0],
+        (request, body) -> {
+          throw new ConnectionRequestTimeoutException("Timeout waiting for connection");
+        })).isInstanceOf(ConnectionRequestTimeoutException.class);
+
+    // then
+    assertThat(limiter.limit()).isEqualTo(8);
+    assertThat(limiter.inFlight()).isZero();
+  }
+
+  private CmsAdaptiveLimiter limiter(int initialLimit, int maxLimit, long maxQueueWaitMillis) {
+    return new CmsAdaptiveLimiter(initialLimit, 1, maxLimit, 0.5, 2.0, 1000, maxQueueWaitMillis,
+        meterRegistry);
+  }
+
+  /** Fills every slot under the current limit, then completes those calls. */
+  private static void round(CmsAdaptiveLimiter limiter, long latencyNanos) throws Exception {
+    long[] starts = new long[limiter.limit()];
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = limiter.acquire();
+    }
+    for (long start : starts) {
+      limiter.release(start, latencyNanos, false, true);
+    }
+  }
+}
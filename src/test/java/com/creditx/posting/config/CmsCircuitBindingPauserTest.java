@@ -0,0 +1,66 @@
+package com.creditx.posting.config;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+
+class CmsCircuitBindingPauserTest {
+
+  private BindingsLifecycleController bindingsLifecycleController;
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setup() {
+    bindingsLifecycleController = mock(BindingsLifecycleController.class);
+    circuitBreaker = CircuitBreaker.ofDefaults("cms");
+    new CmsCircuitBindingPauser(circuitBreaker, bindingsLifecycleController);
+  }
+
+  @Test
+  void shouldPauseWhileOpenAndResumeWhenHalfOpen() {
+    // when
+    circuitBreaker.transitionToOpenState();
+
+    // then
+    verify(bindingsLifecycleController).pause(KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+
+    // when
+    circuitBreaker.transitionToHalfOpenState();
+    circuitBreaker.transitionToClosedState();
+
+    // then - resumed once, for the half-open probes
+    verify(bindingsLifecycleController).resume(KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+    verifyNoMoreInteractions(bindingsLifecycleController);
+  }
+
+  @Test
+  void shouldPauseAgainWhenProbesFail() {
+    // given
+    circuitBreaker.transitionToOpenState();
+    circuitBreaker.transitionToHalfOpenState();
+
+    // when
+    circuitBreaker.transitionToOpenState();
+
+    // then
+    verify(bindingsLifecycleController, times(2))
+        .pause(KafkaConsumerConfig.TRANSACTION_AUTHORIZED_BINDING);
+  }
+
+  @Test
+  void shouldLeaveBindingAloneWhileClosed() {
+    // when
+    circuitBreaker.transitionToDisabledState();
+    circuitBreaker.transitionToClosedState();
+
+    // then
+    verifyNoInteractions(bindingsLifecycleController);
+  }
+}
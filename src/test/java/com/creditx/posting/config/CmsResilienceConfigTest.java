@@ -0,0 +1,168 @@
+package com.creditx.posting.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.creditx.posting.CmsStubServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+class CmsResilienceConfigTest {
+
+  private final CmsResilienceConfig config = new CmsResilienceConfig();
+  private SimpleMeterRegistry meterRegistry;
+  private CmsStubServer cms;
+  private CircuitBreaker circuitBreaker;
+  private Bulkhead bulkhead;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void setup() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    cms = CmsStubServer.start(0);
+    // a window of 4 calls that opens at 50% failed or slow (over 100 ms), half-open after 200 ms
+    circuitBreaker = config.cmsCircuitBreaker(50, 100, 50, 4, 4, 200, 2, meterRegistry);
+    bulkhead = config.cmsBulkhead(2, 0, meterRegistry);
+    restTemplate = new RestTemplate();
+    config.cmsResilienceCustomizer(null, circuitBreaker, bulkhead, false)
+        .customize(restTemplate);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cms.close();
+  }
+
+  @Test
+  void shouldOpenOnServerErrorsAndRejectWithoutCallingCms() {
+    // given
+    cms.failWith(503);
+    for (long transactionId = 1; transactionId <= 4; transactionId++) {
+      long id = transactionId;
+      assertThatThrownBy(() -> commit(id)).isInstanceOf(HttpServerErrorException.class);
+    }
+
+    // when / then
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThatThrownBy(() -> commit(5L)).isInstanceOf(CallNotPermittedException.class)
+        .satisfies(e -> assertThat(CmsResilienceInterceptor.isRejected(
+            new RuntimeException("wrapped", e))).isTrue());
+    assertThat(cms.requests()).isEqualTo(4);
+    assertThat(meterRegistry.get("resilience4j.circuitbreaker.not.permitted.calls")
+        .tag("name", "cms").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldOpenOnSlowCalls() {
+    // given
+    cms.latency(150);
+
+    // when
+    for (long transactionId = 1; transactionId <= 4; transactionId++) {
+      commit(transactionId);
+    }
+
+    // then - every call succeeded, but too slowly
+    assertThat(cms.committed()).hasSize(4);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void shouldStayClosedOnClientErrors() {
+    // given
+    for (long transactionId = 1; transactionId <= 4; transactionId++) {
+      cms.reject(transactionId);
+    }
+
+    // when
+    for (long transactionId = 1; transactionId <= 4; transactionId++) {
+      long id = transactionId;
+      assertThatThrownBy(() -> commit(id))
+          .isInstanceOf(HttpClientErrorException.UnprocessableEntity.class);
+    }
+
+    // then - CMS answered, so the failures are the transactions', not CMS's
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void shouldProbeWhenHalfOpenAndCloseOnceCmsRecovers() throws Exception {
+    // given
+    cms.failWith(500);
+    for (long transactionId = 1; transactionId <= 4; transactionId++) {
+      long id = transactionId;
+      assertThatThrownBy(() -> commit(id)).isInstanceOf(HttpServerErrorException.class);
+    }
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+
+    // when
+    cms.recover();
+    Thread.sleep(400);
+
+    // then - half-open on its own, and closed by the two probe calls
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    commit(5L);
+    commit(6L);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    assertThat(cms.committed()).containsExactlyInAnyOrder(5L, 6L);
+  }
+
+  @Test
+  void shouldRejectCallsBeyondTheBulkhead() throws Exception {
+    // given
+    cms.latency(300);
+    int callers = 3;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService threads = Executors.newFixedThreadPool(callers);
+    List<Future<?>> calls = new ArrayList<>();
+
+    // when
+    for (long transactionId = 1; transactionId <= callers; transactionId++) {
+      long id = transactionId;
+      calls.add(threads.submit(() -> {
+        start.await();
+        commit(id);
+        return null;
+      }));
+    }
+    start.countDown();
+    int rejected = 0;
+    for (Future<?> call : calls) {
+      try {
+        call.get(10, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(BulkheadFullException.class);
+        rejected++;
+      }
+    }
+    threads.shutdown();
+
+    // then - the third concurrent call never reached CMS
+    assertThat(rejected).isEqualTo(1);
+    assertThat(cms.requests()).isEqualTo(2);
+    assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(2);
+  }
+
+  private void commit(long transactionId) {
+    restTemplate.postForEntity(cms.url() + "/api/transactions/" + transactionId + "/commit",
+        "{}", String.class);
+  }
+}
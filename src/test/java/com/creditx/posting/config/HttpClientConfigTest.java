@@ -0,0 +1,71 @@
+package com.creditx.posting.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.creditx.posting.CmsStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+class HttpClientConfigTest {
+
+  private final HttpClientConfig config = new HttpClientConfig();
+  private SimpleMeterRegistry meterRegistry;
+  private CmsStubServer cms;
+  private CloseableHttpClient httpClient;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void setup() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    cms = CmsStubServer.start(0);
+    PoolingHttpClientConnectionManager connectionManager = config.cmsConnectionManager(10, 5,
+        500, 300, meterRegistry);
+    httpClient = config.cmsHttpClient(connectionManager, 300, 500, 30000);
+    restTemplate = config.restTemplate(new RestTemplateBuilder(), httpClient, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    httpClient.close();
+    cms.close();
+  }
+
+  @Test
+  void shouldReuseKeepAliveConnectionAndTimeCallsPerEndpoint() {
+    // when
+    for (long transactionId = 1; transactionId <= 20; transactionId++) {
+      restTemplate.postForEntity(cms.url() + "/api/transactions/" + transactionId + "/commit",
+          "{}", String.class);
+    }
+
+    // then
+    assertThat(cms.requests()).isEqualTo(20);
+    assertThat(cms.connections()).isEqualTo(1);
+    assertThat(meterRegistry.get("cms.client.requests")
+        .tag("endpoint", "/api/transactions/{id}/commit").tag("method", "POST")
+        .tag("outcome", "SUCCESS").timer().count()).isEqualTo(20);
+  }
+
+  @Test
+  void shouldFailHungCallAfterReadTimeout() {
+    // given
+    cms.hang();
+    long start = System.nanoTime();
+
+    // when & then
+    assertThatThrownBy(() -> restTemplate.postForEntity(
+        cms.url() + "/api/transactions/1/commit", "{}", String.class))
+        .isInstanceOf(ResourceAccessException.class);
+    assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(5000);
+    assertThat(meterRegistry.get("cms.client.requests").tag("outcome", "TIMEOUT").timer()
+        .count()).isEqualTo(1);
+  }
+}
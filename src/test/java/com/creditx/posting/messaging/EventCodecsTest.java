@@ -0,0 +1,92 @@
+package com.creditx.posting.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.dto.TransactionFailedEvent;
+import com.creditx.posting.messaging.EventCodecs.EncodedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.MimeTypeUtils;
+
+class EventCodecsTest {
+
+  private final EventCodecs eventCodecs = new EventCodecs(List.of(
+      new JsonEventCodec(new ObjectMapper().registerModule(new JavaTimeModule()), false),
+      new AvroEventCodec()));
+
+  @Test
+  void shouldRoundTripEventsThroughEachCodec() throws Exception {
+    // given
+    TransactionAuthorizedEvent authorized = TransactionAuthorizedEvent.builder()
+        .transactionId(123L).holdId(456L).issuerAccountId(1001L).merchantAccountId(2002L)
+        .amount(new BigDecimal("125.50")).currency("USD").status("AUTHORIZED").build();
+    TransactionFailedEvent failed = TransactionFailedEvent.builder().transactionId(123L)
+        .holdId(456L).accountId(1001L).amount(new BigDecimal("125.50")).currency("USD")
+        .status("FAILED").reason("CMS rejected the commit")
+        .failedAt(Instant.parse("2025-01-01T10:15:30.123Z")).build();
+
+    for (String contentType : List.of(MimeTypeUtils.APPLICATION_JSON_VALUE,
+        AvroEventCodec.CONTENT_TYPE)) {
+      EventCodec codec = eventCodecs.forContentType(contentType);
+
+      // when & then
+      assertThat(codec.decode(codec.encode(authorized), TransactionAuthorizedEvent.class))
+          .isEqualTo(authorized);
+      assertThat(codec.decode(codec.encode(failed), TransactionFailedEvent.class))
+          .isEqualTo(failed);
+    }
+  }
+
+  @Test
+  void shouldEncodeAvroSmallerThanJson() throws Exception {
+    // given
+    TransactionAuthorizedEvent event = TransactionAuthorizedEvent.builder().transactionId(123L)
+        .holdId(456L).issuerAccountId(1001L).merchantAccountId(2002L)
+        .amount(new BigDecimal("125.50")).currency("USD").status("AUTHORIZED").build();
+
+    // when
+    byte[] json = eventCodecs.forContentType(MimeTypeUtils.APPLICATION_JSON_VALUE).encode(event);
+    byte[] avro = eventCodecs.forContentType(AvroEventCodec.CONTENT_TYPE).encode(event);
+
+    // then
+    assertThat(avro.length).isLessThan(json.length);
+  }
+
+  @Test
+  void shouldDefaultToJsonAndIgnoreContentTypeParameters() {
+    assertThat(eventCodecs.forContentType(null)).isInstanceOf(JsonEventCodec.class);
+    assertThat(eventCodecs.forContentType("application/json;charset=UTF-8"))
+        .isInstanceOf(JsonEventCodec.class);
+    assertThat(eventCodecs.forContentType(MimeTypeUtils.APPLICATION_JSON))
+        .isInstanceOf(JsonEventCodec.class);
+    assertThatThrownBy(() -> eventCodecs.forContentType("application/x-protobuf"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldReencodeStoredOutboxJsonOfKnownEventTypes() throws Exception {
+    // given
+    String payload = "{\"transactionId\":123,\"holdId\":456,\"reason\":\"timeout\"}";
+
+    // when
+    EncodedPayload failed = eventCodecs.encodeOutboxPayload(EventTypes.TRANSACTION_FAILED,
+        payload, AvroEventCodec.CONTENT_TYPE);
+    EncodedPayload posted = eventCodecs.encodeOutboxPayload(EventTypes.TRANSACTION_POSTED,
+        payload, AvroEventCodec.CONTENT_TYPE);
+
+    // then
+    assertThat(failed.contentType()).isEqualTo(AvroEventCodec.CONTENT_TYPE);
+    assertThat(eventCodecs.decode(failed.value(), failed.contentType(),
+        TransactionFailedEvent.class)).isEqualTo(TransactionFailedEvent.builder()
+        .transactionId(123L).holdId(456L).reason("timeout").build());
+    assertThat(posted.contentType()).isEqualTo(MimeTypeUtils.APPLICATION_JSON_VALUE);
+    assertThat(new String(posted.value())).isEqualTo(payload);
+  }
+}
@@ -0,0 +1,116 @@
+package com.creditx.posting.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.creditx.posting.constants.EventTypes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.adapter.FilteringBatchMessageListenerAdapter;
+import org.springframework.kafka.listener.adapter.FilteringMessageListenerAdapter;
+import org.springframework.kafka.support.Acknowledgment;
+
+class EventTypeRecordFilterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private EventTypeRecordFilter<Object, Object> recordFilter;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    recordFilter = new EventTypeRecordFilter<>(new EventTypeFilter(meterRegistry));
+  }
+
+  @Test
+  void shouldDiscardOtherEventTypesAndKeepOrderWithinBatch() {
+    // given
+    ConsumerRecord<Object, Object> first = record(0, EventTypes.TRANSACTION_AUTHORIZED);
+    ConsumerRecord<Object, Object> hold = record(1, EventTypes.HOLD_CREATED);
+    ConsumerRecord<Object, Object> second = record(2, EventTypes.TRANSACTION_AUTHORIZED);
+    ConsumerRecord<Object, Object> posted = record(3, EventTypes.TRANSACTION_POSTED);
+    ConsumerRecord<Object, Object> unknown = record(4, "account.closed");
+    ConsumerRecord<Object, Object> untyped = record(5, null);
+
+    // when
+    List<ConsumerRecord<Object, Object>> kept = recordFilter.filterBatch(
+        new ArrayList<>(List.of(first, hold, second, posted, unknown, untyped)));
+
+    // then
+    assertThat(kept).containsExactly(first, second);
+    assertThat(dropped(EventTypes.HOLD_CREATED)).isEqualTo(1);
+    assertThat(dropped(EventTypes.TRANSACTION_POSTED)).isEqualTo(1);
+    assertThat(dropped(EventTypeFilter.OTHER_TYPE)).isEqualTo(1);
+    assertThat(dropped(EventTypeFilter.NO_TYPE)).isEqualTo(1);
+    assertThat(dropped(EventTypes.TRANSACTION_AUTHORIZED)).isZero();
+  }
+
+  @Test
+  void shouldKeepTransactionAuthorizedRecords() {
+    // when & then - also when the header mapper wrote the type JSON-quoted
+    assertThat(recordFilter.filter(record(0, EventTypes.TRANSACTION_AUTHORIZED))).isFalse();
+    assertThat(recordFilter.filter(record(1, "\"" + EventTypes.TRANSACTION_AUTHORIZED + "\"")))
+        .isFalse();
+  }
+
+  @Test
+  void shouldAcknowledgeDiscardedRecordWithoutPassingItOn() {
+    // given
+    @SuppressWarnings("unchecked")
+    AcknowledgingMessageListener<Object, Object> listener = mock(
+        AcknowledgingMessageListener.class);
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    FilteringMessageListenerAdapter<Object, Object> adapter =
+        new FilteringMessageListenerAdapter<>(listener, recordFilter, true);
+
+    // when
+    adapter.onMessage(record(0, EventTypes.HOLD_CREATED), acknowledgment, null);
+
+    // then
+    verify(acknowledgment).acknowledge();
+    verify(listener, never()).onMessage(any(), any(Acknowledgment.class));
+  }
+
+  @Test
+  void shouldAcknowledgeBatchLeftEmptyWithoutPassingItOn() {
+    // given
+    @SuppressWarnings("unchecked")
+    BatchAcknowledgingMessageListener<Object, Object> listener = mock(
+        BatchAcknowledgingMessageListener.class);
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    FilteringBatchMessageListenerAdapter<Object, Object> adapter =
+        new FilteringBatchMessageListenerAdapter<>(listener, recordFilter, true);
+
+    // when
+    adapter.onMessage(new ArrayList<>(List.of(record(0, EventTypes.HOLD_CREATED),
+        record(1, EventTypes.TRANSACTION_POSTED))), acknowledgment, null);
+
+    // then
+    verify(acknowledgment).acknowledge();
+    verify(listener, never()).onMessage(any(), any(Acknowledgment.class));
+  }
+
+  private double dropped(String eventType) {
+    return meterRegistry.get("consumer.records.dropped").tag("eventType", eventType).counter()
+        .count();
+  }
+
+  private static ConsumerRecord<Object, Object> record(long offset, String eventType) {
+    ConsumerRecord<Object, Object> record = new ConsumerRecord<>("transactions", 0, offset, "key",
+        "{}".getBytes(StandardCharsets.UTF_8));
+    if (eventType != null) {
+      record.headers().add(EventTypes.EVENT_TYPE_HEADER,
+          eventType.getBytes(StandardCharsets.UTF_8));
+    }
+    return record;
+  }
+}
@@ -1,21 +1,35 @@
 package com.creditx.posting.messaging;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,12 +38,20 @@ class OutboxStreamPublisherTest {
   @Mock
   private StreamBridge streamBridge;
 
+  @Mock
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Spy
+  private EventCodecs eventCodecs = new EventCodecs(
+      List.of(new JsonEventCodec(new ObjectMapper(), false), new AvroEventCodec()));
+
   @InjectMocks
   private OutboxStreamPublisher outboxStreamPublisher;
 
   @BeforeEach
   void setup() {
     ReflectionTestUtils.setField(outboxStreamPublisher, "bindingName", "test-binding");
+    ReflectionTestUtils.setField(outboxStreamPublisher, "topic", "test-topic");
   }
 
   @Test
@@ -38,15 +60,18 @@ class OutboxStreamPublisherTest {
     String key = "test-key";
     String payload = "{\"name\":\"test-payload\", \"value\":100}";
     String eventType = "transaction.posted";
-    ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    ArgumentCaptor<Message<byte[]>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
     // when
     outboxStreamPublisher.publish(key, payload, eventType);
     // then
     verify(streamBridge, times(1)).send(eq("test-binding"), messageCaptor.capture());
-    Message<String> sentMessage = messageCaptor.getValue();
-    assertThat(sentMessage.getPayload()).isEqualTo(payload);
+    Message<byte[]> sentMessage = messageCaptor.getValue();
+    assertThat(sentMessage.getPayload()).isEqualTo(payload.getBytes(StandardCharsets.UTF_8));
     assertThat(sentMessage.getHeaders().get("key")).isEqualTo(key);
     assertThat(sentMessage.getHeaders().get("eventType")).isEqualTo(eventType);
+    assertThat(sentMessage.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+        .isEqualTo("application/json");
   }
 
   @Test
@@ -55,7 +80,6 @@ class OutboxStreamPublisherTest {
     String key = null;
     String payload = "{\"name\":\"test-payload\", \"value\":100}";
     String eventType = "transaction.posted";
-    ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(Message.class);
     // when
     outboxStreamPublisher.publish(key, payload, eventType);
     // then
@@ -68,7 +92,6 @@ class OutboxStreamPublisherTest {
     String key = "test-key";
     String payload = "";
     String eventType = "transaction.posted";
-    ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(Message.class);
     // when
     outboxStreamPublisher.publish(key, payload, eventType);
     // then
@@ -81,10 +104,91 @@ class OutboxStreamPublisherTest {
     String key = "test-key";
     String payload = "{\"name\":\"test-payload\", \"value\":100}";
     String eventType = "";
-    ArgumentCaptor<Message<String>> messageCaptor = ArgumentCaptor.forClass(Message.class);
     // when
     outboxStreamPublisher.publish(key, payload, eventType);
     // then
     verify(streamBridge, never()).send(anyString(), anyString());
   }
+
+  @Test
+  void shouldFailWhenBindingRejectsMessage() {
+    // given
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(false);
+    // when & then
+    assertThatThrownBy(() -> outboxStreamPublisher.publish("test-key", "{\"value\":1}",
+        "transaction.posted")).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldPublishAsyncWithTopicKeyAndHeaders() {
+    // given
+    String payload = "{\"name\":\"test-payload\", \"value\":100}";
+    CompletableFuture<SendResult<String, byte[]>> ack = new CompletableFuture<>();
+    ArgumentCaptor<Message<?>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    when(kafkaTemplate.send(any(Message.class))).thenReturn(ack);
+    // when
+    CompletableFuture<SendResult<String, byte[]>> result = outboxStreamPublisher.publishAsync(
+        "test-key", payload, "transaction.posted");
+    // then
+    verify(kafkaTemplate, times(1)).send(messageCaptor.capture());
+    Message<?> sentMessage = messageCaptor.getValue();
+    assertThat(sentMessage.getPayload()).isEqualTo(payload.getBytes(StandardCharsets.UTF_8));
+    assertThat(sentMessage.getHeaders().get(KafkaHeaders.TOPIC)).isEqualTo("test-topic");
+    assertThat(sentMessage.getHeaders().get(KafkaHeaders.KEY)).isEqualTo("test-key");
+    assertThat(sentMessage.getHeaders().get("eventType")).isEqualTo("transaction.posted");
+    assertThat(result).isNotDone();
+    verify(streamBridge, never()).send(anyString(), any());
+  }
+
+  @Test
+  void shouldSkipAsyncPublishWithoutEventType() {
+    // when
+    CompletableFuture<SendResult<String, byte[]>> result = outboxStreamPublisher.publishAsync(
+        "test-key", "{\"value\":1}", " ");
+    // then
+    assertThat(result).isCompleted();
+    verify(kafkaTemplate, never()).send(any(Message.class));
+  }
+
+  @Test
+  void shouldPublishKnownEventTypeInConfiguredContentType() throws Exception {
+    // given
+    ReflectionTestUtils.setField(outboxStreamPublisher, "contentType",
+        AvroEventCodec.CONTENT_TYPE);
+    String payload = "{\"transactionId\":1,\"holdId\":11,\"currency\":\"USD\"}";
+    ArgumentCaptor<Message<byte[]>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+
+    // when
+    outboxStreamPublisher.publish("test-key", payload, EventTypes.TRANSACTION_AUTHORIZED);
+
+    // then
+    verify(streamBridge, times(1)).send(eq("test-binding"), messageCaptor.capture());
+    Message<byte[]> sentMessage = messageCaptor.getValue();
+    assertThat(sentMessage.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+        .isEqualTo(AvroEventCodec.CONTENT_TYPE);
+    assertThat(new AvroEventCodec().decode(sentMessage.getPayload(),
+        TransactionAuthorizedEvent.class)).isEqualTo(TransactionAuthorizedEvent.builder()
+        .transactionId(1L).holdId(11L).currency("USD").build());
+  }
+
+  @Test
+  void shouldPublishEventTypeWithoutPayloadClassAsJson() {
+    // given
+    ReflectionTestUtils.setField(outboxStreamPublisher, "contentType",
+        AvroEventCodec.CONTENT_TYPE);
+    String payload = "{\"value\":1}";
+    ArgumentCaptor<Message<byte[]>> messageCaptor = ArgumentCaptor.forClass(Message.class);
+    when(streamBridge.send(eq("test-binding"), any(Message.class))).thenReturn(true);
+
+    // when
+    outboxStreamPublisher.publish("test-key", payload, EventTypes.TRANSACTION_POSTED);
+
+    // then
+    verify(streamBridge, times(1)).send(eq("test-binding"), messageCaptor.capture());
+    Message<byte[]> sentMessage = messageCaptor.getValue();
+    assertThat(sentMessage.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+        .isEqualTo("application/json");
+    assertThat(sentMessage.getPayload()).isEqualTo(payload.getBytes(StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,191 @@
+package com.creditx.posting.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.config.CmsLimitExceededException;
+import com.creditx.posting.constants.EventTypes;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.impl.ReactiveTransactionEventProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ReactiveTransactionEventListenerTest {
+
+  private ReactiveTransactionEventProcessor processor;
+  private EventTypeFilter eventTypeFilter;
+  private ReactiveTransactionEventListener listener;
+
+  @BeforeEach
+  void setup() {
+    processor = mock(ReactiveTransactionEventProcessor.class);
+    eventTypeFilter = mock(EventTypeFilter.class);
+    listener = new ReactiveTransactionEventListener(processor,
+        new EventCodecs(List.of(new JsonEventCodec(new ObjectMapper(), false))), eventTypeFilter);
+    ReflectionTestUtils.setField(listener, "concurrency", 4);
+    ReflectionTestUtils.setField(listener, "cmsUnavailableRetryInterval", 10L);
+    ReflectionTestUtils.setField(listener, "backOffInitialInterval", 10L);
+    ReflectionTestUtils.setField(listener, "backOffMaxInterval", 10L);
+  }
+
+  @Test
+  void shouldAcknowledgeOnlyOnceTheRecordIsProcessed() {
+    // given
+    Sinks.Empty<Void> commit = Sinks.empty();
+    when(processor.process(any(), any(), any())).thenReturn(commit.asMono());
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    Message<byte[]> message = message(1L, "key-1", acknowledgment);
+
+    // when
+    Mono<Void> done = listener.transactionAuthorizedReactive().apply(Flux.just(message))
+        .cache();
+    done.subscribe();
+
+    // then
+    verify(acknowledgment, never()).acknowledge();
+    commit.tryEmitEmpty();
+    done.block(Duration.ofSeconds(5));
+    verify(acknowledgment).acknowledge();
+    verify(processor).process(any(), eq(message.getPayload()),
+        eq(Instant.ofEpochMilli(1_700_000_000_000L)));
+  }
+
+  @Test
+  void shouldProcessRecordsWithTheSameKeyInOrderAndOtherKeysConcurrently() {
+    // given
+    Map<Long, Sinks.Empty<Void>> commits = new ConcurrentHashMap<>();
+    List<Long> started = new CopyOnWriteArrayList<>();
+    when(processor.process(any(), any(), any())).thenAnswer(invocation -> {
+      TransactionAuthorizedEvent event = invocation.getArgument(0);
+      started.add(event.getTransactionId());
+      return commits.computeIfAbsent(event.getTransactionId(), id -> Sinks.empty()).asMono();
+    });
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    Flux<Message<byte[]>> messages = Flux.just(message(1L, "key-1", acknowledgment),
+        message(2L, "key-1", acknowledgment), message(3L, "key-2", acknowledgment));
+
+    // when
+    Mono<Void> done = listener.transactionAuthorizedReactive().apply(messages).cache();
+    done.subscribe();
+
+    // then
+    assertThat(started).containsExactlyInAnyOrder(1L, 3L);
+    commits.get(1L).tryEmitEmpty();
+    assertThat(started).containsExactlyInAnyOrder(1L, 3L, 2L);
+    commits.get(2L).tryEmitEmpty();
+    commits.get(3L).tryEmitEmpty();
+    done.block(Duration.ofSeconds(5));
+    verify(acknowledgment, times(3)).acknowledge();
+  }
+
+  @Test
+  void shouldRetryRejectedCommitsUntilCmsTakesThem() {
+    // given
+    AtomicInteger attempts = new AtomicInteger();
+    when(processor.process(any(), any(), any())).thenReturn(Mono.defer(
+        () -> attempts.incrementAndGet() <= 5
+            ? Mono.error(new RuntimeException(new CmsLimitExceededException(1, 0)))
+            : Mono.empty()));
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+    // when
+    listener.transactionAuthorizedReactive()
+        .apply(Flux.just(message(1L, "key-1", acknowledgment))).block(Duration.ofSeconds(5));
+
+    // then
+    assertThat(attempts).hasValue(6);
+    verify(acknowledgment).acknowledge();
+  }
+
+  @Test
+  void shouldGiveUpAfterMaxAttemptsAndAcknowledge() {
+    // given
+    AtomicInteger attempts = new AtomicInteger();
+    when(processor.process(any(), any(), any())).thenReturn(Mono.defer(() -> {
+      attempts.incrementAndGet();
+      return Mono.error(new RuntimeException("Failed to commit transaction with CMS"));
+    }));
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+    // when
+    listener.transactionAuthorizedReactive()
+        .apply(Flux.just(message(1L, "key-1", acknowledgment))).block(Duration.ofSeconds(5));
+
+    // then
+    assertThat(attempts).hasValue(3);
+    verify(acknowledgment).acknowledge();
+  }
+
+  @Test
+  void shouldAcknowledgeSkippedRecordsWithoutProcessingThem() {
+    // given
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    Message<byte[]> otherType = MessageBuilder.withPayload(bytes("{\"transactionId\":1}"))
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, "transaction.reversed")
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment).build();
+    Message<byte[]> withoutHold = MessageBuilder.withPayload(bytes("{\"transactionId\":2}"))
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_AUTHORIZED)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment).build();
+
+    // when
+    listener.transactionAuthorizedReactive().apply(Flux.just(otherType, withoutHold))
+        .block(Duration.ofSeconds(5));
+
+    // then
+    verify(eventTypeFilter).recordDropped("transaction.reversed");
+    verify(processor, never()).process(any(), any(), any());
+    verify(acknowledgment, times(2)).acknowledge();
+  }
+
+  @Test
+  void shouldRefuseMoreLanesThanTheBulkheadHasSlots() {
+    // given
+    ReflectionTestUtils.setField(listener, "concurrency", 64);
+    ReflectionTestUtils.setField(listener, "bulkheadMaxConcurrentCalls", 50);
+
+    // when / then
+    assertThatThrownBy(() -> listener.checkConcurrency())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("app.creditmain.bulkhead.max-concurrent-calls");
+  }
+
+  private static Message<byte[]> message(long transactionId, String key,
+      Acknowledgment acknowledgment) {
+    return MessageBuilder
+        .withPayload(bytes("{\"transactionId\":" + transactionId + ",\"holdId\":"
+            + (transactionId + 100) + "}"))
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_AUTHORIZED)
+        .setHeader(KafkaHeaders.RECEIVED_KEY, bytes(key))
+        .setHeader(KafkaHeaders.RECEIVED_TIMESTAMP, 1_700_000_000_000L)
+        .setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment)
+        .build();
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
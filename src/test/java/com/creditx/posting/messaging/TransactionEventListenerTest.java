@@ -1,17 +1,28 @@
 package com.creditx.posting.messaging;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import com.creditx.posting.constants.EventTypes;
 import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.BatchRecordFailedException;
 import com.creditx.posting.service.TransactionEventService;
 import com.creditx.posting.tracing.TransactionSpanTagger;
 import com.creditx.posting.util.EventValidationUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,9 +32,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionEventListenerTest {
@@ -31,16 +46,20 @@ class TransactionEventListenerTest {
   @Mock
   private TransactionEventService transactionEventService;
 
-  @Mock
-  private ObjectMapper objectMapper;
+  @Spy
+  private EventCodecs eventCodecs = new EventCodecs(
+      List.of(new JsonEventCodec(new ObjectMapper(), false), new AvroEventCodec()));
 
   @Mock
   private TransactionSpanTagger transactionSpanTagger;
 
+  @Mock
+  private EventTypeFilter eventTypeFilter;
+
   @InjectMocks
   private TransactionEventListener transactionEventListener;
 
-  private Consumer<Message<String>> transactionAuthorizedConsumer;
+  private Consumer<Message<byte[]>> transactionAuthorizedConsumer;
 
   @BeforeEach
   void setup() {
@@ -50,10 +69,11 @@ class TransactionEventListenerTest {
   @Test
   void shouldProcessValidTransactionAuthorizedEvent() throws Exception {
     // given
-    String payload = "{\"transactionId\":123,\"holdId\":456}";
+    byte[] payload = bytes("{\"transactionId\":123,\"holdId\":456}");
 
-    Message<String> message = MessageBuilder.withPayload(payload)
-        .setHeader("eventType", EventTypes.TRANSACTION_AUTHORIZED).build();
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader("eventType", EventTypes.TRANSACTION_AUTHORIZED)
+        .setHeader(KafkaHeaders.RECEIVED_TIMESTAMP, 1_700_000_000_000L).build();
 
     TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
     event.setTransactionId(123L);
@@ -65,13 +85,12 @@ class TransactionEventListenerTest {
               () -> EventValidationUtils.validateEventType(message, EventTypes.TRANSACTION_AUTHORIZED))
           .thenReturn(true);
 
-      when(objectMapper.readValue(payload, TransactionAuthorizedEvent.class)).thenReturn(event);
-
       // when
       transactionAuthorizedConsumer.accept(message);
 
-      // then
-      verify(transactionEventService, times(1)).processTransactionAuthorized(event);
+      // then - the record bytes are handed on for hashing as received
+      verify(transactionEventService, times(1)).processTransactionAuthorized(event, payload,
+          Instant.ofEpochMilli(1_700_000_000_000L));
       verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
     }
   }
@@ -82,9 +101,9 @@ class TransactionEventListenerTest {
       EventTypes.TRANSACTION_POSTED})
   void shouldNotProcessInvalidTransactionAuthorizedEvent(String eventType) throws Exception {
     // given
-    String payload = "{\"transactionId\":123,\"holdId\":456}";
+    byte[] payload = bytes("{\"transactionId\":123,\"holdId\":456}");
 
-    Message<String> message = MessageBuilder.withPayload(payload).setHeader("eventType", eventType)
+    Message<byte[]> message = MessageBuilder.withPayload(payload).setHeader("eventType", eventType)
         .build();
 
     TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
@@ -101,9 +120,111 @@ class TransactionEventListenerTest {
       transactionAuthorizedConsumer.accept(message);
 
       // then
-      verify(transactionEventService, never()).processTransactionAuthorized(event);
+      verify(transactionEventService, never()).processTransactionAuthorized(eq(event), any(),
+          any());
       // Tagger shouldn't be called because validation failed
       verify(transactionSpanTagger, never()).tagTransactionId(123L);
+      verify(eventTypeFilter, times(1)).recordDropped(eventType);
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  void shouldDecodeRecordByItsContentType() throws Exception {
+    // given
+    TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+    event.setTransactionId(123L);
+    event.setHoldId(456L);
+    byte[] payload = new AvroEventCodec().encode(event);
+    Message<byte[]> message = MessageBuilder.withPayload(payload)
+        .setHeader(EventTypes.EVENT_TYPE_HEADER, EventTypes.TRANSACTION_AUTHORIZED)
+        .setHeader(MessageHeaders.CONTENT_TYPE, AvroEventCodec.CONTENT_TYPE).build();
+
+    // when
+    transactionAuthorizedConsumer.accept(message);
+
+    // then
+    verify(transactionEventService, times(1)).processTransactionAuthorized(event, payload, null);
+  }
+
+  @Test
+  void shouldProcessBatchWithPerRecordHeaders() throws Exception {
+    // given
+    byte[] valid = bytes("{\"transactionId\":1,\"holdId\":11}");
+    byte[] wrongType = bytes("{\"transactionId\":2,\"holdId\":22}");
+    byte[] noHold = bytes("{\"transactionId\":3}");
+    TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+    event.setTransactionId(1L);
+    event.setHoldId(11L);
+
+    // when
+    transactionEventListener.transactionAuthorizedBatch().accept(batch(
+        List.of(valid, wrongType, noHold), EventTypes.TRANSACTION_AUTHORIZED,
+        EventTypes.HOLD_CREATED, EventTypes.TRANSACTION_AUTHORIZED));
+
+    // then
+    verify(transactionEventService, times(1)).processTransactionAuthorizedBatch(List.of(event),
+        List.of(valid), List.of(Instant.ofEpochMilli(1000)));
+    verify(transactionEventService, never()).processTransactionAuthorized(any(), any(), any());
+    verify(eventTypeFilter, times(1)).recordDropped(EventTypes.HOLD_CREATED);
+  }
+
+  @Test
+  void shouldReportFailedBatchRecordAtItsPositionInThePoll() throws Exception {
+    // given
+    byte[] skipped = bytes("{\"transactionId\":1,\"holdId\":11}");
+    byte[] first = bytes("{\"transactionId\":2,\"holdId\":22}");
+    byte[] failing = bytes("{\"transactionId\":3,\"holdId\":33}");
+    TransactionAuthorizedEvent firstEvent = new TransactionAuthorizedEvent();
+    firstEvent.setTransactionId(2L);
+    firstEvent.setHoldId(22L);
+    TransactionAuthorizedEvent failingEvent = new TransactionAuthorizedEvent();
+    failingEvent.setTransactionId(3L);
+    failingEvent.setHoldId(33L);
+    doThrow(new BatchRecordFailedException(1, new RuntimeException("CMS down")))
+        .when(transactionEventService)
+        .processTransactionAuthorizedBatch(eq(List.of(firstEvent, failingEvent)), any(), any());
+    Message<List<byte[]>> batch = batch(List.of(skipped, first, failing), EventTypes.HOLD_VOIDED,
+        EventTypes.TRANSACTION_AUTHORIZED, EventTypes.TRANSACTION_AUTHORIZED);
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventListener.transactionAuthorizedBatch().accept(batch))
+        .isInstanceOfSatisfying(BatchListenerFailedException.class,
+            e -> assertThat(e.getIndex()).isEqualTo(2));
+  }
+
+  @Test
+  void shouldProcessRecordsBeforeUndecodableOneThenFailFromIt() throws Exception {
+    // given
+    byte[] valid = bytes("{\"transactionId\":1,\"holdId\":11}");
+    byte[] garbage = bytes("not json");
+    TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+    event.setTransactionId(1L);
+    event.setHoldId(11L);
+    Message<List<byte[]>> batch = batch(List.of(valid, garbage, valid),
+        EventTypes.TRANSACTION_AUTHORIZED, EventTypes.TRANSACTION_AUTHORIZED,
+        EventTypes.TRANSACTION_AUTHORIZED);
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventListener.transactionAuthorizedBatch().accept(batch))
+        .isInstanceOfSatisfying(BatchListenerFailedException.class,
+            e -> assertThat(e.getIndex()).isEqualTo(1));
+    verify(transactionEventService, times(1)).processTransactionAuthorizedBatch(eq(List.of(event)),
+        eq(List.of(valid)), any());
+  }
+
+  private static byte[] bytes(String json) {
+    return json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Message<List<byte[]>> batch(List<byte[]> payloads, String... eventTypes) {
+    List<Map<String, Object>> headers = Arrays.stream(eventTypes)
+        .map(eventType -> Map.<String, Object>of(EventTypes.EVENT_TYPE_HEADER, eventType))
+        .toList();
+    List<Long> timestamps = IntStream.rangeClosed(1, payloads.size())
+        .mapToObj(i -> 1000L * i).toList();
+    return MessageBuilder.withPayload(payloads)
+        .setHeader(KafkaHeaders.BATCH_CONVERTED_HEADERS, headers)
+        .setHeader(KafkaHeaders.RECEIVED_TIMESTAMP, timestamps).build();
+  }
+}
+
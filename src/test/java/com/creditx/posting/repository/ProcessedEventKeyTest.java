@@ -0,0 +1,62 @@
+package com.creditx.posting.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.creditx.posting.util.EventIdGenerator;
+import com.creditx.posting.util.PayloadHashAlgorithm;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ProcessedEventKeyTest {
+
+  @Test
+  void shouldRoundTripGeneratedEventId() {
+    // given
+    String eventId = EventIdGenerator.generateEventId("transaction.authorized", 123L, 456L);
+
+    // when
+    ProcessedEventKey key = ProcessedEventKey.of(eventId);
+
+    // then
+    assertThat(key).isEqualTo(new ProcessedEventKey(1, 123L, 456L));
+    assertThat(key.eventId()).isEqualTo(eventId);
+  }
+
+  @Test
+  void shouldHaveNoCompactFormForLegacyOrUnknownEventIds() {
+    assertThat(ProcessedEventKey.parse("transaction.authorized-123-ab12cd34")).isEmpty();
+    assertThat(ProcessedEventKey.parse("transaction.reversed-123-456")).isEmpty();
+    assertThat(ProcessedEventKey.parse("event-1")).isEmpty();
+    assertThat(ProcessedEventKey.parse("")).isEmpty();
+    assertThatThrownBy(() -> ProcessedEventKey.of("event-1"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRoundTripPayloadHashesOfBothAlgorithms() {
+    // given
+    byte[] payload = "{\"transactionId\":1}".getBytes(StandardCharsets.UTF_8);
+    String sha256 = EventIdGenerator.generatePayloadHash(payload, PayloadHashAlgorithm.SHA_256);
+    String murmur = EventIdGenerator.generatePayloadHash(payload,
+        PayloadHashAlgorithm.MURMUR3_128);
+
+    // when
+    byte[] sha256Digest = ProcessedEventKey.requireDigest(sha256);
+    byte[] murmurDigest = ProcessedEventKey.requireDigest(murmur);
+
+    // then
+    assertThat(sha256Digest).hasSize(32);
+    assertThat(murmurDigest).hasSize(16);
+    assertThat(ProcessedEventKey.payloadHash(sha256Digest)).isEqualTo(sha256);
+    assertThat(ProcessedEventKey.payloadHash(murmurDigest)).isEqualTo(murmur);
+  }
+
+  @Test
+  void shouldHaveNoDigestForNonHexHashes() {
+    assertThat(ProcessedEventKey.digest("hash-1")).isNull();
+    assertThat(ProcessedEventKey.digest("z".repeat(64))).isNull();
+    assertThatThrownBy(() -> ProcessedEventKey.requireDigest("hash-1"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
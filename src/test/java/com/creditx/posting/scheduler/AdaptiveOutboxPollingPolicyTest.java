@@ -0,0 +1,139 @@
+package com.creditx.posting.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveOutboxPollingPolicyTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private AdaptiveOutboxPollingPolicy policy;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    policy = new AdaptiveOutboxPollingPolicy(50, 10, 400, 1000, 8000, 500, meterRegistry);
+  }
+
+  @Test
+  void shouldDrainImmediatelyWhileBatchesComeBackFull() {
+    // when
+    long delay = policy.onBatchCompleted(50, 50, 400);
+
+    // then
+    assertThat(delay).isZero();
+  }
+
+  @Test
+  void shouldReturnToBaseIntervalAfterPartialBatch() {
+    // given
+    policy.onBatchCompleted(50, 50, 100);
+
+    // when
+    long delay = policy.onBatchCompleted(100, 7, 100);
+
+    // then
+    assertThat(delay).isEqualTo(1000);
+  }
+
+  @Test
+  void shouldBackOffTowardMaxIdleIntervalWhenEmpty() {
+    // when
+    long first = policy.onBatchCompleted(50, 0, 5);
+    long second = policy.onBatchCompleted(50, 0, 5);
+    long third = policy.onBatchCompleted(50, 0, 5);
+    long fourth = policy.onBatchCompleted(50, 0, 5);
+    long fifth = policy.onBatchCompleted(50, 0, 5);
+
+    // then
+    assertThat(first).isEqualTo(2000);
+    assertThat(second).isEqualTo(4000);
+    assertThat(third).isEqualTo(8000);
+    assertThat(fourth).isEqualTo(8000);
+    assertThat(fifth).isEqualTo(8000);
+  }
+
+  @Test
+  void shouldGrowBatchSizeWhileFullBatchesAreFastUpToMax() {
+    // when
+    policy.onBatchCompleted(50, 50, 100);
+    int afterFirst = policy.batchSize();
+    policy.onBatchCompleted(100, 100, 100);
+    policy.onBatchCompleted(200, 200, 100);
+    policy.onBatchCompleted(400, 400, 100);
+
+    // then
+    assertThat(afterFirst).isEqualTo(100);
+    assertThat(policy.batchSize()).isEqualTo(400);
+  }
+
+  @Test
+  void shouldKeepBatchSizeWhenFullBatchIsNearTargetLatency() {
+    // when
+    policy.onBatchCompleted(50, 50, 400);
+
+    // then
+    assertThat(policy.batchSize()).isEqualTo(50);
+  }
+
+  @Test
+  void shouldShrinkBatchSizeWhenLatencyExceedsTargetDownToMin() {
+    // when
+    policy.onBatchCompleted(50, 50, 900);
+    int afterFirst = policy.batchSize();
+    policy.onBatchCompleted(25, 25, 900);
+    policy.onBatchCompleted(12, 12, 900);
+
+    // then
+    assertThat(afterFirst).isEqualTo(25);
+    assertThat(policy.batchSize()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldNotGrowBatchSizeOnPartialBatches() {
+    // when
+    policy.onBatchCompleted(50, 20, 10);
+
+    // then
+    assertThat(policy.batchSize()).isEqualTo(50);
+  }
+
+  @Test
+  void shouldBackOffAfterFailedBatch() {
+    // given
+    policy.onBatchCompleted(50, 50, 100);
+
+    // when
+    long delay = policy.onBatchFailed();
+
+    // then
+    assertThat(delay).isEqualTo(1000);
+  }
+
+  @Test
+  void shouldExposeIntervalAndBatchSizeAsGauges() {
+    // when
+    policy.onBatchCompleted(50, 0, 5);
+    policy.onBatchCompleted(50, 50, 900);
+
+    // then
+    assertThat(meterRegistry.get("outbox.publisher.interval").gauge().value()).isZero();
+    assertThat(meterRegistry.get("outbox.publisher.batch.size").gauge().value()).isEqualTo(25);
+  }
+
+  @Test
+  void shouldRejectInvalidBounds() {
+    assertThatThrownBy(() -> new AdaptiveOutboxPollingPolicy(50, 100, 10, 1000, 8000, 500,
+        meterRegistry)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRejectBatchSizeBeyondTheInListLimit() {
+    assertThatThrownBy(() -> new AdaptiveOutboxPollingPolicy(50, 10, 1001, 1000, 8000, 500,
+        meterRegistry)).isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("app.outbox.max-batch-size");
+  }
+}
@@ -0,0 +1,212 @@
+package com.creditx.posting.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.model.OutboxEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedOutboxDispatcherTest {
+
+  private static final int AGGREGATES = 64;
+  private static final int EVENTS_PER_AGGREGATE = 50;
+  private static final long TIMEOUT = 30_000;
+
+  private final KeyOrderedOutboxDispatcher dispatcher = new KeyOrderedOutboxDispatcher(8);
+  private final ExecutorService broker = Executors.newFixedThreadPool(16);
+  private long eventIdSequence;
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.shutdown();
+    broker.shutdownNow();
+  }
+
+  @Test
+  void shouldPreserveOrderPerAggregateWithBlockingSends() {
+    // given
+    List<OutboxEvent> events = interleavedEvents();
+    Map<Long, List<Long>> sent = new ConcurrentHashMap<>();
+
+    // when
+    OutboxDispatchResult result = dispatcher.dispatch(events, event -> {
+      record(sent, event);
+      randomPause();
+      return CompletableFuture.completedFuture(null);
+    }, TIMEOUT);
+
+    // then
+    assertThat(result.publishedIds()).hasSize(events.size());
+    assertPerAggregateOrder(events, sent);
+  }
+
+  @Test
+  void shouldPreserveOrderPerAggregateWithAsyncAcknowledgements() {
+    // given
+    List<OutboxEvent> events = interleavedEvents();
+    Map<Long, List<Long>> sent = new ConcurrentHashMap<>();
+
+    // when - acknowledgements complete out of order on broker threads
+    OutboxDispatchResult result = dispatcher.dispatch(events, event -> {
+      record(sent, event);
+      return CompletableFuture.runAsync(KeyOrderedOutboxDispatcherTest::randomPause, broker);
+    }, TIMEOUT);
+
+    // then
+    assertThat(result.publishedIds()).containsExactlyElementsOf(
+        events.stream().map(OutboxEvent::getEventId).toList());
+    assertThat(result.failedIds()).isEmpty();
+    assertThat(result.pendingIds()).isEmpty();
+    assertPerAggregateOrder(events, sent);
+  }
+
+  @Test
+  void shouldSendDifferentAggregatesConcurrently() {
+    // given
+    List<OutboxEvent> events = interleavedEvents();
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    // when
+    dispatcher.dispatch(events, event -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      return CompletableFuture.runAsync(KeyOrderedOutboxDispatcherTest::randomPause, broker)
+          .whenComplete((ack, e) -> inFlight.decrementAndGet());
+    }, TIMEOUT);
+
+    // then - at most one event per aggregate is in flight, but many aggregates are
+    assertThat(maxInFlight.get()).isGreaterThan(1).isLessThanOrEqualTo(AGGREGATES);
+  }
+
+  @Test
+  void shouldBlockOnlyLaterEventsOfTheFailedAggregate() {
+    // given
+    OutboxEvent a1 = event(1L);
+    OutboxEvent b1 = event(2L);
+    OutboxEvent a2 = event(1L);
+    OutboxEvent b2 = event(2L);
+    OutboxEvent a3 = event(1L);
+    OutboxEvent c1 = event(3L);
+    List<Long> attempted = Collections.synchronizedList(new ArrayList<>());
+
+    // when
+    OutboxDispatchResult result = dispatcher.dispatch(List.of(a1, b1, a2, b2, a3, c1), event -> {
+      attempted.add(event.getEventId());
+      if (event == a2) {
+        return CompletableFuture.failedFuture(new RuntimeException("broker down"));
+      }
+      return CompletableFuture.supplyAsync(() -> null, broker);
+    }, TIMEOUT);
+
+    // then
+    assertThat(attempted).doesNotContain(a3.getEventId());
+    assertThat(result.publishedIds()).containsExactly(a1.getEventId(), b1.getEventId(),
+        b2.getEventId(), c1.getEventId());
+    assertThat(result.failedIds()).containsExactly(a2.getEventId());
+    assertThat(result.blockedIds()).containsExactly(a3.getEventId());
+  }
+
+  @Test
+  void shouldTreatSenderExceptionAsFailure() {
+    // given
+    OutboxEvent event = event(1L);
+    OutboxEvent next = event(1L);
+
+    // when
+    OutboxDispatchResult result = dispatcher.dispatch(List.of(event, next), e -> {
+      throw new IllegalStateException("binding rejected");
+    }, TIMEOUT);
+
+    // then
+    assertThat(result.failedIds()).containsExactly(event.getEventId());
+    assertThat(result.blockedIds()).containsExactly(next.getEventId());
+  }
+
+  @Test
+  void shouldReportEventsWithoutOutcomeAsPendingAfterTimeout() {
+    // given
+    OutboxEvent acked = event(1L);
+    OutboxEvent stuck = event(2L);
+    OutboxEvent behindStuck = event(2L);
+
+    // when
+    OutboxDispatchResult result = dispatcher.dispatch(List.of(acked, stuck, behindStuck),
+        event -> event == acked ? CompletableFuture.completedFuture(null)
+            : new CompletableFuture<>(), 100);
+
+    // then
+    assertThat(result.publishedIds()).containsExactly(acked.getEventId());
+    assertThat(result.pendingIds()).containsExactly(stuck.getEventId(),
+        behindStuck.getEventId());
+  }
+
+  @Test
+  void shouldSendNothingMoreOnceTheBatchTimedOut() throws Exception {
+    // given
+    OutboxEvent slow = event(1L);
+    OutboxEvent behindSlow = event(1L);
+    CompletableFuture<Void> slowAck = new CompletableFuture<>();
+    List<Long> sent = Collections.synchronizedList(new ArrayList<>());
+
+    // when
+    OutboxDispatchResult result = dispatcher.dispatch(List.of(slow, behindSlow), event -> {
+      sent.add(event.getEventId());
+      return event == slow ? slowAck : CompletableFuture.completedFuture(null);
+    }, 100);
+    slowAck.complete(null);
+    TimeUnit.MILLISECONDS.sleep(200);
+
+    // then - the late acknowledgement does not let the next event of the aggregate go out
+    assertThat(result.pendingIds()).containsExactly(slow.getEventId(), behindSlow.getEventId());
+    assertThat(sent).containsExactly(slow.getEventId());
+  }
+
+  private List<OutboxEvent> interleavedEvents() {
+    List<OutboxEvent> events = new ArrayList<>(AGGREGATES * EVENTS_PER_AGGREGATE);
+    for (int i = 0; i < EVENTS_PER_AGGREGATE; i++) {
+      for (long aggregateId = 1; aggregateId <= AGGREGATES; aggregateId++) {
+        events.add(event(aggregateId));
+      }
+    }
+    return events;
+  }
+
+  private OutboxEvent event(long aggregateId) {
+    OutboxEvent event = new OutboxEvent();
+    event.setEventId(++eventIdSequence);
+    event.setAggregateId(aggregateId);
+    event.setEventType("transaction.posted");
+    event.setPayload("{\"transactionId\":" + eventIdSequence + "}");
+    return event;
+  }
+
+  private static void record(Map<Long, List<Long>> sent, OutboxEvent event) {
+    sent.computeIfAbsent(event.getAggregateId(),
+        k -> Collections.synchronizedList(new ArrayList<>())).add(event.getEventId());
+  }
+
+  private static void assertPerAggregateOrder(List<OutboxEvent> events,
+      Map<Long, List<Long>> sent) {
+    assertThat(sent).hasSize(AGGREGATES);
+    sent.forEach((aggregateId, sentIds) -> assertThat(sentIds).containsExactlyElementsOf(
+        events.stream().filter(e -> e.getAggregateId().equals(aggregateId))
+            .map(OutboxEvent::getEventId).toList()));
+  }
+
+  private static void randomPause() {
+    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(
+        ThreadLocalRandom.current().nextInt(50, 500)));
+  }
+}
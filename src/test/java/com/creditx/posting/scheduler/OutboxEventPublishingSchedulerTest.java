@@ -1,24 +1,33 @@
 package com.creditx.posting.scheduler;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.creditx.posting.messaging.OutboxPublishMode;
 import com.creditx.posting.messaging.OutboxStreamPublisher;
 import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.service.ClaimedOutboxEvents;
 import com.creditx.posting.service.OutboxEventService;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -31,12 +40,23 @@ class OutboxEventPublishingSchedulerTest {
   @Mock
   private OutboxStreamPublisher outboxStreamPublisher;
 
+  @Spy
+  private KeyOrderedOutboxDispatcher dispatcher = new KeyOrderedOutboxDispatcher(2);
+
   @InjectMocks
   private OutboxEventPublishingScheduler outboxEventPublishingScheduler;
 
+  private long eventIdSequence;
+
   @BeforeEach
   void setup() {
-    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "batchSize", 10);
+    lenient().when(outboxEventService.claimDueRetries(anyInt()))
+        .thenReturn(ClaimedOutboxEvents.none());
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.shutdown();
   }
 
   @Test
@@ -50,34 +70,36 @@ class OutboxEventPublishingSchedulerTest {
 
     List<OutboxEvent> events = Arrays.asList(event1, event2);
 
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(events);
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(claimed(events));
 
     // when
-    outboxEventPublishingScheduler.publishPendingEvents();
+    int claimed = outboxEventPublishingScheduler.publishPendingEvents(10);
 
     // then
+    assertThat(claimed).isEqualTo(2);
     verify(outboxStreamPublisher, times(1)).publish(
         String.valueOf(aggregateId1.getMostSignificantBits()), "{\"transactionId\":123}",
         "transaction.posted");
     verify(outboxStreamPublisher, times(1)).publish(
         String.valueOf(aggregateId2.getMostSignificantBits()), "{\"transactionId\":456}",
         "transaction.posted");
-    verify(outboxEventService, times(1)).markAsPublished(event1);
-    verify(outboxEventService, times(1)).markAsPublished(event2);
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(1L, 2L), List.of(),
+        List.of());
+    verify(outboxEventService, never()).markAsPublished(any());
   }
 
   @Test
   void shouldNotPublishWhenNoPendingEvents() {
     // given
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(Collections.emptyList());
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(ClaimedOutboxEvents.none());
 
     // when
-    outboxEventPublishingScheduler.publishPendingEvents();
+    int claimed = outboxEventPublishingScheduler.publishPendingEvents(10);
 
     // then
+    assertThat(claimed).isZero();
     verify(outboxStreamPublisher, never()).publish(any(), any(), any());
-    verify(outboxEventService, never()).markAsPublished(any());
-    verify(outboxEventService, never()).markAsFailed(any());
+    verify(outboxEventService, never()).recordPublishOutcome(any(), any(), any());
   }
 
   @Test
@@ -86,24 +108,179 @@ class OutboxEventPublishingSchedulerTest {
     UUID aggregateId = UUID.randomUUID();
     OutboxEvent event = createOutboxEvent(aggregateId, "{\"transactionId\":123}");
 
-    when(outboxEventService.fetchPendingEvents(10)).thenReturn(List.of(event));
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(claimed(List.of(event)));
     doThrow(new RuntimeException("Publishing failed")).when(outboxStreamPublisher)
         .publish(String.valueOf(aggregateId.getMostSignificantBits()), "{\"transactionId\":123}",
             "transaction.posted");
 
     // when
-    outboxEventPublishingScheduler.publishPendingEvents();
+    outboxEventPublishingScheduler.publishPendingEvents(10);
 
     // then
     verify(outboxStreamPublisher, times(1)).publish(
         String.valueOf(aggregateId.getMostSignificantBits()), "{\"transactionId\":123}",
         "transaction.posted");
-    verify(outboxEventService, never()).markAsPublished(event);
-    verify(outboxEventService, times(1)).markAsFailed(event);
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(), List.of(event),
+        List.of());
+  }
+
+  @Test
+  void shouldRecordMixedOutcomeOnceForTheBatch() {
+    // given
+    UUID aggregateId1 = UUID.randomUUID();
+    UUID aggregateId2 = UUID.randomUUID();
+    OutboxEvent event1 = createOutboxEvent(aggregateId1, "{\"transactionId\":123}");
+    OutboxEvent event2 = createOutboxEvent(aggregateId2, "{\"transactionId\":456}");
+
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(claimed(List.of(event1, event2)));
+    lenient().doThrow(new RuntimeException("Publishing failed")).when(outboxStreamPublisher)
+        .publish(String.valueOf(aggregateId2.getMostSignificantBits()), "{\"transactionId\":456}",
+            "transaction.posted");
+
+    // when
+    outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(1L), List.of(event2),
+        List.of());
+    verify(outboxEventService, never()).markAsPublished(any());
+    verify(outboxEventService, never()).markAsFailed(any());
+  }
+
+  @Test
+  void shouldMarkOutcomesFromBrokerAcknowledgementsInAsyncMode() {
+    // given
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "publishMode",
+        OutboxPublishMode.ASYNC);
+    OutboxEvent acked = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":1}");
+    OutboxEvent rejected = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":2}");
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(claimed(List.of(acked, rejected)));
+    when(outboxStreamPublisher.publishAsync(any(), eq("{\"transactionId\":1}"), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(outboxStreamPublisher.publishAsync(any(), eq("{\"transactionId\":2}"), any()))
+        .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+    // when
+    outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    verify(outboxStreamPublisher, never()).publish(any(), any(), any());
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(acked.getEventId()),
+        List.of(rejected), List.of());
+  }
+
+  @Test
+  void shouldLeaveUnacknowledgedEventsPendingInAsyncMode() {
+    // given
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "publishMode",
+        OutboxPublishMode.ASYNC);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "ackTimeout", 50L);
+    OutboxEvent acked = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":1}");
+    OutboxEvent inFlight = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":2}");
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(claimed(List.of(acked, inFlight)));
+    when(outboxStreamPublisher.publishAsync(any(), eq("{\"transactionId\":1}"), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(outboxStreamPublisher.publishAsync(any(), eq("{\"transactionId\":2}"), any()))
+        .thenReturn(new CompletableFuture<>());
+
+    // when
+    outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(acked.getEventId()),
+        List.of(), List.of());
+  }
+
+  @Test
+  void shouldBlockOnlyTheFailedAggregateAndReleaseItsLaterEvents() {
+    // given
+    UUID failingAggregate = UUID.randomUUID();
+    UUID healthyAggregate = UUID.randomUUID();
+    OutboxEvent first = createOutboxEvent(failingAggregate, "{\"transactionId\":1}");
+    OutboxEvent other = createOutboxEvent(healthyAggregate, "{\"transactionId\":2}");
+    OutboxEvent second = createOutboxEvent(failingAggregate, "{\"transactionId\":3}");
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(
+        claimed(List.of(first, other, second)));
+    lenient().doThrow(new RuntimeException("Publishing failed")).when(outboxStreamPublisher)
+        .publish(any(), eq("{\"transactionId\":1}"), any());
+
+    // when
+    outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    verify(outboxStreamPublisher, never()).publish(any(), eq("{\"transactionId\":3}"), any());
+    verify(outboxEventService, times(1)).recordPublishOutcome(List.of(other.getEventId()),
+        List.of(first), List.of(second.getEventId()));
+  }
+
+  @Test
+  void shouldReportHeldBackCandidatesSoAFullBacklogLooksFull() {
+    // given - eight of the ten candidates wait behind an earlier event of their aggregate
+    OutboxEvent event1 = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":1}");
+    OutboxEvent event2 = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":2}");
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(
+        new ClaimedOutboxEvents(List.of(event1, event2), 10));
+
+    // when
+    int candidates = outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    assertThat(candidates).isEqualTo(10);
+    verify(outboxEventService, times(1)).recordPublishOutcome(
+        List.of(event1.getEventId(), event2.getEventId()), List.of(), List.of());
+  }
+
+  @Test
+  void shouldReportNothingWhenEveryCandidateIsHeldBack() {
+    // given
+    when(outboxEventService.claimPendingEvents(10)).thenReturn(
+        new ClaimedOutboxEvents(List.of(), 10));
+
+    // when
+    int candidates = outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then - the loop backs off instead of claiming again at once
+    assertThat(candidates).isZero();
+  }
+
+  @Test
+  void shouldCapRetriesAtTheirShareOfTheBatchAndFillTheRestWithPendingEvents() {
+    // given
+    OutboxEvent retry1 = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":1}");
+    OutboxEvent retry2 = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":2}");
+    OutboxEvent pending = createOutboxEvent(UUID.randomUUID(), "{\"transactionId\":3}");
+    when(outboxEventService.claimDueRetries(2)).thenReturn(claimed(List.of(retry1, retry2)));
+    when(outboxEventService.claimPendingEvents(8)).thenReturn(claimed(List.of(pending)));
+
+    // when
+    int claimed = outboxEventPublishingScheduler.publishPendingEvents(10);
+
+    // then
+    assertThat(claimed).isEqualTo(3);
+    verify(outboxEventService, times(1)).recordPublishOutcome(
+        List.of(retry1.getEventId(), retry2.getEventId(), pending.getEventId()), List.of(),
+        List.of());
+  }
+
+  @Test
+  void shouldRefuseAnAckTimeoutThatDoesNotEndBeforeTheLease() {
+    // given
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "ackTimeout", 30000L);
+    ReflectionTestUtils.setField(outboxEventPublishingScheduler, "leaseDuration", 30000L);
+
+    // when / then
+    assertThatThrownBy(() -> outboxEventPublishingScheduler.checkAckTimeout())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("app.outbox.lease-duration");
+  }
+
+  private static ClaimedOutboxEvents claimed(List<OutboxEvent> events) {
+    return new ClaimedOutboxEvents(events, events.size());
   }
 
   private OutboxEvent createOutboxEvent(UUID aggregateId, String payload) {
     OutboxEvent event = new OutboxEvent();
+    event.setEventId(++eventIdSequence);
     event.setAggregateId(aggregateId.getMostSignificantBits());
     event.setPayload(payload);
     event.setEventType("transaction.posted");
@@ -0,0 +1,133 @@
+package com.creditx.posting.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.OutboxEventSavedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxPublishingLoopTest {
+
+  @Mock
+  private OutboxEventPublishingScheduler outboxEventPublishingScheduler;
+
+  private AdaptiveOutboxPollingPolicy pollingPolicy;
+  private OutboxPublishingLoop loop;
+
+  @BeforeEach
+  void setup() {
+    pollingPolicy = new AdaptiveOutboxPollingPolicy(50, 10, 1000, 60_000, 60_000, 60_000,
+        new SimpleMeterRegistry());
+    loop = new OutboxPublishingLoop(outboxEventPublishingScheduler, pollingPolicy);
+  }
+
+  @AfterEach
+  void tearDown() {
+    loop.stop();
+  }
+
+  @Test
+  void shouldDrainBacklogWithoutWaitingForTheInterval() {
+    // given - three full batches, then the backlog is gone
+    when(outboxEventPublishingScheduler.publishPendingEvents(anyInt()))
+        .thenAnswer(invocation -> invocation.getArgument(0))
+        .thenAnswer(invocation -> invocation.getArgument(0))
+        .thenAnswer(invocation -> invocation.getArgument(0))
+        .thenReturn(0);
+
+    // when
+    loop.start();
+
+    // then - drained back-to-back although the interval is one minute, with growing batches
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(50);
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(100);
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(200);
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(400);
+    assertThat(loop.isRunning()).isTrue();
+  }
+
+  @Test
+  void shouldKeepRunningAfterFailedCycle() {
+    // given
+    when(outboxEventPublishingScheduler.publishPendingEvents(anyInt()))
+        .thenThrow(new RuntimeException("database unavailable"));
+
+    // when
+    loop.start();
+
+    // then
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(50);
+    assertThat(loop.isRunning()).isTrue();
+    assertThat(pollingPolicy.currentInterval()).isEqualTo(60_000);
+  }
+
+  @Test
+  void shouldDrainRightAwayWhenOutboxEventCommits() {
+    // given - the loop is idle with a one minute interval
+    when(outboxEventPublishingScheduler.publishPendingEvents(anyInt())).thenReturn(0);
+    loop.start();
+    verify(outboxEventPublishingScheduler, timeout(5000).times(1)).publishPendingEvents(50);
+
+    // when
+    loop.onOutboxEventSaved(new OutboxEventSavedEvent(1L, 123L));
+
+    // then
+    verify(outboxEventPublishingScheduler, timeout(5000).times(2)).publishPendingEvents(50);
+  }
+
+  @Test
+  void shouldCoalesceWakeUpsReceivedDuringABatch() throws InterruptedException {
+    // given - wake-ups arrive while the first batch is still running
+    CountDownLatch inBatch = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(outboxEventPublishingScheduler.publishPendingEvents(anyInt()))
+        .thenAnswer(invocation -> {
+          inBatch.countDown();
+          release.await();
+          return 0;
+        })
+        .thenReturn(0);
+    loop.start();
+    inBatch.await(5, TimeUnit.SECONDS);
+    loop.wakeUp();
+    loop.wakeUp();
+    loop.wakeUp();
+
+    // when
+    release.countDown();
+
+    // then - one follow-up batch, then back to waiting for the interval
+    verify(outboxEventPublishingScheduler, timeout(5000).times(2)).publishPendingEvents(50);
+    Thread.sleep(200);
+    verify(outboxEventPublishingScheduler, times(2)).publishPendingEvents(anyInt());
+  }
+
+  @Test
+  void shouldStopPromptlyWhileIdle() {
+    // given
+    when(outboxEventPublishingScheduler.publishPendingEvents(anyInt())).thenReturn(0);
+    loop.start();
+    verify(outboxEventPublishingScheduler, timeout(5000)).publishPendingEvents(50);
+
+    // when
+    long started = System.nanoTime();
+    loop.stop();
+
+    // then
+    assertThat(loop.isRunning()).isFalse();
+    assertThat(System.nanoTime() - started).isLessThan(5_000_000_000L);
+  }
+}
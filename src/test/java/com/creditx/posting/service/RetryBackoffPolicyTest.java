@@ -0,0 +1,92 @@
+package com.creditx.posting.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+class RetryBackoffPolicyTest {
+
+  @Test
+  void shouldDoubleBackoffPerAttemptWithoutJitter() {
+    // given
+    RetryBackoffPolicy policy = new RetryBackoffPolicy(1000, 2.0, 300_000, 0.0, 10,
+        RandomGenerator.getDefault());
+
+    // then
+    assertThat(policy.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+    assertThat(policy.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+    assertThat(policy.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+    assertThat(policy.backoff(6)).isEqualTo(Duration.ofSeconds(32));
+  }
+
+  @Test
+  void shouldCapBackoffAtMax() {
+    // given
+    RetryBackoffPolicy policy = new RetryBackoffPolicy(1000, 2.0, 60_000, 0.0, 100,
+        RandomGenerator.getDefault());
+
+    // then
+    assertThat(policy.backoff(7)).isEqualTo(Duration.ofSeconds(60));
+    assertThat(policy.backoff(50)).isEqualTo(Duration.ofSeconds(60));
+  }
+
+  @Test
+  void shouldSpreadBackoffByJitterInBothDirections() {
+    // given
+    RetryBackoffPolicy lowest = new RetryBackoffPolicy(1000, 2.0, 300_000, 0.2, 10,
+        fixed(0.0));
+    RetryBackoffPolicy highest = new RetryBackoffPolicy(1000, 2.0, 300_000, 0.2, 10,
+        fixed(0.999_999));
+
+    // then
+    assertThat(lowest.backoff(3)).isEqualTo(Duration.ofMillis(3200));
+    assertThat(highest.backoff(3)).isEqualTo(Duration.ofMillis(4800));
+  }
+
+  @Test
+  void shouldKeepJitteredBackoffWithinBounds() {
+    // given
+    RetryBackoffPolicy policy = new RetryBackoffPolicy(1000, 2.0, 10_000, 0.2, 10,
+        RandomGenerator.getDefault());
+
+    // then
+    for (int i = 0; i < 1000; i++) {
+      assertThat(policy.backoff(2).toMillis()).isBetween(1600L, 2400L);
+      assertThat(policy.backoff(20).toMillis()).isBetween(8000L, 10_000L);
+    }
+  }
+
+  @Test
+  void shouldBeExhaustedOnceAttemptBudgetIsUsed() {
+    // given
+    RetryBackoffPolicy policy = new RetryBackoffPolicy(1000, 2.0, 300_000, 0.2, 3,
+        RandomGenerator.getDefault());
+
+    // then
+    assertThat(policy.isExhausted(2)).isFalse();
+    assertThat(policy.isExhausted(3)).isTrue();
+  }
+
+  @Test
+  void shouldRejectInvalidJitter() {
+    assertThatThrownBy(() -> new RetryBackoffPolicy(1000, 2.0, 300_000, 1.0, 3,
+        RandomGenerator.getDefault())).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static RandomGenerator fixed(double value) {
+    return new RandomGenerator() {
+      @Override
+      public long nextLong() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public double nextDouble() {
+        return value;
+      }
+    };
+  }
+}
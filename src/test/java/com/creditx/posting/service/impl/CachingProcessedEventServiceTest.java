@@ -0,0 +1,310 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.repository.ProcessedEventRepository;
+import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.SchedulerLockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProcessedEventServiceTest {
+
+  @Mock
+  private ProcessedEventService delegate;
+
+  @Mock
+  private ProcessedEventRepository repository;
+
+  @Mock
+  private SchedulerLockService schedulerLockService;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private CachingProcessedEventService cachingService;
+
+  @BeforeEach
+  void setup() {
+    cachingService = new CachingProcessedEventService(delegate, repository, schedulerLockService,
+        meterRegistry, 64 * 1024, 0.01, 5000);
+  }
+
+  @Test
+  void shouldAnswerUnseenKeysOfBatchLookupFromBloomFilterOnceWarmedWithWholeTable() {
+    // given
+    warmUpWith(row("event-1", "hash-1", ProcessedEvent.STATUS_SUCCESS));
+
+    // when
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(List.of("event-2"),
+        List.of("hash-2"));
+
+    // then
+    assertThat(found).isEmpty();
+    verify(delegate, never()).findProcessedEvents(any(), any());
+    assertThat(lookups("bloom_negative")).isEqualTo(2.0);
+  }
+
+  @Test
+  void shouldReadDatabaseOnFilterNegativeWhenNoClaimFollows() {
+    // given - another instance processed event-2 since the last refresh
+    warmUpWith(row("event-1", "hash-1", ProcessedEvent.STATUS_SUCCESS));
+    when(delegate.isEventProcessed("event-2")).thenReturn(true);
+
+    // when
+    boolean processed = cachingService.isEventProcessed("event-2");
+
+    // then
+    assertThat(processed).isTrue();
+    assertThat(lookups("bloom_negative")).isZero();
+  }
+
+  @Test
+  void shouldDropKeysOfPurgedRowsOnRebuild() {
+    // given - event-2 reached the filter through a refresh and has been purged since
+    warmUpWith();
+    refreshWith(row("event-2", "hash-2", ProcessedEvent.STATUS_FAILED));
+
+    // when
+    cachingService.rebuild();
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(List.of("event-2"),
+        List.of("hash-2"));
+
+    // then
+    assertThat(found).isEmpty();
+    verify(delegate, never()).findProcessedEvents(any(), any());
+  }
+
+  @Test
+  void shouldPostponeRebuildUntilPurgeHasFinished() {
+    // given - event-2 is in a partition the purge running on another instance has yet to drop
+    warmUpWith();
+    refreshWith(row("event-2", "hash-2", ProcessedEvent.STATUS_FAILED));
+    when(schedulerLockService.isLocked(SchedulerLockService.DEDUP_RETENTION)).thenReturn(true);
+    cachingService.rebuild();
+    when(delegate.findProcessedEvents(any(), any())).thenReturn(List.of());
+    cachingService.findProcessedEvents(List.of("event-2"), List.of("hash-2"));
+    verify(delegate).findProcessedEvents(any(), any());
+
+    // when - the purge is done by the next refresh
+    when(schedulerLockService.isLocked(SchedulerLockService.DEDUP_RETENTION)).thenReturn(false);
+    refreshWith();
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(List.of("event-2"),
+        List.of("hash-2"));
+
+    // then
+    assertThat(found).isEmpty();
+    verify(delegate).findProcessedEvents(any(), any());
+  }
+
+  @Test
+  void shouldGoToDatabaseWhenWarmUpDidNotCoverWholeTable() {
+    // given - the repository reports more rows than the filter was asked for
+    when(repository.streamRecent(anyInt(), any())).thenAnswer(invocation -> {
+      int limit = invocation.getArgument(0);
+      return limit;
+    });
+    cachingService.warmUp();
+    when(delegate.isEventProcessed("event-2")).thenReturn(false);
+
+    // when
+    boolean processed = cachingService.isEventProcessed("event-2");
+
+    // then
+    assertThat(processed).isFalse();
+    verify(delegate, times(1)).isEventProcessed("event-2");
+  }
+
+  @Test
+  void shouldAnswerRecentlyConfirmedKeysFromLru() {
+    // given
+    warmUpWith();
+    cachingService.markEventAsProcessed("event-1", "hash-1", ProcessedEvent.STATUS_SUCCESS);
+
+    // when
+    boolean eventProcessed = cachingService.isEventProcessed("event-1");
+    boolean payloadProcessed = cachingService.isPayloadProcessed("hash-1");
+
+    // then
+    assertThat(eventProcessed).isTrue();
+    assertThat(payloadProcessed).isTrue();
+    verify(delegate, never()).isEventProcessed(any());
+    verify(delegate, never()).isPayloadProcessed(any());
+    assertThat(lookups("lru_hit")).isEqualTo(2.0);
+  }
+
+  @Test
+  void shouldQueryDatabaseOnlyForKeysTheCacheCannotDecide() {
+    // given - event-1 confirmed, event-2 in the filter only, event-3 never seen
+    warmUpWith();
+    refreshWith(row("event-2", "hash-2", ProcessedEvent.STATUS_FAILED));
+    cachingService.markEventAsProcessed("event-1", "hash-1", ProcessedEvent.STATUS_SUCCESS);
+    ProcessedEvent stored = row("event-2", "hash-2", ProcessedEvent.STATUS_FAILED);
+    when(delegate.findProcessedEvents(List.of("event-2"), List.of("hash-2")))
+        .thenReturn(List.of(stored));
+
+    // when
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(
+        List.of("event-1", "event-2", "event-3"), List.of("hash-1", "hash-2", "hash-3"));
+
+    // then
+    verify(delegate, times(1)).findProcessedEvents(List.of("event-2"), List.of("hash-2"));
+    assertThat(found).contains(stored);
+    assertThat(found).filteredOn(row -> "event-1".equals(row.getEventId()))
+        .extracting(ProcessedEvent::getStatus).containsExactly(ProcessedEvent.STATUS_SUCCESS);
+  }
+
+  @Test
+  void shouldSkipDatabaseWhenEveryKeyIsDecidedInMemory() {
+    // given
+    warmUpWith();
+
+    // when
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(List.of("event-1"),
+        List.of("hash-1"));
+
+    // then
+    assertThat(found).isEmpty();
+    verify(delegate, never()).findProcessedEvents(any(), any());
+  }
+
+  @Test
+  void shouldSkipClaimForEventsConfirmedSuccessful() {
+    // given
+    warmUpWith();
+    when(delegate.claimEvent("event-1", "hash-1", null)).thenReturn(Optional.of("event-1"));
+    cachingService.claimEvent("event-1", "hash-1", null);
+    cachingService.completeEvent("event-1", ProcessedEvent.STATUS_SUCCESS);
+
+    // when - redelivery under a new event id with the same payload
+    Optional<String> claim = cachingService.claimEvent("event-1b", "hash-1", null);
+
+    // then
+    assertThat(claim).isEmpty();
+    verify(delegate, never()).claimEvent(eq("event-1b"), any(), any());
+    verify(delegate, times(1)).completeEvent("event-1", ProcessedEvent.STATUS_SUCCESS);
+  }
+
+  @Test
+  void shouldStillClaimThroughDatabaseAfterFailure() {
+    // given
+    warmUpWith();
+    when(delegate.claimEvent("event-1", "hash-1", null)).thenReturn(Optional.of("event-1"));
+    cachingService.claimEvent("event-1", "hash-1", null);
+    cachingService.completeEvent("event-1", ProcessedEvent.STATUS_FAILED);
+
+    // when
+    Optional<String> claim = cachingService.claimEvent("event-1", "hash-1", null);
+
+    // then
+    assertThat(claim).contains("event-1");
+    verify(delegate, times(2)).claimEvent("event-1", "hash-1", null);
+  }
+
+  @Test
+  void shouldClaimBatchOnlyForEventsNotConfirmedSuccessful() {
+    // given
+    warmUpWith();
+    when(delegate.claimEvent("event-1", "hash-1", null)).thenReturn(Optional.of("event-1"));
+    cachingService.claimEvent("event-1", "hash-1", null);
+    cachingService.completeEvent("event-1", ProcessedEvent.STATUS_SUCCESS);
+    when(delegate.claimEvents(List.of(row("event-2", "hash-2", null)),
+        Arrays.asList((String) null))).thenReturn(Set.of("event-2"));
+
+    // when
+    Set<String> claimed = cachingService.claimEvents(
+        List.of(row("event-1", "hash-1", null), row("event-2", "hash-2", null)),
+        Arrays.asList(null, null));
+    cachingService.completeEvents(
+        List.of(row("event-2", null, ProcessedEvent.STATUS_SUCCESS)));
+
+    // then - the completed event is remembered with the payload hash of its claim
+    assertThat(claimed).containsExactly("event-2");
+    assertThat(cachingService.claimEvents(List.of(row("event-2b", "hash-2", null)),
+        Arrays.asList((String) null))).isEmpty();
+    verify(delegate, times(1)).claimEvents(any(), any());
+  }
+
+  @Test
+  void shouldSkipClaimForEventSettledUnderLegacyPayloadHash() {
+    // given - a row written before the compact key layout
+    warmUpWith(row("transaction.authorized-1-ab12cd34", "legacy-hash-1",
+        ProcessedEvent.STATUS_SUCCESS));
+
+    // when
+    Optional<String> claim = cachingService.claimEvent("event-1", "hash-1", "legacy-hash-1");
+    Set<String> claimed = cachingService.claimEvents(List.of(row("event-1", "hash-1", null)),
+        List.of("legacy-hash-1"));
+
+    // then
+    assertThat(claim).isEmpty();
+    assertThat(claimed).isEmpty();
+    verify(delegate, never()).claimEvent(any(), any(), any());
+    verify(delegate, never()).claimEvents(any(), any());
+  }
+
+  @Test
+  void shouldFoldInRowsWrittenByOtherInstancesOnRefresh() {
+    // given
+    warmUpWith();
+    ProcessedEvent stored = row("event-9", "hash-9", ProcessedEvent.STATUS_SUCCESS);
+    when(delegate.findProcessedEvents(List.of("event-9"), List.of())).thenReturn(List.of(stored));
+
+    // when
+    refreshWith(stored);
+    List<ProcessedEvent> found = cachingService.findProcessedEvents(List.of("event-9"),
+        List.of());
+
+    // then - the filter now lets the key through to the database
+    assertThat(found).containsExactly(stored);
+  }
+
+  private void warmUpWith(ProcessedEvent... rows) {
+    doAnswer(invocation -> {
+      Consumer<ProcessedEvent> sink = invocation.getArgument(1);
+      for (ProcessedEvent row : rows) {
+        sink.accept(row);
+      }
+      return rows.length;
+    }).when(repository).streamRecent(anyInt(), any());
+    cachingService.warmUp();
+  }
+
+  private void refreshWith(ProcessedEvent... rows) {
+    doAnswer(invocation -> {
+      Consumer<ProcessedEvent> sink = invocation.getArgument(1);
+      for (ProcessedEvent row : rows) {
+        sink.accept(row);
+      }
+      return rows.length;
+    }).when(repository).streamSince(any(), any());
+    cachingService.refresh();
+  }
+
+  private double lookups(String outcome) {
+    return meterRegistry.get("dedup.cache.lookups").tag("outcome", outcome).counter().count();
+  }
+
+  private ProcessedEvent row(String eventId, String payloadHash, String status) {
+    return ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash).status(status)
+        .build();
+  }
+}
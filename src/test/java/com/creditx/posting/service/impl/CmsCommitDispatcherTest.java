@@ -0,0 +1,168 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.creditx.posting.CmsStubServer;
+import com.creditx.posting.dto.CommitTransactionRequest;
+import com.creditx.posting.service.impl.CmsCommitDispatcher.CommitResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+class CmsCommitDispatcherTest {
+
+  private CmsStubServer cms;
+  private CmsCommitDispatcher dispatcher;
+
+  @BeforeEach
+  void setup() throws Exception {
+    cms = CmsStubServer.start(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (dispatcher != null) {
+      dispatcher.shutdown();
+    }
+    cms.close();
+  }
+
+  @Test
+  void shouldCommitOneTransactionPerCallWhenBulkIsOff() {
+    // given
+    dispatcher = dispatcher(false, 5);
+
+    // when
+    dispatcher.commit(request(1L));
+
+    // then
+    assertThat(cms.requests()).isEqualTo(1);
+    assertThat(cms.bulkRequests()).isZero();
+    assertThat(cms.committed()).containsExactly(1L);
+  }
+
+  @Test
+  void shouldStopSingleCallsAtTheFirstFailure() {
+    // given
+    dispatcher = dispatcher(false, 5);
+    cms.reject(2L);
+
+    // when
+    List<CommitResult> results = dispatcher.commitAll(List.of(request(1L), request(2L),
+        request(3L)));
+
+    // then
+    assertThat(results).extracting(CommitResult::succeeded).containsExactly(true, false);
+    assertThat(results.get(1).failure()).hasMessage(CmsCommitDispatcher.FAILURE_MESSAGE);
+    assertThat(cms.committed()).containsExactly(1L);
+  }
+
+  @Test
+  void shouldGroupConcurrentCommitsIntoBulkRequests() throws Exception {
+    // given
+    dispatcher = dispatcher(true, 100);
+    int callers = 20;
+    CyclicBarrier start = new CyclicBarrier(callers);
+    ExecutorService threads = Executors.newFixedThreadPool(callers);
+    List<Future<?>> calls = new ArrayList<>();
+
+    // when
+    for (long transactionId = 1; transactionId <= callers; transactionId++) {
+      CommitTransactionRequest request = request(transactionId);
+      calls.add(threads.submit(() -> {
+        start.await();
+        dispatcher.commit(request);
+        return null;
+      }));
+    }
+    for (Future<?> call : calls) {
+      call.get(10, TimeUnit.SECONDS);
+    }
+    threads.shutdown();
+
+    // then - every caller committed, through a few bulk requests and no single calls
+    assertThat(cms.committed()).containsExactlyInAnyOrderElementsOf(
+        LongStream.rangeClosed(1, callers).boxed().toList());
+    assertThat(cms.bulkRequests()).isBetween(1, 5);
+    assertThat(cms.requests()).isEqualTo(cms.bulkRequests());
+  }
+
+  @Test
+  void shouldHandEachRequestItsOwnBulkResult() {
+    // given
+    dispatcher = dispatcher(true, 5);
+    cms.reject(2L);
+
+    // when
+    List<CommitResult> results = dispatcher.commitAll(List.of(request(1L), request(2L),
+        request(3L)));
+
+    // then
+    assertThat(results).extracting(CommitResult::succeeded).containsExactly(true, false, true);
+    assertThat(results.get(1).failure()).hasMessage(CmsCommitDispatcher.FAILURE_MESSAGE)
+        .hasRootCauseMessage("CMS did not commit transaction 2: Transaction rejected");
+    assertThat(cms.bulkRequests()).isEqualTo(1);
+    assertThat(cms.committed()).containsExactlyInAnyOrder(1L, 3L);
+  }
+
+  @Test
+  void shouldFallBackToSingleCallsWhenBulkEndpointIsMissing() {
+    // given
+    dispatcher = dispatcher(true, 5);
+    cms.withoutBulkEndpoint();
+
+    // when
+    List<CommitResult> results = dispatcher.commitAll(List.of(request(1L), request(2L)));
+    dispatcher.commit(request(3L));
+
+    // then - one bulk attempt, then single calls for that group and for later commits
+    assertThat(results).extracting(CommitResult::succeeded).containsExactly(true, true);
+    assertThat(cms.bulkRequests()).isEqualTo(1);
+    assertThat(cms.requests()).isEqualTo(4);
+    assertThat(cms.committed()).containsExactlyInAnyOrder(1L, 2L, 3L);
+  }
+
+  @Test
+  void shouldNotSendCommitsWhoseCallerTimedOut() throws Exception {
+    // given - a single sender, busy with a commit CMS takes longer to answer than callers wait
+    dispatcher = new CmsCommitDispatcher(new RestTemplate(), cms.url(), true, 100, 5, 1, 200,
+        60000);
+    cms.latency(500);
+    ExecutorService threads = Executors.newSingleThreadExecutor();
+    Future<List<CommitResult>> first = threads.submit(
+        () -> dispatcher.commitAll(List.of(request(1L))));
+    while (cms.requests() == 0) {
+      Thread.sleep(10);
+    }
+
+    // when
+    List<CommitResult> results = dispatcher.commitAll(List.of(request(2L)));
+    first.get(5, TimeUnit.SECONDS);
+    threads.shutdown();
+    Thread.sleep(800);
+
+    // then - the queued commit was dropped instead of being sent once the sender was free
+    assertThat(results).extracting(CommitResult::succeeded).containsExactly(false);
+    assertThat(cms.requests()).isEqualTo(1);
+    assertThat(cms.committed()).containsExactly(1L);
+  }
+
+  private CmsCommitDispatcher dispatcher(boolean bulkEnabled, long windowMillis) {
+    return new CmsCommitDispatcher(new RestTemplate(), cms.url(), bulkEnabled, 100, windowMillis,
+        2, 5000, 60000);
+  }
+
+  private static CommitTransactionRequest request(long transactionId) {
+    return CommitTransactionRequest.builder().transactionId(transactionId)
+        .holdId(transactionId + 100).build();
+  }
+}
@@ -2,23 +2,39 @@ package com.creditx.posting.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.creditx.posting.dto.OutboxEventDTO;
+import com.creditx.posting.dto.OutboxEventSavedEvent;
 import com.creditx.posting.model.OutboxEvent;
 import com.creditx.posting.model.OutboxEventStatus;
+import com.creditx.posting.repository.OutboxClaim;
 import com.creditx.posting.repository.OutboxEventRepository;
+import com.creditx.posting.service.ClaimedOutboxEvents;
+import com.creditx.posting.service.RetryBackoffPolicy;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class OutboxEventServiceImplTest {
@@ -26,11 +42,19 @@ class OutboxEventServiceImplTest {
   @Mock
   private OutboxEventRepository repository;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Spy
+  private RetryBackoffPolicy retryBackoffPolicy = new RetryBackoffPolicy(1000, 2.0, 300_000, 0.0,
+      3);
+
   @InjectMocks
   private OutboxEventServiceImpl outboxEventServiceImpl;
 
   @BeforeEach
   void setup() {
+    ReflectionTestUtils.setField(outboxEventServiceImpl, "instanceId", "node-a");
   }
 
   @Test
@@ -57,6 +81,47 @@ class OutboxEventServiceImplTest {
     assertThat(capturedEvent.getPayload()).isEqualTo(payload);
     assertThat(capturedEvent.getStatus()).isEqualTo(OutboxEventStatus.PENDING);
     assertThat(result).isEqualTo(savedEvent);
+    verify(eventPublisher, times(1)).publishEvent(
+        new OutboxEventSavedEvent(savedEvent.getEventId(), aggregateId));
+  }
+
+  @Test
+  void shouldSaveEventsInOneBatch() {
+    // given
+    List<OutboxEventDTO> events = List.of(
+        OutboxEventDTO.builder().eventType("EVENT_1").aggregateId(1L).payload("{\"data\":1}")
+            .status(OutboxEventStatus.PUBLISHED).build(),
+        OutboxEventDTO.builder().eventType("EVENT_2").aggregateId(2L).payload("{\"data\":2}")
+            .build());
+    when(repository.saveAll(any())).thenAnswer(invocation -> {
+      List<OutboxEvent> toSave = invocation.getArgument(0);
+      for (int i = 0; i < toSave.size(); i++) {
+        toSave.get(i).setEventId(51L + i);
+      }
+      return toSave;
+    });
+
+    // when
+    List<OutboxEvent> result = outboxEventServiceImpl.saveEvents(events);
+
+    // then
+    verify(repository, times(1)).saveAll(any());
+    verify(repository, never()).save(any());
+    assertThat(result).extracting(OutboxEvent::getEventType).containsExactly("EVENT_1", "EVENT_2");
+    assertThat(result).extracting(OutboxEvent::getStatus)
+        .containsOnly(OutboxEventStatus.PENDING);
+    verify(eventPublisher, times(1)).publishEvent(new OutboxEventSavedEvent(51L, 1L));
+    verify(eventPublisher, times(1)).publishEvent(new OutboxEventSavedEvent(52L, 2L));
+  }
+
+  @Test
+  void shouldNotTouchRepositoryForEmptyBatch() {
+    // when
+    List<OutboxEvent> result = outboxEventServiceImpl.saveEvents(List.of());
+
+    // then
+    assertThat(result).isEmpty();
+    verify(repository, never()).saveAll(any());
   }
 
   @Test
@@ -66,14 +131,9 @@ class OutboxEventServiceImplTest {
         OutboxEventStatus.PENDING);
     OutboxEvent pendingEvent2 = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
         OutboxEventStatus.PENDING);
-    OutboxEvent publishedEvent = createOutboxEvent("EVENT_3", 789L, "{\"data\":3}",
-        OutboxEventStatus.PUBLISHED);
-    OutboxEvent failedEvent = createOutboxEvent("EVENT_4", 101L, "{\"data\":4}",
-        OutboxEventStatus.FAILED);
 
-    List<OutboxEvent> allEvents = Arrays.asList(pendingEvent1, pendingEvent2, publishedEvent,
-        failedEvent);
-    when(repository.findAll()).thenReturn(allEvents);
+    when(repository.findPendingEvents(OutboxEventStatus.PENDING, PageRequest.of(0, 5))).thenReturn(
+        Arrays.asList(pendingEvent1, pendingEvent2));
 
     // when
     List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(5);
@@ -81,37 +141,37 @@ class OutboxEventServiceImplTest {
     // then
     assertThat(result).hasSize(2);
     assertThat(result).containsExactly(pendingEvent1, pendingEvent2);
-    verify(repository, times(1)).findAll();
+    verify(repository, times(1)).findPendingEvents(OutboxEventStatus.PENDING,
+        PageRequest.of(0, 5));
+    verify(repository, never()).findAll();
   }
 
   @Test
-  void shouldLimitFetchedPendingEvents() {
+  void shouldPushLimitIntoPendingEventsQuery() {
     // given
     OutboxEvent pendingEvent1 = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
         OutboxEventStatus.PENDING);
     OutboxEvent pendingEvent2 = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
         OutboxEventStatus.PENDING);
-    OutboxEvent pendingEvent3 = createOutboxEvent("EVENT_3", 789L, "{\"data\":3}",
-        OutboxEventStatus.PENDING);
-
-    List<OutboxEvent> allEvents = Arrays.asList(pendingEvent1, pendingEvent2, pendingEvent3);
-    when(repository.findAll()).thenReturn(allEvents);
+    when(repository.findPendingEvents(eq(OutboxEventStatus.PENDING), any(Pageable.class)))
+        .thenReturn(Arrays.asList(pendingEvent1, pendingEvent2));
 
     // when
     List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(2);
 
     // then
-    assertThat(result).hasSize(2);
+    ArgumentCaptor<Pageable> pageCaptor = ArgumentCaptor.forClass(Pageable.class);
+    verify(repository).findPendingEvents(eq(OutboxEventStatus.PENDING), pageCaptor.capture());
+    assertThat(pageCaptor.getValue().getPageNumber()).isZero();
+    assertThat(pageCaptor.getValue().getPageSize()).isEqualTo(2);
     assertThat(result).containsExactly(pendingEvent1, pendingEvent2);
   }
 
   @Test
   void shouldReturnEmptyListWhenNoPendingEvents() {
     // given
-    OutboxEvent publishedEvent = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
-        OutboxEventStatus.PUBLISHED);
-    List<OutboxEvent> allEvents = List.of(publishedEvent);
-    when(repository.findAll()).thenReturn(allEvents);
+    when(repository.findPendingEvents(OutboxEventStatus.PENDING, PageRequest.of(0, 5))).thenReturn(
+        List.of());
 
     // when
     List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEvents(5);
@@ -120,6 +180,26 @@ class OutboxEventServiceImplTest {
     assertThat(result).isEmpty();
   }
 
+  @Test
+  void shouldFetchNextPageAfterLastEventKeyset() {
+    // given
+    OutboxEvent lastEvent = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
+        OutboxEventStatus.PENDING);
+    lastEvent.setEventId(10L);
+    lastEvent.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+    OutboxEvent nextEvent = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
+        OutboxEventStatus.PENDING);
+    when(repository.findPendingEventsAfter(OutboxEventStatus.PENDING,
+        Instant.parse("2025-01-01T00:00:00Z"), 10L, PageRequest.of(0, 3))).thenReturn(
+        List.of(nextEvent));
+
+    // when
+    List<OutboxEvent> result = outboxEventServiceImpl.fetchPendingEventsAfter(lastEvent, 3);
+
+    // then
+    assertThat(result).containsExactly(nextEvent);
+  }
+
   @Test
   void shouldMarkAsPublished() {
     // given
@@ -152,6 +232,167 @@ class OutboxEventServiceImplTest {
     assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
   }
 
+  @Test
+  void shouldMarkAllAsPublishedWithSingleTimestamp() {
+    // given
+    List<Long> eventIds = List.of(1L, 2L, 3L);
+    when(repository.updateStatusAndPublishedAt(eq(eventIds), eq(OutboxEventStatus.PUBLISHED),
+        any(Instant.class), eq("node-a"))).thenReturn(3);
+
+    // when
+    int updated = outboxEventServiceImpl.markAllAsPublished(eventIds);
+
+    // then
+    assertThat(updated).isEqualTo(3);
+    verify(repository, times(1)).updateStatusAndPublishedAt(eq(eventIds),
+        eq(OutboxEventStatus.PUBLISHED), any(Instant.class), eq("node-a"));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void shouldScheduleRetryWithBackoffWhenMarkingAllAsFailed() {
+    // given
+    OutboxEvent firstFailure = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
+        OutboxEventStatus.PENDING);
+    firstFailure.setEventId(4L);
+    OutboxEvent secondFailure = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
+        OutboxEventStatus.FAILED);
+    secondFailure.setEventId(5L);
+    secondFailure.setAttemptCount(1);
+    when(repository.recordFailures(List.of(firstFailure, secondFailure), "node-a"))
+        .thenReturn(2);
+    Instant before = Instant.now();
+
+    // when
+    int updated = outboxEventServiceImpl.markAllAsFailed(List.of(firstFailure, secondFailure));
+
+    // then
+    assertThat(updated).isEqualTo(2);
+    assertThat(firstFailure.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+    assertThat(firstFailure.getAttemptCount()).isEqualTo(1);
+    assertThat(firstFailure.getNextAttemptAt()).isBetween(before.plusSeconds(1),
+        Instant.now().plusSeconds(1));
+    assertThat(secondFailure.getAttemptCount()).isEqualTo(2);
+    assertThat(Duration.between(firstFailure.getNextAttemptAt(),
+        secondFailure.getNextAttemptAt())).isEqualTo(Duration.ofSeconds(1));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void shouldMoveEventToDeadWhenAttemptBudgetIsExhausted() {
+    // given
+    OutboxEvent event = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
+        OutboxEventStatus.FAILED);
+    event.setEventId(7L);
+    event.setAttemptCount(2);
+    event.setNextAttemptAt(Instant.now());
+    when(repository.recordFailures(List.of(event), "node-a")).thenReturn(1);
+
+    // when
+    outboxEventServiceImpl.markAllAsFailed(List.of(event));
+
+    // then
+    assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.DEAD);
+    assertThat(event.getAttemptCount()).isEqualTo(3);
+    assertThat(event.getNextAttemptAt()).isNull();
+  }
+
+  @Test
+  void shouldChunkBulkUpdatesToOracleInListLimit() {
+    // given
+    List<Long> eventIds = LongStream.rangeClosed(1, 2500).boxed().toList();
+
+    // when
+    outboxEventServiceImpl.markAllAsPublished(eventIds);
+
+    // then
+    ArgumentCaptor<Collection<Long>> chunkCaptor = ArgumentCaptor.forClass(Collection.class);
+    verify(repository, times(3)).updateStatusAndPublishedAt(chunkCaptor.capture(),
+        eq(OutboxEventStatus.PUBLISHED), any(Instant.class), eq("node-a"));
+    assertThat(chunkCaptor.getAllValues()).extracting(Collection::size)
+        .containsExactly(1000, 1000, 500);
+  }
+
+  @Test
+  void shouldSkipBulkUpdatesForEmptyOutcome() {
+    // when
+    outboxEventServiceImpl.recordPublishOutcome(List.of(), List.of(), List.of());
+
+    // then
+    verify(repository, never()).updateStatusAndPublishedAt(any(), any(), any(), any());
+    verify(repository, never()).recordFailures(any(), any());
+    verify(repository, never()).clearLease(any(), any(), any());
+  }
+
+  @Test
+  void shouldReleaseClaimsOnlyForClaimableEvents() {
+    // given
+    when(repository.clearLease(List.of(3L, 4L),
+        List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED), "node-a")).thenReturn(2);
+
+    // when
+    int released = outboxEventServiceImpl.releaseClaims(List.of(3L, 4L));
+
+    // then
+    assertThat(released).isEqualTo(2);
+    verify(repository, times(1)).clearLease(List.of(3L, 4L),
+        List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED), "node-a");
+  }
+
+  @Test
+  void shouldClaimPendingEventsUnderLease() {
+    // given
+    ReflectionTestUtils.setField(outboxEventServiceImpl, "instanceId", "node-a");
+    OutboxEvent claimed1 = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
+        OutboxEventStatus.PENDING);
+    OutboxEvent claimed2 = createOutboxEvent("EVENT_2", 456L, "{\"data\":2}",
+        OutboxEventStatus.PENDING);
+    when(repository.claimPendingEvents("node-a", 10, Duration.ofMillis(30000))).thenReturn(
+        new OutboxClaim(List.of(7L, 8L), 3));
+    when(repository.findByEventIdInOrderByCreatedAtAscEventIdAsc(List.of(7L, 8L))).thenReturn(
+        List.of(claimed1, claimed2));
+
+    // when
+    ClaimedOutboxEvents result = outboxEventServiceImpl.claimPendingEvents(10);
+
+    // then
+    assertThat(result.events()).containsExactly(claimed1, claimed2);
+    assertThat(result.candidates()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldClaimDueRetriesUnderLease() {
+    // given
+    ReflectionTestUtils.setField(outboxEventServiceImpl, "instanceId", "node-a");
+    OutboxEvent retry = createOutboxEvent("EVENT_1", 123L, "{\"data\":1}",
+        OutboxEventStatus.FAILED);
+    when(repository.claimDueRetries("node-a", 2, Duration.ofMillis(30000))).thenReturn(
+        new OutboxClaim(List.of(9L), 1));
+    when(repository.findByEventIdInOrderByCreatedAtAscEventIdAsc(List.of(9L))).thenReturn(
+        List.of(retry));
+
+    // when
+    ClaimedOutboxEvents result = outboxEventServiceImpl.claimDueRetries(2);
+
+    // then
+    assertThat(result.events()).containsExactly(retry);
+    verify(repository, never()).claimPendingEvents(any(), anyInt(), any());
+  }
+
+  @Test
+  void shouldNotLoadEventsWhenNothingClaimed() {
+    // given
+    when(repository.claimPendingEvents(any(), eq(10), any())).thenReturn(
+        new OutboxClaim(List.of(), 0));
+
+    // when
+    ClaimedOutboxEvents result = outboxEventServiceImpl.claimPendingEvents(10);
+
+    // then
+    assertThat(result.events()).isEmpty();
+    verify(repository, never()).findByEventIdInOrderByCreatedAtAscEventIdAsc(any());
+  }
+
   private OutboxEvent createOutboxEvent(String eventType, Long aggregateId, String payload,
       OutboxEventStatus status) {
     OutboxEvent event = new OutboxEvent();
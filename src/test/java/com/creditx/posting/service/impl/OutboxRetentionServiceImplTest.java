@@ -0,0 +1,220 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.OutboxPurgeResult;
+import com.creditx.posting.model.OutboxEvent;
+import com.creditx.posting.model.OutboxEventStatus;
+import com.creditx.posting.repository.OutboxRetentionRepository;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRetentionServiceImplTest {
+
+  private static final String TABLE = "CPS_OUTBOX_EVENTS";
+
+  @Mock
+  private PartitionMaintenanceRepository partitionRepository;
+
+  @Mock
+  private OutboxRetentionRepository retentionRepository;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks
+  private OutboxRetentionServiceImpl outboxRetentionServiceImpl;
+
+  @TempDir
+  private Path archiveDir;
+
+  private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "retentionDays", 7);
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "chunkSize", 3);
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "chunkPause", 0L);
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "archiveDir", archiveDir.toString());
+  }
+
+  @Test
+  void shouldDropOrTruncateExpiredPartitionsWithNoEventsAwaitingPublish() {
+    // given
+    TablePartition initial = new TablePartition("P_OUTBOX_INITIAL", LocalDate.of(2025, 1, 1),
+        false);
+    TablePartition expired = new TablePartition("SYS_P101", today.minusDays(9), true);
+    TablePartition expiredWithPending = new TablePartition("SYS_P102", today.minusDays(8), true);
+    TablePartition live = new TablePartition("SYS_P103", today.plusDays(1), true);
+    when(partitionRepository.findPartitions(TABLE))
+        .thenReturn(List.of(initial, expired, expiredWithPending, live));
+    when(retentionRepository.countAwaitingPublish("P_OUTBOX_INITIAL")).thenReturn(0L);
+    when(retentionRepository.countAwaitingPublish("SYS_P101")).thenReturn(0L);
+    when(retentionRepository.countAwaitingPublish("SYS_P102")).thenReturn(2L);
+    when(retentionRepository.findPublishedIdsBefore(any(), anyInt())).thenReturn(List.of());
+
+    // when
+    OutboxPurgeResult result = outboxRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    verify(partitionRepository, times(1)).truncatePartition(TABLE, "P_OUTBOX_INITIAL");
+    verify(partitionRepository, times(1)).dropPartition(TABLE, "SYS_P101");
+    verify(partitionRepository, never()).dropPartition(TABLE, "SYS_P102");
+    verify(retentionRepository, never()).countAwaitingPublish("SYS_P103");
+    verify(partitionRepository, never()).dropPartition(TABLE, "SYS_P103");
+    assertThat(result).isEqualTo(new OutboxPurgeResult(1, 1, 0, 0));
+  }
+
+  @Test
+  void shouldDeleteLeftoverPublishedRowsInBoundedChunks() {
+    // given
+    Instant cutoff = today.minusDays(7).atStartOfDay(ZoneOffset.UTC).toInstant();
+    when(partitionRepository.findPartitions(TABLE)).thenReturn(List.of());
+    when(retentionRepository.findPublishedIdsBefore(cutoff, 3))
+        .thenReturn(List.of(1L, 2L, 3L))
+        .thenReturn(List.of(4L));
+    when(retentionRepository.deletePublished(List.of(1L, 2L, 3L))).thenReturn(3);
+    when(retentionRepository.deletePublished(List.of(4L))).thenReturn(1);
+
+    // when
+    OutboxPurgeResult result = outboxRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    verify(retentionRepository, times(2)).findPublishedIdsBefore(cutoff, 3);
+    assertThat(result.deletedRows()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldArchivePartitionBeforeDroppingIt() throws IOException {
+    // given
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "archiveEnabled", true);
+    TablePartition expired = new TablePartition("SYS_P101", today.minusDays(9), true);
+    when(partitionRepository.findPartitions(TABLE)).thenReturn(List.of(expired));
+    when(retentionRepository.countAwaitingPublish("SYS_P101")).thenReturn(0L);
+    doAnswer(invocation -> {
+      Consumer<OutboxEvent> sink = invocation.getArgument(1);
+      sink.accept(publishedEvent(1L, "{\"transactionId\":1}"));
+      sink.accept(publishedEvent(2L, "{\"transactionId\":2}"));
+      return 2L;
+    }).when(retentionRepository).streamPartition(eq("SYS_P101"), any());
+    when(retentionRepository.findPublishedIdsBefore(any(), anyInt())).thenReturn(List.of());
+
+    // when
+    OutboxPurgeResult result = outboxRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    InOrder order = inOrder(retentionRepository, partitionRepository);
+    order.verify(retentionRepository).streamPartition(eq("SYS_P101"), any());
+    order.verify(partitionRepository).dropPartition(TABLE, "SYS_P101");
+    assertThat(result.archivedRows()).isEqualTo(2);
+
+    Path archive = archiveDir.resolve(TABLE + "-" + today.minusDays(10) + ".ndjson.gz");
+    List<JsonNode> lines = readArchive(archive);
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0).get("eventId").asLong()).isEqualTo(1L);
+    assertThat(lines.get(0).get("status").asText()).isEqualTo("PUBLISHED");
+    assertThat(lines.get(1).get("payload").asText()).isEqualTo("{\"transactionId\":2}");
+  }
+
+  @Test
+  void shouldKeepPartitionWhenArchiveFails() {
+    // given
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "archiveEnabled", true);
+    TablePartition expired = new TablePartition("SYS_P101", today.minusDays(9), true);
+    when(partitionRepository.findPartitions(TABLE)).thenReturn(List.of(expired));
+    when(retentionRepository.countAwaitingPublish("SYS_P101")).thenReturn(0L);
+    doThrow(new DataRetrievalFailureException("connection reset")).when(retentionRepository)
+        .streamPartition(eq("SYS_P101"), any());
+    when(retentionRepository.findPublishedIdsBefore(any(), anyInt())).thenReturn(List.of());
+
+    // when
+    OutboxPurgeResult result = outboxRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    verify(partitionRepository, never()).dropPartition(any(), any());
+    assertThat(result.droppedPartitions()).isZero();
+    assertThat(archiveDir.toFile().list()).isEmpty();
+  }
+
+  @Test
+  void shouldArchiveEachChunkBeforeDeletingIt() throws IOException {
+    // given
+    ReflectionTestUtils.setField(outboxRetentionServiceImpl, "archiveEnabled", true);
+    when(partitionRepository.findPartitions(TABLE)).thenReturn(List.of());
+    when(retentionRepository.findPublishedIdsBefore(any(), eq(3))).thenReturn(List.of(7L, 8L));
+    doAnswer(invocation -> {
+      Consumer<OutboxEvent> sink = invocation.getArgument(1);
+      sink.accept(publishedEvent(7L, "{}"));
+      sink.accept(publishedEvent(8L, "{}"));
+      return null;
+    }).when(retentionRepository).streamByIds(eq(List.of(7L, 8L)), any());
+    when(retentionRepository.deletePublished(List.of(7L, 8L))).thenReturn(2);
+
+    // when
+    OutboxPurgeResult result = outboxRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    InOrder order = inOrder(retentionRepository);
+    order.verify(retentionRepository).streamByIds(eq(List.of(7L, 8L)), any());
+    order.verify(retentionRepository).deletePublished(List.of(7L, 8L));
+    assertThat(result.deletedRows()).isEqualTo(2);
+    assertThat(result.archivedRows()).isEqualTo(2);
+    assertThat(readArchive(archiveDir.resolve(TABLE + "-rows-7-8.ndjson.gz"))).hasSize(2);
+  }
+
+  private List<JsonNode> readArchive(Path archive) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+      return reader.lines().map(line -> {
+        try {
+          return objectMapper.readTree(line);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }).toList();
+    }
+  }
+
+  private OutboxEvent publishedEvent(long eventId, String payload) {
+    return OutboxEvent.builder().eventId(eventId).eventType("transaction.posted")
+        .aggregateId(100L + eventId).payload(payload).status(OutboxEventStatus.PUBLISHED)
+        .createdAt(Instant.parse("2025-03-01T10:00:00Z"))
+        .publishedAt(Instant.parse("2025-03-01T10:00:01Z")).build();
+  }
+}
@@ -0,0 +1,89 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.dto.ProcessedEventPurgeResult;
+import com.creditx.posting.repository.PartitionMaintenanceRepository;
+import com.creditx.posting.repository.TablePartition;
+import com.creditx.posting.service.ProcessedEventService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventRetentionServiceImplTest {
+
+  private static final String TABLE = "CPS_PROCESSED_EVENTS";
+
+  @Mock
+  private PartitionMaintenanceRepository partitionRepository;
+
+  @Mock
+  private ProcessedEventService processedEventService;
+
+  @InjectMocks
+  private ProcessedEventRetentionServiceImpl processedEventRetentionServiceImpl;
+
+  private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(processedEventRetentionServiceImpl, "partitionPause", 0L);
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+  }
+
+  @Test
+  void shouldDropOrTruncatePartitionsOlderThanDedupWindow() {
+    // given
+    TablePartition initial = new TablePartition("P_PROCESSED_INITIAL", LocalDate.of(2025, 1, 1),
+        false);
+    TablePartition expired = new TablePartition("SYS_P201", today.minusDays(31), true);
+    TablePartition lastExpired = new TablePartition("SYS_P202", today.minusDays(30), true);
+    TablePartition live = new TablePartition("SYS_P203", today.minusDays(29), true);
+    when(partitionRepository.findPartitions(TABLE))
+        .thenReturn(List.of(initial, expired, lastExpired, live));
+
+    // when
+    ProcessedEventPurgeResult result = processedEventRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    verify(partitionRepository, times(1)).truncatePartition(TABLE, "P_PROCESSED_INITIAL");
+    verify(partitionRepository, times(1)).dropPartition(TABLE, "SYS_P201");
+    verify(partitionRepository, times(1)).dropPartition(TABLE, "SYS_P202");
+    verify(partitionRepository, never()).dropPartition(TABLE, "SYS_P203");
+    assertThat(result).isEqualTo(new ProcessedEventPurgeResult(2, 1));
+  }
+
+  @Test
+  void shouldContinueWithNextPartitionWhenDropFails() {
+    // given
+    TablePartition failing = new TablePartition("SYS_P201", today.minusDays(40), true);
+    TablePartition expired = new TablePartition("SYS_P202", today.minusDays(39), true);
+    when(partitionRepository.findPartitions(TABLE)).thenReturn(List.of(failing, expired));
+    doThrow(new DataAccessResourceFailureException("ORA-00054: resource busy"))
+        .when(partitionRepository).dropPartition(TABLE, "SYS_P201");
+
+    // when
+    ProcessedEventPurgeResult result = processedEventRetentionServiceImpl.purgeExpiredEvents();
+
+    // then
+    verify(partitionRepository, times(1)).dropPartition(TABLE, "SYS_P202");
+    verify(partitionRepository, never()).truncatePartition(any(), any());
+    assertThat(result.droppedPartitions()).isEqualTo(1);
+  }
+}
@@ -2,12 +2,22 @@ package com.creditx.posting.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.creditx.posting.model.ProcessedEvent;
 import com.creditx.posting.repository.ProcessedEventRepository;
+import com.creditx.posting.service.DedupStatus;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +25,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class ProcessedEventServiceImplTest {
@@ -32,29 +44,59 @@ class ProcessedEventServiceImplTest {
   @Test
   void shouldReturnTrueWhenEventIsProcessed() {
     // given
-    String eventId = "event-123";
-    when(processedEventRepository.existsByEventId(eventId)).thenReturn(true);
+    String eventId = "transaction.authorized-123-1";
+    when(processedEventRepository.existsByEventKey(eventId)).thenReturn(true);
 
     // when
     boolean result = processedEventServiceImpl.isEventProcessed(eventId);
 
     // then
     assertThat(result).isTrue();
-    verify(processedEventRepository, times(1)).existsByEventId(eventId);
+  }
+
+  @Test
+  void shouldFindPayloadUnderLegacyHashDuringTransition() {
+    // given
+    when(processedEventRepository.existsByPayloadDigest("legacy-hash-1")).thenReturn(false);
+    when(processedEventRepository.existsByPayloadHash("legacy-hash-1")).thenReturn(true);
+
+    // when
+    boolean result = processedEventServiceImpl.isPayloadProcessed("legacy-hash-1");
+
+    // then
+    assertThat(result).isTrue();
+  }
+
+  @Test
+  void shouldNotReadLegacyKeysOnceTransitionIsOver() {
+    // given
+    ReflectionTestUtils.setField(processedEventServiceImpl, "legacyKeysRead", false);
+    when(processedEventRepository.existsByPayloadDigest("hash-1")).thenReturn(false);
+
+    // when
+    boolean processed = processedEventServiceImpl.isPayloadProcessed("hash-1");
+    Optional<String> claim = processedEventServiceImpl.claimEvent("event-1", "hash-1",
+        "legacy-hash-1");
+
+    // then
+    assertThat(processed).isFalse();
+    assertThat(claim).isEmpty();
+    verify(processedEventRepository, never()).existsByPayloadHash(any());
+    verify(processedEventRepository, never()).countLegacyClaimBlockers(any(), anyLong());
   }
 
   @Test
   void shouldReturnFalseWhenEventIsNotProcessed() {
     // given
     String eventId = "event-456";
-    when(processedEventRepository.existsByEventId(eventId)).thenReturn(false);
+    when(processedEventRepository.existsByEventKey(eventId)).thenReturn(false);
 
     // when
     boolean result = processedEventServiceImpl.isEventProcessed(eventId);
 
     // then
     assertThat(result).isFalse();
-    verify(processedEventRepository, times(1)).existsByEventId(eventId);
+    verify(processedEventRepository, times(1)).existsByEventKey(eventId);
   }
 
   @Test
@@ -64,17 +106,18 @@ class ProcessedEventServiceImplTest {
     String payloadHash = "hash-abc123";
     String status = "SUCCESS";
 
-    ProcessedEvent savedEvent = createProcessedEvent(eventId, payloadHash, status);
-    when(processedEventRepository.save(any(ProcessedEvent.class))).thenReturn(savedEvent);
+    when(processedEventRepository.insertAll(any())).thenReturn(1);
 
     // when
     processedEventServiceImpl.markEventAsProcessed(eventId, payloadHash, status);
 
     // then
-    ArgumentCaptor<ProcessedEvent> eventCaptor = ArgumentCaptor.forClass(ProcessedEvent.class);
-    verify(processedEventRepository, times(1)).save(eventCaptor.capture());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<ProcessedEvent>> eventCaptor = ArgumentCaptor.forClass(List.class);
+    verify(processedEventRepository, times(1)).insertAll(eventCaptor.capture());
+    verify(processedEventRepository, never()).save(any());
 
-    ProcessedEvent capturedEvent = eventCaptor.getValue();
+    ProcessedEvent capturedEvent = eventCaptor.getValue().get(0);
     assertThat(capturedEvent.getEventId()).isEqualTo(eventId);
     assertThat(capturedEvent.getPayloadHash()).isEqualTo(payloadHash);
     assertThat(capturedEvent.getStatus()).isEqualTo(status);
@@ -84,20 +127,21 @@ class ProcessedEventServiceImplTest {
   void shouldReturnTrueWhenPayloadIsProcessed() {
     // given
     String payloadHash = "hash-def456";
-    when(processedEventRepository.existsByPayloadHash(payloadHash)).thenReturn(true);
+    when(processedEventRepository.existsByPayloadDigest(payloadHash)).thenReturn(true);
 
     // when
     boolean result = processedEventServiceImpl.isPayloadProcessed(payloadHash);
 
     // then
     assertThat(result).isTrue();
-    verify(processedEventRepository, times(1)).existsByPayloadHash(payloadHash);
+    verify(processedEventRepository, never()).existsByPayloadHash(any());
   }
 
   @Test
   void shouldReturnFalseWhenPayloadIsNotProcessed() {
     // given
     String payloadHash = "hash-ghi789";
+    when(processedEventRepository.existsByPayloadDigest(payloadHash)).thenReturn(false);
     when(processedEventRepository.existsByPayloadHash(payloadHash)).thenReturn(false);
 
     // when
@@ -108,6 +152,218 @@ class ProcessedEventServiceImplTest {
     verify(processedEventRepository, times(1)).existsByPayloadHash(payloadHash);
   }
 
+  @Test
+  void shouldLookUpProcessedEventsInInListChunks() {
+    // given
+    List<String> eventIds = IntStream.range(0, 1500).mapToObj(i -> "event-" + i).toList();
+    List<String> payloadHashes = IntStream.range(0, 1500).mapToObj(i -> "hash-" + i).toList();
+    ProcessedEvent processed = createProcessedEvent("event-1200", "hash-1200", "SUCCESS");
+    ProcessedEvent legacy = createProcessedEvent("transaction.authorized-7-ab12cd34", "hash-7",
+        "SUCCESS");
+    when(processedEventRepository.findByEventKeysOrPayloadDigests(eventIds.subList(0, 1000),
+        payloadHashes.subList(0, 1000))).thenReturn(List.of());
+    when(processedEventRepository.findByEventKeysOrPayloadDigests(eventIds.subList(1000, 1500),
+        payloadHashes.subList(1000, 1500))).thenReturn(List.of(processed));
+    when(processedEventRepository.findByPayloadHashIn(payloadHashes.subList(0, 1000)))
+        .thenReturn(List.of(legacy));
+    when(processedEventRepository.findByPayloadHashIn(payloadHashes.subList(1000, 1500)))
+        .thenReturn(List.of());
+
+    // when
+    List<ProcessedEvent> result = processedEventServiceImpl.findProcessedEvents(eventIds,
+        payloadHashes);
+
+    // then
+    assertThat(result).containsExactlyInAnyOrder(processed, legacy);
+  }
+
+  @Test
+  void shouldNotLookUpLegacyRowsByEventId() {
+    // given - legacy event ids carry a random suffix no redelivery reproduces
+    when(processedEventRepository.findByEventKeysOrPayloadDigests(List.of("event-1"), List.of()))
+        .thenReturn(List.of());
+
+    // when
+    List<ProcessedEvent> result = processedEventServiceImpl.findProcessedEvents(
+        List.of("event-1"), List.of());
+
+    // then
+    assertThat(result).isEmpty();
+    verify(processedEventRepository, never()).findByPayloadHashIn(any());
+  }
+
+  @Test
+  void shouldMarkEventsAsProcessedInOneBatch() {
+    // given
+    List<ProcessedEvent> events = List.of(createProcessedEvent("event-1", "hash-1", "SUCCESS"),
+        createProcessedEvent("event-2", "hash-2", "SUCCESS"));
+    when(processedEventRepository.insertAll(events)).thenReturn(2);
+
+    // when
+    processedEventServiceImpl.markEventsAsProcessed(events);
+
+    // then
+    verify(processedEventRepository, times(1)).insertAll(events);
+    verify(processedEventRepository, never()).save(any());
+  }
+
+  @Test
+  void shouldNotWriteEmptyBatch() {
+    // when
+    processedEventServiceImpl.markEventsAsProcessed(List.of());
+
+    // then
+    verify(processedEventRepository, never()).insertAll(any());
+  }
+
+  @Test
+  void shouldClaimEventWithSingleMerge() {
+    // given
+    ReflectionTestUtils.setField(processedEventServiceImpl, "claimTimeout", 30000L);
+    when(processedEventRepository.claim("event-1", "hash-1", 30)).thenReturn(1);
+
+    // when
+    Optional<String> claim = processedEventServiceImpl.claimEvent("event-1", "hash-1",
+        "legacy-hash-1");
+
+    // then
+    assertThat(claim).contains("event-1");
+    verify(processedEventRepository, never()).findByPayloadHashIn(any());
+    verify(processedEventRepository, never()).insertAll(any());
+  }
+
+  @Test
+  void shouldNotClaimSettledOrLiveClaimedPayload() {
+    // given
+    when(processedEventRepository.claim("event-2", "hash-1", 60)).thenReturn(0);
+
+    // when
+    Optional<String> claim = processedEventServiceImpl.claimEvent("event-2", "hash-1", null);
+
+    // then
+    assertThat(claim).isEmpty();
+  }
+
+  @Test
+  void shouldNotClaimPayloadSettledOrLiveClaimedUnderLegacyKey() {
+    // given
+    when(processedEventRepository.countLegacyClaimBlockers("legacy-hash-1", 60)).thenReturn(1L);
+
+    // when
+    Optional<String> claim = processedEventServiceImpl.claimEvent("event-2", "hash-1",
+        "legacy-hash-1");
+
+    // then
+    assertThat(claim).isEmpty();
+    verify(processedEventRepository, never()).claim(any(), any(), anyLong());
+  }
+
+  @Test
+  void shouldTreatUniqueViolationAsLostClaimRace() {
+    // given
+    when(processedEventRepository.claim("event-2", "hash-1", 60)).thenThrow(
+        new DataIntegrityViolationException("ORA-00001: unique constraint violated"));
+
+    // when
+    Optional<String> claim = processedEventServiceImpl.claimEvent("event-2", "hash-1", null);
+
+    // then
+    assertThat(claim).isEmpty();
+  }
+
+  @Test
+  void shouldCompleteClaimedEvent() {
+    // when
+    processedEventServiceImpl.completeEvent("event-1", "SUCCESS");
+
+    // then
+    verify(processedEventRepository, times(1)).updateStatus("event-1", "SUCCESS");
+  }
+
+  @Test
+  void shouldClaimBatchWithOneMergeBatchSkippingLegacyBlockers() {
+    // given
+    List<ProcessedEvent> events = List.of(createProcessedEvent("event-1", "hash-1", null),
+        createProcessedEvent("event-2", "hash-2", null),
+        createProcessedEvent("event-3", "hash-3", null));
+    List<String> legacyHashes = Arrays.asList("legacy-hash-1", "legacy-hash-2", null);
+    when(processedEventRepository.findLegacyClaimBlockers(
+        List.of("legacy-hash-1", "legacy-hash-2"), 60)).thenReturn(List.of("legacy-hash-2"));
+    when(processedEventRepository.claimAll(List.of(events.get(0), events.get(2)), 60))
+        .thenReturn(new int[]{1, 0});
+
+    // when
+    Set<String> claimed = processedEventServiceImpl.claimEvents(events, legacyHashes);
+
+    // then
+    assertThat(claimed).containsExactly("event-1");
+    verify(processedEventRepository, never()).claim(any(), any(), anyLong());
+  }
+
+  @Test
+  void shouldClaimOneAtATimeWhenBatchLosesARace() {
+    // given
+    ReflectionTestUtils.setField(processedEventServiceImpl, "legacyKeysRead", false);
+    List<ProcessedEvent> events = List.of(createProcessedEvent("event-1", "hash-1", null),
+        createProcessedEvent("event-2", "hash-2", null));
+    when(processedEventRepository.claimAll(events, 60)).thenThrow(
+        new DataIntegrityViolationException("ORA-00001: unique constraint violated"));
+    when(processedEventRepository.claim("event-1", "hash-1", 60)).thenReturn(1);
+    when(processedEventRepository.claim("event-2", "hash-2", 60)).thenThrow(
+        new DataIntegrityViolationException("ORA-00001: unique constraint violated"));
+
+    // when
+    Set<String> claimed = processedEventServiceImpl.claimEvents(events, Arrays.asList(null, null));
+
+    // then
+    assertThat(claimed).containsExactly("event-1");
+  }
+
+  @Test
+  void shouldCompleteClaimedEventsInOneBatch() {
+    // given
+    List<ProcessedEvent> outcomes = List.of(createProcessedEvent("event-1", null, "SUCCESS"),
+        createProcessedEvent("event-2", null, "FAILED"));
+
+    // when
+    processedEventServiceImpl.completeEvents(outcomes);
+
+    // then
+    verify(processedEventRepository, times(1)).updateStatuses(outcomes);
+  }
+
+  @Test
+  void shouldReportEventWithRowAsSeenWhateverItsAge() {
+    // given
+    when(processedEventRepository.findByPayloadHashIn(List.of("hash-1"))).thenReturn(
+        List.of(createProcessedEvent("event-1", "hash-1", "SUCCESS")));
+
+    // when
+    DedupStatus status = processedEventServiceImpl.checkEvent("event-1", "hash-1",
+        Instant.now().minus(Duration.ofDays(90)));
+
+    // then
+    assertThat(status).isEqualTo(DedupStatus.SEEN);
+  }
+
+  @Test
+  void shouldReportEventWithoutRowAsUnseenInsideWindowAndUnknownOutside() {
+    // given
+    ReflectionTestUtils.setField(processedEventServiceImpl, "windowDays", 7);
+    when(processedEventRepository.findByPayloadHashIn(any())).thenReturn(List.of());
+
+    // when
+    DedupStatus recent = processedEventServiceImpl.checkEvent("event-1", "hash-1",
+        Instant.now().minus(Duration.ofDays(6)));
+    DedupStatus old = processedEventServiceImpl.checkEvent("event-2", "hash-2",
+        Instant.now().minus(Duration.ofDays(8)));
+
+    // then
+    assertThat(processedEventServiceImpl.dedupWindow()).isEqualTo(Duration.ofDays(7));
+    assertThat(recent).isEqualTo(DedupStatus.UNSEEN);
+    assertThat(old).isEqualTo(DedupStatus.UNKNOWN);
+  }
+
   private ProcessedEvent createProcessedEvent(String eventId, String payloadHash, String status) {
     return ProcessedEvent.builder().eventId(eventId).payloadHash(payloadHash).status(status)
         .build();
@@ -0,0 +1,130 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.CmsStubServer;
+import com.creditx.posting.config.CmsResilienceConfig;
+import com.creditx.posting.config.ReactiveConsumerConfig;
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.service.TransactionEventService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+
+class ReactiveTransactionEventProcessorTest {
+
+  private final ReactiveConsumerConfig reactiveConfig = new ReactiveConsumerConfig();
+  private final CmsResilienceConfig resilienceConfig = new CmsResilienceConfig();
+  private CmsStubServer cms;
+  private CloseableHttpAsyncClient httpClient;
+  private Scheduler dbScheduler;
+  private CircuitBreaker circuitBreaker;
+  private TransactionEventService transactionEventService;
+  private ReactiveTransactionEventProcessor processor;
+
+  @BeforeEach
+  void setup() throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    cms = CmsStubServer.start(0);
+    httpClient = reactiveConfig.cmsAsyncHttpClient(20, 20, 1000, 5000, 5000, 1000, 30000, 1,
+        meterRegistry);
+    WebClient webClient = reactiveConfig.cmsWebClient(WebClient.builder(), httpClient, cms.url());
+    dbScheduler = reactiveConfig.postingDbScheduler(2, 100);
+    circuitBreaker = resilienceConfig.cmsCircuitBreaker(50, 1000, 100, 10, 10, 1000, 1,
+        meterRegistry);
+    transactionEventService = mock(TransactionEventService.class);
+    processor = new ReactiveTransactionEventProcessor(transactionEventService,
+        new ReactiveCmsCommitClient(webClient, circuitBreaker,
+            resilienceConfig.cmsBulkhead(10, 0, meterRegistry)),
+        dbScheduler);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    dbScheduler.dispose();
+    httpClient.close();
+    cms.close();
+  }
+
+  @Test
+  void shouldCommitWithCmsAndCompleteTheClaim() {
+    // given
+    TransactionAuthorizedEvent event = event(1L);
+    when(transactionEventService.claimTransactionAuthorized(event, null, null))
+        .thenReturn(Optional.of("claim-1"));
+
+    // when
+    processor.process(event, null, null).block(Duration.ofSeconds(5));
+
+    // then
+    assertThat(cms.committed()).containsExactly(1L);
+    verify(transactionEventService).completeTransactionAuthorized("claim-1", true);
+  }
+
+  @Test
+  void shouldSkipCmsForDuplicates() {
+    // given
+    TransactionAuthorizedEvent event = event(1L);
+    when(transactionEventService.claimTransactionAuthorized(event, null, null))
+        .thenReturn(Optional.empty());
+
+    // when
+    processor.process(event, null, null).block(Duration.ofSeconds(5));
+
+    // then
+    assertThat(cms.requests()).isZero();
+    verify(transactionEventService, never()).completeTransactionAuthorized(any(), anyBoolean());
+  }
+
+  @Test
+  void shouldMarkTheClaimFailedWhenCmsRejectsTheTransaction() {
+    // given
+    TransactionAuthorizedEvent event = event(2L);
+    cms.reject(2L);
+    when(transactionEventService.claimTransactionAuthorized(event, null, null))
+        .thenReturn(Optional.of("claim-2"));
+
+    // when / then
+    assertThatThrownBy(() -> processor.process(event, null, null).block(Duration.ofSeconds(5)))
+        .hasMessage(CmsCommitDispatcher.FAILURE_MESSAGE);
+    verify(transactionEventService).completeTransactionAuthorized("claim-2", false);
+    // a rejected transaction says nothing about CMS health
+    assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+  }
+
+  @Test
+  void shouldRecordServerErrorsInTheCircuitBreaker() {
+    // given
+    TransactionAuthorizedEvent event = event(3L);
+    cms.failWith(503);
+    when(transactionEventService.claimTransactionAuthorized(event, null, null))
+        .thenReturn(Optional.of("claim-3"));
+
+    // when / then
+    assertThatThrownBy(() -> processor.process(event, null, null).block(Duration.ofSeconds(5)))
+        .hasMessage(CmsCommitDispatcher.FAILURE_MESSAGE);
+    verify(transactionEventService).completeTransactionAuthorized("claim-3", false);
+    assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+  }
+
+  private static TransactionAuthorizedEvent event(long transactionId) {
+    TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
+    event.setTransactionId(transactionId);
+    event.setHoldId(transactionId + 100);
+    return event;
+  }
+}
@@ -0,0 +1,79 @@
+package com.creditx.posting.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.creditx.posting.repository.SchedulerLockRepository;
+import com.creditx.posting.service.SchedulerLockService;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SchedulerLockServiceImplTest {
+
+  private static final String LOCK = SchedulerLockService.OUTBOX_RETENTION;
+
+  @Mock
+  private SchedulerLockRepository lockRepository;
+
+  @InjectMocks
+  private SchedulerLockServiceImpl schedulerLockService;
+
+  private final AtomicInteger runs = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(schedulerLockService, "instanceId", "node-a");
+  }
+
+  @Test
+  void shouldRunJobAndReleaseLockOnceTaken() {
+    // given
+    when(lockRepository.tryLock(LOCK, "node-a", Duration.ofHours(1))).thenReturn(true);
+    when(lockRepository.unlock(LOCK, "node-a")).thenReturn(true);
+
+    // when
+    boolean ran = schedulerLockService.runExclusively(LOCK, runs::incrementAndGet);
+
+    // then
+    assertThat(ran).isTrue();
+    assertThat(runs).hasValue(1);
+    verify(lockRepository).unlock(LOCK, "node-a");
+  }
+
+  @Test
+  void shouldSkipJobWhileAnotherInstanceHoldsTheLock() {
+    // given
+    when(lockRepository.tryLock(eq(LOCK), eq("node-a"), any())).thenReturn(false);
+
+    // when
+    boolean ran = schedulerLockService.runExclusively(LOCK, runs::incrementAndGet);
+
+    // then
+    assertThat(ran).isFalse();
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void shouldReleaseLockWhenJobFails() {
+    // given
+    when(lockRepository.tryLock(eq(LOCK), eq("node-a"), any())).thenReturn(true);
+
+    // when & then
+    assertThatThrownBy(() -> schedulerLockService.runExclusively(LOCK, () -> {
+      throw new IllegalStateException("purge failed");
+    })).isInstanceOf(IllegalStateException.class);
+    verify(lockRepository).unlock(LOCK, "node-a");
+  }
+}
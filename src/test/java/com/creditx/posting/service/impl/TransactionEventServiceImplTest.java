@@ -2,10 +2,13 @@ package com.creditx.posting.service.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -13,44 +16,54 @@ import static org.mockito.Mockito.when;
 
 import com.creditx.posting.dto.CommitTransactionRequest;
 import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import com.creditx.posting.model.ProcessedEvent;
+import com.creditx.posting.service.BatchRecordFailedException;
+import com.creditx.posting.service.DedupStatus;
+import com.creditx.posting.service.DedupWindowExceededException;
 import com.creditx.posting.service.ProcessedEventService;
+import com.creditx.posting.service.impl.CmsCommitDispatcher.CommitResult;
 import com.creditx.posting.tracing.TransactionSpanTagger;
 import com.creditx.posting.util.EventIdGenerator;
-import org.junit.jupiter.api.BeforeEach;
+import com.creditx.posting.util.PayloadHashAlgorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.ResponseEntity;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionEventServiceImplTest {
 
   @Mock
-  private RestTemplate restTemplate;
+  private CmsCommitDispatcher cmsCommitDispatcher;
 
   @Mock
   private ProcessedEventService processedEventService;
 
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
   @InjectMocks
   private TransactionEventServiceImpl transactionEventService;
 
   @Mock
   private TransactionSpanTagger transactionSpanTagger;
 
-  @BeforeEach
-  void setup() {
-    ReflectionTestUtils.setField(transactionEventService, "creditMainServiceUrl",
-        "http://localhost:8080");
-  }
-
   @Test
   void shouldProcessTransactionAuthorizedEvent() {
     // given
@@ -60,40 +73,27 @@ class TransactionEventServiceImplTest {
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L))
-          .thenReturn(eventId);
-      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(anyString()))
-          .thenReturn(payloadHash);
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L,
+          456L)).thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(any(byte[].class),
+          any())).thenReturn(payloadHash);
 
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(processedEventService.isPayloadProcessed(payloadHash)).thenReturn(false);
-      when(restTemplate.postForEntity(anyString(), any(HttpEntity.class),
-          eq(String.class))).thenReturn(ResponseEntity.ok("Success"));
+      when(processedEventService.claimEvent(eventId, payloadHash, null)).thenReturn(
+          Optional.of(eventId));
 
       // when
       transactionEventService.processTransactionAuthorized(event);
 
-      // then
+      // then - claim, call CMS, record the outcome, in that order
       verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
-      verify(processedEventService, times(1)).isEventProcessed(eventId);
-      verify(processedEventService, times(1)).isPayloadProcessed(payloadHash);
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, payloadHash, "SUCCESS");
-
-      ArgumentCaptor<String> urlCaptor = ArgumentCaptor.forClass(String.class);
-      ArgumentCaptor<HttpEntity<?>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
-      verify(restTemplate, times(1)).postForEntity(urlCaptor.capture(), entityCaptor.capture(),
-          eq(String.class));
-
-      assertThat(urlCaptor.getValue()).isEqualTo(
-          "http://localhost:8080/api/transactions/123/commit");
-
-      @SuppressWarnings("unchecked") HttpEntity<CommitTransactionRequest> capturedEntity = (HttpEntity<CommitTransactionRequest>) entityCaptor.getValue();
-      CommitTransactionRequest capturedRequest = capturedEntity.getBody();
-      assertThat(capturedRequest).isNotNull();
-      if (capturedRequest != null) {
-        assertThat(capturedRequest.getTransactionId()).isEqualTo(123L);
-        assertThat(capturedRequest.getHoldId()).isEqualTo(456L);
-      }
+      ArgumentCaptor<CommitTransactionRequest> requestCaptor = ArgumentCaptor.captor();
+      InOrder order = inOrder(processedEventService, cmsCommitDispatcher);
+      order.verify(processedEventService).claimEvent(eventId, payloadHash, null);
+      order.verify(cmsCommitDispatcher).commit(requestCaptor.capture());
+      order.verify(processedEventService).completeEvent(eventId, "SUCCESS");
+
+      assertThat(requestCaptor.getValue().getTransactionId()).isEqualTo(123L);
+      assertThat(requestCaptor.getValue().getHoldId()).isEqualTo(456L);
     }
   }
 
@@ -102,29 +102,31 @@ class TransactionEventServiceImplTest {
     // given
     TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
     String eventId = "transaction.authorized-123";
+    String payloadHash = "hash123";
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L))
-          .thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L,
+          456L)).thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(any(byte[].class),
+          any())).thenReturn(payloadHash);
 
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(true);
+      when(processedEventService.claimEvent(eventId, payloadHash, null))
+          .thenReturn(Optional.empty());
 
       // when
       transactionEventService.processTransactionAuthorized(event);
 
       // then
       verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
-      verify(processedEventService, times(1)).isEventProcessed(eventId);
-      verify(processedEventService, never()).isPayloadProcessed(anyString());
-      verify(processedEventService, never()).markEventAsProcessed(anyString(), anyString(),
-          anyString());
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+      verify(processedEventService, times(1)).claimEvent(eventId, payloadHash, null);
+      verify(processedEventService, never()).completeEvent(anyString(), anyString());
+      verify(cmsCommitDispatcher, never()).commit(any());
     }
   }
 
   @Test
-  void shouldSkipProcessingWhenPayloadAlreadyProcessed() {
+  void shouldMarkAsFailedWhenCommitFails() {
     // given
     TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
     String eventId = "transaction.authorized-123";
@@ -132,83 +134,387 @@ class TransactionEventServiceImplTest {
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L))
-          .thenReturn(eventId);
-      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(anyString()))
-          .thenReturn(payloadHash);
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L,
+          456L)).thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(any(byte[].class),
+          any())).thenReturn(payloadHash);
 
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(processedEventService.isPayloadProcessed(payloadHash)).thenReturn(true);
+      // an earlier delivery left a claim under a different id, which is taken over
+      when(processedEventService.claimEvent(eventId, payloadHash, null)).thenReturn(
+          Optional.of("transaction.authorized-123-earlier"));
+      doThrow(new RuntimeException("Failed to send commit transaction request to CMS"))
+          .when(cmsCommitDispatcher).commit(any());
 
-      // when
-      transactionEventService.processTransactionAuthorized(event);
+      // when & then
+      assertThatThrownBy(
+          () -> transactionEventService.processTransactionAuthorized(event)).isInstanceOf(
+          RuntimeException.class).hasMessage("Failed to send commit transaction request to CMS");
 
-      // then
-      verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
-      verify(processedEventService, times(1)).isEventProcessed(eventId);
-      verify(processedEventService, times(1)).isPayloadProcessed(payloadHash);
-      verify(processedEventService, never()).markEventAsProcessed(anyString(), anyString(),
-          anyString());
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+      verify(processedEventService, times(1)).completeEvent("transaction.authorized-123-earlier",
+          "FAILED");
+      verify(processedEventService, never()).completeEvent(anyString(), eq("SUCCESS"));
     }
   }
 
   @Test
-  void shouldMarkAsFailedWhenRestTemplateFails() {
+  void shouldNotClaimWhenPayloadHashGenerationFails() {
     // given
     TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
     String eventId = "transaction.authorized-123";
-    String payloadHash = "hash123";
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
         EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L))
-          .thenReturn(eventId);
-      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(anyString()))
-          .thenReturn(payloadHash);
-
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
-      when(processedEventService.isPayloadProcessed(payloadHash)).thenReturn(false);
-      doThrow(new RuntimeException("API call failed")).when(restTemplate)
-          .postForEntity(anyString(), any(HttpEntity.class), eq(String.class));
+      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L,
+          456L)).thenReturn(eventId);
+      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(any(byte[].class),
+          any()))
+          .thenThrow(new RuntimeException("Hash generation failed"));
 
       // when & then
       assertThatThrownBy(
           () -> transactionEventService.processTransactionAuthorized(event)).isInstanceOf(
-          RuntimeException.class).hasMessage("Failed to send commit transaction request to CMS");
+          RuntimeException.class).hasMessage("Hash generation failed");
 
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, "", "FAILED");
+      verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
+      verify(processedEventService, never()).claimEvent(anyString(), anyString(), any());
+      verify(cmsCommitDispatcher, never()).commit(any());
     }
   }
 
   @Test
-  void shouldMarkAsFailedWhenPayloadHashGenerationFails() {
+  void shouldHashRecordBytesAsReceived() throws Exception {
+    // given - field order and spacing differ from what the mapper would write
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
+    byte[] payload = "{ \"holdId\": 456, \"transactionId\": 123 }"
+        .getBytes(StandardCharsets.UTF_8);
+    when(processedEventService.claimEvent(anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    // when
+    transactionEventService.processTransactionAuthorized(event, payload, null);
+
+    // then
+    verify(processedEventService, times(1)).claimEvent(
+        EventIdGenerator.generateEventId("transaction.authorized", 123L, 456L),
+        EventIdGenerator.generatePayloadHash(payload, PayloadHashAlgorithm.SHA_256),
+        EventIdGenerator.generateLegacyPayloadHash(event));
+    verify(objectMapper, never()).writeValueAsBytes(any());
+  }
+
+  @Test
+  void shouldPassLegacyPayloadHashOnlyWhileLegacyKeysAreRead() throws Exception {
     // given
     TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
-    String eventId = "transaction.authorized-123";
+    when(processedEventService.claimEvent(anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    // when
+    transactionEventService.processTransactionAuthorized(event);
+    ReflectionTestUtils.setField(transactionEventService, "legacyKeysRead", false);
+    transactionEventService.processTransactionAuthorized(event);
+
+    // then - rows of the old layout hold the hash of the event as a default mapper writes it
+    verify(processedEventService, times(1)).claimEvent(anyString(), anyString(),
+        eq(EventIdGenerator.generatePayloadHash(new ObjectMapper().writeValueAsString(event))));
+    verify(processedEventService, times(1)).claimEvent(anyString(), anyString(), isNull());
+  }
+
+  @Test
+  void shouldSkipBatchEventSettledUnderLegacyPayloadHash() throws Exception {
+    // given - a row written before the compact key layout, under a random event id suffix
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(1L, 11L);
+    String legacyPayloadHash = EventIdGenerator.generateLegacyPayloadHash(event);
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of(
+        ProcessedEvent.builder().eventId("transaction.authorized-1-ab12cd34")
+            .payloadHash(legacyPayloadHash).status("SUCCESS").build()));
+
+    // when
+    transactionEventService.processTransactionAuthorizedBatch(List.of(event));
+
+    // then
+    ArgumentCaptor<List<String>> hashes = ArgumentCaptor.captor();
+    verify(processedEventService, times(1)).findProcessedEvents(any(), hashes.capture());
+    assertThat(hashes.getValue()).contains(legacyPayloadHash);
+    verify(processedEventService, never()).claimEvents(any(), any());
+    verify(cmsCommitDispatcher, never()).commitAll(any());
+  }
+
+  @Test
+  void shouldSkipDuplicatesAndRecordSettledEventsOfBatchAtOnce() {
+    // given
+    TransactionAuthorizedEvent fresh = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent seenById = createTransactionAuthorizedEvent(2L, 22L);
+    TransactionAuthorizedEvent redelivered = createTransactionAuthorizedEvent(1L, 11L);
 
     try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
-        EventIdGenerator.class)) {
-      mockedGenerator.when(() -> EventIdGenerator.generateEventId("transaction.authorized", 123L))
-          .thenReturn(eventId);
-      mockedGenerator.when(() -> EventIdGenerator.generatePayloadHash(anyString()))
-          .thenThrow(new RuntimeException("Hash generation failed"));
+        EventIdGenerator.class, Mockito.CALLS_REAL_METHODS)) {
+      mockedGenerator.when(
+          () -> EventIdGenerator.generateEventId("transaction.authorized", 1L, 11L))
+          .thenReturn("id-1", "id-1b");
+      mockedGenerator.when(
+          () -> EventIdGenerator.generateEventId("transaction.authorized", 2L, 22L))
+          .thenReturn("id-2");
+      when(processedEventService.findProcessedEvents(any(), any())).thenReturn(
+          List.of(ProcessedEvent.builder().eventId("id-2").payloadHash("other")
+              .status("SUCCESS").build()));
+      when(processedEventService.claimEvents(any(), any())).then(claimAll());
+      when(cmsCommitDispatcher.commitAll(any())).then(commitEach());
 
-      when(processedEventService.isEventProcessed(eventId)).thenReturn(false);
+      // when
+      transactionEventService.processTransactionAuthorizedBatch(
+          List.of(fresh, seenById, redelivered));
+
+      // then - one lookup, one batched claim, one CMS commit and one batched completion
+      verify(processedEventService, times(1)).findProcessedEvents(
+          eq(List.of("id-1", "id-2", "id-1b")), any());
+      ArgumentCaptor<List<ProcessedEvent>> claimed = ArgumentCaptor.captor();
+      verify(processedEventService, times(1)).claimEvents(claimed.capture(), any());
+      assertThat(claimed.getValue()).extracting(ProcessedEvent::getEventId)
+          .containsExactly("id-1");
+      verify(cmsCommitDispatcher, times(1)).commitAll(
+          List.of(CommitTransactionRequest.builder().transactionId(1L).holdId(11L).build()));
+      assertThat(completed()).extracting(ProcessedEvent::getEventId, ProcessedEvent::getStatus)
+          .containsExactly(tuple("id-1", "SUCCESS"));
+      verify(processedEventService, never()).claimEvent(anyString(), anyString(), any());
+      verify(processedEventService, never()).markEventsAsProcessed(any());
+      verify(processedEventService, never()).isEventProcessed(anyString());
+      verify(processedEventService, never()).markEventAsProcessed(anyString(), anyString(),
+          anyString());
+    }
+  }
 
-      // when & then
-      assertThatThrownBy(
-          () -> transactionEventService.processTransactionAuthorized(event)).isInstanceOf(
-          RuntimeException.class).hasMessage("Hash generation failed");
+  @Test
+  void shouldAttributeBatchFailureToTheFailingEventAndKeepEarlierOnes() {
+    // given
+    TransactionAuthorizedEvent first = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent failing = createTransactionAuthorizedEvent(2L, 22L);
+    TransactionAuthorizedEvent last = createTransactionAuthorizedEvent(3L, 33L);
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.claimEvents(any(), any())).then(claimAll());
+    // one call at a time, stopping at the failed one
+    when(cmsCommitDispatcher.commitAll(any())).thenAnswer(invocation -> {
+      List<CommitTransactionRequest> requests = invocation.getArgument(0);
+      return List.of(new CommitResult(requests.get(0), null),
+          new CommitResult(requests.get(1), new RuntimeException("API call failed")));
+    });
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventService.processTransactionAuthorizedBatch(
+        List.of(first, failing, last))).isInstanceOfSatisfying(BatchRecordFailedException.class,
+        e -> assertThat(e.getIndex()).isEqualTo(1));
+
+    // then - the failed and the unsent claims are released for the redelivery
+    assertThat(completed()).extracting(ProcessedEvent::getStatus)
+        .containsExactly("SUCCESS", "FAILED", "FAILED");
+  }
 
-      verify(transactionSpanTagger, times(1)).tagTransactionId(123L);
-      verify(processedEventService, times(1)).isEventProcessed(eventId);
-      verify(processedEventService, never()).isPayloadProcessed(anyString());
-      verify(processedEventService, times(1)).markEventAsProcessed(eventId, "", "FAILED");
-      verify(restTemplate, never()).postForEntity(anyString(), any(), any());
+  @Test
+  void shouldRecordEventsCommittedInBulkAfterTheFailingOne() {
+    // given
+    TransactionAuthorizedEvent first = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent failing = createTransactionAuthorizedEvent(2L, 22L);
+    TransactionAuthorizedEvent last = createTransactionAuthorizedEvent(3L, 33L);
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.claimEvents(any(), any())).then(claimAll());
+    when(cmsCommitDispatcher.commitAll(any())).thenAnswer(invocation -> {
+      List<CommitTransactionRequest> requests = invocation.getArgument(0);
+      return List.of(new CommitResult(requests.get(0), null),
+          new CommitResult(requests.get(1), new RuntimeException("CMS did not commit")),
+          new CommitResult(requests.get(2), null));
+    });
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventService.processTransactionAuthorizedBatch(
+        List.of(first, failing, last))).isInstanceOfSatisfying(BatchRecordFailedException.class,
+        e -> assertThat(e.getIndex()).isEqualTo(1));
+
+    // then - both committed events are recorded, so a redelivery skips the last one
+    assertThat(completed()).extracting(ProcessedEvent::getEventId, ProcessedEvent::getStatus)
+        .containsExactly(
+            tuple(EventIdGenerator.generateEventId("transaction.authorized", 1L, 11L), "SUCCESS"),
+            tuple(EventIdGenerator.generateEventId("transaction.authorized", 2L, 22L), "FAILED"),
+            tuple(EventIdGenerator.generateEventId("transaction.authorized", 3L, 33L), "SUCCESS"));
+  }
+
+  @Test
+  void shouldClaimBatchEventWithUnfinishedRowAlongWithTheOthers() {
+    // given
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent old = createTransactionAuthorizedEvent(2L, 22L);
+
+    try (MockedStatic<EventIdGenerator> mockedGenerator = Mockito.mockStatic(
+        EventIdGenerator.class, Mockito.CALLS_REAL_METHODS)) {
+      mockedGenerator.when(
+          () -> EventIdGenerator.generateEventId("transaction.authorized", 1L, 11L))
+          .thenReturn("id-1");
+      mockedGenerator.when(
+          () -> EventIdGenerator.generateEventId("transaction.authorized", 2L, 22L))
+          .thenReturn("id-2");
+      when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of(
+          ProcessedEvent.builder().eventId("id-1").payloadHash("hash-1").status("FAILED")
+              .build(),
+          ProcessedEvent.builder().eventId("id-2").payloadHash("hash-2").status("IN_PROGRESS")
+              .build()));
+      when(processedEventService.claimEvents(any(), any())).then(claimAll());
+      when(cmsCommitDispatcher.commitAll(any())).then(commitEach());
+
+      // when - the second event is older than the window, but its row is known
+      transactionEventService.processTransactionAuthorizedBatch(List.of(event, old),
+          List.of(Instant.now(), Instant.now().minus(Duration.ofDays(45))));
+
+      // then
+      assertThat(completed()).extracting(ProcessedEvent::getEventId, ProcessedEvent::getStatus)
+          .containsExactly(tuple("id-1", "SUCCESS"), tuple("id-2", "SUCCESS"));
+      verify(processedEventService, never()).claimEvent(anyString(), anyString(), any());
     }
   }
 
+  @Test
+  void shouldNotCommitBatchEventsItCouldNotClaim() {
+    // given
+    TransactionAuthorizedEvent claimedElsewhere = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent fresh = createTransactionAuthorizedEvent(2L, 22L);
+    String freshId = EventIdGenerator.generateEventId("transaction.authorized", 2L, 22L);
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.claimEvents(any(), any())).thenReturn(Set.of(freshId));
+    when(cmsCommitDispatcher.commitAll(any())).then(commitEach());
+
+    // when
+    transactionEventService.processTransactionAuthorizedBatch(
+        List.of(claimedElsewhere, fresh));
+
+    // then - only the claimed event goes to CMS and is completed
+    verify(cmsCommitDispatcher, times(1)).commitAll(
+        List.of(CommitTransactionRequest.builder().transactionId(2L).holdId(22L).build()));
+    assertThat(completed()).extracting(ProcessedEvent::getEventId).containsExactly(freshId);
+  }
+
+  @Test
+  void shouldReleaseBatchClaimsWhenCommitThrows() {
+    // given
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(1L, 11L);
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.claimEvents(any(), any())).then(claimAll());
+    when(cmsCommitDispatcher.commitAll(any())).thenThrow(new IllegalStateException("shut down"));
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventService.processTransactionAuthorizedBatch(
+        List.of(event))).isInstanceOf(IllegalStateException.class);
+    assertThat(completed()).extracting(ProcessedEvent::getStatus).containsExactly("FAILED");
+  }
+
+  @Test
+  void shouldRefuseUnknownEventOlderThanDedupWindow() {
+    // given
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
+    Instant publishedAt = Instant.now().minus(Duration.ofDays(45));
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+    when(processedEventService.checkEvent(anyString(), anyString(), eq(publishedAt)))
+        .thenReturn(DedupStatus.UNKNOWN);
+
+    // when & then
+    assertThatThrownBy(
+        () -> transactionEventService.processTransactionAuthorized(event, publishedAt))
+        .isInstanceOf(DedupWindowExceededException.class);
+    verify(processedEventService, never()).claimEvent(anyString(), anyString(), any());
+    verify(cmsCommitDispatcher, never()).commit(any());
+  }
+
+  @Test
+  void shouldClaimOldEventWhoseRowIsStillKnown() {
+    // given
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
+    Instant publishedAt = Instant.now().minus(Duration.ofDays(45));
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+    when(processedEventService.checkEvent(anyString(), anyString(), eq(publishedAt)))
+        .thenReturn(DedupStatus.SEEN);
+    when(processedEventService.claimEvent(anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    // when
+    transactionEventService.processTransactionAuthorized(event, publishedAt);
+
+    // then
+    verify(processedEventService, times(1)).claimEvent(anyString(), anyString(), any());
+    verify(cmsCommitDispatcher, never()).commit(any());
+  }
+
+  @Test
+  void shouldNotLookUpWindowForRecentEvent() {
+    // given
+    TransactionAuthorizedEvent event = createTransactionAuthorizedEvent(123L, 456L);
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+    when(processedEventService.claimEvent(anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    // when
+    transactionEventService.processTransactionAuthorized(event, Instant.now());
+
+    // then
+    verify(processedEventService, never()).checkEvent(anyString(), anyString(), any());
+  }
+
+  @Test
+  void shouldFailBatchAtUnknownEventOlderThanDedupWindow() {
+    // given
+    TransactionAuthorizedEvent recent = createTransactionAuthorizedEvent(1L, 11L);
+    TransactionAuthorizedEvent old = createTransactionAuthorizedEvent(2L, 22L);
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.checkEvent(anyString(), anyString(), any()))
+        .thenReturn(DedupStatus.UNKNOWN);
+    when(processedEventService.claimEvents(any(), any())).then(claimAll());
+    when(cmsCommitDispatcher.commitAll(any())).then(commitEach());
+
+    // when & then
+    assertThatThrownBy(() -> transactionEventService.processTransactionAuthorizedBatch(
+        List.of(recent, old), List.of(Instant.now(), Instant.now().minus(Duration.ofDays(45)))))
+        .isInstanceOfSatisfying(BatchRecordFailedException.class, e -> {
+          assertThat(e.getIndex()).isEqualTo(1);
+          assertThat(e.getCause()).isInstanceOf(DedupWindowExceededException.class);
+        });
+
+    assertThat(completed()).hasSize(1);
+    verify(cmsCommitDispatcher, times(1)).commitAll(
+        List.of(CommitTransactionRequest.builder().transactionId(1L).holdId(11L).build()));
+  }
+
+  @Test
+  void shouldClaimOldBatchEventTheStoreStillKnows() {
+    // given - the up-front lookup missed the row, as a stale dedup cache can
+    TransactionAuthorizedEvent old = createTransactionAuthorizedEvent(2L, 22L);
+    Instant publishedAt = Instant.now().minus(Duration.ofDays(45));
+    when(processedEventService.dedupWindow()).thenReturn(Duration.ofDays(30));
+    when(processedEventService.findProcessedEvents(any(), any())).thenReturn(List.of());
+    when(processedEventService.checkEvent(anyString(), anyString(), eq(publishedAt)))
+        .thenReturn(DedupStatus.SEEN);
+    when(processedEventService.claimEvents(any(), any())).thenReturn(Set.of());
+
+    // when
+    transactionEventService.processTransactionAuthorizedBatch(List.of(old),
+        List.of(publishedAt));
+
+    // then - left to the claim, which finds the row
+    verify(processedEventService, times(1)).claimEvents(any(), any());
+    verify(cmsCommitDispatcher, never()).commitAll(any());
+  }
+
+  private static Answer<Set<String>> claimAll() {
+    return invocation -> invocation.<List<ProcessedEvent>>getArgument(0).stream()
+        .map(ProcessedEvent::getEventId).collect(Collectors.toSet());
+  }
+
+  private List<ProcessedEvent> completed() {
+    ArgumentCaptor<List<ProcessedEvent>> outcomes = ArgumentCaptor.captor();
+    verify(processedEventService, times(1)).completeEvents(outcomes.capture());
+    return outcomes.getValue();
+  }
+
+  private static Answer<List<CommitResult>> commitEach() {
+    return invocation -> invocation.<List<CommitTransactionRequest>>getArgument(0).stream()
+        .map(request -> new CommitResult(request, null)).toList();
+  }
+
   private TransactionAuthorizedEvent createTransactionAuthorizedEvent(Long transactionId,
       Long holdId) {
     TransactionAuthorizedEvent event = new TransactionAuthorizedEvent();
@@ -0,0 +1,58 @@
+package com.creditx.posting.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void shouldContainEveryAddedKey() {
+    // given
+    BloomFilter filter = BloomFilter.withMemory(4096, 0.01);
+
+    // when
+    IntStream.range(0, 1000).forEach(i -> filter.put("event-" + i));
+
+    // then
+    assertThat(IntStream.range(0, 1000).allMatch(i -> filter.mightContain("event-" + i)))
+        .isTrue();
+  }
+
+  @Test
+  void shouldStayNearTargetFalsePositiveRateAtExpectedInsertions() {
+    // given
+    BloomFilter filter = BloomFilter.withMemory(64 * 1024, 0.01);
+    long insertions = filter.expectedInsertions();
+    for (long i = 0; i < insertions; i++) {
+      filter.put("seen-" + i);
+    }
+
+    // when
+    long falsePositives = IntStream.range(0, 100_000)
+        .filter(i -> filter.mightContain("unseen-" + i)).count();
+
+    // then
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    assertThat(filter.saturation()).isBetween(0.4, 0.6);
+  }
+
+  @Test
+  void shouldSizeFromMemoryBudget() {
+    // when
+    BloomFilter filter = BloomFilter.withMemory(1024 * 1024, 0.01);
+
+    // then - about 9.6 bits per key at 1%
+    assertThat(filter.memoryBytes()).isEqualTo(1024 * 1024);
+    assertThat(filter.expectedInsertions()).isBetween(870_000L, 880_000L);
+    assertThat(filter.saturation()).isZero();
+  }
+
+  @Test
+  void shouldRejectInvalidFalsePositiveRate() {
+    assertThatThrownBy(() -> BloomFilter.withMemory(1024, 1.0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -2,27 +2,25 @@ package com.creditx.posting.util;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.creditx.posting.dto.TransactionAuthorizedEvent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 
 class EventIdGeneratorTest {
 
     @Test
-    void shouldGenerateUniqueEventId() {
+    void shouldGenerateSameEventIdForEveryRedelivery() {
         // given
         String eventType = "transaction.authorized";
-        Long transactionId = 123L;
 
         // when
-        String eventId1 = EventIdGenerator.generateEventId(eventType, transactionId);
-        String eventId2 = EventIdGenerator.generateEventId(eventType, transactionId);
+        String eventId1 = EventIdGenerator.generateEventId(eventType, 123L, 456L);
+        String eventId2 = EventIdGenerator.generateEventId(eventType, 123L, 456L);
 
         // then
-        assertThat(eventId1).isNotNull();
-        assertThat(eventId2).isNotNull();
-        assertThat(eventId1).isNotEqualTo(eventId2); // Should be unique due to UUID suffix
-        assertThat(eventId1).startsWith("transaction.authorized-123-");
-        assertThat(eventId2).startsWith("transaction.authorized-123-");
-        assertThat(eventId1).hasSize(eventType.length() + 1 + transactionId.toString().length() + 1 + 8); // eventType-transactionId-8charUUID
+        assertThat(eventId1).isEqualTo("transaction.authorized-123-456");
+        assertThat(eventId2).isEqualTo(eventId1);
     }
 
     @Test
@@ -31,28 +29,27 @@ class EventIdGeneratorTest {
         Long transactionId = 456L;
 
         // when
-        String eventId1 = EventIdGenerator.generateEventId("transaction.authorized", transactionId);
-        String eventId2 = EventIdGenerator.generateEventId("transaction.posted", transactionId);
+        String eventId1 =
+            EventIdGenerator.generateEventId("transaction.authorized", transactionId, 1L);
+        String eventId2 = EventIdGenerator.generateEventId("transaction.posted", transactionId, 1L);
 
         // then
-        assertThat(eventId1).startsWith("transaction.authorized-456-");
-        assertThat(eventId2).startsWith("transaction.posted-456-");
-        assertThat(eventId1).isNotEqualTo(eventId2);
+        assertThat(eventId1).isEqualTo("transaction.authorized-456-1");
+        assertThat(eventId2).isEqualTo("transaction.posted-456-1");
     }
 
     @Test
-    void shouldGenerateEventIdWithDifferentTransactionIds() {
+    void shouldGenerateEventIdWithDifferentTransactionAndHoldIds() {
         // given
         String eventType = "hold.created";
 
         // when
-        String eventId1 = EventIdGenerator.generateEventId(eventType, 111L);
-        String eventId2 = EventIdGenerator.generateEventId(eventType, 222L);
+        String eventId1 = EventIdGenerator.generateEventId(eventType, 111L, 1L);
+        String eventId2 = EventIdGenerator.generateEventId(eventType, 222L, 1L);
+        String eventId3 = EventIdGenerator.generateEventId(eventType, 111L, 2L);
 
         // then
-        assertThat(eventId1).startsWith("hold.created-111-");
-        assertThat(eventId2).startsWith("hold.created-222-");
-        assertThat(eventId1).isNotEqualTo(eventId2);
+        assertThat(eventId1).isNotEqualTo(eventId2).isNotEqualTo(eventId3);
     }
 
     @Test
@@ -122,4 +119,58 @@ class EventIdGeneratorTest {
         // then
         assertThat(hash).matches("^[a-f0-9]{64}$"); // Should be valid hex string
     }
+
+    @Test
+    void shouldMatchKnownSha256Digest() {
+        // when
+        String hash = EventIdGenerator.generatePayloadHash("hello");
+
+        // then
+        assertThat(hash).isEqualTo(
+            "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+    }
+
+    @Test
+    void shouldHashRawBytesLikeTheirString() {
+        // given
+        String payload = "{\"transactionId\":123,\"holdId\":456,\"currency\":\"\u20AC\"}";
+
+        // when
+        String fromBytes = EventIdGenerator.generatePayloadHash(
+            payload.getBytes(StandardCharsets.UTF_8), PayloadHashAlgorithm.SHA_256);
+
+        // then
+        assertThat(fromBytes).isEqualTo(EventIdGenerator.generatePayloadHash(payload));
+    }
+
+    @Test
+    void shouldHashEventAsRowsOfTheOldKeyLayoutWereHashed() throws Exception {
+        // given
+        TransactionAuthorizedEvent event = TransactionAuthorizedEvent.builder()
+            .transactionId(123L).holdId(456L).issuerAccountId(1L).merchantAccountId(2L)
+            .amount(new BigDecimal("10.50")).currency("USD").build();
+
+        // when
+        String hash = EventIdGenerator.generateLegacyPayloadHash(event);
+
+        // then - the fields in declaration order, nulls included, as a default mapper writes them
+        assertThat(hash).isEqualTo(EventIdGenerator.generatePayloadHash(
+            "{\"transactionId\":123,\"holdId\":456,\"issuerAccountId\":1,"
+                + "\"merchantAccountId\":2,\"amount\":10.50,\"currency\":\"USD\","
+                + "\"status\":null}"));
+    }
+
+    @Test
+    void shouldMatchMurmur3ReferenceVectors() {
+        // when & then - reference values of MurmurHash3_x64_128 with seed 0
+        assertThat(murmur3("")).isEqualTo("00000000000000000000000000000000");
+        assertThat(murmur3("hello")).isEqualTo("cbd8a7b341bd9b025b1e906a48ae1d19");
+        assertThat(murmur3("The quick brown fox jumps over the lazy dog"))
+            .isEqualTo("e34bbc7bbc071b6c7a433ca9c49a9347");
+    }
+
+    private static String murmur3(String payload) {
+        return EventIdGenerator.generatePayloadHash(payload.getBytes(StandardCharsets.UTF_8),
+            PayloadHashAlgorithm.MURMUR3_128);
+    }
 }